@@ -45,6 +45,7 @@ public final class C1XOptions {
     public static int     MaximumRecursiveInlineLevel        = 1;
     public static int     MaximumDesiredSize                 = 8000;
     public static int     MaximumShortLoopSize               = 5;
+    public static int     MaximumEscapeAnalysisArrayLength   = 32;
 
     // intrinsification settings
     public static boolean OptIntrinsify                      = ____;
@@ -83,6 +84,7 @@ public final class C1XOptions {
     public static int     TraceBytecodeParserLevel           = 0;
     public static boolean PrintAssumptions                   = ____;
     public static boolean PrintInlinedIntrinsics             = ____;
+    public static boolean PrintEscapeAnalysis                = ____;
 
     // IR checking
     public static boolean InterpretInvokedMethods            = ____;
@@ -116,10 +118,18 @@ public final class C1XOptions {
     public static boolean OptDeadCodeElimination2;
     public static boolean OptControlFlow;
     public static boolean OptMoveElimination;
+    public static boolean OptLoopInvariantCodeMotion;
+    public static boolean OptRangeCheckElimination;
+    public static boolean OptEscapeAnalysis;
 
     // optimistic optimization settings
     public static boolean UseAssumptions                = true;
 
+    // profile-guided optimization settings
+    public static boolean UseTypeProfile                = true;
+    public static int     TypeProfileWidth              = 2;
+    public static int     TypeProfileMinimumCount       = 100;
+
     // state merging settings
     public static boolean AssumeVerifiedBytecode        = ____;
     public static boolean PhiSimplify                   = true;
@@ -198,5 +208,8 @@ public final class C1XOptions {
         OptDiamondElimination           = lll;
         OptCEElimination                = lll;
         OptBlockSkipping                = lll;
+        OptLoopInvariantCodeMotion      = lll;
+        OptRangeCheckElimination        = lll;
+        OptEscapeAnalysis               = lll;
     }
 }
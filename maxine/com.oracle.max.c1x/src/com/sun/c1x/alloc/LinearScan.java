@@ -2047,6 +2047,9 @@ public final class LinearScan {
     }
 
     CiValue toCiValue(int opId, Value value) {
+        if (value instanceof VirtualObject) {
+            return toCiVirtualObject(opId, (VirtualObject) value);
+        }
         if (value != null && value.operand() != CiValue.IllegalValue) {
             CiValue operand = value.operand();
             Constant con = null;
@@ -2101,6 +2104,20 @@ public final class LinearScan {
         }
     }
 
+    /**
+     * Describes an object whose allocation was removed by escape analysis in terms of the current
+     * locations of its field values, so that deoptimization can reallocate it.
+     */
+    private CiVirtualObject toCiVirtualObject(int opId, VirtualObject object) {
+        Value[] fieldValues = object.values();
+        CiValue[] values = new CiValue[fieldValues.length];
+        for (int i = 0; i < fieldValues.length; i++) {
+            Value fieldValue = fieldValues[i];
+            values[i] = fieldValue.isConstant() ? fieldValue.asConstant() : toCiValue(opId, fieldValue);
+        }
+        return CiVirtualObject.get(object.type(), values, object.id());
+    }
+
     CiFrame computeFrameForState(int opId, FrameState state, CiBitMap frameRefMap) {
         CiFrame callerFrame = null;
 
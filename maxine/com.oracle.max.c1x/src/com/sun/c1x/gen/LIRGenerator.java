@@ -877,6 +877,13 @@ public abstract class LIRGenerator extends ValueVisitor {
         }
     }
 
+    @Override
+    public void visitNonNullCheck(NonNullCheck x) {
+        CiValue value = load(x.object());
+        lir.cmp(x.condition.negate(), value, CiConstant.NULL_OBJECT);
+        emitGuard(x);
+    }
+
     @Override
     public void visitOsrEntry(OsrEntry x) {
         // construct our frame and model the production of incoming pointer
@@ -891,6 +898,11 @@ public abstract class LIRGenerator extends ValueVisitor {
         Util.shouldNotReachHere();
     }
 
+    @Override
+    public void visitVirtualObject(VirtualObject i) {
+        Util.shouldNotReachHere();
+    }
+
     @Override
     public void visitReturn(Return x) {
         if (x.kind.isVoid()) {
@@ -1893,6 +1905,12 @@ public abstract class LIRGenerator extends ValueVisitor {
                     }
                 }
             }
+            for (int index = 0; index < s.locksSize(); index++) {
+                final Value value = s.lockAt(index);
+                if (value instanceof VirtualObject) {
+                    walkStateValue(value);
+                }
+            }
             bci = scope.callerBCI();
             s = s.callerState();
         }
@@ -1905,6 +1923,11 @@ public abstract class LIRGenerator extends ValueVisitor {
             if (value instanceof Phi && !value.isIllegal()) {
                 // phi's are special
                 operandForPhi((Phi) value);
+            } else if (value instanceof VirtualObject) {
+                // the allocation was removed, only its field values are needed
+                for (Value fieldValue : ((VirtualObject) value).values()) {
+                    walkStateValue(fieldValue);
+                }
             } else if (value.operand().isIllegal() && !(value instanceof UnsafeCast)) {
                 // instruction doesn't have an operand yet
                 CiValue operand = makeOperand(value);
@@ -2088,6 +2111,10 @@ public abstract class LIRGenerator extends ValueVisitor {
             return current == null ? null : current.exactType();
         }
 
+        public RiTypeProfile getTypeProfile() {
+            return current instanceof Invoke ? ((Invoke) current).typeProfile : null;
+        }
+
         XirSupport site(Value v) {
             current = v;
             return this;
@@ -2138,7 +2165,7 @@ public abstract class LIRGenerator extends ValueVisitor {
 
     private CiValue emitInvokeKnown(RiResolvedMethod method, FrameState stateBefore, Value... args) {
         boolean isStatic = Modifier.isStatic(method.accessFlags());
-        Invoke invoke = new Invoke(isStatic ? Bytecodes.INVOKESTATIC : Bytecodes.INVOKESPECIAL, method.signature().returnKind(true), args, isStatic, method, null, stateBefore);
+        Invoke invoke = new Invoke(isStatic ? Bytecodes.INVOKESTATIC : Bytecodes.INVOKESPECIAL, method.signature().returnKind(true), args, isStatic, method, null, null, stateBefore);
         visitInvoke(invoke);
         return invoke.operand();
     }
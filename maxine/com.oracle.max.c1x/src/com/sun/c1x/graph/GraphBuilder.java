@@ -1059,7 +1059,29 @@ public final class GraphBuilder {
         }
 
         // devirtualization failed, produce an actual invokevirtual
-        appendInvoke(opcode, target, args, false, cpi, constantPool);
+        RiTypeProfile typeProfile = opcode == INVOKEINTERFACE && target instanceof RiResolvedMethod ? getReceiverTypeProfile() : null;
+        appendInvoke(opcode, target, args, false, typeProfile, cpi, constantPool);
+    }
+
+    /**
+     * Gets the receiver type profile of the current call site if it shows the site to be monomorphic or
+     * bimorphic, in which case the call can be dispatched through a guarded inline cache.
+     *
+     * @return the profile or {@code null} if there is no profile or it should not be used
+     */
+    private RiTypeProfile getReceiverTypeProfile() {
+        if (!C1XOptions.UseTypeProfile) {
+            return null;
+        }
+        RiTypeProfile profile = curState.scope().method.typeProfile(bci());
+        if (profile == null || profile.count < C1XOptions.TypeProfileMinimumCount) {
+            return null;
+        }
+        // any receiver type that was not recorded makes the site polymorphic
+        if (profile.types.length == 0 || profile.morphism > profile.types.length || profile.morphism > C1XOptions.TypeProfileWidth) {
+            return null;
+        }
+        return profile;
     }
 
     private CiKind returnKind(RiMethod target) {
@@ -1074,8 +1096,12 @@ public final class GraphBuilder {
     }
 
     private void appendInvoke(int opcode, RiMethod target, Value[] args, boolean isStatic, int cpi, RiConstantPool constantPool) {
+        appendInvoke(opcode, target, args, isStatic, null, cpi, constantPool);
+    }
+
+    private void appendInvoke(int opcode, RiMethod target, Value[] args, boolean isStatic, RiTypeProfile typeProfile, int cpi, RiConstantPool constantPool) {
         CiKind resultType = returnKind(target);
-        Value result = append(new Invoke(opcode, resultType.stackKind(), args, isStatic, target, target.signature().returnType(compilation.method.holder()), null));
+        Value result = append(new Invoke(opcode, resultType.stackKind(), args, isStatic, target, target.signature().returnType(compilation.method.holder()), typeProfile, null));
         pushReturn(resultType, result);
     }
 
@@ -77,6 +77,7 @@ public class DefaultValueVisitor extends ValueVisitor {
     @Override public void visitNewObjectArray(NewObjectArray i) { visit(i); }
     @Override public void visitNewObjectArrayClone(NewObjectArrayClone i) { visit(i); }
     @Override public void visitNewTypeArray(NewTypeArray i) { visit(i); }
+    @Override public void visitNonNullCheck(NonNullCheck i) { visit(i); }
     @Override public void visitNullCheck(NullCheck i) { visit(i); }
     @Override public void visitOsrEntry(OsrEntry i) { visit(i); }
     @Override public void visitPause(Pause i) { visit(i); }
@@ -101,6 +102,7 @@ public class DefaultValueVisitor extends ValueVisitor {
     @Override public void visitUnsafePutObject(UnsafePutObject i) { visit(i); }
     @Override public void visitUnsafePutRaw(UnsafePutRaw i) { visit(i); }
     @Override public void visitUnsignedCompareOp(UnsignedCompareOp i) { visit(i); }
+    @Override public void visitVirtualObject(VirtualObject i) { visit(i); }
     @Override public void visitIfBit(IfBit i) { visit(i); }
     @Override public void visitMaxSimMagicOp(MaxSimMagicOp i) { visit(i); }
 }
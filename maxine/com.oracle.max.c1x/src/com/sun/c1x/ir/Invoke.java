@@ -38,6 +38,11 @@ public final class Invoke extends StateSplit {
     public final RiMethod target;
     public final RiType returnType;
 
+    /**
+     * The receiver type profile of this call site, if it is to be used to dispatch the call.
+     */
+    public final RiTypeProfile typeProfile;
+
     /**
      * Constructs a new Invoke instruction.
      *
@@ -46,14 +51,16 @@ public final class Invoke extends StateSplit {
      * @param args the list of instructions producing arguments to the invocation, including the receiver object
      * @param isStatic {@code true} if this call is static (no receiver object)
      * @param target the target method being called
+     * @param typeProfile the receiver type profile used to dispatch the call or {@code null}
      * @param stateBefore the state before executing the invocation
      */
-    public Invoke(int opcode, CiKind result, Value[] args, boolean isStatic, RiMethod target, RiType returnType, FrameState stateBefore) {
+    public Invoke(int opcode, CiKind result, Value[] args, boolean isStatic, RiMethod target, RiType returnType, RiTypeProfile typeProfile, FrameState stateBefore) {
         super(result, stateBefore);
         this.opcode = opcode;
         this.arguments = args;
         this.target = target;
         this.returnType = returnType;
+        this.typeProfile = typeProfile;
         if (isStatic) {
             setFlag(Flag.IsStatic);
             eliminateNullCheck();
@@ -67,6 +67,7 @@ public abstract class ValueVisitor {
     public abstract void visitNewObjectArray(NewObjectArray i);
     public abstract void visitNewObjectArrayClone(NewObjectArrayClone newObjectArrayClone);
     public abstract void visitNewTypeArray(NewTypeArray i);
+    public abstract void visitNonNullCheck(NonNullCheck nonNullCheck);
     public abstract void visitNullCheck(NullCheck i);
     public abstract void visitOsrEntry(OsrEntry i);
     public abstract void visitPause(Pause i);
@@ -91,6 +92,7 @@ public abstract class ValueVisitor {
     public abstract void visitUnsafePutObject(UnsafePutObject i);
     public abstract void visitUnsafePutRaw(UnsafePutRaw i);
     public abstract void visitUnsignedCompareOp(UnsignedCompareOp i);
+    public abstract void visitVirtualObject(VirtualObject i);
     public abstract void visitIfBit(IfBit i);
     public abstract void visitMaxSimMagicOp(MaxSimMagicOp i);
 }
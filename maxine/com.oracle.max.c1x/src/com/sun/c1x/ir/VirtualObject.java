@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.c1x.ir;
+
+import com.oracle.max.criutils.*;
+import com.sun.c1x.util.*;
+import com.sun.cri.ci.*;
+import com.sun.cri.ri.*;
+
+/**
+ * The {@code VirtualObject} value stands for an object whose allocation was removed by escape analysis.
+ * It only appears in {@linkplain com.sun.c1x.value.FrameState frame states} and records the values of
+ * the object's fields at that point so that deoptimization can recreate the object.
+ * <p>
+ * The values of an instance are ordered like the fields returned by {@link RiResolvedType#declaredFields()}
+ * for the class and each of its superclasses, starting with the fields of {@link Object}. The values of an
+ * array are its elements.
+ */
+public final class VirtualObject extends Value {
+
+    private final RiResolvedType type;
+    private final Value[] values;
+
+    /**
+     * Creates a new virtual object.
+     * @param type the class or array type of the object
+     * @param values the values of the fields or elements of the object
+     */
+    public VirtualObject(RiResolvedType type, Value[] values) {
+        super(CiKind.Object);
+        this.type = type;
+        this.values = values;
+        setFlag(Flag.NonNull);
+    }
+
+    @Override
+    public BlockBegin block() {
+        return null;
+    }
+
+    /**
+     * Gets the type of the object whose allocation was removed.
+     */
+    public RiResolvedType type() {
+        return type;
+    }
+
+    /**
+     * Gets the values of the fields or elements of the object.
+     */
+    public Value[] values() {
+        return values;
+    }
+
+    @Override
+    public RiResolvedType exactType() {
+        return type;
+    }
+
+    @Override
+    public void inputValuesDo(ValueClosure closure) {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = closure.apply(values[i]);
+        }
+    }
+
+    @Override
+    public void accept(ValueVisitor v) {
+        v.visitVirtualObject(this);
+    }
+
+    @Override
+    public void print(LogStream out) {
+        out.print("virtual ").print(CiUtil.toJavaName(type)).print(" {");
+        for (int i = 0; i < values.length; i++) {
+            if (i != 0) {
+                out.print(", ");
+            }
+            out.print(Util.valueString(values[i]));
+        }
+        out.print('}');
+    }
+}
@@ -0,0 +1,498 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.c1x.opt;
+
+import java.lang.reflect.*;
+import java.util.*;
+
+import com.oracle.max.criutils.*;
+import com.sun.c1x.*;
+import com.sun.c1x.graph.*;
+import com.sun.c1x.ir.*;
+import com.sun.c1x.value.*;
+import com.sun.c1x.value.FrameState.PhiProcedure;
+import com.sun.cri.ci.*;
+import com.sun.cri.ri.*;
+
+/**
+ * Removes the allocation of objects that do not escape the method being compiled (including the methods
+ * inlined into it) and replaces the loads of their fields by the values last stored to them.
+ * <p>
+ * An allocation of an initialized instance class without finalizer, or of a primitive array of constant
+ * length (see {@link C1XOptions#MaximumEscapeAnalysisArrayLength}), is replaced if it is only used by
+ * <ul>
+ * <li>loads of its fields, or of its elements at constant indexes,</li>
+ * <li>stores to its fields or elements at constant indexes that are in the allocating block,</li>
+ * <li>{@code arraylength}, {@code monitorenter} and {@code monitorexit}, which are removed,</li>
+ * <li>frame states.</li>
+ * </ul>
+ * In frame states, the object is described by a {@link VirtualObject} holding its field values at that point,
+ * from which deoptimization reallocates the object (and locks it again if its locking was removed). As the HIR
+ * cannot merge field values, all stores must be in the allocating block, and the object must not flow into
+ * a phi or into an exception handler of the allocating block. It may reach the handlers of other blocks, such
+ * as the handler that releases the lock of a {@code synchronized} statement, where its field values are final.
+ */
+public class EscapeAnalyzer {
+
+    /**
+     * An allocation that may be replaced.
+     */
+    static final class Allocation {
+        final Instruction instr;
+        final BlockBegin block;
+        final RiResolvedType type;
+
+        /**
+         * The fields of the allocated instance, or {@code null} if it is an array.
+         */
+        final RiResolvedField[] fields;
+
+        /**
+         * The kinds of the fields or elements of the object.
+         */
+        final CiKind[] kinds;
+
+        /**
+         * The values of the fields or elements at the current point of the IR while it is rewritten.
+         */
+        final Value[] values;
+
+        /**
+         * The number of stores to the object, and the number of stores seen so far when walking the allocating block.
+         */
+        int stores;
+        int version;
+
+        /**
+         * The number of stores to the object preceding each frame state referring to it.
+         */
+        final IdentityHashMap<FrameState, Integer> stateVersions = new IdentityHashMap<FrameState, Integer>();
+
+        VirtualObject virtualObject;
+        boolean escapes;
+
+        Allocation(Instruction instr, BlockBegin block, RiResolvedType type, RiResolvedField[] fields, CiKind[] kinds) {
+            this.instr = instr;
+            this.block = block;
+            this.type = type;
+            this.fields = fields;
+            this.kinds = kinds;
+            this.values = new Value[kinds.length];
+        }
+
+        int fieldIndex(AccessField access) {
+            if (fields != null && access.isLoaded() && !access.isStatic()) {
+                for (int i = 0; i < fields.length; i++) {
+                    if (fields[i].equals(access.field())) {
+                        return i;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        int elementIndex(AccessIndexed access) {
+            if (fields == null && access.index().isConstant()) {
+                int index = access.index().asConstant().asInt();
+                if (index >= 0 && index < kinds.length) {
+                    return index;
+                }
+            }
+            return -1;
+        }
+
+        int index(Instruction access) {
+            return access instanceof AccessField ? fieldIndex((AccessField) access) : elementIndex((AccessIndexed) access);
+        }
+
+        /**
+         * Gets the virtual object describing the current values of the object's fields.
+         */
+        VirtualObject virtualObject() {
+            if (virtualObject == null) {
+                virtualObject = new VirtualObject(type, values.clone());
+            }
+            return virtualObject;
+        }
+    }
+
+    final IR ir;
+    final InstructionSubstituter subst;
+
+    final IdentityHashMap<Value, Allocation> allocations = new IdentityHashMap<Value, Allocation>();
+
+    /**
+     * The instructions that access one of the {@linkplain #allocations} and are removed along with it.
+     */
+    final IdentityHashMap<Instruction, Allocation> accesses = new IdentityHashMap<Instruction, Allocation>();
+
+    int allocationCount;
+    int replacedCount;
+    int monitorCount;
+
+    final ValueClosure escapeMarker = new ValueClosure() {
+        public Value apply(Value i) {
+            Allocation allocation = allocations.get(i);
+            if (allocation != null) {
+                allocation.escapes = true;
+            }
+            return i;
+        }
+    };
+
+    final ValueClosure virtualizer = new ValueClosure() {
+        public Value apply(Value i) {
+            Allocation allocation = allocations.get(i);
+            if (allocation != null && !allocation.escapes) {
+                return allocation.virtualObject();
+            }
+            return i;
+        }
+    };
+
+    /**
+     * Gets a closure that marks the allocations whose allocating block throws to a given exception handler as escaping.
+     */
+    private ValueClosure handlerEscapeMarker(final BlockBegin handler) {
+        return new ValueClosure() {
+            public Value apply(Value i) {
+                Allocation allocation = allocations.get(i);
+                if (allocation != null && allocation.block.exceptionHandlerBlocks().contains(handler)) {
+                    allocation.escapes = true;
+                }
+                return i;
+            }
+        };
+    }
+
+    public EscapeAnalyzer(IR ir) {
+        this.ir = ir;
+        this.subst = new InstructionSubstituter(ir);
+        findAllocations();
+        if (!allocations.isEmpty()) {
+            findEscapes();
+            while (checkFrameStates()) {
+                // repeat until the frame states of the remaining instructions are consistent
+            }
+            for (Allocation allocation : allocations.values()) {
+                if (!allocation.escapes) {
+                    replacedCount++;
+                }
+            }
+            if (replacedCount > 0) {
+                replaceAllocations();
+                subst.finish();
+            }
+        }
+        C1XMetrics.AllocationsScalarReplaced += replacedCount;
+        C1XMetrics.MonitorsEliminated += monitorCount;
+        if (C1XOptions.PrintEscapeAnalysis && allocationCount > 0) {
+            TTY.println("Escape analysis of " + CiUtil.format("%H.%n(%p)", ir.compilation.method) + ": " + allocationCount +
+                        " allocations before, " + (allocationCount - replacedCount) + " after, " + monitorCount + " monitor operations removed");
+        }
+    }
+
+    private void findAllocations() {
+        for (BlockBegin block : ir.linearScanOrder()) {
+            for (Instruction instr = block.next(); instr != null; instr = instr.next()) {
+                if (instr instanceof NewInstance) {
+                    allocationCount++;
+                    RiType type = ((NewInstance) instr).instanceClass();
+                    if (type instanceof RiResolvedType) {
+                        RiResolvedField[] fields = instanceFields((RiResolvedType) type);
+                        if (fields != null) {
+                            CiKind[] kinds = new CiKind[fields.length];
+                            for (int i = 0; i < fields.length; i++) {
+                                kinds[i] = fields[i].kind(false);
+                            }
+                            allocations.put(instr, new Allocation(instr, block, (RiResolvedType) type, fields, kinds));
+                        }
+                    }
+                } else if (instr instanceof NewArray) {
+                    allocationCount++;
+                    if (instr instanceof NewTypeArray && ((NewTypeArray) instr).length().isConstant()) {
+                        NewTypeArray newArray = (NewTypeArray) instr;
+                        int length = newArray.length().asConstant().asInt();
+                        if (length >= 0 && length <= C1XOptions.MaximumEscapeAnalysisArrayLength) {
+                            CiKind[] kinds = new CiKind[length];
+                            Arrays.fill(kinds, newArray.elementKind());
+                            allocations.put(instr, new Allocation(instr, block, newArray.exactType(), null, kinds));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the instance fields of a class that can be allocated without side effect, superclass fields first.
+     *
+     * @return {@code null} if allocating {@code type} has other effects than creating the object, or if it has fields
+     *         whose machine kind is not their Java kind
+     */
+    private static RiResolvedField[] instanceFields(RiResolvedType type) {
+        if (!type.isInstanceClass() || !type.isInitialized() || type.hasFinalizer() || Modifier.isAbstract(type.accessFlags())) {
+            return null;
+        }
+        ArrayList<RiResolvedField> fields = new ArrayList<RiResolvedField>();
+        for (RiResolvedType t = type; t != null; t = t.superType()) {
+            RiResolvedField[] declaredFields = t.declaredFields();
+            for (int i = declaredFields.length - 1; i >= 0; i--) {
+                RiResolvedField field = declaredFields[i];
+                if (field.kind(true) != field.kind(false)) {
+                    return null;
+                }
+                fields.add(field);
+            }
+        }
+        Collections.reverse(fields);
+        return fields.toArray(new RiResolvedField[fields.size()]);
+    }
+
+    private void findEscapes() {
+        for (BlockBegin block : ir.linearScanOrder()) {
+            block.stateBefore().forEachPhi(block, new PhiProcedure() {
+                public boolean doPhi(Phi phi) {
+                    for (int j = 0; j < phi.inputCount(); j++) {
+                        escapeMarker.apply(phi.inputAt(j));
+                    }
+                    return true;
+                }
+            });
+            if (block.exceptionHandlerStates() != null) {
+                // the field values of an object reaching a handler from its allocating block are not known,
+                // whereas they are final in the other blocks
+                for (FrameState state : block.exceptionHandlerStates()) {
+                    state.valuesDo(handlerEscapeMarker(block));
+                }
+            }
+            for (Instruction instr = block.next(); instr != null; instr = instr.next()) {
+                Allocation allocation = removableAccess(instr, block);
+                if (allocation != null) {
+                    accesses.put(instr, allocation);
+                } else {
+                    instr.inputValuesDo(escapeMarker);
+                }
+            }
+        }
+    }
+
+    /**
+     * Determines if an instruction is an access to a candidate allocation that can be removed along with it.
+     * This method marks any other candidate allocation used by the access as escaping.
+     */
+    private Allocation removableAccess(Instruction instr, BlockBegin block) {
+        if (instr instanceof LoadField) {
+            Allocation allocation = allocations.get(((LoadField) instr).object());
+            if (allocation != null && allocation.fieldIndex((LoadField) instr) >= 0) {
+                return allocation;
+            }
+        } else if (instr instanceof StoreField) {
+            StoreField store = (StoreField) instr;
+            Allocation allocation = allocations.get(store.object());
+            if (allocation != null && allocation.block == block && allocation.fieldIndex(store) >= 0) {
+                escapeMarker.apply(store.value());
+                allocation.stores++;
+                return allocation;
+            }
+        } else if (instr instanceof LoadIndexed) {
+            Allocation allocation = allocations.get(((LoadIndexed) instr).array());
+            if (allocation != null && allocation.elementIndex((LoadIndexed) instr) >= 0) {
+                return allocation;
+            }
+        } else if (instr instanceof StoreIndexed) {
+            StoreIndexed store = (StoreIndexed) instr;
+            Allocation allocation = allocations.get(store.array());
+            if (allocation != null && allocation.block == block && allocation.elementIndex(store) >= 0) {
+                escapeMarker.apply(store.value());
+                allocation.stores++;
+                return allocation;
+            }
+        } else if (instr instanceof ArrayLength) {
+            Allocation allocation = allocations.get(((ArrayLength) instr).array());
+            if (allocation != null && allocation.fields == null) {
+                return allocation;
+            }
+        } else if (instr instanceof AccessMonitor) {
+            return allocations.get(((AccessMonitor) instr).object());
+        }
+        return null;
+    }
+
+    /**
+     * Checks that each frame state of the instructions that are not removed refers to a given allocation at a single
+     * point of its initialization, as a virtual object can only describe one set of field values. Allocations for
+     * which this does not hold are marked as escaping.
+     *
+     * @return {@code true} if an allocation was marked as escaping
+     */
+    private boolean checkFrameStates() {
+        boolean changed = false;
+        for (Allocation allocation : allocations.values()) {
+            allocation.stateVersions.clear();
+        }
+        for (BlockBegin block : ir.linearScanOrder()) {
+            for (Instruction instr = block; instr != null; instr = instr.next()) {
+                Allocation allocation = allocations.get(instr);
+                if (allocation != null && !allocation.escapes) {
+                    allocation.version = 0;
+                    continue;
+                }
+                allocation = accesses.get(instr);
+                if (allocation != null && !allocation.escapes) {
+                    if (instr instanceof StoreField || instr instanceof StoreIndexed) {
+                        allocation.version++;
+                    }
+                    continue;
+                }
+                changed |= checkFrameState(instr.stateBefore());
+                changed |= checkFrameState(instr.stateAfter());
+            }
+        }
+        return changed;
+    }
+
+    private boolean checkFrameState(FrameState state) {
+        boolean changed = false;
+        for (FrameState s = state; s != null; s = s.callerState()) {
+            for (int i = 0; i < s.valuesSize(); i++) {
+                changed |= checkFrameStateValue(s, s.valueAt(i));
+            }
+            for (int i = 0; i < s.locksSize(); i++) {
+                changed |= checkFrameStateValue(s, s.lockAt(i));
+            }
+        }
+        return changed;
+    }
+
+    private boolean checkFrameStateValue(FrameState state, Value value) {
+        Allocation allocation = allocations.get(value);
+        if (allocation == null || allocation.escapes) {
+            return false;
+        }
+        Integer version = allocation.stateVersions.get(state);
+        if (version == null) {
+            allocation.stateVersions.put(state, allocation.version);
+        } else if (version.intValue() != allocation.version) {
+            allocation.escapes = true;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes the allocations that do not escape together with their accesses, and replaces them by virtual objects
+     * in the frame states. The blocks are visited in linear scan order, so the allocating block is visited before
+     * any other block using the object and the field values are final when these blocks are reached.
+     */
+    private void replaceAllocations() {
+        for (BlockBegin block : ir.linearScanOrder()) {
+            block.stateBefore().valuesDo(virtualizer);
+            if (block.exceptionHandlerStates() != null) {
+                for (FrameState state : block.exceptionHandlerStates()) {
+                    state.valuesDo(virtualizer);
+                }
+            }
+            Instruction prev = block;
+            Instruction instr = block.next();
+            while (instr != null) {
+                Instruction next = instr.next();
+                Allocation allocation = allocations.get(instr);
+                if (allocation != null && !allocation.escapes) {
+                    for (int i = 0; i < allocation.kinds.length; i++) {
+                        allocation.values[i] = new Constant(CiConstant.defaultValue(allocation.kinds[i]));
+                    }
+                    prev.resetNext(next);
+                    instr = next;
+                    continue;
+                }
+                allocation = accesses.get(instr);
+                if (allocation != null && !allocation.escapes) {
+                    Instruction replacement = null;
+                    if (instr instanceof StoreField || instr instanceof StoreIndexed) {
+                        Value value = instr instanceof StoreField ? ((StoreField) instr).value() : ((StoreIndexed) instr).value();
+                        allocation.values[allocation.index(instr)] = subst.getSubst(value);
+                        allocation.virtualObject = null;
+                    } else if (instr instanceof LoadField || instr instanceof LoadIndexed) {
+                        int index = allocation.index(instr);
+                        Value value = allocation.values[index];
+                        replacement = narrow(value, allocation.kinds[index]);
+                        subst.setSubst(instr, replacement == null ? value : replacement);
+                    } else if (instr instanceof ArrayLength) {
+                        replacement = new Constant(CiConstant.forInt(allocation.kinds.length));
+                        subst.setSubst(instr, replacement);
+                    } else {
+                        assert instr instanceof AccessMonitor;
+                        monitorCount++;
+                    }
+                    if (replacement != null) {
+                        prev.setNext(replacement, instr.bci());
+                        replacement.resetNext(next);
+                        prev = replacement;
+                    } else {
+                        prev.resetNext(next);
+                    }
+                    instr = next;
+                    continue;
+                }
+                if (instr.stateBefore() != null) {
+                    instr.stateBefore().valuesDo(virtualizer);
+                }
+                if (instr.stateAfter() != null) {
+                    instr.stateAfter().valuesDo(virtualizer);
+                }
+                prev = instr;
+                instr = next;
+            }
+        }
+    }
+
+    /**
+     * Converts a value stored to a field or element of a sub-word kind to the value loaded from it, since the
+     * narrowing done by a store may have been removed by the canonicalizer.
+     *
+     * @return the instruction computing the loaded value, or {@code null} if {@code kind} is not a sub-word kind
+     */
+    private static Instruction narrow(Value value, CiKind kind) {
+        Convert.Op op;
+        switch (kind) {
+            case Boolean:
+            case Byte:
+                op = Convert.Op.I2B;
+                break;
+            case Char:
+                op = Convert.Op.I2C;
+                break;
+            case Short:
+                op = Convert.Op.I2S;
+                break;
+            default:
+                return null;
+        }
+        if (value.isConstant()) {
+            int v = value.asConstant().asInt();
+            return new Constant(CiConstant.forInt(op == Convert.Op.I2C ? (char) v : op == Convert.Op.I2S ? (short) v : (byte) v));
+        }
+        return new Convert(op, value, CiKind.Int);
+    }
+}
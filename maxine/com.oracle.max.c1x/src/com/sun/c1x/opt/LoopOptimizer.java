@@ -0,0 +1,569 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.c1x.opt;
+
+import java.util.*;
+
+import com.sun.c1x.*;
+import com.sun.c1x.graph.*;
+import com.sun.c1x.ir.*;
+import com.sun.c1x.value.*;
+import com.sun.cri.bytecode.*;
+import com.sun.cri.ci.*;
+import com.sun.cri.ri.*;
+
+/**
+ * Finds the natural loops of the IR and optimizes them. It must run after the linear scan
+ * order, and therefore the dominators, have been computed and critical edges have been split.
+ *
+ * Loop invariant code motion ({@link C1XOptions#OptLoopInvariantCodeMotion}) moves instructions that have
+ * no side effect, cannot trap and only use values defined outside the loop to the loop's pre-header.
+ * This includes loads of non-volatile fields of objects known to be non-null if no instruction of the loop
+ * may write the field.
+ *
+ * Range check elimination ({@link C1XOptions#OptRangeCheckElimination}) removes the bounds check of array
+ * accesses indexed by an induction variable that is incremented by one and is compared against a limit by a
+ * test dominating both the access and the increment. If the limit is the length of the accessed array and the
+ * variable starts at a non-negative constant, the check is statically redundant. Otherwise, if the array and the
+ * limit are loop invariant, the check is replaced by {@linkplain Guard guards} in the loop's pre-header that
+ * deoptimize if the variable starts below the limit (or at it, if the loop test is inclusive) and either starts
+ * negative or the limit is not within the array's bounds. The runtime is expected to invalidate code whose guard
+ * failed and to recompile its method with {@link #DISABLE_RANGE_CHECK_ELIMINATION}.
+ */
+public class LoopOptimizer {
+
+    /**
+     * The key of the {@linkplain RiResolvedMethod#compilerStorage() compiler storage} entry that disables range
+     * check elimination in a method, so that code replacing code whose guard failed does not deoptimize again.
+     */
+    public static final Object DISABLE_RANGE_CHECK_ELIMINATION = new Object();
+
+    /**
+     * The array whose length is checked instead of the accessed array when a loop is not entered.
+     */
+    private static final int[] EMPTY_ARRAY = {};
+
+    /**
+     * A natural loop, made of the blocks that reach one of its back edges without going through its header.
+     */
+    static final class Loop {
+        final BlockBegin header;
+        final CiBitMap blocks;
+        final List<BlockBegin> blockList = new ArrayList<BlockBegin>();
+
+        /**
+         * Specifies if the loop can be entered through an exception edge, which
+         * the loop body of this class does not account for.
+         */
+        boolean hasExceptionEntry;
+
+        Loop(BlockBegin header, int numberOfBlocks) {
+            this.header = header;
+            this.blocks = new CiBitMap(numberOfBlocks);
+            blocks.set(header.blockID);
+        }
+
+        boolean contains(BlockBegin block) {
+            return blocks.get(block.blockID);
+        }
+
+        /**
+         * Gets the unique block outside of this loop that enters it, provided it
+         * branches unconditionally to the header.
+         */
+        BlockBegin preHeader() {
+            BlockBegin preHeader = null;
+            for (BlockBegin pred : header.predecessors()) {
+                if (!contains(pred)) {
+                    if (preHeader != null) {
+                        return null;
+                    }
+                    preHeader = pred;
+                }
+            }
+            if (preHeader == null || preHeader.numberOfSux() != 1 || preHeader.isExceptionEntry()) {
+                return null;
+            }
+            return preHeader;
+        }
+    }
+
+    final IR ir;
+    final List<Loop> loops = new ArrayList<Loop>();
+
+    public LoopOptimizer(IR ir) {
+        this.ir = ir;
+        findLoops();
+        boolean eliminateRangeChecks = C1XOptions.OptRangeCheckElimination &&
+                        !ir.compilation.method.compilerStorage().containsKey(DISABLE_RANGE_CHECK_ELIMINATION);
+        for (Loop loop : loops) {
+            if (loop.hasExceptionEntry || loop.header.isExceptionEntry()) {
+                continue;
+            }
+            if (C1XOptions.OptLoopInvariantCodeMotion) {
+                hoistInvariants(loop);
+            }
+            if (eliminateRangeChecks) {
+                eliminateRangeChecks(loop);
+            }
+        }
+    }
+
+    private void findLoops() {
+        List<BlockBegin> blocks = ir.linearScanOrder();
+        int numberOfBlocks = ir.numberOfBlocks();
+        Map<BlockBegin, Loop> loopsByHeader = new HashMap<BlockBegin, Loop>();
+        ArrayList<BlockBegin> workList = new ArrayList<BlockBegin>();
+        for (BlockBegin block : blocks) {
+            for (BlockBegin sux : block.end().successors()) {
+                if (!dominates(sux, block)) {
+                    continue;
+                }
+                // block -> sux is a back edge
+                Loop loop = loopsByHeader.get(sux);
+                if (loop == null) {
+                    loop = new Loop(sux, numberOfBlocks);
+                    loopsByHeader.put(sux, loop);
+                    loops.add(loop);
+                }
+                if (!loop.contains(block)) {
+                    loop.blocks.set(block.blockID);
+                    workList.add(block);
+                }
+                while (!workList.isEmpty()) {
+                    BlockBegin cur = workList.remove(workList.size() - 1);
+                    if (cur.isExceptionEntry()) {
+                        loop.hasExceptionEntry = true;
+                    }
+                    for (BlockBegin pred : cur.predecessors()) {
+                        if (!loop.contains(pred)) {
+                            loop.blocks.set(pred.blockID);
+                            workList.add(pred);
+                        }
+                    }
+                }
+            }
+        }
+        for (Loop loop : loops) {
+            for (BlockBegin block : blocks) {
+                if (loop.contains(block)) {
+                    loop.blockList.add(block);
+                }
+            }
+        }
+        // optimize inner loops first so that what they hoist can be hoisted further by the outer loops
+        Collections.sort(loops, new Comparator<Loop>() {
+            public int compare(Loop o1, Loop o2) {
+                return o2.header.loopDepth() - o1.header.loopDepth();
+            }
+        });
+    }
+
+    private static boolean dominates(BlockBegin dominator, BlockBegin block) {
+        for (BlockBegin b = block; b != null; b = b.dominator()) {
+            if (b == dominator) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void hoistInvariants(final Loop loop) {
+        BlockBegin preHeader = loop.preHeader();
+        if (preHeader == null) {
+            return;
+        }
+        final IdentityHashMap<Value, Value> definedInLoop = new IdentityHashMap<Value, Value>();
+        boolean killsAllFields = false;
+        Set<RiField> killedFields = new HashSet<RiField>();
+        for (BlockBegin block : loop.blockList) {
+            for (Instruction instr = block.next(); instr != null; instr = instr.next()) {
+                definedInLoop.put(instr, instr);
+                if (instr instanceof StoreField) {
+                    StoreField store = (StoreField) instr;
+                    if (!store.isLoaded() || store.isVolatile()) {
+                        killsAllFields = true;
+                    } else {
+                        killedFields.add(store.field());
+                    }
+                } else if (instr instanceof LoadField) {
+                    if (((LoadField) instr).isVolatile()) {
+                        killsAllFields = true;
+                    }
+                } else if (!preservesFields(instr)) {
+                    killsAllFields = true;
+                }
+            }
+        }
+
+        ValueClosure invariance = new ValueClosure() {
+            public Value apply(Value i) {
+                if (i instanceof Phi ? loop.contains(((Phi) i).block()) : definedInLoop.containsKey(i) && !(i instanceof Constant)) {
+                    variant = true;
+                }
+                return i;
+            }
+        };
+
+        Instruction preHeaderLast = preHeader.end().prev(preHeader);
+        for (BlockBegin block : loop.blockList) {
+            Instruction prev = block;
+            Instruction instr = block.next();
+            while (!(instr instanceof BlockEnd)) {
+                Instruction next = instr.next();
+                if (isHoistable(instr, killsAllFields, killedFields)) {
+                    variant = false;
+                    instr.inputValuesDo(invariance);
+                    if (!variant) {
+                        // unlink from the loop and append to the pre-header
+                        prev.resetNext(next);
+                        preHeaderLast.setNext(instr, instr.bci());
+                        instr.setNext(preHeader.end(), preHeader.end().bci());
+                        preHeaderLast = instr;
+                        definedInLoop.remove(instr);
+                        C1XMetrics.LoopInvariantsHoisted++;
+                        instr = next;
+                        continue;
+                    }
+                }
+                prev = instr;
+                instr = next;
+            }
+        }
+    }
+
+    /**
+     * Set by the invariance closure if it visits an input defined in the current loop.
+     */
+    boolean variant;
+
+    private static boolean isHoistable(Instruction instr, boolean killsAllFields, Set<RiField> killedFields) {
+        if (instr.canTrap() || instr.stateBefore() != null) {
+            return false;
+        }
+        if (instr instanceof ArithmeticOp || instr instanceof LogicOp || instr instanceof ShiftOp ||
+            instr instanceof NegateOp || instr instanceof Convert || instr instanceof CompareOp) {
+            return true;
+        }
+        if (instr instanceof ArrayLength) {
+            return ((ArrayLength) instr).array().isNonNull();
+        }
+        if (instr instanceof LoadField) {
+            LoadField load = (LoadField) instr;
+            // the object must be non-null independently of any test in the loop
+            return load.isLoaded() && !load.isVolatile() && load.object().isNonNull() &&
+                   !killsAllFields && !killedFields.contains(load.field());
+        }
+        return false;
+    }
+
+    /**
+     * Determines if an instruction cannot write any field.
+     */
+    private static boolean preservesFields(Instruction instr) {
+        return instr instanceof Op2 || instr instanceof NegateOp || instr instanceof Convert || instr instanceof Constant ||
+               instr instanceof AccessArray || instr instanceof TypeCheck || instr instanceof NullCheck || instr instanceof Guard ||
+               instr instanceof NewInstance || instr instanceof NewArray || instr instanceof BlockEnd ||
+               instr instanceof ResolveClass || instr instanceof Infopoint || instr instanceof Pause;
+    }
+
+    private void eliminateRangeChecks(Loop loop) {
+        IdentityHashMap<Value, BlockBegin> blockOf = new IdentityHashMap<Value, BlockBegin>();
+        for (BlockBegin block : loop.blockList) {
+            for (Instruction instr = block.next(); instr != null; instr = instr.next()) {
+                blockOf.put(instr, block);
+            }
+        }
+        RangeGuards guards = null;
+        boolean guardsCreated = false;
+        for (BlockBegin block : loop.blockList) {
+            for (Instruction instr = block.next(); instr != null; instr = instr.next()) {
+                if (!(instr instanceof AccessIndexed)) {
+                    continue;
+                }
+                AccessIndexed access = (AccessIndexed) instr;
+                if (!access.needsBoundsCheck() || !(access.index() instanceof Phi) || ((Phi) access.index()).block() != loop.header) {
+                    continue;
+                }
+                Phi index = (Phi) access.index();
+                BlockBegin inBounds = findInBoundsSuccessor(loop, block, index);
+                if (inBounds == null || !isInductionVariable(loop, index, inBounds, blockOf)) {
+                    continue;
+                }
+                If test = (If) inBounds.predAt(0).end();
+                Value limit = test.x() == index ? test.y() : test.x();
+                boolean inclusive = isInclusive(test, index);
+                if (!inclusive && limit instanceof ArrayLength && ((ArrayLength) limit).array() == access.array() && hasNonNegativeEntries(loop, index)) {
+                    // statically redundant
+                    access.eliminateBoundsCheck();
+                    continue;
+                }
+                if (!isInvariant(loop, access.array(), blockOf) || !isInvariant(loop, limit, blockOf)) {
+                    continue;
+                }
+                if (!guardsCreated) {
+                    guards = RangeGuards.create(loop);
+                    guardsCreated = true;
+                }
+                if (guards != null && guards.guard(access.array(), limit, inclusive, guards.entryValue(index), blockOf)) {
+                    access.eliminateBoundsCheck();
+                }
+            }
+        }
+    }
+
+    /**
+     * The guards appended to the pre-header of a loop to check the range of its induction variables before entering it.
+     * A failed guard deoptimizes to the loop header, so that the loop is executed by the baseline code, which throws
+     * the exception at the iteration that goes out of bounds. An array is only accessed with an induction variable
+     * ranging from its start to its limit, so the guards only check the variable and the array if the start does not
+     * exceed the limit, by {@linkplain IfOp selecting} values that pass the checks otherwise. They are still
+     * conservative, as the loop may exit before going out of bounds or not access the array in every iteration.
+     */
+    static final class RangeGuards {
+        final BlockBegin preHeader;
+        final int predIndex;
+        final FrameState stateBefore;
+        final IdentityHashMap<Value, Value> lengths = new IdentityHashMap<Value, Value>();
+        final IdentityHashMap<Value, Value> constants = new IdentityHashMap<Value, Value>();
+        final List<BoundsCheck> checks = new ArrayList<BoundsCheck>();
+        final List<IfOp> selects = new ArrayList<IfOp>();
+        Instruction last;
+        Value zero;
+        Value minusOne;
+        Value emptyArray;
+
+        private RangeGuards(BlockBegin preHeader, int predIndex, FrameState stateBefore) {
+            this.preHeader = preHeader;
+            this.predIndex = predIndex;
+            this.stateBefore = stateBefore;
+            this.last = preHeader.end().prev(preHeader);
+        }
+
+        /**
+         * Creates the guards of a loop, provided it has a pre-header and the state at the entry of its header
+         * can be described in terms of the values flowing in from the pre-header.
+         */
+        static RangeGuards create(Loop loop) {
+            BlockBegin preHeader = loop.preHeader();
+            FrameState headerState = loop.header.stateBefore();
+            if (preHeader == null || headerState == null || !headerState.stackEmpty()) {
+                return null;
+            }
+            int predIndex = loop.header.predecessors().indexOf(preHeader);
+            MutableFrameState state = headerState.copy();
+            for (int i = 0; i < state.localsSize(); i++) {
+                Value local = state.localAt(i);
+                if (local instanceof Phi && ((Phi) local).block() == loop.header) {
+                    Phi phi = (Phi) local;
+                    if (phi.isIllegal()) {
+                        return null;
+                    }
+                    state.storeLocal(i, phi.inputAt(predIndex));
+                }
+            }
+            return new RangeGuards(preHeader, predIndex, state.immutableCopy(headerState.bci));
+        }
+
+        Value entryValue(Phi phi) {
+            return phi.inputAt(predIndex);
+        }
+
+        /**
+         * Ensures that, if {@code start} is less than (or equal to, if the loop test is inclusive) {@code limit},
+         * the pre-header checks that {@code array} is non-null, that {@code start} is non-negative and that
+         * {@code limit} is less than (or equal to, if the loop test is exclusive) the length of {@code array}.
+         *
+         * @return {@code false} if the checks cannot be expressed in the pre-header
+         */
+        boolean guard(Value array, Value limit, boolean inclusive, Value start, IdentityHashMap<Value, BlockBegin> blockOf) {
+            if (blockOf.containsKey(start)) {
+                return false;
+            }
+            if (blockOf.containsKey(limit)) {
+                // a constant in the loop body
+                Value constant = constants.get(limit);
+                if (constant == null) {
+                    constant = append(new Constant(limit.asConstant()));
+                    constants.put(limit, constant);
+                }
+                limit = constant;
+            }
+            // the condition under which the loop accesses the array
+            Condition accesses = inclusive ? Condition.LE : Condition.LT;
+            Value checkedArray = array;
+            if (!array.isNonNull()) {
+                if (emptyArray == null) {
+                    emptyArray = append(Constant.forObject(EMPTY_ARRAY));
+                }
+                checkedArray = select(start, accesses, limit, array, emptyArray);
+            }
+            Value length = lengths.get(checkedArray);
+            if (length == null) {
+                if (checkedArray != array) {
+                    append(new NonNullCheck(checkedArray, stateBefore));
+                }
+                ArrayLength arrayLength = new ArrayLength(checkedArray, null);
+                arrayLength.eliminateNullCheck();
+                length = append(arrayLength);
+                lengths.put(checkedArray, length);
+            }
+            if (inclusive) {
+                if (minusOne == null) {
+                    minusOne = append(Constant.forInt(-1));
+                }
+                check(select(start, accesses, limit, limit, minusOne), length, Condition.LT);
+            } else if (!(limit instanceof ArrayLength) || ((ArrayLength) limit).array() != array) {
+                check(select(start, accesses, limit, limit, zero()), length, Condition.LE);
+            }
+            if (!start.isConstant() || start.asConstant().asInt() < 0) {
+                check(select(start, accesses, limit, start, zero()), zero(), Condition.GE);
+            }
+            return true;
+        }
+
+        private Value zero() {
+            if (zero == null) {
+                zero = append(Constant.forInt(0));
+            }
+            return zero;
+        }
+
+        /**
+         * Gets the value of {@code x cond y ? trueValue : falseValue} in the pre-header.
+         */
+        private Value select(Value x, Condition cond, Value y, Value trueValue, Value falseValue) {
+            for (IfOp select : selects) {
+                if (select.x() == x && select.condition() == cond && select.y() == y && select.trueValue() == trueValue && select.falseValue() == falseValue) {
+                    return select;
+                }
+            }
+            IfOp select = append(new IfOp(x, cond, y, trueValue, falseValue));
+            selects.add(select);
+            return select;
+        }
+
+        private void check(Value index, Value length, Condition condition) {
+            for (BoundsCheck check : checks) {
+                if (check.index() == index && check.length() == length && check.condition == condition) {
+                    return;
+                }
+            }
+            checks.add(append(new BoundsCheck(index, length, stateBefore, condition)));
+        }
+
+        private <T extends Instruction> T append(T instr) {
+            last.setNext(instr, preHeader.end().bci());
+            instr.setNext(preHeader.end(), preHeader.end().bci());
+            last = instr;
+            return instr;
+        }
+    }
+
+    /**
+     * Determines if {@code value} is defined outside of {@code loop}.
+     */
+    private static boolean isInvariant(Loop loop, Value value, IdentityHashMap<Value, BlockBegin> blockOf) {
+        if (value instanceof Phi) {
+            return !loop.contains(((Phi) value).block());
+        }
+        return value instanceof Constant || !blockOf.containsKey(value);
+    }
+
+    /**
+     * Determines if the in-bounds successor of {@code test} is reached if {@code index <= limit}
+     * rather than {@code index < limit}.
+     */
+    private static boolean isInclusive(If test, Phi index) {
+        Condition cond = test.x() == index ? test.condition() : test.condition().mirror();
+        return cond == Condition.LE || cond == Condition.GT;
+    }
+
+    private static boolean hasNonNegativeEntries(Loop loop, Phi phi) {
+        for (int i = 0; i < phi.inputCount(); i++) {
+            if (!loop.contains(phi.block().predAt(i))) {
+                Value input = phi.inputAt(i);
+                if (!input.isConstant() || input.asConstant().asInt() < 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Searches the dominators of {@code block} in {@code loop} for the successor of an {@link If} that is only
+     * reached if {@code index} is less than (or equal to) some limit.
+     */
+    private static BlockBegin findInBoundsSuccessor(Loop loop, BlockBegin block, Phi index) {
+        for (BlockBegin b = block; b != loop.header; b = b.dominator()) {
+            if (b.numberOfPreds() != 1 || !loop.contains(b.predAt(0)) || !(b.predAt(0).end() instanceof If)) {
+                continue;
+            }
+            If test = (If) b.predAt(0).end();
+            Condition cond = test.condition();
+            if (test.y() == index) {
+                cond = cond.mirror();
+            } else if (test.x() != index) {
+                continue;
+            }
+            if (test.trueSuccessor() == test.falseSuccessor() || test.x() == test.y()) {
+                continue;
+            }
+            if (((cond == Condition.LT || cond == Condition.LE) && b == test.trueSuccessor()) ||
+                ((cond == Condition.GE || cond == Condition.GT) && b == test.falseSuccessor())) {
+                return b;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Determines if {@code phi} is only ever incremented by one in blocks dominated by {@code inBounds},
+     * where it is less than (or equal to) a limit that is checked to be less than (or equal to) an array
+     * length, so that the increment cannot overflow.
+     */
+    private static boolean isInductionVariable(Loop loop, Phi phi, BlockBegin inBounds, IdentityHashMap<Value, BlockBegin> blockOf) {
+        if (phi.kind != CiKind.Int || phi.isIllegal()) {
+            return false;
+        }
+        for (int i = 0; i < phi.inputCount(); i++) {
+            Value input = phi.inputAt(i);
+            if (loop.contains(phi.block().predAt(i)) && input != phi) {
+                if (!(input instanceof ArithmeticOp) || ((ArithmeticOp) input).opcode != Bytecodes.IADD) {
+                    return false;
+                }
+                ArithmeticOp add = (ArithmeticOp) input;
+                Value increment = add.x() == phi ? add.y() : add.y() == phi ? add.x() : null;
+                if (increment == null || !increment.isConstant() || increment.asConstant().asInt() != 1) {
+                    return false;
+                }
+                BlockBegin addBlock = blockOf.get(add);
+                if (addBlock == null || !dominates(inBounds, addBlock)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
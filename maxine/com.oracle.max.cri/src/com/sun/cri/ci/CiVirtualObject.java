@@ -114,7 +114,22 @@ public final class CiVirtualObject extends CiValue {
 
     @Override
     public boolean equalsIgnoringKind(CiValue o) {
-        return equals(o);
+        if (o == this) {
+            return true;
+        }
+        if (o instanceof CiVirtualObject) {
+            CiVirtualObject l = (CiVirtualObject) o;
+            if (l.type != type || l.values.length != values.length) {
+                return false;
+            }
+            for (int i = 0; i < values.length; i++) {
+                if (!values[i].equalsIgnoringKind(l.values[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
     }
 
     /**
@@ -721,7 +721,7 @@ public abstract class CiXirAssembler {
     }
 
     public void pcas(CiKind kind, XirOperand result, XirOperand pointer, XirOperand newValue, XirOperand oldValue) {
-        append(new XirInstruction(kind, null, PointerCAS, result, pointer, newValue, oldValue));
+        append(new XirInstruction(kind, false, PointerCAS, result, pointer, newValue, oldValue));
     }
 
     public void jmp(XirLabel l) {
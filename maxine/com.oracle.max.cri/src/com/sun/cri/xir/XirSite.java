@@ -91,4 +91,11 @@ public interface XirSite {
      * {@code null} if no particular type is known
      */
     RiType getExactType(XirArgument argument);
+
+    /**
+     * Gets the receiver type profile the compiler selected for dispatching the call at this site.
+     * @return the profile if the call may be dispatched on the profiled receiver types;
+     * {@code null} if the call must be dispatched through the method tables
+     */
+    RiTypeProfile getTypeProfile();
 }
@@ -54,7 +54,7 @@ public class Page extends AbstractVmHolder {
      */
     private long epoch = -1;
 
-    private final long index;
+    private long index;
 
 
     /**
@@ -121,6 +121,47 @@ public class Page extends AbstractVmHolder {
         this.buffer = allocate(teleIO, byteOrder, index);
     }
 
+    /**
+     * @return index of the page in remote memory.
+     */
+    public long index() {
+        return index;
+    }
+
+    /**
+     * Rebinds this page and its buffer to another page of remote memory. The contents are invalidated.
+     *
+     * @param index index of the remote memory page to be cached
+     */
+    public void reset(long index) {
+        this.index = index;
+        invalidate();
+        lastFailureEpoch = -1;
+    }
+
+    /**
+     * Fills the page with remote memory contents read ahead of time.
+     *
+     * @param src buffer holding the contents of this page starting at {@code srcOffset}
+     * @param srcOffset offset in {@code src} of the contents of this page
+     * @param epoch generation count of remote memory modification as of the time the contents were read
+     */
+    public void fill(ByteBuffer src, int srcOffset, long epoch) {
+        final ByteBuffer srcSlice = src.duplicate();
+        final ByteBuffer dstSlice = buffer.duplicate();
+        srcSlice.position(srcOffset).limit(srcOffset + size());
+        dstSlice.position(0).limit(size());
+        dstSlice.put(srcSlice);
+        this.epoch = epoch;
+    }
+
+    /**
+     * @return whether the contents of the page are up to date.
+     */
+    public boolean isValid() {
+        return epoch >= teleIO.epoch();
+    }
+
     /**
      * @return size of the page in bytes.
      */
@@ -0,0 +1,399 @@
+/*
+ * Copyright (c) 2007, 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.max.tele.page;
+
+import java.nio.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+import com.sun.max.program.*;
+import com.sun.max.tele.*;
+import com.sun.max.tele.data.*;
+import com.sun.max.tele.debug.*;
+import com.sun.max.tele.util.*;
+import com.sun.max.unsafe.*;
+
+/**
+ * A bounded cache of remote memory {@linkplain Page pages} keyed by page index.
+ * <p>
+ * The cache is split into stripes, each guarded by its own lock, so that readers of different pages do not serialize.
+ * A page is assigned to a stripe by the low bits of its index, so consecutive pages belong to different stripes.
+ * Each stripe holds a fixed number of pages and evicts them with the CLOCK algorithm. An evicted page object, together
+ * with its buffer, is reused for the newly cached page, so the pool of page buffers is never exhausted.
+ * <p>
+ * Sequential scans are detected from the pattern of misses, and the pages following a miss in a sequential scan
+ * are read ahead with a single remote read.
+ */
+final class PageCache {
+
+    private static final int TRACE_VALUE = 1;
+
+    private static final int STRIPES_SHIFT = 4;
+
+    private static final int STRIPES_NUM = 1 << STRIPES_SHIFT;
+
+    private static final int DEFAULT_READ_AHEAD_PAGES = 8;
+
+    private static final long EMPTY = -1L;
+
+    /**
+     * Maximal number of cached pages, zero if derived from the size of the {@linkplain Page#globalDirectBufferPoolSize
+     * global buffer pool}.
+     */
+    private static final int cacheSize = getIntProperty("max.tele.page.cacheSize", 0);
+
+    /**
+     * Number of pages read ahead on a miss during a sequential scan, zero disables read-ahead.
+     */
+    private static final int readAheadPages = getIntProperty("max.tele.page.readAhead", DEFAULT_READ_AHEAD_PAGES);
+
+    private static int getIntProperty(String name, int defaultValue) {
+        final String value = System.getProperty(name);
+        if (value != null) {
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException numberFormatException) {
+                TeleWarning.message("Malformed value for the \"" + name + "\" property", numberFormatException);
+            }
+        }
+        return defaultValue;
+    }
+
+    private final TeleVM vm;
+    private final TeleIO teleIO;
+    private final ByteOrder byteOrder;
+    private final int pageSize;
+    private final Stripe[] stripes = new Stripe[STRIPES_NUM];
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong readAheadCount = new AtomicLong();
+
+    /**
+     * Index of the page which miss would continue a sequential scan.
+     */
+    private volatile long expectedMissIndex = EMPTY;
+
+    PageCache(TeleVM vm, TeleIO teleIO, ByteOrder byteOrder) {
+        this.vm = vm;
+        this.teleIO = teleIO;
+        this.byteOrder = byteOrder;
+        this.pageSize = teleIO.pageSize();
+        final long pagesNum = cacheSize > 0 ? cacheSize : Page.globalDirectBufferPoolSize / pageSize;
+        final int stripeCapacity = (int) Math.max(1, Math.min(pagesNum / STRIPES_NUM, Integer.MAX_VALUE / 4));
+        for (int i = 0; i < STRIPES_NUM; i++) {
+            stripes[i] = new Stripe(stripeCapacity);
+        }
+    }
+
+    public long hitCount() {
+        return hitCount.get();
+    }
+
+    public long missCount() {
+        return missCount.get();
+    }
+
+    public long evictionCount() {
+        return evictionCount.get();
+    }
+
+    public long readAheadCount() {
+        return readAheadCount.get();
+    }
+
+    private Stripe stripe(long index) {
+        return stripes[(int) index & (STRIPES_NUM - 1)];
+    }
+
+    /**
+     * Marks the contents of a page as needful of refreshing, if it is cached.
+     */
+    void invalidate(long index) {
+        final Stripe stripe = stripe(index);
+        synchronized (stripe) {
+            final Page page = stripe.lookup(index, false);
+            if (page != null) {
+                page.invalidate();
+            }
+        }
+    }
+
+    byte readByte(long index, int offset) {
+        final Stripe stripe = stripe(index);
+        final boolean miss;
+        final byte value;
+        synchronized (stripe) {
+            final Page page = stripe.get(index);
+            miss = !page.isValid();
+            value = page.readByte(offset);
+        }
+        countAccess(index, miss);
+        return value;
+    }
+
+    short readShort(long index, int offset) {
+        final Stripe stripe = stripe(index);
+        final boolean miss;
+        final short value;
+        synchronized (stripe) {
+            final Page page = stripe.get(index);
+            miss = !page.isValid();
+            value = page.readShort(offset);
+        }
+        countAccess(index, miss);
+        return value;
+    }
+
+    int readInt(long index, int offset) {
+        final Stripe stripe = stripe(index);
+        final boolean miss;
+        final int value;
+        synchronized (stripe) {
+            final Page page = stripe.get(index);
+            miss = !page.isValid();
+            value = page.readInt(offset);
+        }
+        countAccess(index, miss);
+        return value;
+    }
+
+    long readLong(long index, int offset) {
+        final Stripe stripe = stripe(index);
+        final boolean miss;
+        final long value;
+        synchronized (stripe) {
+            final Page page = stripe.get(index);
+            miss = !page.isValid();
+            value = page.readLong(offset);
+        }
+        countAccess(index, miss);
+        return value;
+    }
+
+    /**
+     * Transfers bytes from a page to a given buffer.
+     *
+     * @see Page#readBytes(int, ByteBuffer, int)
+     */
+    int readBytes(long index, int offset, ByteBuffer dst, int dstOffset) {
+        final Stripe stripe = stripe(index);
+        final boolean miss;
+        final int n;
+        synchronized (stripe) {
+            final Page page = stripe.get(index);
+            miss = !page.isValid();
+            n = page.readBytes(offset, dst, dstOffset);
+        }
+        countAccess(index, miss);
+        return n;
+    }
+
+    /**
+     * Updates the counters and reads ahead if a miss continues a sequential scan. Must be called without holding
+     * a stripe lock.
+     */
+    private void countAccess(long index, boolean miss) {
+        if (!miss) {
+            hitCount.incrementAndGet();
+            return;
+        }
+        final long misses = missCount.incrementAndGet();
+        if ((misses % 10000) == 0) {
+            Trace.line(TRACE_VALUE, tracePrefix() + "hits: " + hitCount.get() + ", misses: " + misses +
+                ", evictions: " + evictionCount.get() + ", read ahead: " + readAheadCount.get());
+        }
+        final boolean isSequential = index == expectedMissIndex;
+        expectedMissIndex = index + 1;
+        if (isSequential && readAheadPages > 0) {
+            readAhead(index + 1, readAheadPages);
+        }
+    }
+
+    /**
+     * Reads a run of pages with a single remote read and caches those of them which are not cached yet.
+     * Failures are ignored, since the pages will be read on demand.
+     */
+    private void readAhead(long firstIndex, int pagesNum) {
+        final ByteBuffer buffer = ByteBuffer.allocate(pagesNum * pageSize).order(byteOrder);
+        final long epoch = teleIO.epoch();
+        try {
+            DataIO.Static.readFully(teleIO, Address.fromLong(firstIndex * pageSize), buffer);
+        } catch (DataIOError dataIOError) {
+            return;
+        } catch (TerminatedProcessIOException terminatedProcessIOException) {
+            return;
+        }
+        for (int i = 0; i < pagesNum; i++) {
+            final long index = firstIndex + i;
+            final Stripe stripe = stripe(index);
+            synchronized (stripe) {
+                Page page = stripe.lookup(index, false);
+                if (page == null) {
+                    page = stripe.add(index, false);
+                }
+                if (!page.isValid()) {
+                    page.fill(buffer, i * pageSize, epoch);
+                }
+            }
+        }
+        readAheadCount.addAndGet(pagesNum);
+        expectedMissIndex = firstIndex + pagesNum;
+    }
+
+    private static String tracePrefix() {
+        return "[PageCache] ";
+    }
+
+    /**
+     * A stripe of the cache. Pages are held in a fixed array of slots, which are found by page index through an
+     * open addressing hash table. All the methods must be called with the stripe lock held.
+     */
+    private final class Stripe {
+
+        private final Page[] pages;
+        private final boolean[] referenced;
+        private int pagesNum;
+        private int clockHand;
+
+        private final long[] keys;
+        private final int[] slots;
+        private final int mask;
+
+        Stripe(int capacity) {
+            pages = new Page[capacity];
+            referenced = new boolean[capacity];
+            final int tableSize = Integer.highestOneBit(capacity) << 2;
+            keys = new long[tableSize];
+            Arrays.fill(keys, EMPTY);
+            slots = new int[tableSize];
+            mask = tableSize - 1;
+        }
+
+        private int hash(long index) {
+            final long h = (index >>> STRIPES_SHIFT) * 0x9E3779B97F4A7C15L;
+            return (int) (h >>> 32) & mask;
+        }
+
+        /**
+         * Gets a cached page.
+         *
+         * @param index index of the page
+         * @param reference whether the access should be recorded for the eviction policy
+         * @return the page or {@code null} if it is not cached
+         */
+        Page lookup(long index, boolean reference) {
+            int i = hash(index);
+            while (keys[i] != EMPTY) {
+                if (keys[i] == index) {
+                    final int slot = slots[i];
+                    if (reference) {
+                        referenced[slot] = true;
+                    }
+                    return pages[slot];
+                }
+                i = (i + 1) & mask;
+            }
+            return null;
+        }
+
+        /**
+         * Gets a cached page, caching it if necessary.
+         */
+        Page get(long index) {
+            final Page page = lookup(index, true);
+            if (page != null) {
+                return page;
+            }
+            return add(index, true);
+        }
+
+        /**
+         * Caches a page which is not cached yet, evicting another page if the stripe is full.
+         *
+         * @param reference whether the page should be considered as recently used by the eviction policy
+         */
+        Page add(long index, boolean reference) {
+            final int slot;
+            if (pagesNum < pages.length) {
+                slot = pagesNum++;
+                pages[slot] = new Page(vm, teleIO, index, byteOrder);
+            } else {
+                slot = evict();
+                pages[slot].reset(index);
+            }
+            referenced[slot] = reference;
+            int i = hash(index);
+            while (keys[i] != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = index;
+            slots[i] = slot;
+            return pages[slot];
+        }
+
+        /**
+         * Selects a victim slot with the CLOCK algorithm and removes its page from the table.
+         */
+        private int evict() {
+            while (referenced[clockHand]) {
+                referenced[clockHand] = false;
+                clockHand = (clockHand + 1) % pages.length;
+            }
+            final int slot = clockHand;
+            clockHand = (clockHand + 1) % pages.length;
+            remove(pages[slot].index());
+            evictionCount.incrementAndGet();
+            return slot;
+        }
+
+        /**
+         * Removes a key from the table, shifting back the following entries of its probe sequence.
+         */
+        private void remove(long index) {
+            int i = hash(index);
+            while (keys[i] != index) {
+                if (keys[i] == EMPTY) {
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            int j = i;
+            while (true) {
+                j = (j + 1) & mask;
+                if (keys[j] == EMPTY) {
+                    break;
+                }
+                final int k = hash(keys[j]);
+                final boolean isInPlace = (i <= j) ? (i < k && k <= j) : (i < k || k <= j);
+                if (!isInPlace) {
+                    keys[i] = keys[j];
+                    slots[i] = slots[j];
+                    i = j;
+                }
+            }
+            keys[i] = EMPTY;
+        }
+    }
+}
@@ -23,10 +23,8 @@
 package com.sun.max.tele.page;
 
 import java.nio.*;
-import java.util.*;
 
 import com.sun.max.lang.*;
-import com.sun.max.program.*;
 import com.sun.max.tele.*;
 import com.sun.max.tele.data.*;
 import com.sun.max.tele.debug.*;
@@ -34,16 +32,10 @@ import com.sun.max.tele.util.*;
 import com.sun.max.unsafe.*;
 
 /**
+ * Access to remote memory through a bounded {@linkplain PageCache cache} of pages.
  */
 public class PageDataAccess extends DataAccessAdapter {
 
-    private static final int TRACE_VALUE = 1;
-
-    protected String  tracePrefix() {
-        return "[PageDataAccess] ";
-    }
-
-    private final TeleVM vm;
     private final TeleIO teleIO;
     private final int indexShift;
     private final int offsetMask;
@@ -51,12 +43,12 @@ public class PageDataAccess extends DataAccessAdapter {
 
     public PageDataAccess(TeleVM vm, TeleIO teleProcess, DataModel dataModel) {
         super(dataModel.wordWidth, dataModel.endianness.asByteOrder());
-        this.vm = vm;
         teleIO = teleProcess;
         TeleError.check(Ints.isPowerOfTwoOrZero(teleIO.pageSize()), "Page size is not a power of 2: " + teleIO.pageSize());
         indexShift = Integer.numberOfTrailingZeros(teleProcess.pageSize());
         offsetMask = teleProcess.pageSize() - 1;
         writeBuffer = ByteBuffer.wrap(new byte[Longs.SIZE]).order(byteOrder);
+        pageCache = new PageCache(vm, teleProcess, byteOrder);
     }
 
     public int pageSize() {
@@ -71,7 +63,35 @@ public class PageDataAccess extends DataAccessAdapter {
         return address.toInt() & offsetMask;
     }
 
-    private final HashMap<Long, Page> indexToPage = new HashMap<Long, Page>();
+    private final PageCache pageCache;
+
+    /**
+     * @return number of reads served from up to date cached pages.
+     */
+    public long cacheHitCount() {
+        return pageCache.hitCount();
+    }
+
+    /**
+     * @return number of reads which required a page to be read from remote memory.
+     */
+    public long cacheMissCount() {
+        return pageCache.missCount();
+    }
+
+    /**
+     * @return number of pages evicted from the cache.
+     */
+    public long cacheEvictionCount() {
+        return pageCache.evictionCount();
+    }
+
+    /**
+     * @return number of pages read ahead of sequential scans.
+     */
+    public long cacheReadAheadCount() {
+        return pageCache.readAheadCount();
+    }
 
     private static void checkNullPointer(Address address) {
         if (address.isZero()) {
@@ -79,21 +99,14 @@ public class PageDataAccess extends DataAccessAdapter {
         }
     }
 
-    private void invalidatePage(long index) {
-        final Page page = indexToPage.get(index);
-        if (page != null) {
-            page.invalidate();
-        }
-    }
-
-    public synchronized void invalidate(Address address, Size size) {
+    public void invalidate(Address address, Size size) {
         long numberOfPages = getIndex(size);
         if (getOffset(address) + getOffset(size) > pageSize()) {
             numberOfPages++;
         }
         final long startIndex = getIndex(address);
         for (long index = startIndex; index <= startIndex + numberOfPages; index++) {
-            invalidatePage(index);
+            pageCache.invalidate(index);
         }
     }
 
@@ -102,53 +115,37 @@ public class PageDataAccess extends DataAccessAdapter {
         invalidate(address, Size.fromInt(size));
     }
 
-    private Page getPage(long index) {
-        Page page = indexToPage.get(index);
-        if (page == null) {
-            page = new Page(vm, teleIO, index, byteOrder);
-            indexToPage.put(index, page);
-            if ((indexToPage.size() % 1000) == 0) {
-                Trace.line(TRACE_VALUE, tracePrefix() + "Memory cache: " + indexToPage.size() + " pages");
-            }
-        }
-        return page;
-    }
-
-    private Page getPage(Address address) {
-        return getPage(getIndex(address));
-    }
-
-    public synchronized int read(Address address, ByteBuffer buffer, int offset, int length) {
+    public int read(Address address, ByteBuffer buffer, int offset, int length) {
         final int toRead = Math.min(length, buffer.limit() - offset);
         long pageIndex = getIndex(address);
         int pageOffset = getOffset(address);
         int i = 0;
         while (i < toRead) {
-            i += getPage(pageIndex).readBytes(pageOffset, buffer, i + offset);
+            i += pageCache.readBytes(pageIndex, pageOffset, buffer, i + offset);
             pageIndex++;
             pageOffset = 0;
         }
         return toRead;
     }
 
-    public synchronized byte readByte(Address address) {
+    public byte readByte(Address address) {
         checkNullPointer(address);
-        return getPage(address).readByte(getOffset(address));
+        return pageCache.readByte(getIndex(address), getOffset(address));
     }
 
-    public synchronized short readShort(Address address) {
+    public short readShort(Address address) {
         checkNullPointer(address);
-        return getPage(address).readShort(getOffset(address));
+        return pageCache.readShort(getIndex(address), getOffset(address));
     }
 
-    public synchronized int readInt(Address address) {
+    public int readInt(Address address) {
         checkNullPointer(address);
-        return getPage(address).readInt(getOffset(address));
+        return pageCache.readInt(getIndex(address), getOffset(address));
     }
 
     public long readLong(Address address) {
         checkNullPointer(address);
-        return getPage(address).readLong(getOffset(address));
+        return pageCache.readLong(getIndex(address), getOffset(address));
     }
 
     public synchronized int write(ByteBuffer buffer, int offset, int length, Address address) {
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package jtt.optimize;
+
+/*
+ * Tests scalar replacement of non-escaping allocations and removal of their locking.
+ * @Harness: java
+ * @Runs: 0=0; 1=8; 2=13
+ */
+public class EA_01 {
+    static class Point {
+        int x;
+        int y;
+        byte b;
+    }
+    public static int test(int arg) {
+        Point p = new Point();
+        int[] a = new int[3];
+        p.x = arg;
+        p.y = arg * 2;
+        p.b = (byte) (arg + 255);
+        a[0] = p.x;
+        a[2] = p.y;
+        synchronized (p) {
+            if (arg > 0) {
+                return a[0] + a[2] + a.length + p.b + p.y + 1 - arg;
+            }
+        }
+        return p.x + a[1];
+    }
+}
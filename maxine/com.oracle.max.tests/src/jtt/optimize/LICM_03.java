@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package jtt.optimize;
+
+/*
+ * Tests range check elimination with guards in the loop pre-header that fail and deoptimize
+ * because the induction variable starts negative or the array is null, and that pass if the loop is not entered.
+ * @Harness: java
+ * @Runs: 0=55; 5=40; 9=-1; -1=-100; 100=0
+ */
+public class LICM_03 {
+    public static int[] array = new int[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+    static int count;
+    public static int test(int arg) {
+        final int[] a = arg == 9 ? null : array;
+        int sum = 0;
+        count = 0;
+        try {
+            for (int i = arg; i < 10; i++) {
+                count++;
+                sum += a[i];
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            return -(count * 100 + sum);
+        } catch (NullPointerException e) {
+            return -count;
+        }
+        return sum;
+    }
+}
@@ -45,6 +45,7 @@ public class HashMap_get01 extends RunBench {
         }
 
         protected Bench(Map<Integer, Integer> map) {
+            super(map);
             init();
         }
 
@@ -26,6 +26,7 @@ import static com.sun.max.platform.Platform.*;
 import static com.sun.max.vm.MaxineVM.*;
 
 import java.io.*;
+import java.lang.reflect.*;
 import java.util.*;
 
 import com.oracle.max.asm.*;
@@ -37,6 +38,7 @@ import com.sun.c1x.graph.*;
 import com.sun.c1x.ir.*;
 import com.sun.c1x.lir.*;
 import com.sun.c1x.observer.*;
+import com.sun.c1x.opt.*;
 import com.sun.c1x.stub.CompilerStub;
 import com.sun.cri.ci.CiCompiler.DebugInfoLevel;
 import com.sun.cri.ci.*;
@@ -53,6 +55,9 @@ import com.sun.max.vm.compiler.*;
 import com.sun.max.vm.compiler.deopt.*;
 import com.sun.max.vm.compiler.deps.*;
 import com.sun.max.vm.compiler.target.*;
+import com.sun.max.vm.heap.*;
+import com.sun.max.vm.hosted.*;
+import com.sun.max.vm.profile.*;
 import com.sun.max.vm.runtime.*;
 import com.sun.max.vm.thread.*;
 
@@ -133,6 +138,22 @@ public class C1X extends RuntimeCompiler.DefaultNameAdapter implements RuntimeCo
             map.put("UseStackMapTableLiveness",
                     "Use liveness information derived from StackMapTable class file attribute.");
 
+            map.put("UseTypeProfile",
+                    "Dispatch interface calls whose receiver type profile is monomorphic or bimorphic " +
+                    "through an inline cache guarded by the profiled receiver hubs.");
+
+            map.put("TypeProfileWidth",
+                    "Maximum number of profiled receiver types for which an inline cache is generated.");
+
+            map.put("TypeProfileMinimumCount",
+                    "Minimum number of receivers a call site profile must have recorded to be used.");
+
+            map.put("MaximumEscapeAnalysisArrayLength",
+                    "Maximum length of a primitive array whose allocation may be replaced by escape analysis.");
+
+            map.put("PrintEscapeAnalysis",
+                    "Print the number of allocations of each compiled method before and after escape analysis.");
+
             for (String name : map.keySet()) {
                 try {
                     C1XOptions.class.getField(name);
@@ -256,10 +277,24 @@ public class C1X extends RuntimeCompiler.DefaultNameAdapter implements RuntimeCo
     }
 
     public TargetMethod compile(final ClassMethodActor method, boolean isDeopt, boolean install, CiStatistics stats) {
-        CiTargetMethod compiledMethod;
+        CiTargetMethod compiledMethod = null;
+        String cacheKey = null;
+        if (isHosted() && CompiledMethodCache.isEnabled()) {
+            cacheKey = CompiledMethodCache.key(method, compiledMethodCacheConfiguration());
+            compiledMethod = CompiledMethodCache.lookup(method, cacheKey);
+        }
+        if (!isHosted() && tookUncommonTrap(method)) {
+            // do not speculate on the ranges of loops again, which most likely made the previous code trap
+            method.compilerStorage().put(LoopOptimizer.DISABLE_RANGE_CHECK_ELIMINATION, Boolean.TRUE);
+        }
         do {
-            DebugInfoLevel debugInfoLevel = method.isTemplate() ? DebugInfoLevel.REF_MAPS : DebugInfoLevel.FULL;
-            compiledMethod = compiler().compileMethod(method, -1, stats, debugInfoLevel).targetMethod();
+            if (compiledMethod == null) {
+                DebugInfoLevel debugInfoLevel = method.isTemplate() ? DebugInfoLevel.REF_MAPS : DebugInfoLevel.FULL;
+                compiledMethod = compiler().compileMethod(method, -1, stats, debugInfoLevel).targetMethod();
+                if (isHosted() && cacheKey != null) {
+                    CompiledMethodCache.store(method, cacheKey, compiledMethod);
+                }
+            }
             Dependencies deps = Dependencies.validateDependencies(compiledMethod.assumptions());
             if (deps != Dependencies.INVALID) {
                 if (C1XOptions.PrintTimers) {
@@ -283,9 +318,56 @@ public class C1X extends RuntimeCompiler.DefaultNameAdapter implements RuntimeCo
 
             }
             // Loop back and recompile.
+            compiledMethod = null;
         } while(true);
     }
 
+    /**
+     * Determines if the optimized code of a given method took an {@linkplain Deoptimization#uncommonTrap uncommon trap},
+     * as recorded in the profile of its baseline code.
+     */
+    private static boolean tookUncommonTrap(ClassMethodActor method) {
+        TargetMethod baseline = Compilations.currentTargetMethod(method.compiledState, RuntimeCompiler.Nature.BASELINE);
+        MethodProfile profile = baseline == null ? null : baseline.profile();
+        return profile != null && profile.getDeoptimizationCount(MethodProfile.UNCOMMON_TRAP_DEOPTIMIZATION_REASON_ID) > 0;
+    }
+
+    @HOSTED_ONLY
+    private String compiledMethodCacheConfiguration;
+
+    /**
+     * Describes the configuration of this compiler for the {@linkplain CompiledMethodCache compiled method cache}: the
+     * platform, the VM configuration, the C1X options and the class files of the compiler, of the VM schemes and of the
+     * MaxSim configuration.
+     */
+    @HOSTED_ONLY
+    private synchronized String compiledMethodCacheConfiguration() {
+        if (compiledMethodCacheConfiguration == null) {
+            final StringBuilder sb = new StringBuilder(getClass().getName());
+            sb.append(';').append(platform()).append(';').append(VMConfiguration.vmConfig());
+            for (Field field : C1XOptions.class.getFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    try {
+                        sb.append(';').append(field.getName()).append('=').append(field.get(null));
+                    } catch (IllegalAccessException e) {
+                        throw FatalError.unexpected("could not read C1X option " + field.getName(), e);
+                    }
+                }
+            }
+            sb.append(";genInlinedTLAB=").append(Heap.genInlinedTLAB).append(";useOutOfLineStubs=").append(Heap.useOutOfLineStubs);
+            sb.append(';').append(CompiledMethodCache.classpathDigest("com/sun/c1x/", "com/sun/cri/", "com/oracle/max/asm/", "com/oracle/max/vm/ext/c1x/", "com/oracle/max/vm/ext/maxri/"));
+            // the MaxSim configuration generated from MaxSimInterface.proto is folded into the compiled code
+            sb.append(';').append(CompiledMethodCache.classpathDigest("com/sun/max/vm/maxsim/"));
+            for (VMScheme scheme : VMConfiguration.vmConfig().vmSchemes()) {
+                for (Class javaClass = scheme.getClass(); javaClass != Object.class; javaClass = javaClass.getSuperclass()) {
+                    sb.append(';').append(CompiledMethodCache.classfileDigest(javaClass));
+                }
+            }
+            compiledMethodCacheConfiguration = sb.toString();
+        }
+        return compiledMethodCacheConfiguration;
+    }
+
     void printMachineCode(CiTargetMethod ciTM, MaxTargetMethod maxTM, boolean reentrant) {
         if (!C1XOptions.PrintCFGToFile || reentrant || TTY.isSuppressed()) {
             return;
@@ -176,6 +176,14 @@ public class JVMTI_AMD64T1XCompilation extends AMD64T1XCompilation {
         }
     }
 
+    /**
+     * The event templates are emitted before the code for a bytecode.
+     */
+    @Override
+    protected boolean cachesTopOfStack() {
+        return false;
+    }
+
     /**
      * Check whether instrumentation is needed for given bytecode, and set {@link #eventSettings} if so.
      * @param bytecode
@@ -524,6 +524,11 @@ public final class DebugInfo {
             }
         } else if (value.isIllegal()) {
             value = WordUtil.ZERO;
+        } else if (value instanceof CiVirtualObject) {
+            CiValue[] values = ((CiVirtualObject) value).values();
+            for (int i = 0; i < values.length; i++) {
+                values[i] = toLiveSlot(fa, values[i]);
+            }
         } else {
             assert value.isConstant();
         }
@@ -58,6 +58,7 @@ import com.sun.max.vm.compiler.target.*;
 import com.sun.max.vm.heap.*;
 import com.sun.max.vm.heap.debug.*;
 import com.sun.max.vm.layout.*;
+import com.sun.max.vm.monitor.*;
 import com.sun.max.vm.object.*;
 import com.sun.max.vm.runtime.*;
 import com.sun.max.vm.thread.*;
@@ -74,6 +75,11 @@ public class MaxXirGenerator implements RiXirGenerator {
     // (tw) TODO: Up this to 255 / make a loop in the template
     private static final int MAX_MULTIANEWARRAY_RANK = 6;
 
+    /**
+     * The maximum number of receiver hubs checked by an interface call inline cache.
+     */
+    private static final int MAX_INLINE_CACHE_WIDTH = 2;
+
     static XirWriteBarrierSpecification writeBarrierSpecification() {
         HeapScheme heapScheme = VMConfiguration.vmConfig().heapScheme();
         if (heapScheme instanceof XirWriteBarrierSpecification) {
@@ -86,6 +92,14 @@ public class MaxXirGenerator implements RiXirGenerator {
         };
     }
 
+    static XirMonitorSpecification monitorSpecification() {
+        MonitorScheme monitorScheme = VMConfiguration.vmConfig().monitorScheme();
+        if (monitorScheme instanceof XirMonitorSpecification) {
+            return (XirMonitorSpecification) monitorScheme;
+        }
+        return null;
+    }
+
     public static class XirPair {
         public final XirTemplate resolved;
         public final XirTemplate unresolved;
@@ -125,6 +139,7 @@ public class MaxXirGenerator implements RiXirGenerator {
 
     private XirPair invokeVirtualTemplates;
     private XirPair invokeInterfaceTemplates;
+    private XirTemplate[] invokeInterfaceInlineCacheTemplates;
     private InvokeSpecialTemplates invokeSpecialTemplates;
     private XirPair invokeStaticTemplates;
     private XirPair[] newArrayTemplates;
@@ -144,6 +159,8 @@ public class MaxXirGenerator implements RiXirGenerator {
     private XirTemplate arraylengthTemplate;
     private XirTemplate monitorEnterTemplate;
     private XirTemplate monitorExitTemplate;
+    private XirTemplate inlineMonitorEnterTemplate;
+    private XirTemplate inlineMonitorExitTemplate;
     private XirTemplate[] resolveClassTemplates;
     private NewInstanceTemplates newInstanceTemplate;
     private NewInstanceTemplates tlabNewInstanceTemplate;
@@ -264,6 +281,10 @@ public class MaxXirGenerator implements RiXirGenerator {
 
         invokeVirtualTemplates = buildInvokeVirtual();
         invokeInterfaceTemplates = buildInvokeInterface();
+        invokeInterfaceInlineCacheTemplates = new XirTemplate[MAX_INLINE_CACHE_WIDTH];
+        for (int width = 1; width <= MAX_INLINE_CACHE_WIDTH; width++) {
+            invokeInterfaceInlineCacheTemplates[width - 1] = buildInvokeInterfaceInlineCache(width);
+        }
         invokeSpecialTemplates = buildInvokeSpecial();
         invokeStaticTemplates = buildInvokeStatic();
 
@@ -282,6 +303,11 @@ public class MaxXirGenerator implements RiXirGenerator {
         arraylengthTemplate = buildArrayLength();
         monitorEnterTemplate = buildMonitorEnter();
         monitorExitTemplate = buildMonitorExit();
+        XirMonitorSpecification monitorSpecification = monitorSpecification();
+        if (monitorSpecification != null) {
+            inlineMonitorEnterTemplate = buildInlineMonitorEnter(monitorSpecification);
+            inlineMonitorExitTemplate = buildInlineMonitorExit(monitorSpecification);
+        }
 
         newInstanceTemplate = buildNewInstance();
         tlabNewInstanceTemplate = buildTLABNewInstance();
@@ -376,12 +402,50 @@ public class MaxXirGenerator implements RiXirGenerator {
             InterfaceMethodActor methodActor = (InterfaceMethodActor) method;
             XirArgument interfaceID = XirArgument.forInt(methodActor.holder().id);
             XirArgument methodIndex = XirArgument.forInt(methodActor.iIndexInInterface());
+            XirSnippet inlineCache = genInvokeInterfaceInlineCache(site.getTypeProfile(), receiver, methodActor, interfaceID, methodIndex);
+            if (inlineCache != null) {
+                return inlineCache;
+            }
             return new XirSnippet(pair.resolved, receiver, interfaceID, methodIndex);
         }
         XirArgument guard = XirArgument.forObject(guardFor(method));
         return new XirSnippet(pair.unresolved, receiver, guard);
     }
 
+    /**
+     * Creates an interface call snippet dispatching on the receiver types of a call site profile.
+     * A receiver whose hub is one of the profiled hubs is dispatched through the vtable entry of the
+     * method implementing {@code methodActor} in its class, other receivers through the itable.
+     *
+     * @return the snippet or {@code null} if the profile cannot be used for this call
+     */
+    private XirSnippet genInvokeInterfaceInlineCache(RiTypeProfile profile, XirArgument receiver, InterfaceMethodActor methodActor, XirArgument interfaceID, XirArgument methodIndex) {
+        if (profile == null || profile.types.length == 0 || profile.types.length > invokeInterfaceInlineCacheTemplates.length) {
+            return null;
+        }
+        XirArgument[] arguments = new XirArgument[3 + 2 * profile.types.length];
+        arguments[0] = receiver;
+        arguments[1] = interfaceID;
+        arguments[2] = methodIndex;
+        for (int i = 0; i < profile.types.length; i++) {
+            ClassActor classActor = (ClassActor) profile.types[i];
+            if (classActor.isInterface() || classActor.isAbstract() || !classActor.isSubtypeOf(methodActor.holder())) {
+                return null;
+            }
+            RiResolvedMethod implementation = classActor.resolveMethodImpl(methodActor);
+            if (!(implementation instanceof VirtualMethodActor) || ((VirtualMethodActor) implementation).isAbstract()) {
+                return null;
+            }
+            int vTableIndex = ((VirtualMethodActor) implementation).vTableIndex();
+            if (vTableIndex < 0) {
+                return null;
+            }
+            arguments[3 + 2 * i] = XirArgument.forObject(classActor.dynamicHub());
+            arguments[4 + 2 * i] = XirArgument.forInt(vTableIndex * Word.size() + offsetOfFirstArrayElement());
+        }
+        return new XirSnippet(invokeInterfaceInlineCacheTemplates[profile.types.length - 1], arguments);
+    }
+
     @Override
     public XirSnippet genInvokeVirtual(XirSite site, XirArgument receiver, RiMethod method) {
         XirPair pair = invokeVirtualTemplates;
@@ -420,11 +484,17 @@ public class MaxXirGenerator implements RiXirGenerator {
 
     @Override
     public XirSnippet genMonitorEnter(XirSite site, XirArgument receiver, XirArgument lockAddress) {
+        if (inlineMonitorEnterTemplate != null && Monitor.InlineMonitorFastPath) {
+            return new XirSnippet(inlineMonitorEnterTemplate, receiver);
+        }
         return new XirSnippet(monitorEnterTemplate, receiver);
     }
 
     @Override
     public XirSnippet genMonitorExit(XirSite site, XirArgument receiver, XirArgument lockAddress) {
+        if (inlineMonitorExitTemplate != null && Monitor.InlineMonitorFastPath) {
+            return new XirSnippet(inlineMonitorExitTemplate, receiver);
+        }
         return new XirSnippet(monitorExitTemplate, receiver);
     }
 
@@ -871,17 +941,9 @@ public class MaxXirGenerator implements RiXirGenerator {
             XirParameter interfaceID = asm.createConstantInputParameter("interfaceID", CiKind.Int);
             XirParameter methodIndex = asm.createConstantInputParameter("methodIndex", CiKind.Int);
             XirOperand hub = asm.createTemp("hub", CiKind.Object);
-            XirOperand mtableLengthOrStartIndex = asm.createTemp("mtableLength/StartIndex", CiKind.Int);
-            XirOperand a = asm.createTemp("a", CiKind.Int);
-            asm.pload(CiKind.Object, hub, receiver, asm.i(hubOffset()), true);
-            asm.pload(CiKind.Int, mtableLengthOrStartIndex, hub, asm.i(offsetOfMTableLength()), false);
-            asm.mod(a, interfaceID, mtableLengthOrStartIndex);
-            asm.pload(CiKind.Int, mtableLengthOrStartIndex, hub, asm.i(offsetOfMTableStartIndex()), false);
-            asm.add(a, a, mtableLengthOrStartIndex);
-            asm.pload(CiKind.Int, a, hub, a, offsetOfFirstArrayElement(), Scale.Times4, false);
-            asm.add(a, a, methodIndex);
             XirOperand result = asm.createTemp("result", WordUtil.archKind());
-            asm.pload(WordUtil.archKind(), result, hub, a, offsetOfFirstArrayElement(), Scale.fromInt(Word.size()), false);
+            asm.pload(CiKind.Object, hub, receiver, asm.i(hubOffset()), true);
+            genITableLookup(hub, interfaceID, methodIndex, result);
             resolved = finishTemplate(asm, result, "invokeinterface");
         }
         {
@@ -913,6 +975,61 @@ public class MaxXirGenerator implements RiXirGenerator {
         return new XirPair(resolved, unresolved);
     }
 
+    /**
+     * Builds an interface call template with an inline cache of {@code width} receiver hubs. Each cached hub
+     * is paired with the offset of the vtable entry of the method implementing the interface method in that hub.
+     * A receiver whose hub misses the cache is dispatched through its itable out of line.
+     */
+    @HOSTED_ONLY
+    private XirTemplate buildInvokeInterfaceInlineCache(int width) {
+        asm.restart();
+        XirParameter receiver = asm.createInputParameter("receiver", CiKind.Object); // receiver object
+        XirParameter interfaceID = asm.createConstantInputParameter("interfaceID", CiKind.Int);
+        XirParameter methodIndex = asm.createConstantInputParameter("methodIndex", CiKind.Int);
+        XirParameter[] cachedHubs = new XirParameter[width];
+        XirParameter[] vtableOffsets = new XirParameter[width];
+        for (int i = 0; i < width; i++) {
+            cachedHubs[i] = asm.createConstantInputParameter("cachedHub" + i, CiKind.Object);
+            vtableOffsets[i] = asm.createConstantInputParameter("vtableOffset" + i, CiKind.Int);
+        }
+        XirOperand hub = asm.createTemp("hub", CiKind.Object);
+        XirOperand result = asm.createTemp("result", WordUtil.archKind());
+        XirLabel done = asm.createInlineLabel("done");
+        XirLabel miss = asm.createOutOfLineLabel("miss");
+        asm.pload(CiKind.Object, hub, receiver, asm.i(hubOffset()), true);
+        for (int i = 0; i < width; i++) {
+            XirLabel next = i == width - 1 ? miss : asm.createInlineLabel("next" + i);
+            asm.jneq(next, hub, cachedHubs[i]);
+            asm.pload(WordUtil.archKind(), result, hub, vtableOffsets[i], false);
+            if (next != miss) {
+                asm.jmp(done);
+                asm.bindInline(next);
+            }
+        }
+        asm.bindInline(done);
+
+        asm.bindOutOfLine(miss);
+        genITableLookup(hub, interfaceID, methodIndex, result);
+        asm.jmp(done);
+        return finishTemplate(asm, result, "invokeinterface-inline-cache<" + width + ">");
+    }
+
+    /**
+     * Generates the lookup of the entry point of an interface method in the itable of a hub.
+     */
+    @HOSTED_ONLY
+    private void genITableLookup(XirOperand hub, XirOperand interfaceID, XirOperand methodIndex, XirOperand result) {
+        XirOperand mtableLengthOrStartIndex = asm.createTemp("mtableLength/StartIndex", CiKind.Int);
+        XirOperand a = asm.createTemp("a", CiKind.Int);
+        asm.pload(CiKind.Int, mtableLengthOrStartIndex, hub, asm.i(offsetOfMTableLength()), false);
+        asm.mod(a, interfaceID, mtableLengthOrStartIndex);
+        asm.pload(CiKind.Int, mtableLengthOrStartIndex, hub, asm.i(offsetOfMTableStartIndex()), false);
+        asm.add(a, a, mtableLengthOrStartIndex);
+        asm.pload(CiKind.Int, a, hub, a, offsetOfFirstArrayElement(), Scale.Times4, false);
+        asm.add(a, a, methodIndex);
+        asm.pload(WordUtil.archKind(), result, hub, a, offsetOfFirstArrayElement(), Scale.fromInt(Word.size()), false);
+    }
+
     @HOSTED_ONLY
     private XirPair buildInvokeVirtual() {
         XirTemplate resolved;
@@ -1428,6 +1545,44 @@ public class MaxXirGenerator implements RiXirGenerator {
         return finishTemplate(asm, "monitorenter");
     }
 
+    @HOSTED_ONLY
+    private XirOperand buildLoadLockwordThreadID() {
+        XirOperand tla = asm.createRegisterTemp("TLA", WordUtil.archKind(), LATCH_REGISTER);
+        XirOperand lockwordThreadID = asm.createTemp("lockwordThreadID", WordUtil.archKind());
+        asm.pload(WordUtil.archKind(), lockwordThreadID, tla, asm.i(VmThreadLocal.ID.offset), false);
+        return lockwordThreadID;
+    }
+
+    @HOSTED_ONLY
+    private XirTemplate buildInlineMonitorExit(XirMonitorSpecification monitorSpecification) {
+        asm.restart(CiKind.Void);
+        XirParameter object = asm.createInputParameter("object", CiKind.Object);
+        XirLabel done = asm.createInlineLabel("done");
+        XirLabel slowPath = asm.createOutOfLineLabel("slowPath");
+        monitorSpecification.genMonitorExitFastPath(asm, object, buildLoadLockwordThreadID(), slowPath);
+        asm.bindInline(done);
+
+        asm.bindOutOfLine(slowPath);
+        callRuntimeThroughStub(asm, "monitorExit", null, object);
+        asm.jmp(done);
+        return finishTemplate(asm, "monitorexit-inline");
+    }
+
+    @HOSTED_ONLY
+    private XirTemplate buildInlineMonitorEnter(XirMonitorSpecification monitorSpecification) {
+        asm.restart(CiKind.Void);
+        XirParameter object = asm.createInputParameter("object", CiKind.Object);
+        XirLabel done = asm.createInlineLabel("done");
+        XirLabel slowPath = asm.createOutOfLineLabel("slowPath");
+        monitorSpecification.genMonitorEnterFastPath(asm, object, buildLoadLockwordThreadID(), slowPath);
+        asm.bindInline(done);
+
+        asm.bindOutOfLine(slowPath);
+        callRuntimeThroughStub(asm, "monitorEnter", null, object);
+        asm.jmp(done);
+        return finishTemplate(asm, "monitorenter-inline");
+    }
+
     @HOSTED_ONLY
     private XirPair buildCheckcastForLeaf(boolean nonnull) {
         XirTemplate resolved;
@@ -298,6 +298,22 @@ public abstract class T1XCompilation {
 
     Adapter adapter;
 
+    /**
+     * The operand stack values cached in registers, or {@code null} if {@link #cachesTopOfStack()} is {@code false}.
+     */
+    TopOfStackCache tosCache;
+
+    /**
+     * The number of operand stack slots occupied by the arguments of the current template that were
+     * {@linkplain TopOfStackCache cached} and not pushed.
+     */
+    private int cachedArgSlots;
+
+    /**
+     * See {@link T1XTargetMethod#reexecuteEntries}.
+     */
+    int[] reexecuteEntries;
+
     /**
      * When {@code true} denote a compilation for deoptimzation.
      */
@@ -337,6 +353,18 @@ public abstract class T1XCompilation {
         initFrame(method, codeAttribute);
 
         initHandlers(method, code);
+
+        if (cachesTopOfStack()) {
+            tosCache = new TopOfStackCache(this, code, handlerBCIs);
+        }
+    }
+
+    /**
+     * Determines if this compilation keeps operand stack values in registers across bytecode instructions.
+     * Subclasses that emit code between or around the templates for an instruction must return {@code false}.
+     */
+    protected boolean cachesTopOfStack() {
+        return T1XOptions.CacheTopOfStack;
     }
 
     static void startTimer(T1XTimer timer) {
@@ -394,6 +422,8 @@ public abstract class T1XCompilation {
             codeAnnotations.clear();
         }
         adapter = null;
+        tosCache = null;
+        reexecuteEntries = null;
         safepointsBuilder.reset(false);
         methodProfileBuilder = null;
 
@@ -494,6 +524,10 @@ public abstract class T1XCompilation {
         if (epiloguePos != buf.position()) {
             bciToPos[endBCI] = epiloguePos;
         }
+
+        if (tosCache != null) {
+            reexecuteEntries = tosCache.emitReexecuteEntries();
+        }
     }
 
     /**
@@ -516,9 +550,15 @@ public abstract class T1XCompilation {
 
     protected void beginBytecode(int representativeOpcode) {
         int bci = stream.currentBCI();
+        if (tosCache != null) {
+            tosCache.beforeBytecode(bci, representativeOpcode);
+        }
         int pos = buf.position();
 
         bciToPos[bci] = pos;
+        if (tosCache != null) {
+            tosCache.atBytecode(bci, pos);
+        }
 
         if (Bytecodes.isBlockEnd(prevOpcode)) {
             startBlock(bci);
@@ -565,29 +605,41 @@ public abstract class T1XCompilation {
         this.template = startTemplate;
         initializedArgs = 0;
         Sig sig = template.sig;
+        boolean cached = tosCache != null && !tosCache.isEmpty();
+        cachedArgSlots = cached ? tosCache.startTemplate(template) : 0;
         if (sig.stackArgs != 0) {
             for (int i = 0; i < sig.in.length; i++) {
                 Arg a = sig.in[i];
                 if (a.isStack()) {
                     initializedArgs |= 1 << i;
+                    CiRegister src = cached ? tosCache.registerFor(a) : null;
+                    if (src != null) {
+                        if (a.kind.isReference) {
+                            assignObjectReg(a.reg, src);
+                        } else {
+                            assignWordReg(a.reg, src);
+                        }
+                        continue;
+                    }
+                    int slot = a.slot - cachedArgSlots;
                     switch (a.kind.asEnum) {
                         case INT:
-                            peekInt(a.reg, a.slot);
+                            peekInt(a.reg, slot);
                             break;
                         case FLOAT:
-                            peekFloat(a.reg, a.slot);
+                            peekFloat(a.reg, slot);
                             break;
                         case LONG:
-                            peekLong(a.reg, a.slot);
+                            peekLong(a.reg, slot);
                             break;
                         case DOUBLE:
-                            peekDouble(a.reg, a.slot);
+                            peekDouble(a.reg, slot);
                             break;
                         case WORD:
-                            peekWord(a.reg, a.slot);
+                            peekWord(a.reg, slot);
                             break;
                         case REFERENCE:
-                            peekObject(a.reg, a.slot);
+                            peekObject(a.reg, slot);
                             break;
                         default:
                             assert false;
@@ -595,6 +647,9 @@ public abstract class T1XCompilation {
                 }
             }
         }
+        if (cached) {
+            tosCache.clear();
+        }
     }
 
     /**
@@ -608,11 +663,22 @@ public abstract class T1XCompilation {
 
         // Adjust the stack to model the net effect of the template including
         // the slot for the value pushed (if any) by the template.
+        // Cached arguments were never pushed and a cached result is not pushed.
         Sig sig = template.sig;
-        if (sig.stackDelta < 0) {
-            decStack(-sig.stackDelta);
-        } else if (sig.stackDelta > 0) {
-            incStack(sig.stackDelta);
+        int stackDelta = sig.stackDelta;
+        boolean cacheResult = false;
+        if (cachedArgSlots != 0) {
+            stackDelta += cachedArgSlots;
+            cacheResult = tosCache.canCacheResult(sig);
+            if (cacheResult) {
+                stackDelta -= sig.out.kind.stackSlots;
+            }
+            cachedArgSlots = 0;
+        }
+        if (stackDelta < 0) {
+            decStack(-stackDelta);
+        } else if (stackDelta > 0) {
+            incStack(stackDelta);
         }
 
         // The stack parameters to an invoke are popped by the callee so they should not also be
@@ -620,7 +686,9 @@ public abstract class T1XCompilation {
         assert sig.stackArgs == 0 || template.tag == null || !Bytecodes.isInvoke(template.tag.opcode) : template + ": invoke templates should not use @" + Slot.class.getSimpleName() + " annotation";
 
         // Push the result of the template (if any)
-        if (sig.out.isStack()) {
+        if (cacheResult) {
+            tosCache.push(sig.out.reg, sig.out.kind);
+        } else if (sig.out.isStack()) {
             Arg out = sig.out;
             switch (out.kind.asEnum) {
                 case INT:
@@ -767,6 +835,44 @@ public abstract class T1XCompilation {
     protected abstract void storeWord(CiRegister src, int index);
     protected abstract void storeObject(CiRegister src, int index);
 
+    /**
+     * Emits code to pop the {@code n} single slot values of kind {@code kind} at the top of the operand stack
+     * into registers, taking the values cached in registers from there.
+     *
+     * @return the registers holding the values, the top of the stack last
+     */
+    protected CiRegister[] popOperands(Kind kind, int n) {
+        if (tosCache != null) {
+            return tosCache.popOperands(kind, n);
+        }
+        CiRegister[] operands = new CiRegister[n];
+        for (int i = 0; i < n; i++) {
+            CiRegister reg = i == 0 ? scratch : scratch2;
+            if (kind.isReference) {
+                peekObject(reg, n - 1 - i);
+            } else {
+                peekInt(reg, n - 1 - i);
+            }
+            operands[i] = reg;
+        }
+        decStack(n);
+        return operands;
+    }
+
+    /**
+     * Emits code to push the operand stack values {@linkplain TopOfStackCache cached} in registers, if any.
+     */
+    protected void flushTopOfStackCache() {
+        if (tosCache != null) {
+            tosCache.flush();
+        }
+    }
+
+    /**
+     * Emits an unconditional jump to a given position.
+     */
+    protected abstract void jump(int targetPos);
+
     /**
      * Emits code for a branch.
      *
@@ -1387,6 +1493,12 @@ public abstract class T1XCompilation {
     }
 
     protected void do_iconst(int value) {
+        if (tosCache != null) {
+            CiRegister reg = tosCache.allocate();
+            assignInt(reg, value);
+            tosCache.push(reg, Kind.INT);
+            return;
+        }
         assignInt(scratch, value);
         incStack(1);
         pokeInt(scratch, 0);
@@ -1405,12 +1517,30 @@ public abstract class T1XCompilation {
     }
 
     protected void do_lconst(long value) {
+        if (tosCache != null) {
+            CiRegister reg = tosCache.allocate();
+            assignLong(reg, value);
+            tosCache.push(reg, Kind.LONG);
+            return;
+        }
         assignLong(scratch, value);
         incStack(2);
         pokeLong(scratch, 0);
     }
 
     protected void do_load(int index, Kind kind) {
+        if (tosCache != null && TopOfStackCache.canCache(kind, scratch)) {
+            CiRegister reg = tosCache.allocate();
+            if (kind == Kind.INT) {
+                loadInt(reg, index);
+            } else if (kind == Kind.LONG) {
+                loadLong(reg, index);
+            } else {
+                loadWord(reg, index);
+            }
+            tosCache.push(reg, kind);
+            return;
+        }
         switch(kind.asEnum) {
             case INT:
             case FLOAT:
@@ -1435,6 +1565,17 @@ public abstract class T1XCompilation {
     }
 
     protected void do_store(int index, Kind kind) {
+        CiRegister reg = tosCache != null ? tosCache.pop(kind) : null;
+        if (reg != null) {
+            if (kind == Kind.INT) {
+                storeInt(reg, index);
+            } else if (kind == Kind.LONG) {
+                storeLong(reg, index);
+            } else {
+                storeWord(reg, index);
+            }
+            return;
+        }
         switch(kind.asEnum) {
             case INT:
             case FLOAT:
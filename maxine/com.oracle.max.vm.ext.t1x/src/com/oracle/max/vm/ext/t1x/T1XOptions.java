@@ -40,6 +40,8 @@ public final class T1XOptions {
 
     public static boolean TraceMethods                       = ____;
 
+    public static boolean CacheTopOfStack                    = ____;
+
     /**
      * See {@link Filter#Filter(String, Object)}.
      */
@@ -79,6 +81,9 @@ public final class T1XOptions {
 
         map.put("TraceMethods",
                 "Trace calls to T1X compiled methods.");
+        map.put("CacheTopOfStack",
+                "Keep the top one or two operand stack values in registers across bytecodes so that " +
+                "sequences such as iload/iload/iadd/istore are compiled without operand stack accesses.");
         map.put("PrintJsrRetRewrites",
                 "Print a message when T1X rewrites a method to inline jsr/ret subroutines.");
 
@@ -159,6 +159,15 @@ public class T1XTargetMethod extends TargetMethod {
      */
     public final int[] bciToPos;
 
+    /**
+     * Pairs of a BCI and a target code position, sorted by BCI, for the bytecode instructions compiled to use
+     * operand stack values {@linkplain TopOfStackCache cached} in registers by the preceding instruction.
+     * Such an instruction is re-executed after deoptimization at the position paired with its BCI instead of
+     * at its {@linkplain #bciToPos start}, so that the cached values are first loaded from the operand stack.
+     * This is {@code null} if there are no such instructions.
+     */
+    public final int[] reexecuteEntries;
+
     public final CiExceptionHandler[] handlers;
 
     /**
@@ -186,6 +195,7 @@ public class T1XTargetMethod extends TargetMethod {
 
         codeAttribute = comp.codeAttribute;
         bciToPos = comp.bciToPos;
+        reexecuteEntries = comp.reexecuteEntries;
         frame = comp.frame;
         frameRefMapOffset = frame.frameReferenceMapOffset();
         setFrameSize(frame.frameSize());
@@ -1141,7 +1151,7 @@ public class T1XTargetMethod extends TargetMethod {
         if (exception == null) {
             RiMethod callee = classMethodActor.codeAttribute().calleeAt(bci);
             if (reexecute) {
-                int curPos = bciToPos[bci];
+                int curPos = reexecutePosForBci(bci);
                 ip = codeAt(curPos);
             } else {
                 ip = findTemplateCallReturnAddress(info, bci, callee);
@@ -1156,6 +1166,28 @@ public class T1XTargetMethod extends TargetMethod {
         return ip;
     }
 
+    /**
+     * Gets the position at which execution resumes to re-execute the bytecode instruction at {@code bci}.
+     */
+    private int reexecutePosForBci(int bci) {
+        if (reexecuteEntries != null) {
+            int low = 0;
+            int high = reexecuteEntries.length / 2 - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int midBCI = reexecuteEntries[mid * 2];
+                if (midBCI < bci) {
+                    low = mid + 1;
+                } else if (midBCI > bci) {
+                    high = mid - 1;
+                } else {
+                    return reexecuteEntries[mid * 2 + 1];
+                }
+            }
+        }
+        return bciToPos[bci];
+    }
+
     /**
      * Finds the address of the instruction after a template call.
      *
@@ -1197,8 +1229,8 @@ public class T1XTargetMethod extends TargetMethod {
             return codeAt(templateCallReturnPos);
         } else {
             FatalError.check(callee == null || ((RiResolvedMethod) callee).intrinsic() != null, "could not find template call for non-intrinisc method at " + curPos + " in " + this);
-            // Must be a safepoint
-            return codeAt(curPos);
+            // Must be a safepoint or an uncommon trap, which re-execute the instruction
+            return codeAt(reexecutePosForBci(bci));
         }
     }
 }
@@ -0,0 +1,404 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.max.vm.ext.t1x;
+
+import static com.oracle.max.vm.ext.t1x.T1XCompilation.*;
+
+import java.util.*;
+
+import com.oracle.max.vm.ext.t1x.T1XTemplate.Arg;
+import com.oracle.max.vm.ext.t1x.T1XTemplate.Sig;
+import com.sun.cri.bytecode.*;
+import com.sun.cri.ci.*;
+import com.sun.max.vm.type.*;
+
+/**
+ * Keeps up to {@link #MAX_ENTRIES} values at the top of the operand stack in the {@linkplain T1XCompilation#scratch scratch}
+ * registers across bytecode instructions (see {@link T1XOptions#CacheTopOfStack}).
+ * <p>
+ * A cached value has not been pushed: neither the stack pointer adjustment nor the store to its slot has been emitted.
+ * This lets a sequence such as {@code iload; iload; iadd; istore} compile to two loads, the {@code IADD} template and
+ * a store, with no operand stack traffic at all. The values are only cached between instructions that do not leave
+ * the code emitted by this compilation, so no safepoint or trap can observe the operand stack while it is out of date.
+ * Any other instruction, as well as the start of a basic block, {@linkplain #flush() pushes} the cached values first.
+ * The reference maps computed by {@link T1XReferenceMapEditor} therefore remain valid.
+ * <p>
+ * Deoptimization re-executes an instruction by resuming at its first code position, with the operand stack fully in
+ * memory. For each instruction compiled under the assumption that some values are cached, a stub that loads those
+ * values and adjusts the stack pointer before jumping to the instruction is {@linkplain #emitReexecuteEntries() emitted}
+ * after the method body. {@link T1XTargetMethod#reexecuteEntries} records these stubs.
+ */
+public final class TopOfStackCache {
+
+    /**
+     * The maximum number of values kept in registers.
+     */
+    public static final int MAX_ENTRIES = 2;
+
+    /**
+     * Instructions that can start with values cached as they either push or pop them with code emitted by
+     * the compilation itself, or only consume them as template arguments.
+     */
+    private static final boolean[] consumers = new boolean[256];
+
+    /**
+     * Instructions whose templates neither trap nor call and can therefore consume and produce values in registers.
+     */
+    private static final boolean[] pure = new boolean[256];
+
+    static {
+        int[] producers = {
+            Bytecodes.ILOAD, Bytecodes.ILOAD_0, Bytecodes.ILOAD_1, Bytecodes.ILOAD_2, Bytecodes.ILOAD_3,
+            Bytecodes.LLOAD, Bytecodes.LLOAD_0, Bytecodes.LLOAD_1, Bytecodes.LLOAD_2, Bytecodes.LLOAD_3,
+            Bytecodes.ALOAD, Bytecodes.ALOAD_0, Bytecodes.ALOAD_1, Bytecodes.ALOAD_2, Bytecodes.ALOAD_3,
+            Bytecodes.ICONST_M1, Bytecodes.ICONST_0, Bytecodes.ICONST_1, Bytecodes.ICONST_2, Bytecodes.ICONST_3,
+            Bytecodes.ICONST_4, Bytecodes.ICONST_5, Bytecodes.BIPUSH, Bytecodes.SIPUSH, Bytecodes.LCONST_0, Bytecodes.LCONST_1,
+            Bytecodes.ISTORE, Bytecodes.ISTORE_0, Bytecodes.ISTORE_1, Bytecodes.ISTORE_2, Bytecodes.ISTORE_3,
+            Bytecodes.LSTORE, Bytecodes.LSTORE_0, Bytecodes.LSTORE_1, Bytecodes.LSTORE_2, Bytecodes.LSTORE_3,
+            Bytecodes.ASTORE, Bytecodes.ASTORE_0, Bytecodes.ASTORE_1, Bytecodes.ASTORE_2, Bytecodes.ASTORE_3,
+            Bytecodes.IFEQ, Bytecodes.IFNE, Bytecodes.IFLT, Bytecodes.IFGE, Bytecodes.IFGT, Bytecodes.IFLE,
+            Bytecodes.IF_ICMPEQ, Bytecodes.IF_ICMPNE, Bytecodes.IF_ICMPLT, Bytecodes.IF_ICMPGE, Bytecodes.IF_ICMPGT, Bytecodes.IF_ICMPLE,
+            Bytecodes.IF_ACMPEQ, Bytecodes.IF_ACMPNE, Bytecodes.IFNULL, Bytecodes.IFNONNULL,
+            Bytecodes.GETFIELD, Bytecodes.ARRAYLENGTH,
+            Bytecodes.IALOAD, Bytecodes.LALOAD, Bytecodes.AALOAD, Bytecodes.BALOAD, Bytecodes.CALOAD, Bytecodes.SALOAD
+        };
+        int[] alu = {
+            Bytecodes.IADD, Bytecodes.ISUB, Bytecodes.IMUL, Bytecodes.INEG, Bytecodes.IAND, Bytecodes.IOR, Bytecodes.IXOR,
+            Bytecodes.ISHL, Bytecodes.ISHR, Bytecodes.IUSHR,
+            Bytecodes.LADD, Bytecodes.LSUB, Bytecodes.LMUL, Bytecodes.LNEG, Bytecodes.LAND, Bytecodes.LOR, Bytecodes.LXOR,
+            Bytecodes.LSHL, Bytecodes.LSHR, Bytecodes.LUSHR, Bytecodes.LCMP,
+            Bytecodes.I2L, Bytecodes.L2I, Bytecodes.I2B, Bytecodes.I2C, Bytecodes.I2S
+        };
+        for (int opcode : producers) {
+            consumers[opcode] = true;
+        }
+        for (int opcode : alu) {
+            consumers[opcode] = true;
+            pure[opcode] = true;
+        }
+    }
+
+    /**
+     * A stub re-establishing the cached values for an instruction re-executed after deoptimization.
+     */
+    private static final class ReexecuteEntry {
+        final int bci;
+        final int pos;
+        final CiRegister[] registers;
+        final Kind[] kinds;
+
+        ReexecuteEntry(int bci, int pos, CiRegister[] registers, Kind[] kinds, int size) {
+            this.bci = bci;
+            this.pos = pos;
+            this.registers = Arrays.copyOf(registers, size);
+            this.kinds = Arrays.copyOf(kinds, size);
+        }
+    }
+
+    private final T1XCompilation comp;
+
+    /**
+     * The cached values, the top of the stack last.
+     */
+    private final CiRegister[] registers = new CiRegister[MAX_ENTRIES];
+    private final Kind[] kinds = new Kind[MAX_ENTRIES];
+    private int size;
+
+    /**
+     * The opcode of the instruction being compiled.
+     */
+    private int opcode;
+
+    /**
+     * The BCIs at which control flow merges, i.e. the targets of branches and switches and the exception handlers.
+     */
+    private final boolean[] mergeBCIs;
+
+    private final ArrayList<ReexecuteEntry> reexecuteEntries = new ArrayList<ReexecuteEntry>();
+
+    TopOfStackCache(T1XCompilation comp, byte[] code, boolean[] handlerBCIs) {
+        this.comp = comp;
+        mergeBCIs = new boolean[code.length];
+        if (handlerBCIs != null) {
+            System.arraycopy(handlerBCIs, 0, mergeBCIs, 0, code.length);
+        }
+        BytecodeStream s = new BytecodeStream(code);
+        while (s.currentBCI() < s.endBCI()) {
+            int op = s.currentBC();
+            if (op == Bytecodes.GOTO_W || op == Bytecodes.JSR_W) {
+                mergeBCIs[s.readFarBranchDest()] = true;
+            } else if (Bytecodes.isBranch(op)) {
+                mergeBCIs[s.readBranchDest()] = true;
+            } else if (op == Bytecodes.TABLESWITCH || op == Bytecodes.LOOKUPSWITCH) {
+                BytecodeSwitch sw = op == Bytecodes.TABLESWITCH ? new BytecodeTableSwitch(s, s.currentBCI()) : new BytecodeLookupSwitch(s, s.currentBCI());
+                for (int i = 0; i < sw.numberOfCases(); i++) {
+                    mergeBCIs[sw.targetAt(i)] = true;
+                }
+                mergeBCIs[sw.defaultTarget()] = true;
+            }
+            s.next();
+        }
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Gets the number of operand stack slots occupied by the cached values.
+     */
+    int slots() {
+        int slots = 0;
+        for (int i = 0; i < size; i++) {
+            slots += kinds[i].stackSlots;
+        }
+        return slots;
+    }
+
+    /**
+     * Called before any code is emitted for the instruction at {@code bci}. The cached values are pushed if
+     * the instruction cannot use them or if control flow merges at {@code bci}.
+     */
+    void beforeBytecode(int bci, int opcode) {
+        this.opcode = opcode;
+        if (size != 0 && (mergeBCIs[bci] || !consumers[opcode])) {
+            flush();
+        }
+    }
+
+    /**
+     * Called once the position of the instruction at {@code bci} has been recorded.
+     */
+    void atBytecode(int bci, int pos) {
+        if (size != 0) {
+            reexecuteEntries.add(new ReexecuteEntry(bci, pos, registers, kinds, size));
+        }
+    }
+
+    /**
+     * Emits the code pushing all the cached values.
+     */
+    void flush() {
+        if (size != 0) {
+            comp.incStack(slots());
+            pokeAll();
+            size = 0;
+        }
+    }
+
+    private void pokeAll() {
+        int slot = 0;
+        for (int i = size - 1; i >= 0; i--) {
+            poke(registers[i], kinds[i], slot);
+            slot += kinds[i].stackSlots;
+        }
+    }
+
+    private void poke(CiRegister reg, Kind kind, int slot) {
+        switch (kind.asEnum) {
+            case INT:
+                comp.pokeInt(reg, slot);
+                break;
+            case LONG:
+                comp.pokeLong(reg, slot);
+                break;
+            case REFERENCE:
+                comp.pokeObject(reg, slot);
+                break;
+            default:
+                throw new InternalError("Unexpected kind: " + kind);
+        }
+    }
+
+    private void peek(CiRegister reg, Kind kind, int slot) {
+        switch (kind.asEnum) {
+            case INT:
+                comp.peekInt(reg, slot);
+                break;
+            case LONG:
+                comp.peekLong(reg, slot);
+                break;
+            case REFERENCE:
+                comp.peekObject(reg, slot);
+                break;
+            default:
+                throw new InternalError("Unexpected kind: " + kind);
+        }
+    }
+
+    /**
+     * Determines if a value of a given kind in a given register can be cached.
+     */
+    static boolean canCache(Kind kind, CiRegister reg) {
+        return (kind == Kind.INT || kind == Kind.LONG || kind == Kind.REFERENCE) && (reg == scratch || reg == scratch2);
+    }
+
+    /**
+     * Gets a register for a value about to be pushed, pushing the value at the bottom of the cache if it is full.
+     */
+    CiRegister allocate() {
+        if (size == MAX_ENTRIES) {
+            comp.incStack(kinds[0].stackSlots);
+            poke(registers[0], kinds[0], 0);
+            size--;
+            for (int i = 0; i < size; i++) {
+                registers[i] = registers[i + 1];
+                kinds[i] = kinds[i + 1];
+            }
+        }
+        return size != 0 && registers[size - 1] == scratch ? scratch2 : scratch;
+    }
+
+    /**
+     * Records that {@code reg} holds the value at the top of the operand stack.
+     */
+    void push(CiRegister reg, Kind kind) {
+        assert size < MAX_ENTRIES && canCache(kind, reg);
+        registers[size] = reg;
+        kinds[size] = kind;
+        size++;
+    }
+
+    /**
+     * Pops the value at the top of the operand stack if it is cached with the given kind, otherwise pushes all the cached values.
+     *
+     * @return the register holding the popped value or {@code null} if it is on the operand stack
+     */
+    CiRegister pop(Kind kind) {
+        if (size != 0) {
+            if (kinds[size - 1] == kind) {
+                return registers[--size];
+            }
+            flush();
+        }
+        return null;
+    }
+
+    /**
+     * Pops the {@code n} single slot values of a given kind at the top of the operand stack into registers.
+     * The values that are not cached are loaded from the operand stack, which is adjusted accordingly.
+     *
+     * @return the registers holding the values, the top of the stack last
+     */
+    CiRegister[] popOperands(Kind kind, int n) {
+        for (int i = 0; i < size; i++) {
+            if (i < size - n || kinds[i] != kind) {
+                flush();
+                break;
+            }
+        }
+        CiRegister[] operands = new CiRegister[n];
+        int cached = size;
+        for (int i = 0; i < cached; i++) {
+            operands[n - cached + i] = registers[i];
+        }
+        for (int i = 0; i < n - cached; i++) {
+            CiRegister reg = i == 0 && (cached == 0 || registers[0] != scratch) ? scratch : scratch2;
+            peek(reg, kind, n - cached - 1 - i);
+            operands[i] = reg;
+        }
+        size = 0;
+        if (n - cached > 0) {
+            comp.decStack(n - cached);
+        }
+        return operands;
+    }
+
+    /**
+     * Prepares the cached values for use as stack arguments of a template. If the template can consume the values
+     * without them being pushed, i.e. it is for a {@linkplain #pure pure} instruction, it has no safepoints and each
+     * cached value is a stack argument, the values are left in their registers. Otherwise they are pushed.
+     * In either case, {@link #registerFor} gives the registers from which the arguments can be copied until {@link #clear()} is called.
+     *
+     * @return the number of operand stack slots the arguments occupy that have not been pushed
+     */
+    int startTemplate(T1XTemplate template) {
+        if (pure[opcode] && template.safepoints.length == 0) {
+            int matched = 0;
+            for (Arg a : template.sig.in) {
+                if (a.isStack() && registerFor(a) != null) {
+                    matched++;
+                }
+            }
+            if (matched == size) {
+                return slots();
+            }
+        }
+        comp.incStack(slots());
+        pokeAll();
+        return 0;
+    }
+
+    /**
+     * Gets the register caching the value for a given template stack argument.
+     *
+     * @return {@code null} if the argument is not cached
+     */
+    CiRegister registerFor(Arg a) {
+        int slot = 0;
+        for (int i = size - 1; i >= 0; i--) {
+            if (slot == a.slot) {
+                return kinds[i] == a.kind ? registers[i] : null;
+            }
+            slot += kinds[i].stackSlots;
+        }
+        return null;
+    }
+
+    /**
+     * Determines if the result of the template for the current instruction can be cached.
+     */
+    boolean canCacheResult(Sig sig) {
+        return pure[opcode] && sig.out.isStack() && canCache(sig.out.kind, sig.out.reg);
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * Emits the stubs for the instructions that may be re-executed after deoptimization with values cached.
+     *
+     * @return pairs of a BCI and the position of its stub, sorted by BCI, or {@code null} if there are no stubs
+     */
+    int[] emitReexecuteEntries() {
+        assert size == 0;
+        if (reexecuteEntries.isEmpty()) {
+            return null;
+        }
+        int[] result = new int[reexecuteEntries.size() * 2];
+        int i = 0;
+        for (ReexecuteEntry e : reexecuteEntries) {
+            result[i++] = e.bci;
+            result[i++] = comp.buf.position();
+            int slot = 0;
+            for (int j = e.registers.length - 1; j >= 0; j--) {
+                peek(e.registers[j], e.kinds[j], slot);
+                slot += e.kinds[j].stackSlots;
+            }
+            comp.decStack(slot);
+            comp.jump(e.pos);
+        }
+        return result;
+    }
+}
@@ -710,12 +710,45 @@ public class AMD64T1XCompilation extends T1XCompilation {
         }
     }
 
+    /**
+     * Emits code to pop a value of a given kind off the operand stack and compare it with zero or {@code null}.
+     */
+    private void popAndCompareWithZero(Kind kind) {
+        CiRegister value = popOperands(kind, 1)[0];
+        CiRegister zero = value == scratch ? scratch2 : scratch;
+        if (kind.isReference) {
+            assignObject(zero, null);
+            asm.cmpq(value, zero);
+        } else {
+            assignInt(zero, 0);
+            asm.cmpl(value, zero);
+        }
+    }
+
+    /**
+     * Emits code to pop two values of a given kind off the operand stack and compare them.
+     */
+    private void popAndCompare(Kind kind) {
+        CiRegister[] operands = popOperands(kind, 2);
+        if (kind.isReference) {
+            asm.cmpq(operands[0], operands[1]);
+        } else {
+            asm.cmpl(operands[0], operands[1]);
+        }
+    }
+
+    @Override
+    protected void jump(int targetPos) {
+        asm.jmp(targetPos, false);
+    }
+
     @Override
     protected void branch(int opcode, int targetBCI, int bci) {
         ConditionFlag cc;
 
         if (stream.nextBCI() == targetBCI && methodProfileBuilder == null) {
             // Skip completely if target is next instruction and profiling is turned off
+            flushTopOfStackCache();
             decStack(1);
             return;
         }
@@ -724,115 +757,67 @@ public class AMD64T1XCompilation extends T1XCompilation {
         // adjustment instructions as both affect the condition flags.
         switch (opcode) {
             case Bytecodes.IFEQ:
-                peekInt(scratch, 0);
-                assignInt(scratch2, 0);
-                decStack(1);
-                asm.cmpl(scratch, scratch2);
+                popAndCompareWithZero(Kind.INT);
                 cc = ConditionFlag.equal;
                 break;
             case Bytecodes.IFNE:
-                peekInt(scratch, 0);
-                assignInt(scratch2, 0);
-                decStack(1);
-                asm.cmpl(scratch, scratch2);
+                popAndCompareWithZero(Kind.INT);
                 cc = ConditionFlag.notEqual;
                 break;
             case Bytecodes.IFLE:
-                peekInt(scratch, 0);
-                assignInt(scratch2, 0);
-                decStack(1);
-                asm.cmpl(scratch, scratch2);
+                popAndCompareWithZero(Kind.INT);
                 cc = ConditionFlag.lessEqual;
                 break;
             case Bytecodes.IFLT:
-                peekInt(scratch, 0);
-                assignInt(scratch2, 0);
-                decStack(1);
-                asm.cmpl(scratch, scratch2);
+                popAndCompareWithZero(Kind.INT);
                 cc = ConditionFlag.less;
                 break;
             case Bytecodes.IFGE:
-                peekInt(scratch, 0);
-                assignInt(scratch2, 0);
-                decStack(1);
-                asm.cmpl(scratch, scratch2);
+                popAndCompareWithZero(Kind.INT);
                 cc = ConditionFlag.greaterEqual;
                 break;
             case Bytecodes.IFGT:
-                peekInt(scratch, 0);
-                assignInt(scratch2, 0);
-                decStack(1);
-                asm.cmpl(scratch, scratch2);
+                popAndCompareWithZero(Kind.INT);
                 cc = ConditionFlag.greater;
                 break;
             case Bytecodes.IF_ICMPEQ:
-                peekInt(scratch, 1);
-                peekInt(scratch2, 0);
-                decStack(2);
-                asm.cmpl(scratch, scratch2);
+                popAndCompare(Kind.INT);
                 cc = ConditionFlag.equal;
                 break;
             case Bytecodes.IF_ICMPNE:
-                peekInt(scratch, 1);
-                peekInt(scratch2, 0);
-                decStack(2);
-                asm.cmpl(scratch, scratch2);
+                popAndCompare(Kind.INT);
                 cc = ConditionFlag.notEqual;
                 break;
             case Bytecodes.IF_ICMPGE:
-                peekInt(scratch, 1);
-                peekInt(scratch2, 0);
-                decStack(2);
-                asm.cmpl(scratch, scratch2);
+                popAndCompare(Kind.INT);
                 cc = ConditionFlag.greaterEqual;
                 break;
             case Bytecodes.IF_ICMPGT:
-                peekInt(scratch, 1);
-                peekInt(scratch2, 0);
-                decStack(2);
-                asm.cmpl(scratch, scratch2);
+                popAndCompare(Kind.INT);
                 cc = ConditionFlag.greater;
                 break;
             case Bytecodes.IF_ICMPLE:
-                peekInt(scratch, 1);
-                peekInt(scratch2, 0);
-                decStack(2);
-                asm.cmpl(scratch, scratch2);
+                popAndCompare(Kind.INT);
                 cc = ConditionFlag.lessEqual;
                 break;
             case Bytecodes.IF_ICMPLT:
-                peekInt(scratch, 1);
-                peekInt(scratch2, 0);
-                decStack(2);
-                asm.cmpl(scratch, scratch2);
+                popAndCompare(Kind.INT);
                 cc = ConditionFlag.less;
                 break;
             case Bytecodes.IF_ACMPEQ:
-                peekObject(scratch, 1);
-                peekObject(scratch2, 0);
-                decStack(2);
-                asm.cmpq(scratch, scratch2);
+                popAndCompare(Kind.REFERENCE);
                 cc = ConditionFlag.equal;
                 break;
             case Bytecodes.IF_ACMPNE:
-                peekObject(scratch, 1);
-                peekObject(scratch2, 0);
-                decStack(2);
-                asm.cmpq(scratch, scratch2);
+                popAndCompare(Kind.REFERENCE);
                 cc = ConditionFlag.notEqual;
                 break;
             case Bytecodes.IFNULL:
-                peekObject(scratch, 0);
-                assignObject(scratch2, null);
-                decStack(1);
-                asm.cmpq(scratch, scratch2);
+                popAndCompareWithZero(Kind.REFERENCE);
                 cc = ConditionFlag.equal;
                 break;
             case Bytecodes.IFNONNULL:
-                peekObject(scratch, 0);
-                assignObject(scratch2, null);
-                decStack(1);
-                asm.cmpq(scratch, scratch2);
+                popAndCompareWithZero(Kind.REFERENCE);
                 cc = ConditionFlag.notEqual;
                 break;
             case Bytecodes.GOTO:
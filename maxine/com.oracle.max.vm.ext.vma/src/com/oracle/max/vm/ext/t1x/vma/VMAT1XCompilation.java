@@ -104,6 +104,14 @@ public class VMAT1XCompilation extends AMD64T1XCompilation {
     }
 
 
+    /**
+     * The advice templates are emitted around the templates for a bytecode.
+     */
+    @Override
+    protected boolean cachesTopOfStack() {
+        return false;
+    }
+
     @Override
     protected void beginBytecode(int opcode) {
         super.beginBytecode(opcode);
@@ -78,5 +78,13 @@ static inline void maxsim_c_activate_data_trans_via_addr_space_morph(uint64_t da
     maxsim_magic_op_arg(MAXSIM_M_OPC_ACTIVATE_DATA_TRANS_VIA_ADDR_SPACE_MORPH, (uint64_t) & range);
 }
 
+static inline void maxsim_c_activate_data_trans_batch_via_addr_space_morph(uint64_t dataTransDBBegin, uint64_t dataTransDBEnd) {
+    AddressRange_t range;
+    range.lo = dataTransDBBegin;
+    range.hi = dataTransDBEnd;
+    range.type = PROTOBUF_MESSAGE_ADDRESS_RANGE;
+    maxsim_magic_op_arg(MAXSIM_M_OPC_ACTIVATE_DATA_TRANS_BATCH_VIA_ADDR_SPACE_MORPH, (uint64_t) & range);
+}
+
 #endif /*__ZSIM_HOOKS_H__*/
 
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+/*
+ * @Harness: java
+ * @Runs: 1000 = true
+ */
+package test.bench.threads;
+
+import java.lang.management.*;
+
+import test.bench.util.*;
+
+/**
+ * Benchmarks the time taken to start and join a batch of short-lived threads while
+ * another thread repeatedly queries the thread counts and the list of live threads,
+ * as a management agent or a thread pool monitor would.
+ */
+public class ThreadStartStop_01 extends RunBench {
+
+    protected ThreadStartStop_01(int n) {
+        super(new Bench(n));
+    }
+
+    public static boolean test(int i) {
+        return new ThreadStartStop_01(i).runBench();
+    }
+
+    static class Bench extends MicroBenchmark {
+        private final int numThreads;
+        private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        private volatile boolean done;
+        private Thread monitor;
+
+        Bench(int n) {
+            numThreads = n;
+        }
+
+        @Override
+        public void prerun() {
+            done = false;
+            monitor = new Thread() {
+                @Override
+                public void run() {
+                    while (!done) {
+                        threadMXBean.getThreadCount();
+                        threadMXBean.getDaemonThreadCount();
+                        threadMXBean.getPeakThreadCount();
+                        threadMXBean.getAllThreadIds();
+                    }
+                }
+            };
+            monitor.setDaemon(true);
+            monitor.start();
+        }
+
+        @Override
+        public void postrun() throws InterruptedException {
+            done = true;
+            monitor.join();
+        }
+
+        @Override
+        public long run() throws InterruptedException {
+            final Thread[] threads = new Thread[numThreads];
+            for (int i = 0; i < threads.length; i++) {
+                threads[i] = new Thread();
+                threads[i].start();
+            }
+            for (int i = 0; i < threads.length; i++) {
+                threads[i].join();
+            }
+            return defaultResult;
+        }
+    }
+
+    // for running stand-alone
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            test(1000);
+        } else {
+            test(Integer.parseInt(args[0]));
+        }
+    }
+}
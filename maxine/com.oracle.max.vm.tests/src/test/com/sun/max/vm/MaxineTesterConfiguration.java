@@ -275,7 +275,9 @@ public class MaxineTesterConfiguration {
         imageConfig("jtt-c1xt1x", opt_c1x, "-run=test.com.sun.max.vm.jtrun.all", "-native-tests", testCalleeT1X, "--XX:+FailOverCompilation");
         imageConfig("jtt-t1xt1x", opt_c1x, "-run=test.com.sun.max.vm.jtrun.all", "-native-tests", joinCompileCommands(testCallerT1X, testCalleeT1X), "--XX:+FailOverCompilation");
         imageConfig("jtt-c1xc1x", opt_c1x, "-run=test.com.sun.max.vm.jtrun.all", "-native-tests");
+        imageConfig("jtt-c1xc1x-opt3", opt_c1x, "-run=test.com.sun.max.vm.jtrun.all", "-native-tests", "--C1X:OptLevel=3");
         imageConfig("jtt-c1xgraal", opt_c1xgraal, "-run=test.com.sun.max.vm.jtrun.all", "-native-tests", joinCompileCommands(testCallerT1X, testCalleeGraal));
+        imageConfig("jtt-t1xt1x-tos", opt_c1x, "-run=test.com.sun.max.vm.jtrun.all", "-native-tests", joinCompileCommands(testCallerT1X, testCalleeT1X), "--XX:+FailOverCompilation", "--T1X:+CacheTopOfStack", "--T1X:+EagerRefMaps");
 
         imageConfig("jtt-msc1xt1x", opt_c1x, "-run=test.com.sun.max.vm.jtrun.all", "-heap=gcx.ms", "-native-tests", testCalleeT1X);
         imageConfig("jtt-mst1xc1x", opt_c1x, "-run=test.com.sun.max.vm.jtrun.all", "-heap=gcx.ms", "-native-tests", testCallerT1X);
@@ -288,6 +290,7 @@ public class MaxineTesterConfiguration {
         imageConfig("jtt-msec1xc1x", opt_c1x, "-run=test.com.sun.max.vm.jtrun.all", "-heap=gcx.mse", "-native-tests");
 
         imageConfig("vm-output", "-run=test.com.sun.max.vm.output");
+        imageConfig("vm-output-tos", "-run=test.com.sun.max.vm.output", "--T1X:+CacheTopOfStack");
 
         maxvmConfig("std", "-Xms2g", "-Xmx2g");
         maxvmConfig("eviction1000", "-Xms2g", "-Xmx2g", "-XX:CodeCacheContentionFrequency=1000");
@@ -452,12 +455,15 @@ public class MaxineTesterConfiguration {
         if (platform.cpu == CPU.SPARCV9) {
             return "jtt-c1xc1x,jtt-c1xt1x,jtt-t1xc1x,jtt-t1xt1x";
         }
-        return "jtt-c1xc1x,jtt-t1xc1x,jtt-c1xt1x,jtt-t1xt1x,jtt-c1xgraal";
+        return "jtt-c1xc1x,jtt-t1xc1x,jtt-c1xt1x,jtt-t1xt1x,jtt-c1xgraal,jtt-t1xt1x-tos,jtt-c1xc1x-opt3";
     }
 
     public static List<String> defaultVMOutputImageConfigs() {
         List<String> result = new ArrayList<String>();
         result.add("vm-output");
+        if (Platform.platform().cpu == CPU.AMD64) {
+            result.add("vm-output-tos");
+        }
         return result;
     }
 
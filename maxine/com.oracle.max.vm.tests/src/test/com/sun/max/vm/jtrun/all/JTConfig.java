@@ -572,6 +572,8 @@ public class JTConfig {
         jtt.optimize.Conditional01.class,
         jtt.optimize.DeadCode01.class,
         jtt.optimize.DeadCode02.class,
+        jtt.optimize.EA_01.class,
+        jtt.optimize.EA_02.class,
         jtt.optimize.Fold_Cast01.class,
         jtt.optimize.Fold_Convert01.class,
         jtt.optimize.Fold_Convert02.class,
@@ -590,6 +592,9 @@ public class JTConfig {
         jtt.optimize.Fold_Math01.class,
         jtt.optimize.Inline01.class,
         jtt.optimize.Inline02.class,
+        jtt.optimize.LICM_01.class,
+        jtt.optimize.LICM_02.class,
+        jtt.optimize.LICM_03.class,
         jtt.optimize.LLE_01.class,
         jtt.optimize.List_reorder_bug.class,
         jtt.optimize.NCE_01.class,
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package test.com.sun.max.vm.log;
+
+import static com.sun.max.vm.log.VMLogFileFlusher.*;
+
+import java.io.*;
+import java.nio.*;
+
+import junit.framework.*;
+import test.com.sun.max.vm.*;
+
+import com.sun.max.ide.*;
+import com.sun.max.unsafe.*;
+import com.sun.max.vm.log.*;
+import com.sun.max.vm.log.VMLog.Record;
+import com.sun.max.vm.log.hosted.*;
+
+/**
+ * Tests that a file written in the format of {@link VMLogFileFlusher} is decoded back by {@link VMLogFileDecoder}.
+ * The flusher itself cannot run hosted, so the records are placed in the windows of the file the way it places them.
+ */
+public class VMLogFileTest extends MaxTestCase {
+
+    private static final int WINDOW_SIZE = 64;
+
+    private static final int THREAD_ID = 3;
+
+    public VMLogFileTest(String name) {
+        super(name);
+    }
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(VMLogFileTest.suite());
+    }
+
+    public static Test suite() {
+        return new VmTestSetup(new TestSuite(VMLogFileTest.class));
+    }
+
+    private static final class TestLogger extends VMLogger {
+        private final String[] operationNames;
+
+        TestLogger(String name, String... operationNames) {
+            super(name, operationNames.length, (int[]) null);
+            this.operationNames = operationNames;
+        }
+
+        @Override
+        public String operationName(int op) {
+            return operationNames[op];
+        }
+    }
+
+    /**
+     * Writes records to consecutive windows of a file. A record that does not fit in the remainder of the current
+     * window is written at the start of the next window, leaving the remainder zeroed.
+     */
+    private static final class LogWriter {
+        final RandomAccessFile file;
+        final long headerSize;
+        int sequence;
+        int position;
+
+        LogWriter(File logFile, VMLogger[] loggers) throws IOException {
+            file = new RandomAccessFile(logFile, "rw");
+            file.setLength(0);
+            headerSize = writeHeader(file, "TestLog", loggers, WINDOW_SIZE);
+        }
+
+        long write(int header, int id, byte[] args) throws IOException {
+            final int size = ARGS_OFFSET + args.length;
+            assertTrue(size <= WINDOW_SIZE);
+            if (position + size > WINDOW_SIZE) {
+                sequence++;
+                position = 0;
+            }
+            final ByteBuffer record = ByteBuffer.allocate(size).order(ByteOrder.nativeOrder());
+            record.putInt(header);
+            record.putInt(id);
+            record.put(args);
+            final long offset = headerSize + (long) sequence * WINDOW_SIZE + position;
+            file.seek(offset);
+            file.write(record.array());
+            position += size;
+            return offset;
+        }
+
+        long writeThreadName(String name) throws IOException {
+            final int argCount = (name.length() + Word.size() - 1) / Word.size();
+            final byte[] args = new byte[argCount * Word.size()];
+            for (int i = 0; i < name.length(); i++) {
+                args[i] = (byte) name.charAt(i);
+            }
+            return write((THREAD_ID << Record.THREAD_SHIFT) | (THREAD_NAME_OP << Record.OPERATION_SHIFT) | argCount, name.length(), args);
+        }
+
+        long writeRecord(int loggerId, int op, int uuid, long... args) throws IOException {
+            final ByteBuffer buffer = ByteBuffer.allocate(args.length * Word.size()).order(ByteOrder.nativeOrder());
+            for (long arg : args) {
+                if (Word.size() == 8) {
+                    buffer.putLong(arg);
+                } else {
+                    buffer.putInt((int) arg);
+                }
+            }
+            final int header = (THREAD_ID << Record.THREAD_SHIFT) | (op << Record.OPERATION_SHIFT) | (loggerId << Record.LOGGER_ID_SHIFT) | args.length;
+            return write(header, uuid, buffer.array());
+        }
+
+        /**
+         * Truncates the file at the end of the last record, as {@link VMLogFileFlusher#terminate()} does.
+         */
+        void close() throws IOException {
+            file.setLength(headerSize + (long) sequence * WINDOW_SIZE + position);
+            file.close();
+        }
+    }
+
+    private static String decode(File logFile, boolean sort) throws IOException {
+        final VMLogFileDecoder decoder = new VMLogFileDecoder(logFile);
+        try {
+            assertEquals("TestLog", decoder.logClassName());
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final PrintStream out = new PrintStream(bytes);
+            decoder.decode(out, sort);
+            out.flush();
+            return bytes.toString();
+        } finally {
+            decoder.close();
+        }
+    }
+
+    private static String lines(String... lines) {
+        final StringWriter sw = new StringWriter();
+        final PrintWriter pw = new PrintWriter(sw);
+        for (String line : lines) {
+            pw.println(line);
+        }
+        pw.flush();
+        return sw.toString();
+    }
+
+    public void test_roundTrip() throws IOException {
+        final VMLogger[] loggers = {new TestLogger("Alpha", "Begin", "End"), null, new TestLogger("Gamma", "Tick")};
+        final File logFile = File.createTempFile("vmlog", ".bin");
+        try {
+            final LogWriter writer = new LogWriter(logFile, loggers);
+            writer.writeThreadName("main");
+            writer.writeRecord(1, 0, 1, 0x11, 0x12);
+            // does not fit in the remainder of the first window
+            final long offset = writer.writeRecord(1, 1, 4, 0x41, 0x42, 0x43, 0x44, 0x45);
+            assertEquals(writer.headerSize + WINDOW_SIZE, offset);
+            writer.writeRecord(3, 0, 3);
+            writer.writeRecord(2, 5, 2, 0x21);
+            writer.close();
+
+            final String first = "1 Thread \"main\" Alpha.Begin 0x11 0x12";
+            final String second = "2 Thread \"main\" .Op 5 0x21";
+            final String third = "3 Thread \"main\" Gamma.Tick";
+            final String fourth = "4 Thread \"main\" Alpha.End 0x41 0x42 0x43 0x44 0x45";
+            assertEquals(lines(first, fourth, third, second), decode(logFile, false));
+            assertEquals(lines(first, second, third, fourth), decode(logFile, true));
+        } finally {
+            logFile.delete();
+        }
+    }
+}
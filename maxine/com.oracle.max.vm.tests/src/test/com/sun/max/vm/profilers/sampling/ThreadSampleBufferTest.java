@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package test.com.sun.max.vm.profilers.sampling;
+
+import java.io.*;
+
+import junit.framework.*;
+import test.com.sun.max.vm.*;
+
+import com.sun.max.ide.*;
+import com.sun.max.vm.actor.member.*;
+import com.sun.max.vm.profilers.sampling.*;
+import com.sun.max.vm.thread.*;
+
+/**
+ * Tests for {@link ThreadSampleBuffer} and {@link SampleCallTree}.
+ * Samples are written to the buffers frame by frame instead of being taken from the stack.
+ */
+public class ThreadSampleBufferTest extends MaxTestCase {
+
+    public ThreadSampleBufferTest(String name) {
+        super(name);
+    }
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(ThreadSampleBufferTest.suite());
+    }
+
+    public static Test suite() {
+        return new VmTestSetup(new TestSuite(ThreadSampleBufferTest.class));
+    }
+
+    static void root() {
+    }
+
+    static void left() {
+    }
+
+    static void right() {
+    }
+
+    private static ClassMethodActor method(String name) {
+        try {
+            return ClassMethodActor.fromJava(ThreadSampleBufferTest.class.getDeclaredMethod(name));
+        } catch (NoSuchMethodException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static String frame(String name) {
+        return ThreadSampleBufferTest.class.getName() + "." + name;
+    }
+
+    private static ThreadSampleBuffer newBuffer(String threadName, int maxDepth, int capacity) {
+        final VmThread vmThread = new VmThread();
+        vmThread.setName(threadName);
+        return new ThreadSampleBuffer(vmThread, maxDepth, capacity);
+    }
+
+    /**
+     * Records a sample made of the given methods, innermost first.
+     */
+    private static boolean record(ThreadSampleBuffer buffer, String... methods) {
+        if (!buffer.beginSample()) {
+            return false;
+        }
+        for (String name : methods) {
+            final ClassMethodActor method = method(name);
+            if (!buffer.addFrame(method.holder().id, method.memberIndex(), 0)) {
+                break;
+            }
+        }
+        buffer.endSample();
+        return true;
+    }
+
+    private static String collapsed(SampleCallTree tree) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final PrintStream out = new PrintStream(bytes);
+        tree.printCollapsed(out);
+        out.flush();
+        return bytes.toString();
+    }
+
+    private static String line(String thread, String... framesAndCount) {
+        final StringBuilder sb = new StringBuilder(thread);
+        for (int i = 0; i < framesAndCount.length - 1; i++) {
+            sb.append(';').append(frame(framesAndCount[i]));
+        }
+        sb.append(' ').append(framesAndCount[framesAndCount.length - 1]);
+        return sb.append(String.format("%n")).toString();
+    }
+
+    public void test_aggregation() {
+        final SampleCallTree tree = new SampleCallTree(false);
+        final ThreadSampleBuffer buffer1 = newBuffer("t1", 8, 16);
+        final ThreadSampleBuffer buffer2 = newBuffer("t2", 8, 16);
+        assertTrue(record(buffer1, "root"));
+        assertTrue(record(buffer1, "left", "root"));
+        assertTrue(record(buffer1, "right", "root"));
+        assertTrue(record(buffer1, "left", "root"));
+        assertTrue(record(buffer2, "left", "root"));
+        assertEquals(4, buffer1.drain(tree));
+        assertEquals(1, buffer2.drain(tree));
+        assertEquals(0, buffer1.drain(tree));
+        // stacks are merged per thread, and a prefix of a sampled stack is counted on its own
+        assertEquals(line("t1", "root", "1") + line("t1", "root", "left", "2") + line("t1", "root", "right", "1") +
+                     line("t2", "root", "left", "1"), collapsed(tree));
+    }
+
+    public void test_maxDepth() {
+        final SampleCallTree tree = new SampleCallTree(false);
+        final ThreadSampleBuffer buffer = newBuffer("t", 2, 4);
+        assertTrue(record(buffer, "left", "right", "root"));
+        assertEquals(1, buffer.drain(tree));
+        // the outermost frames beyond the maximum depth are cut
+        assertEquals(line("t", "right", "left", "1"), collapsed(tree));
+    }
+
+    public void test_wraparound() {
+        final SampleCallTree tree = new SampleCallTree(false);
+        // samples of at most 2 frames take 5 ints, and 4 of them fit in 32 ints
+        final ThreadSampleBuffer buffer = newBuffer("t", 2, 4);
+        for (int i = 0; i < 6; i++) {
+            assertTrue(record(buffer, i % 2 == 0 ? "left" : "right", "root"));
+        }
+        // a 7th sample could overwrite the first one, which is not drained yet
+        assertFalse(record(buffer, "left", "root"));
+        assertEquals(1, buffer.droppedSamples());
+        assertEquals(6, buffer.drain(tree));
+        // these samples wrap around the end of the buffer
+        for (int i = 0; i < 6; i++) {
+            assertTrue(record(buffer, i % 3 == 0 ? "root" : "left", "root"));
+        }
+        assertEquals(6, buffer.drain(tree));
+        for (int i = 0; i < 20; i++) {
+            assertTrue(record(buffer, "right", "root"));
+            assertEquals(1, buffer.drain(tree));
+        }
+        assertEquals(1, buffer.droppedSamples());
+        assertEquals(line("t", "root", "left", "7") + line("t", "root", "right", "23") + line("t", "root", "root", "2"), collapsed(tree));
+    }
+}
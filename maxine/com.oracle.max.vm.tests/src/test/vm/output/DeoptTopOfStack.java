@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package test.vm.output;
+
+import java.util.*;
+
+import com.sun.max.lang.*;
+import com.sun.max.vm.actor.member.*;
+import com.sun.max.vm.compiler.RuntimeCompiler.Nature;
+import com.sun.max.vm.compiler.deopt.*;
+import com.sun.max.vm.compiler.target.*;
+
+/**
+ * Deoptimizes a method while a thread is in one of its loops and collects garbage while the thread continues in
+ * the baseline code. The safepoints at the loop back edges are at conditional branches, whose operands are on the
+ * operand stack. With {@code -T1X:+CacheTopOfStack}, the baseline code keeps these operands in registers, so the
+ * deoptimized frame resumes through the stubs that reload them (see {@code TopOfStackCache}). The objects the loop
+ * walks are moved by the collections, which checks the reference maps of the baseline code.
+ */
+public class DeoptTopOfStack {
+
+    static final int LENGTH = 1000;
+
+    static final int ROUNDS = 100000;
+
+    static volatile boolean started;
+
+    public static void main(String[] args) throws InterruptedException {
+        boolean isMaxine = System.getProperty("java.vm.name").startsWith("Maxine");
+        Node list = null;
+        for (int i = LENGTH; i > 0; i--) {
+            list = new Node(i * 7, list);
+        }
+        Walker w = new Walker(list);
+        TargetMethod tm = null;
+        if (isMaxine) {
+            ClassMethodActor cma = ClassMethodActor.fromJava(Classes.getDeclaredMethod(DeoptTopOfStack.class, "checksum", Node.class, int.class));
+            tm = cma.makeTargetMethod(Nature.OPT);
+        }
+        w.start();
+        while (!started) {
+            Thread.sleep(1);
+        }
+        Thread.sleep(20);
+        if (isMaxine) {
+            new Deoptimization(new ArrayList<TargetMethod>(Arrays.asList(tm))).go();
+        }
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+        }
+        w.join();
+        System.out.println("checksum: " + w.checksum);
+    }
+
+    static final class Node {
+        final int value;
+        final Node next;
+
+        Node(int value, Node next) {
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    static int checksum(Node list, int rounds) {
+        started = true;
+        int sum = 0;
+        for (int r = 0; r < rounds; r++) {
+            for (Node n = list; n != null; n = n.next) {
+                sum = sum * 31 + n.value;
+            }
+        }
+        return sum;
+    }
+
+    static class Walker extends Thread {
+        final Node list;
+        int checksum;
+
+        public Walker(Node list) {
+            super("Walker");
+            this.list = list;
+        }
+
+        @Override
+        public void run() {
+            checksum = checksum(list, ROUNDS);
+        }
+    }
+}
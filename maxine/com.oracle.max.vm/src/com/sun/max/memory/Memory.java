@@ -229,6 +229,34 @@ public final class Memory {
         assert i.equals(numberOfBytes);
     }
 
+    /**
+     * Copies bytes between possibly overlapping areas of memory, one word at a time where possible.
+     * The areas are copied backward when the destination starts within the source.
+     */
+    @NO_SAFEPOINT_POLLS("speed")
+    public static void moveBytes(Pointer fromPointer, Pointer toPointer, Size numberOfBytes) {
+        if (toPointer.lessEqual(fromPointer) || toPointer.greaterEqual(fromPointer.plus(numberOfBytes))) {
+            copyBytes(fromPointer, toPointer, numberOfBytes);
+            return;
+        }
+        Offset i = numberOfBytes.asOffset();
+        final Offset wordBounds = numberOfBytes.alignDown(Word.size()).asOffset();
+        while (i.greaterThan(wordBounds)) {
+            i = i.minus(1);
+            toPointer.writeByte(i, fromPointer.readByte(i));
+        }
+        if (MaxSimInterfaceHelpers.getLayoutScaleFactor() != MaxSimPlatform.LSF_ONE) {
+            MaxSimMediator.beginLoopFiltering(toPointer.asAddress());
+        }
+        while (i.greaterThan(Offset.zero())) {
+            i = i.minus(Word.size());
+            toPointer.writeWord(i, fromPointer.readWord(i));
+        }
+        if (MaxSimInterfaceHelpers.getLayoutScaleFactor() != MaxSimPlatform.LSF_ONE) {
+            MaxSimMediator.endLoopFiltering();
+        }
+    }
+
     @NO_SAFEPOINT_POLLS("speed")
     public static void copyBytes(Pointer fromPointer, Offset fromOffset,
                                  Pointer toPointer, Offset toOffset,
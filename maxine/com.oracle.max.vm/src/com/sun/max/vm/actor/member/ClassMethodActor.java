@@ -42,6 +42,7 @@ import com.sun.max.vm.compiler.target.*;
 import com.sun.max.vm.compiler.RuntimeCompiler.Nature;
 import com.sun.max.vm.jni.*;
 import com.sun.max.vm.object.ObjectAccess;
+import com.sun.max.vm.profile.*;
 import com.sun.max.vm.runtime.FatalError;
 import com.sun.max.vm.type.*;
 import com.sun.max.vm.verifier.*;
@@ -405,6 +406,48 @@ public abstract class ClassMethodActor extends MethodActor {
         return Compilations.currentTargetMethod(compiledState, null);
     }
 
+    /**
+     * Gets the receiver types recorded at a given bytecode index by the baseline compiled code of this method.
+     * Receivers beyond those recorded individually are accounted for in {@link RiTypeProfile#morphism}
+     * and {@link RiTypeProfile#count} only.
+     */
+    @Override
+    public RiTypeProfile typeProfile(int bci) {
+        TargetMethod baseline = Compilations.currentTargetMethod(compiledState, Nature.BASELINE);
+        if (baseline == null || baseline.profile() == null || baseline.profile().rawData() == null) {
+            return null;
+        }
+        Integer[] pairs = baseline.profile().getTypeProfile(bci);
+        if (pairs == null) {
+            return null;
+        }
+        int typesNum = 0;
+        int count = 0;
+        for (int i = 0; i < pairs.length; i += 2) {
+            if (pairs[i] != MethodProfile.UNDEFINED_TYPE_ID) {
+                typesNum++;
+            }
+            count += pairs[i + 1];
+        }
+        if (count <= 0) {
+            return null;
+        }
+        RiTypeProfile profile = new RiTypeProfile();
+        profile.count = count;
+        profile.morphism = pairs.length / 2;
+        profile.types = new RiResolvedType[typesNum];
+        profile.probabilities = new float[typesNum];
+        int j = 0;
+        for (int i = 0; i < pairs.length; i += 2) {
+            if (pairs[i] != MethodProfile.UNDEFINED_TYPE_ID) {
+                profile.types[j] = ClassIDManager.toClassActor(pairs[i]);
+                profile.probabilities[j] = (float) pairs[i + 1] / count;
+                j++;
+            }
+        }
+        return profile;
+    }
+
     /**
      * Records if this object returned {@code true} for a call to {@link #canBePermanentlyLinked()} during
      * boot image building.
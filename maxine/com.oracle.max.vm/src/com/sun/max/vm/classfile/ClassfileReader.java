@@ -55,6 +55,7 @@ import com.sun.max.vm.hosted.*;
 import com.sun.max.vm.instrument.*;
 import com.sun.max.vm.intrinsics.*;
 import com.sun.max.vm.jdk.*;
+import com.sun.max.vm.maxsim.*;
 import com.sun.max.vm.runtime.*;
 import com.sun.max.vm.ti.*;
 import com.sun.max.vm.type.*;
@@ -1622,10 +1623,16 @@ public final class ClassfileReader {
         saveClassfile(name, bytes);
         final ClassfileStream classfileStream = new ClassfileStream(bytes, offset, length);
         final ClassfileReader classfileReader = new ClassfileReader(classfileStream, classLoader);
-        ClassActor classActor = classfileReader.loadClass(name, source, isRemote);
-        classActor.setProtectionDomain(protectionDomain);
+        final ClassActor definedClassActor;
+        MaxSimDataTransformationScheme.beginRegistrationBurst();
+        try {
+            ClassActor classActor = classfileReader.loadClass(name, source, isRemote);
+            classActor.setProtectionDomain(protectionDomain);
 
-        final ClassActor definedClassActor = ClassRegistry.define(classActor);
+            definedClassActor = ClassRegistry.define(classActor);
+        } finally {
+            MaxSimDataTransformationScheme.endRegistrationBurst();
+        }
 
         if (!MaxineVM.isHosted()) {
             // Maxine is unable to usefully distinguish CLASS_LOAD and CLASS_PREPARE events which, for example, JVMTI distinguishes,
@@ -85,6 +85,25 @@ public final class CodeCacheMetricsPrinter {
         final CodeManager codeManager = Code.getCodeManager();
         printRegionTo(codeManager.getRuntimeBaselineCodeRegion(), out);
         printRegionTo(codeManager.getRuntimeOptCodeRegion(), out);
+        printEvictionTimesTo(out);
+    }
+
+    void printEvictionTimesTo(PrintStream out) {
+        final CodeEviction codeEviction = CodeEviction.codeEviction;
+        if (CodeEviction.evictionCount() == 0) {
+            return;
+        }
+        out.println();
+        out.println("========== Code eviction times ==========");
+        out.println(CodeEviction.evictionCount() + " evictions (" + codeEviction.incrementalEvictionCount + " incremental), " +
+            codeEviction.pauseCount + " pauses, " + ms(codeEviction.totalPauseTime) + " ms total pause time, " +
+            ms(codeEviction.maxPauseTime) + " ms max pause time");
+        CodeCacheMetricsPrinter.Table table = new Table("Phase", "Total(ms)", "Max(ms)");
+        table.addRow("------");
+        for (int i = 0; i < CodeEviction.TIMED_PHASE_NAMES.length; i++) {
+            table.addRow(CodeEviction.TIMED_PHASE_NAMES[i], ms(codeEviction.totalPhaseTimes[i]), ms(codeEviction.maxPhaseTimes[i]));
+        }
+        out.println(CiUtil.tabulate(table.cells.toArray(), table.cols, 1, 1));
     }
 
     void printRegionTo(CodeRegion cr, PrintStream out) {
@@ -161,6 +180,10 @@ public final class CodeCacheMetricsPrinter {
         return a + "(" + ((a * 100) / b) + "%)";
     }
 
+    private static String ms(long ns) {
+        return String.format("%.3f", ns / 1000000.0);
+    }
+
     private static String x(int a, int b) {
         if (a == 0 || b == 0) {
             return "";
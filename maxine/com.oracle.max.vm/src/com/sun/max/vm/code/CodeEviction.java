@@ -38,6 +38,7 @@ import com.sun.max.vm.actor.holder.*;
 import com.sun.max.vm.actor.member.*;
 import com.sun.max.vm.compiler.target.*;
 import com.sun.max.vm.compiler.target.amd64.*;
+import com.sun.max.vm.heap.*;
 import com.sun.max.vm.log.VMLog.Record;
 import com.sun.max.vm.log.hosted.*;
 import com.sun.max.vm.profile.*;
@@ -64,6 +65,33 @@ public final class CodeEviction extends VmOperation {
             MaxineVM.Phase.STARTING);
     }
 
+    /**
+     * Spread evictions over several short pauses instead of evicting when the baseline code region is full.
+     */
+    private static boolean CodeEvictionIncremental;
+
+    /**
+     * Maximal duration of a pause invalidating references to stale methods during an incremental eviction, in microseconds.
+     */
+    private static int CodeEvictionPauseBudget = 1000;
+
+    /**
+     * Occupancy of the baseline code region, in percent, at which an incremental eviction starts.
+     */
+    private static int CodeEvictionStartOccupancy = 75;
+
+    static {
+        VMOptions.addFieldOption("-XX:", "CodeEvictionIncremental", CodeEviction.class,
+            "Evict baseline code incrementally, in several short pauses (default: false).",
+            MaxineVM.Phase.STARTING);
+        VMOptions.addFieldOption("-XX:", "CodeEvictionPauseBudget", CodeEviction.class,
+            "Maximal duration in microseconds of the pauses invalidating stale methods during incremental code eviction (default: 1000).",
+            MaxineVM.Phase.STARTING);
+        VMOptions.addFieldOption("-XX:", "CodeEvictionStartOccupancy", CodeEviction.class,
+            "Baseline code region occupancy in percent at which incremental code eviction starts (default: 75).",
+            MaxineVM.Phase.STARTING);
+    }
+
     /**
      * Marks all target methods on the stack as live that are short-lived (baseline),
      * and all baseline methods directly invoked from those.
@@ -134,14 +162,18 @@ public final class CodeEviction extends VmOperation {
     final class InvalidateDispatchTables implements TargetMethod.Closure {
         @Override
         public boolean doTargetMethod(TargetMethod targetMethod) {
-            if (!targetMethod.isMarked() && !targetMethod.isWiped()) {
+            if (!targetMethod.isMarked() && !targetMethod.isWiped() && !isNewSinceMarking(targetMethod)) {
                 ++nStale;
                 nStaleBytes += targetMethod.codeLength();
                 logStaleMethod(targetMethod);
-                patchDispatchTables(targetMethod, true);
+                if (incrementalState == IncrementalState.IDLE) {
+                    patchDispatchTables(targetMethod, true);
+                    targetMethod.classMethodActor.compiledState = Compilations.EMPTY;
+                } else {
+                    // dispatch tables and compiled state were taken care of by the previous pauses of the eviction
+                }
                 assert invalidateCode(targetMethod.code());
                 targetMethod.wipe();
-                targetMethod.classMethodActor.compiledState = Compilations.EMPTY;
             } else {
                 ++nSurvivors;
                 nSurvivingBytes += targetMethod.codeLength();
@@ -151,10 +183,16 @@ public final class CodeEviction extends VmOperation {
         }
     }
 
+    /**
+     * Resets the direct calls to stale methods in the baseline methods that survive the eviction.
+     * During an incremental eviction, the calls are reset in all methods present when marking took place,
+     * as some of the stale methods may be entered again before the end of the eviction and then survive it.
+     */
     final class InvalidateBaselineDirectCalls implements TargetMethod.Closure {
         @Override
         public boolean doTargetMethod(TargetMethod targetMethod) {
-            if (targetMethod.isMarked() && !targetMethod.isWiped()) {
+            final boolean survivor = incrementalState == IncrementalState.IDLE ? targetMethod.isMarked() : !isNewSinceMarking(targetMethod);
+            if (survivor && !targetMethod.isWiped()) {
                 ++nBaseMeth;
                 nBaseDirect += targetMethod.safepoints().numberOfDirectCalls();
                 nCallBaseline += patchDirectCallsIn(targetMethod);
@@ -442,6 +480,43 @@ public final class CodeEviction extends VmOperation {
         }
     }
 
+    /**
+     * Uninstalls the stale methods found when marking the live methods of an incremental eviction, so that no
+     * new references to them are created until the end of the eviction. Stale methods whose compilation is in
+     * progress may be installed again by the compilation and are kept instead.
+     */
+    final class StaleMethodsUninstaller implements TargetMethod.Closure {
+        @Override
+        public boolean doTargetMethod(TargetMethod targetMethod) {
+            if (!targetMethod.isMarked() && !targetMethod.isWiped()) {
+                final ClassMethodActor cma = targetMethod.classMethodActor;
+                final Object compiledState = cma.compiledState;
+                if (compiledState instanceof Compilations) {
+                    if (((Compilations) compiledState).baseline == targetMethod) {
+                        cma.compiledState = Compilations.EMPTY;
+                    }
+                } else {
+                    logMark("PROTECTED (compiling)", targetMethod);
+                    targetMethod.mark();
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Invalidates the dispatch table entries of the stale methods of an incremental eviction.
+     */
+    final class InvalidateStaleDispatchTables implements TargetMethod.Closure {
+        @Override
+        public boolean doTargetMethod(TargetMethod targetMethod) {
+            if (!targetMethod.isMarked() && !targetMethod.isWiped() && !isNewSinceMarking(targetMethod)) {
+                patchDispatchTables(targetMethod, true);
+            }
+            return true;
+        }
+    }
+
     final class VMTIUnload implements TargetMethod.Closure {
         @Override
         public boolean doTargetMethod(TargetMethod targetMethod) {
@@ -473,6 +548,58 @@ public final class CodeEviction extends VmOperation {
 
     private Phase phase;
 
+    /**
+     * States of an incremental eviction.
+     */
+    private static enum IncrementalState {
+        /**
+         * No incremental eviction in progress.
+         */
+        IDLE,
+        /**
+         * An incremental eviction was requested, live methods are marked during the next GC or in a pause of their own.
+         */
+        MARK_PENDING,
+        /**
+         * Direct calls and dispatch table entries referencing stale methods are invalidated in short pauses.
+         */
+        INVALIDATING,
+        /**
+         * Stale methods are wiped and the baseline code region compacted in the next pause.
+         */
+        COMPACT_PENDING
+    }
+
+    private IncrementalState incrementalState = IncrementalState.IDLE;
+
+    /**
+     * Whether the next operation must complete the eviction, instead of performing the next step of an incremental eviction.
+     */
+    private boolean complete = true;
+
+    /**
+     * Whether this operation is running.
+     */
+    private boolean running;
+
+    /**
+     * Allocation mark of the baseline code region when the live methods of an incremental eviction were marked.
+     * Methods allocated after that are not evicted by the incremental eviction.
+     */
+    private Address markLimit = Address.max();
+
+    /**
+     * Invalidation work of an incremental eviction not done yet: the current stage and the index of the next method of the stage.
+     */
+    private int invalidationStage;
+    private int invalidationIndex;
+
+    private static final int INVALIDATE_BASELINE_CALLS = 0;
+    private static final int INVALIDATE_OPT_CALLS = 1;
+    private static final int INVALIDATE_BOOT_CALLS = 2;
+    private static final int INVALIDATE_DISPATCH_TABLES = 3;
+    private static final int INVALIDATION_DONE = 4;
+
     public CodeEviction() {
         super("code cache cleaner", null, Mode.Safepoint);
     }
@@ -483,29 +610,103 @@ public final class CodeEviction extends VmOperation {
         return evictionCount;
     }
 
-    private static CodeEviction codeEviction = new CodeEviction();
+    static CodeEviction codeEviction = new CodeEviction();
 
     /**
-     * Run a code eviction operation.
+     * Run a code eviction operation. If an incremental eviction is in progress, it is completed.
      */
     public static void run() {
+        codeEviction.complete = true;
         codeEviction.submit();
     }
 
-    @Override
-    protected void doIt() {
+    public static boolean isIncremental() {
+        return CodeEvictionIncremental;
+    }
 
-        ++evictionCount;
+    /**
+     * Performs the next step of an incremental eviction, starting one if the occupancy of the baseline code region
+     * is high enough. Must be called before allocating in the baseline code region with the code manager locked.
+     */
+    public static void doIncrementalWork() {
+        final CodeEviction ce = codeEviction;
+        final int occupancy = CodeManager.runtimeBaselineCodeRegion.occupancy();
+        switch (ce.incrementalState) {
+            case IDLE:
+                if (occupancy >= CodeEvictionStartOccupancy) {
+                    // wait for the next GC to mark the live methods
+                    ce.incrementalState = IncrementalState.MARK_PENDING;
+                }
+                return;
+            case MARK_PENDING:
+                if (occupancy < (CodeEvictionStartOccupancy + 100) / 2) {
+                    return;
+                }
+                // no GC happened in time, mark in a pause of our own
+                break;
+            default:
+                break;
+        }
+        ce.complete = false;
+        ce.submit();
+    }
 
-        if (codeEvictionLogger.enabled()) {
-            codeEvictionLogger.logRun("starting", evictionCount, callingThread());
+    /**
+     * Marks the live methods of a requested incremental eviction while all threads are frozen by a GC.
+     * Called by the GC thread at the end of a GC.
+     */
+    public static void doAtGCSafepoint() {
+        final CodeEviction ce = codeEviction;
+        if (ce.incrementalState == IncrementalState.MARK_PENDING && !ce.running) {
+            final long pauseStart = System.nanoTime();
+            ce.markIncrementally(true);
+            ce.recordPause(System.nanoTime() - pauseStart);
         }
+    }
 
-        // phase 0 (optional): dump before
-        if (logging()) {
-            phase = Phase.DUMPING;
-            dumpCodeAddresses("before");
+    @Override
+    protected void doIt() {
+        final long pauseStart = System.nanoTime();
+        running = true;
+        if (complete) {
+            switch (incrementalState) {
+                case IDLE:
+                case MARK_PENDING:
+                    incrementalState = IncrementalState.IDLE;
+                    evict();
+                    break;
+                case INVALIDATING:
+                    invalidateIncrementally(Long.MAX_VALUE);
+                    compactIncrementally();
+                    break;
+                case COMPACT_PENDING:
+                    compactIncrementally();
+                    break;
+            }
+        } else {
+            switch (incrementalState) {
+                case MARK_PENDING:
+                    markIncrementally(false);
+                    break;
+                case INVALIDATING:
+                    invalidateIncrementally(pauseStart + CodeEvictionPauseBudget * 1000L);
+                    break;
+                case COMPACT_PENDING:
+                    compactIncrementally();
+                    break;
+                default:
+                    break;
+            }
         }
+        running = false;
+        recordPause(System.nanoTime() - pauseStart);
+    }
+
+    /**
+     * Evicts stale methods in a single pause.
+     */
+    private void evict() {
+        startEviction();
 
         // phase 1: identify stale methods and invalidate them, patching all relevant dispatch table entries and direct calls
 
@@ -515,18 +716,168 @@ public final class CodeEviction extends VmOperation {
 
         timerStart();
         doAllThreads();
-        tMarking = timerEnd();
+        tMarking += timerEnd();
 
         timerStart();
         markProtectedMethods();
-        tMarkProtected = timerEnd();
+        tMarkProtected += timerEnd();
 
         invalidateDirectCalls();
 
         timerStart();
         invalidateDispatchTableEntries();
-        tInvalidateTables = timerEnd();
+        tInvalidateTables += timerEnd();
+
+        compactAndPatch();
+    }
+
+    /**
+     * Starts an incremental eviction by marking the live methods and uninstalling the stale ones.
+     *
+     * @param atGCSafepoint specifies if marking takes place at the end of a GC rather than in this operation
+     */
+    private void markIncrementally(boolean atGCSafepoint) {
+        startEviction();
+
+        phase = Phase.PATCHING;
+
+        timerStart();
+        if (atGCSafepoint) {
+            VmThreadMap.ACTIVE.forAllThreadLocals(frozenThreadPredicate, markFrozenThread);
+        } else {
+            doAllThreads();
+        }
+        tMarking += timerEnd();
+
+        timerStart();
+        markProtectedMethods();
+        markLimit = CodeManager.runtimeBaselineCodeRegion.mark();
+        CodeManager.runtimeBaselineCodeRegion.doNewTargetMethods(staleMethodsUninstaller);
+        tMarkProtected += timerEnd();
+
+        invalidationStage = INVALIDATE_BASELINE_CALLS;
+        invalidationIndex = 0;
+        incrementalState = IncrementalState.INVALIDATING;
+    }
+
+    /**
+     * Invalidates the direct calls and dispatch table entries referencing the stale methods of an incremental eviction,
+     * until all of them are invalidated or a deadline is reached.
+     *
+     * @param deadline the {@link System#nanoTime()} at which to stop
+     */
+    private void invalidateIncrementally(long deadline) {
+        while (invalidationStage != INVALIDATION_DONE) {
+            timerStart();
+            switch (invalidationStage) {
+                case INVALIDATE_BASELINE_CALLS:
+                    invalidationIndex = doTargetMethods(CodeManager.runtimeBaselineCodeRegion, invalidationIndex, invalidateBaselineDirectCalls, deadline);
+                    tInvalidateCallsBaseline += timerEnd();
+                    break;
+                case INVALIDATE_OPT_CALLS:
+                    invalidationIndex = doTargetMethods(CodeManager.runtimeOptCodeRegion, invalidationIndex, invalidateOptDirectCalls, deadline);
+                    tInvalidateCallsOpt += timerEnd();
+                    break;
+                case INVALIDATE_BOOT_CALLS:
+                    invalidationIndex = doBootToBaselineCallers(invalidationIndex, deadline);
+                    tInvalidateCallsBoot += timerEnd();
+                    break;
+                case INVALIDATE_DISPATCH_TABLES:
+                    invalidationIndex = doTargetMethods(CodeManager.runtimeBaselineCodeRegion, invalidationIndex, invalidateStaleDispatchTables, deadline);
+                    tInvalidateTables += timerEnd();
+                    break;
+            }
+            if (invalidationIndex >= 0) {
+                // deadline reached
+                return;
+            }
+            invalidationStage++;
+            invalidationIndex = 0;
+        }
+        logDirectCallNumbers();
+        logPatchDetails();
+        incrementalState = IncrementalState.COMPACT_PENDING;
+    }
+
+    /**
+     * Applies a closure to the target methods of a code region, starting at a given index, until a deadline.
+     *
+     * @return the index of the next target method to process, or -1 if all were processed
+     */
+    private static int doTargetMethods(CodeRegion codeRegion, int index, TargetMethod.Closure closure, long deadline) {
+        int i = index;
+        while (i < codeRegion.length) {
+            final TargetMethod targetMethod = codeRegion.targetMethods[i++];
+            if (targetMethod != null && codeRegion.contains(targetMethod.codeStart().toAddress())) {
+                closure.doTargetMethod(targetMethod);
+            }
+            if (System.nanoTime() >= deadline) {
+                return i < codeRegion.length ? i : -1;
+            }
+        }
+        return -1;
+    }
+
+    private int doBootToBaselineCallers(int index, long deadline) {
+        final TargetMethod[] bootDirectCallers = CodeManager.bootToBaselineCallers();
+        int i = index;
+        while (i < CodeManager.bootToBaselineSize()) {
+            final TargetMethod tm = bootDirectCallers[i++];
+            ++nBootMeth;
+            nBootDirect += tm.safepoints().numberOfDirectCalls();
+            nCallBoot += patchDirectCallsIn(tm);
+            if (System.nanoTime() >= deadline) {
+                return i < CodeManager.bootToBaselineSize() ? i : -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Completes an incremental eviction: marks the stale methods that were entered again since marking as live,
+     * wipes the other ones and compacts the baseline code region.
+     */
+    private void compactIncrementally() {
+        phase = Phase.PATCHING;
+
+        CodeManager.Inspect.notifyEvictionStarted(CodeManager.runtimeBaselineCodeRegion);
+
+        timerStart();
+        doAllThreads();
+        tMarking += timerEnd();
+
+        timerStart();
+        invalidateDispatchTableEntries();
+        tInvalidateTables += timerEnd();
 
+        markLimit = Address.max();
+        incrementalState = IncrementalState.IDLE;
+
+        compactAndPatch();
+    }
+
+    private void startEviction() {
+        ++evictionCount;
+        if (incrementalState != IncrementalState.IDLE) {
+            ++incrementalEvictionCount;
+        }
+        resetTimers();
+
+        if (codeEvictionLogger.enabled()) {
+            codeEvictionLogger.logRun("starting", evictionCount, callingThread());
+        }
+
+        // phase 0 (optional): dump before
+        if (logging()) {
+            phase = Phase.DUMPING;
+            dumpCodeAddresses("before");
+        }
+    }
+
+    /**
+     * Compacts the baseline code region once all stale methods have been wiped, and completes the eviction.
+     */
+    private void compactAndPatch() {
         if (CodeManager.CodeCacheContentionFrequency > 0) {
             Code.getCodeManager().recordSurvivorSize(nSurvivingBytes);
         }
@@ -541,14 +892,14 @@ public final class CodeEviction extends VmOperation {
 
         timerStart();
         compact();
-        tCompact = timerEnd();
+        tCompact += timerEnd();
 
         fixCallSitesForMovedCode();
         logFixed();
 
         timerStart();
         doAllThreads();
-        tPatchStacks = timerEnd();
+        tPatchStacks += timerEnd();
 
         if (/*VMTI.handler().activeAgents() > 0*/true) {
             CodeManager.runtimeBaselineCodeRegion.doOldTargetMethods(vmtiUnload);
@@ -572,9 +923,38 @@ public final class CodeEviction extends VmOperation {
             codeEvictionLogger.logRun("completed", evictionCount, callingThread());
         }
         logTimingResults();
+        accumulatePhaseTimes();
+    }
 
+    /**
+     * Determines if a method was allocated in the baseline code region after the live methods of the incremental
+     * eviction in progress were marked.
+     */
+    private boolean isNewSinceMarking(TargetMethod tm) {
+        return tm.start().greaterEqual(markLimit);
     }
 
+    /**
+     * Selects the threads frozen by a GC, whose stacks are walked to mark live methods at the end of the GC.
+     */
+    private final Pointer.Predicate frozenThreadPredicate = new Pointer.Predicate() {
+        @Override
+        public boolean evaluate(Pointer tla) {
+            final VmThread vmThread = VmThread.fromTLA(tla);
+            return vmThread != null && !vmThread.isVmOperationThread() && !GCWorkerThreads.isWorker(vmThread);
+        }
+    };
+
+    private final Pointer.Procedure markFrozenThread = new Pointer.Procedure() {
+        @Override
+        public void run(Pointer tla) {
+            final Pointer frameAnchor = JavaFrameAnchor.from(tla);
+            if (!frameAnchor.isZero()) {
+                doThread(VmThread.fromTLA(tla), JavaFrameAnchor.PC.get(frameAnchor), JavaFrameAnchor.SP.get(frameAnchor), JavaFrameAnchor.FP.get(frameAnchor));
+            }
+        }
+    };
+
     /**
      * Perform a specific action for a given thread.
      * This method is invoked multiple times during the execution of {@linkplain #doIt()}.
@@ -624,6 +1004,10 @@ public final class CodeEviction extends VmOperation {
 
     private final CodePointerRelocator codePointerRelocator = new CodePointerRelocator();
 
+    private final StaleMethodsUninstaller staleMethodsUninstaller = new StaleMethodsUninstaller();
+
+    private final InvalidateStaleDispatchTables invalidateStaleDispatchTables = new InvalidateStaleDispatchTables();
+
     private void markProtectedMethods() {
         CodeManager.runtimeBaselineCodeRegion.doNewTargetMethods(protectedMethodsMarker);
     }
@@ -771,15 +1155,15 @@ public final class CodeEviction extends VmOperation {
         // to/from have not yet been flipped
         timerStart();
         CodeManager.runtimeBaselineCodeRegion.doNewTargetMethods(invalidateBaselineDirectCalls);
-        tInvalidateCallsBaseline = timerEnd();
+        tInvalidateCallsBaseline += timerEnd();
 
         timerStart();
         CodeManager.runtimeOptCodeRegion.doAllTargetMethods(invalidateOptDirectCalls);
-        tInvalidateCallsOpt = timerEnd();
+        tInvalidateCallsOpt += timerEnd();
 
         timerStart();
         invalidateBootDirectCalls();
-        tInvalidateCallsBoot = timerEnd();
+        tInvalidateCallsBoot += timerEnd();
 
         logDirectCallNumbers();
     }
@@ -835,7 +1219,7 @@ public final class CodeEviction extends VmOperation {
     }
 
     private boolean isStaleCallee(TargetMethod tm) {
-        return tm != null && CodeManager.runtimeBaselineCodeRegion.contains(tm.codeStart().toAddress()) && !tm.isMarked() && !tm.isWiped();
+        return tm != null && CodeManager.runtimeBaselineCodeRegion.contains(tm.codeStart().toAddress()) && !tm.isMarked() && !tm.isWiped() && !isNewSinceMarking(tm);
     }
 
     /**
@@ -869,7 +1253,7 @@ public final class CodeEviction extends VmOperation {
         baselineFixCalls.fixed = 0;
         CodeManager.runtimeBaselineCodeRegion.doNewTargetMethods(baselineFixCalls);
         nCallBaseline = baselineFixCalls.fixed;
-        tFixCallsBaseline = timerEnd();
+        tFixCallsBaseline += timerEnd();
 
         if (logging()) {
             codeEvictionLogger.logMove_Progress("optimised code ...");
@@ -879,7 +1263,7 @@ public final class CodeEviction extends VmOperation {
         optFixCalls.fixed = 0;
         CodeManager.runtimeOptCodeRegion.doAllTargetMethods(optFixCalls);
         nCallOpt = optFixCalls.fixed;
-        tFixCallsOpt = timerEnd();
+        tFixCallsOpt += timerEnd();
 
         if (logging()) {
             codeEvictionLogger.logMove_Progress("boot code ...");
@@ -891,7 +1275,7 @@ public final class CodeEviction extends VmOperation {
             CodeManager.bootToBaselineDo(optFixCalls);
         }
         nCallBoot = optFixCalls.fixed;
-        tFixCallsBoot = timerEnd();
+        tFixCallsBoot += timerEnd();
 
         if (logging()) {
             codeEvictionLogger.logMove_Progress("fixing done!");
@@ -966,6 +1350,68 @@ public final class CodeEviction extends VmOperation {
     private long tFixCallsBoot;
     private long tTotal;
 
+    /**
+     * Names of the timed phases of an eviction, in the order of {@link #totalPhaseTimes} and {@link #maxPhaseTimes}.
+     */
+    static final String[] TIMED_PHASE_NAMES = {
+        "mark", "mark protected methods", "invalidate baseline calls", "invalidate opt calls", "invalidate boot calls",
+        "invalidate dispatch tables", "compact", "patch stacks", "fix baseline calls", "fix opt calls", "fix boot calls"
+    };
+
+    /**
+     * Accumulated and maximal times of each phase over all evictions, in nanoseconds.
+     */
+    final long[] totalPhaseTimes = new long[TIMED_PHASE_NAMES.length];
+    final long[] maxPhaseTimes = new long[TIMED_PHASE_NAMES.length];
+
+    int incrementalEvictionCount;
+    int pauseCount;
+    long totalPauseTime;
+    long maxPauseTime;
+
+    private void resetTimers() {
+        tMarking = 0;
+        tMarkProtected = 0;
+        tInvalidateCallsBaseline = 0;
+        tInvalidateCallsOpt = 0;
+        tInvalidateCallsBoot = 0;
+        tInvalidateTables = 0;
+        tCompact = 0;
+        tPatchStacks = 0;
+        tFixCallsBaseline = 0;
+        tFixCallsOpt = 0;
+        tFixCallsBoot = 0;
+    }
+
+    private void accumulatePhaseTimes() {
+        accumulatePhaseTime(0, tMarking);
+        accumulatePhaseTime(1, tMarkProtected);
+        accumulatePhaseTime(2, tInvalidateCallsBaseline);
+        accumulatePhaseTime(3, tInvalidateCallsOpt);
+        accumulatePhaseTime(4, tInvalidateCallsBoot);
+        accumulatePhaseTime(5, tInvalidateTables);
+        accumulatePhaseTime(6, tCompact);
+        accumulatePhaseTime(7, tPatchStacks);
+        accumulatePhaseTime(8, tFixCallsBaseline);
+        accumulatePhaseTime(9, tFixCallsOpt);
+        accumulatePhaseTime(10, tFixCallsBoot);
+    }
+
+    private void accumulatePhaseTime(int phaseIndex, long time) {
+        totalPhaseTimes[phaseIndex] += time;
+        if (time > maxPhaseTimes[phaseIndex]) {
+            maxPhaseTimes[phaseIndex] = time;
+        }
+    }
+
+    private void recordPause(long time) {
+        pauseCount++;
+        totalPauseTime += time;
+        if (time > maxPauseTime) {
+            maxPauseTime = time;
+        }
+    }
+
     private void timerStart() {
         timer = System.nanoTime();
     }
@@ -234,6 +234,11 @@ public abstract class CodeManager {
                 currentCodeRegion = Code.bootCodeRegion();
             }
 
+            // Nothing is allocated yet, so a step of an incremental eviction can safely compact the baseline code region.
+            if (currentCodeRegion == runtimeBaselineCodeRegion && CodeEviction.isIncremental()) {
+                CodeEviction.doIncrementalWork();
+            }
+
             if (currentCodeRegion == runtimeBaselineCodeRegion && CodeCacheContentionFrequency > 0 && ++nAllocations % CodeCacheContentionFrequency == 0) {
                 start = Pointer.zero();
             } else {
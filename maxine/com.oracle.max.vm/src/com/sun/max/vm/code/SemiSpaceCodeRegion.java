@@ -144,6 +144,13 @@ public final class SemiSpaceCodeRegion extends CodeRegion {
         return cell;
     }
 
+    /**
+     * Gets the percentage of to-space that is allocated.
+     */
+    public int occupancy() {
+        return (int) (mark().minus(toSpace).toLong() * 100 / spaceSize.toLong());
+    }
+
     /**
      * Looks up the target method containing a particular address <i>in from-space</i>.
      */
@@ -68,9 +68,10 @@ public class CompilationBroker {
     private static int RCT = 5000;
 
     /**
-     * A queue of pending compilations.
+     * The queue of pending optimizing recompilations, or {@code null} if methods are recompiled on the thread
+     * which overflowed their counter.
      */
-    protected final LinkedList<Compilation> pending = new LinkedList<Compilation>();
+    private RecompilationQueue recompilationQueue;
 
     /**
      * The baseline compiler.
@@ -88,10 +89,12 @@ public class CompilationBroker {
     private HashMap<String, RuntimeCompiler> altCompilers = new HashMap<String, RuntimeCompiler>();
 
     private static boolean opt;
-    private static boolean GCOnRecompilation;
+    static boolean GCOnRecompilation;
     private static boolean FailOverCompilation = true;
     private static boolean VMExtOpt;
     static int PrintCodeCacheMetrics;
+    private static int CompilationThreads;
+    private static boolean PrintRecompilationQueueMetrics;
 
     static {
         addFieldOption("-X", "opt", CompilationBroker.class, "Select optimizing compiler whenever possible.");
@@ -101,6 +104,9 @@ public class CompilationBroker {
         addFieldOption("-XX:", "PrintCodeCacheMetrics", CompilationBroker.class, "Print code cache metrics (0 = disabled, 1 = summary, 2 = verbose).");
         addFieldOption("-XX:", "VMExtOpt", CompilationBroker.class, "Compile VM extensions with optimizing compiler (default: false");
         addFieldOption("-XX:", "AddCompiler", CompilationBroker.class, "Add a compiler, Name:Class");
+        addFieldOption("-XX:", "CompilationThreads", CompilationBroker.class, "Number of background threads performing recompilations. " +
+            "Use 0 to recompile on the thread which overflowed the counter (default: " + CompilationThreads + ").");
+        addFieldOption("-XX:", "PrintRecompilationQueueMetrics", CompilationBroker.class, "Print recompilation queue metrics on VM exit.");
     }
 
     @RESET
@@ -158,8 +164,6 @@ public class CompilationBroker {
      */
     private RuntimeCompiler defaultCompiler;
 
-    private static final boolean BACKGROUND_COMPILATION = false;
-
     public boolean needsAdapters() {
         return baselineCompiler != null;
     }
@@ -283,7 +287,7 @@ public class CompilationBroker {
 
     /**
      * This method initializes the adaptive compilation system, either while bootstrapping or
-     * at VM startup time. This implementation may create daemon threads for background compilation.
+     * at VM startup time. This implementation may create daemon threads for background recompilation.
      *
      * @param phase the phase of VM starting up.
      */
@@ -307,12 +311,7 @@ public class CompilationBroker {
         }
 
         if (isHosted()) {
-            if (BACKGROUND_COMPILATION) {
-                // launch a compiler thread if background compilation is supported (currently no)
-                final CompilationThread compilationThread = new CompilationThread();
-                compilationThread.setDaemon(true);
-                compilationThread.start();
-            }
+            // no background compilation while bootstrapping
         } else if (phase == MaxineVM.Phase.STARTING) {
             if (opt) {
                 defaultCompiler = optimizingCompiler;
@@ -321,14 +320,21 @@ public class CompilationBroker {
             if (RCT != 0 && baselineCompiler != null) {
                 MethodInstrumentation.enable(RCT);
             }
-
-            if (BACKGROUND_COMPILATION) {
-                // launch a compiler thread if background compilation is supported (currently no)
-                final CompilationThread compilationThread = new CompilationThread();
-                compilationThread.setDaemon(true);
-                compilationThread.start();
-            }
         } else if (phase == Phase.RUNNING) {
+            if (CompilationThreads > 0 && RCT != 0 && baselineCompiler != null) {
+                // until the compiler threads are running, methods are recompiled on the thread which overflowed the counter
+                final RecompilationQueue queue = new RecompilationQueue(this, CompilationThreads);
+                queue.start();
+                recompilationQueue = queue;
+                if (PrintRecompilationQueueMetrics) {
+                    Runtime.getRuntime().addShutdownHook(new Thread("RecompilationQueueMetricsPrinter") {
+                        @Override
+                        public void run() {
+                            queue.printMetricsTo(Log.out);
+                        }
+                    });
+                }
+            }
             if (PrintCodeCacheMetrics != 0) {
                 Runtime.getRuntime().addShutdownHook(new Thread("CodeCacheMetricsPrinter") {
                     @Override
@@ -340,6 +346,15 @@ public class CompilationBroker {
         }
     }
 
+    /**
+     * Gets the queue of pending recompilations.
+     *
+     * @return {@code null} if recompilations are not performed in the background
+     */
+    public RecompilationQueue recompilationQueue() {
+        return recompilationQueue;
+    }
+
     /**
      * Default compilation, not for deopt.
      * @param cma
@@ -617,6 +632,14 @@ public class CompilationBroker {
         TargetMethod newMethod = Compilations.currentTargetMethod(cma.compiledState, null);
 
         if (oldMethod == newMethod || newMethod == null) {
+            final RecompilationQueue queue = vm().compilationBroker.recompilationQueue;
+            if (queue != null) {
+                // Leave the recompilation to a compiler thread, the patching happens on a later counter overflow
+                // once the optimized method is available
+                logCounterOverflow(mpo, "Queued for recompilation");
+                queue.enqueue(mpo);
+                return;
+            }
             if (!(cma.compiledState instanceof Compilation)) {
                 // There is no newer compiled version available yet that we could just patch to, so recompile
                 logCounterOverflow(mpo, "");
@@ -751,64 +774,6 @@ public class CompilationBroker {
         }
     }
 
-    /**
-     * This class implements a daemon thread that performs compilations in the background. Depending on the compiler
-     * configuration, multiple compilation threads may be working in parallel.
-     */
-    protected class CompilationThread extends Thread {
-
-        protected CompilationThread() {
-            super("compile");
-            setDaemon(true);
-        }
-
-        /**
-         * The current compilation being performed by this thread.
-         */
-        Compilation compilation;
-
-        /**
-         * Continuously polls the compilation queue for work, performing compilations as they are removed from the
-         * queue.
-         */
-        @Override
-        public void run() {
-            while (true) {
-                try {
-                    compileOne();
-                } catch (InterruptedException e) {
-                    // do nothing.
-                } catch (Throwable t) {
-                    Log.print("Exception during compilation of " + compilation.classMethodActor);
-                    t.printStackTrace();
-                }
-            }
-        }
-
-        /**
-         * Polls the compilation queue and performs a single compilation.
-         *
-         * @throws InterruptedException if the thread was interrupted waiting on the queue
-         */
-        void compileOne() throws InterruptedException {
-            compilation = null;
-            synchronized (pending) {
-                while (compilation == null) {
-                    compilation = pending.poll();
-                    if (compilation == null) {
-                        pending.wait();
-                    }
-                }
-            }
-            compilation.compilingThread = Thread.currentThread();
-            if (GCOnRecompilation) {
-                System.gc();
-            }
-            compilation.compile();
-            compilation = null;
-        }
-    }
-
     /**
      * Helper class for patching any direct call sites on the stack corresponding to a target method
      * being replaced by a recompiled version.
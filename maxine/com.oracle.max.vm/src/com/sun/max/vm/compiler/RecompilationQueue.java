@@ -0,0 +1,287 @@
+/*
+ * Copyright (c) 2007, 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.max.vm.compiler;
+
+import java.io.*;
+import java.util.*;
+
+import com.sun.max.vm.*;
+import com.sun.max.vm.actor.member.*;
+import com.sun.max.vm.compiler.RuntimeCompiler.Nature;
+import com.sun.max.vm.compiler.target.*;
+import com.sun.max.vm.profile.*;
+
+/**
+ * A queue of pending optimizing recompilations drained by a pool of background compiler threads.
+ *
+ * Requests are ordered by the hotness of the method, that is the number of entries and backward branches
+ * counted by its {@link MethodProfile} since the recompilation threshold was reached, scaled down by the number of
+ * deoptimizations the method has already gone through. Repeated counter overflows of a queued method do not create
+ * new requests, instead they add to the hotness of the queued one and so move it up the queue.
+ */
+public final class RecompilationQueue {
+
+    /**
+     * The value the entry/backedge counter of a queued method is reset to. Each further counter overflow
+     * of the method while it waits in the queue is accounted to its hotness.
+     */
+    static final int QUEUED_COUNTER_RESET = 1000;
+
+    /**
+     * A pending recompilation of a method.
+     */
+    static final class Request {
+        final MethodProfile mpo;
+        final ClassMethodActor cma;
+        final long sequence;
+        final long enqueueTime;
+        long hotness;
+        int deoptimizations;
+
+        Request(MethodProfile mpo, long sequence, long hotness) {
+            this.mpo = mpo;
+            this.cma = mpo.method.classMethodActor;
+            this.sequence = sequence;
+            this.enqueueTime = System.nanoTime();
+            this.hotness = hotness;
+            this.deoptimizations = deoptimizationCount(mpo);
+        }
+
+        long priority() {
+            return hotness / (1 + deoptimizations);
+        }
+    }
+
+    private static final Comparator<Request> PRIORITY_ORDER = new Comparator<Request>() {
+        public int compare(Request r1, Request r2) {
+            final long p1 = r1.priority();
+            final long p2 = r2.priority();
+            if (p1 != p2) {
+                return p1 > p2 ? -1 : 1;
+            }
+            return r1.sequence < r2.sequence ? -1 : (r1.sequence == r2.sequence ? 0 : 1);
+        }
+    };
+
+    private final CompilationBroker broker;
+
+    /**
+     * Pending requests. All the state of the queue, including the metrics, is guarded by this object.
+     */
+    private final PriorityQueue<Request> pending = new PriorityQueue<Request>(64, PRIORITY_ORDER);
+
+    /**
+     * Map from the methods with pending requests to the requests, used to suppress duplicates.
+     */
+    private final HashMap<ClassMethodActor, Request> pendingMethods = new HashMap<ClassMethodActor, Request>();
+
+    private final CompilerThread[] threads;
+
+    private long sequence;
+
+    private long enqueuedCount;
+    private long suppressedCount;
+    private long completedCount;
+    private long failedCount;
+    private long skippedCount;
+    private int maxLength;
+    private long totalWaitTime;
+    private long maxWaitTime;
+    private long totalCompileTime;
+
+    RecompilationQueue(CompilationBroker broker, int threadsNum) {
+        this.broker = broker;
+        threads = new CompilerThread[threadsNum];
+        for (int i = 0; i < threadsNum; i++) {
+            threads[i] = new CompilerThread(i);
+        }
+    }
+
+    void start() {
+        for (CompilerThread thread : threads) {
+            thread.start();
+        }
+    }
+
+    static int deoptimizationCount(MethodProfile mpo) {
+        int count = 0;
+        for (int i = 0; i < MethodProfile.DEOPTIMIZATION_REASONS_NUM; i++) {
+            count += Math.max(0, mpo.getDeoptimizationCount(i));
+        }
+        return count;
+    }
+
+    /**
+     * Requests an optimizing recompilation of the method whose counter overflowed, or accounts the overflow to
+     * the pending request if there is one already. This method must be called on the thread that overflowed the counter.
+     *
+     * @param mpo the profile of the method
+     */
+    void enqueue(MethodProfile mpo) {
+        // hotness accumulated since the counter was last reset, backward branches drive the counter below zero
+        final int count = mpo.entryBackedgeCount;
+        final ClassMethodActor cma = mpo.method.classMethodActor;
+        synchronized (pending) {
+            Request request = pendingMethods.get(cma);
+            if (request != null) {
+                suppressedCount++;
+                pending.remove(request);
+                request.hotness += QUEUED_COUNTER_RESET - (long) count;
+                request.deoptimizations = deoptimizationCount(mpo);
+            } else {
+                enqueuedCount++;
+                request = new Request(mpo, sequence++, MethodInstrumentation.initialEntryBackedgeCount - (long) count);
+                pendingMethods.put(cma, request);
+            }
+            pending.add(request);
+            maxLength = Math.max(maxLength, pending.size());
+            pending.notify();
+        }
+        mpo.entryBackedgeCount = QUEUED_COUNTER_RESET;
+    }
+
+    private Request take() throws InterruptedException {
+        synchronized (pending) {
+            Request request = pending.poll();
+            while (request == null) {
+                pending.wait();
+                request = pending.poll();
+            }
+            pendingMethods.remove(request.cma);
+            final long waitTime = System.nanoTime() - request.enqueueTime;
+            totalWaitTime += waitTime;
+            maxWaitTime = Math.max(maxWaitTime, waitTime);
+            return request;
+        }
+    }
+
+    private void compile(Request request) {
+        final TargetMethod current = Compilations.currentTargetMethod(request.cma.compiledState, null);
+        if (current != request.mpo.method || request.mpo.compilationDisabled) {
+            // compiled, deoptimized or invalidated since the request was made
+            synchronized (pending) {
+                skippedCount++;
+            }
+            return;
+        }
+        final long start = System.nanoTime();
+        boolean failed = false;
+        try {
+            broker.compile(request.cma, Nature.OPT);
+        } catch (Throwable t) {
+            // stay with the baseline method and do not see another counter overflow in the near future
+            failed = true;
+            request.mpo.entryBackedgeCount = Integer.MAX_VALUE;
+            if (VMOptions.verboseOption.verboseCompilation) {
+                t.printStackTrace(Log.out);
+            }
+        }
+        final long compileTime = System.nanoTime() - start;
+        synchronized (pending) {
+            if (failed) {
+                failedCount++;
+            } else {
+                completedCount++;
+            }
+            totalCompileTime += compileTime;
+        }
+    }
+
+    public long enqueuedCount() {
+        synchronized (pending) {
+            return enqueuedCount;
+        }
+    }
+
+    public long suppressedCount() {
+        synchronized (pending) {
+            return suppressedCount;
+        }
+    }
+
+    public long completedCount() {
+        synchronized (pending) {
+            return completedCount;
+        }
+    }
+
+    public int length() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    /**
+     * Gets the average time in nanoseconds a request waited in the queue before being taken by a compiler thread.
+     */
+    public long averageWaitTime() {
+        synchronized (pending) {
+            final long taken = completedCount + failedCount + skippedCount;
+            return taken == 0 ? 0 : totalWaitTime / taken;
+        }
+    }
+
+    public long maxWaitTime() {
+        synchronized (pending) {
+            return maxWaitTime;
+        }
+    }
+
+    public void printMetricsTo(PrintStream out) {
+        synchronized (pending) {
+            final long taken = completedCount + failedCount + skippedCount;
+            out.println("Recompilation queue (" + threads.length + " threads):");
+            out.println("  requests:   " + enqueuedCount + " enqueued, " + suppressedCount + " duplicates suppressed, " + pending.size() + " pending, max length " + maxLength);
+            out.println("  processed:  " + completedCount + " compiled, " + failedCount + " failed, " + skippedCount + " skipped");
+            out.println("  wait:       " + (taken == 0 ? 0 : totalWaitTime / taken / 1000) + " us average, " + maxWaitTime / 1000 + " us max");
+            final long compiled = completedCount + failedCount;
+            out.println("  compile:    " + (compiled == 0 ? 0 : totalCompileTime / compiled / 1000) + " us average");
+        }
+    }
+
+    /**
+     * A daemon thread that takes requests from the queue and performs the recompilations.
+     */
+    private final class CompilerThread extends Thread {
+
+        CompilerThread(int id) {
+            super("compile-" + id);
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                try {
+                    final Request request = take();
+                    if (CompilationBroker.GCOnRecompilation) {
+                        System.gc();
+                    }
+                    compile(request);
+                } catch (InterruptedException e) {
+                    // do nothing.
+                }
+            }
+        }
+    }
+}
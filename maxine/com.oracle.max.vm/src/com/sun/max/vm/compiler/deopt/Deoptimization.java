@@ -32,6 +32,7 @@ import static com.sun.max.vm.intrinsics.MaxineIntrinsicIDs.*;
 import java.util.*;
 
 import com.sun.cri.ci.*;
+import com.sun.cri.ri.*;
 import com.sun.max.*;
 import com.sun.max.annotate.*;
 import com.sun.max.lang.*;
@@ -45,14 +46,17 @@ import com.sun.max.vm.compiler.*;
 import com.sun.max.vm.compiler.target.*;
 import com.sun.max.vm.compiler.target.TargetMethod.FrameAccess;
 import com.sun.max.vm.compiler.target.amd64.AMD64TargetMethodUtil;
+import com.sun.max.vm.heap.*;
 import com.sun.max.vm.log.VMLog.Record;
 import com.sun.max.vm.log.hosted.*;
+import com.sun.max.vm.monitor.*;
 import com.sun.max.vm.object.*;
 import com.sun.max.vm.profile.MethodProfile;
 import com.sun.max.vm.reference.*;
 import com.sun.max.vm.runtime.*;
 import com.sun.max.vm.stack.*;
 import com.sun.max.vm.thread.*;
+import com.sun.max.vm.type.*;
 
 /**
  * Mechanism for applying deoptimization to one or more target methods.
@@ -742,6 +746,7 @@ public class Deoptimization extends VmOperation {
         CiDebugInfo debugInfo = tm.debugInfoAt(safepointIndex, fa);
         CiFrame topFrame = debugInfo.frame();
         FatalError.check(topFrame != null, "No frame info found at deopt site: " + tm.posFor(ip));
+        rematerializeVirtualObjects(topFrame);
 
         Throwable pendingException = null;
         if (topFrame.rethrowException) {
@@ -895,6 +900,95 @@ public class Deoptimization extends VmOperation {
         return frame;
     }
 
+    /**
+     * Reallocates the objects whose allocation was removed by escape analysis and replaces the
+     * {@linkplain CiVirtualObject virtual objects} describing them in a given frame and its callers.
+     * A virtual object denoting a lock is locked again, as the code locking it was removed along with its allocation.
+     *
+     * @param topFrame the frame whose values have been {@linkplain TargetMethod#debugInfoAt read} from the deoptimized frame
+     */
+    private static void rematerializeVirtualObjects(CiFrame topFrame) {
+        HashMap<Integer, Object> objects = null;
+        for (CiFrame frame = topFrame; frame != null; frame = frame.caller()) {
+            int locksStart = frame.numLocals + frame.numStack;
+            for (int i = 0; i < frame.values.length; i++) {
+                CiValue value = frame.values[i];
+                if (value instanceof CiVirtualObject) {
+                    if (objects == null) {
+                        objects = new HashMap<Integer, Object>();
+                    }
+                    Object object = rematerialize((CiVirtualObject) value, objects);
+                    if (i >= locksStart) {
+                        Monitor.enter(object);
+                    }
+                    frame.values[i] = CiConstant.forObject(object);
+                }
+            }
+        }
+    }
+
+    private static Object rematerialize(CiVirtualObject virtualObject, HashMap<Integer, Object> objects) {
+        Object object = objects.get(virtualObject.id());
+        if (object != null) {
+            return object;
+        }
+        ClassActor type = (ClassActor) virtualObject.type();
+        CiValue[] values = virtualObject.values();
+        if (type.isArrayClass()) {
+            object = Heap.createArray(type.dynamicHub(), values.length);
+            objects.put(virtualObject.id(), object);
+            Kind kind = type.componentClassActor().kind;
+            for (int i = 0; i < values.length; i++) {
+                CiConstant c = (CiConstant) values[i];
+                switch (kind.asEnum) {
+                    case BOOLEAN: ArrayAccess.setBoolean(object, i, c.asPrimitive() != 0); break;
+                    case BYTE:    ArrayAccess.setByte(object, i, (byte) c.asPrimitive()); break;
+                    case CHAR:    ArrayAccess.setChar(object, i, (char) c.asPrimitive()); break;
+                    case SHORT:   ArrayAccess.setShort(object, i, (short) c.asPrimitive()); break;
+                    case INT:     ArrayAccess.setInt(object, i, (int) c.asPrimitive()); break;
+                    case FLOAT:   ArrayAccess.setFloat(object, i, Float.intBitsToFloat((int) c.asPrimitive())); break;
+                    case LONG:    ArrayAccess.setLong(object, i, c.asPrimitive()); break;
+                    case DOUBLE:  ArrayAccess.setDouble(object, i, Double.longBitsToDouble(c.asPrimitive())); break;
+                    default:      throw FatalError.unexpected("unexpected element kind in virtual array: " + kind);
+                }
+            }
+        } else {
+            object = Heap.createTuple(type.dynamicHub());
+            objects.put(virtualObject.id(), object);
+            ArrayList<FieldActor> fields = new ArrayList<FieldActor>();
+            for (ClassActor holder = type; holder != null; holder = holder.superClassActor) {
+                RiResolvedField[] declaredFields = holder.declaredFields();
+                for (int i = declaredFields.length - 1; i >= 0; i--) {
+                    fields.add((FieldActor) declaredFields[i]);
+                }
+            }
+            Collections.reverse(fields);
+            assert fields.size() == values.length : "wrong number of values for " + type;
+            for (int i = 0; i < values.length; i++) {
+                FieldActor field = fields.get(i);
+                CiValue value = values[i];
+                if (value instanceof CiVirtualObject) {
+                    TupleAccess.writeObject(object, field.offset(), rematerialize((CiVirtualObject) value, objects));
+                    continue;
+                }
+                CiConstant c = (CiConstant) value;
+                switch (field.kind.asEnum) {
+                    case BOOLEAN:   TupleAccess.writeBoolean(object, field.offset(), c.asPrimitive() != 0); break;
+                    case BYTE:      TupleAccess.writeByte(object, field.offset(), (byte) c.asPrimitive()); break;
+                    case CHAR:      TupleAccess.writeChar(object, field.offset(), (char) c.asPrimitive()); break;
+                    case SHORT:     TupleAccess.writeShort(object, field.offset(), (short) c.asPrimitive()); break;
+                    case INT:       TupleAccess.writeInt(object, field.offset(), (int) c.asPrimitive()); break;
+                    case FLOAT:     TupleAccess.writeFloat(object, field.offset(), Float.intBitsToFloat((int) c.asPrimitive())); break;
+                    case LONG:      TupleAccess.writeLong(object, field.offset(), c.asPrimitive()); break;
+                    case DOUBLE:    TupleAccess.writeDouble(object, field.offset(), Double.longBitsToDouble(c.asPrimitive())); break;
+                    case REFERENCE: TupleAccess.writeObject(object, field.offset(), c.asObject()); break;
+                    default:        throw FatalError.unexpected("unexpected field kind in virtual object: " + field);
+                }
+            }
+        }
+        return object;
+    }
+
     /**
      * Deoptimizes a method that was trapped at a safepoint poll.
      *
@@ -909,7 +1003,10 @@ public class Deoptimization extends VmOperation {
     }
 
     /**
-     * Deoptimizes at an {@link Stubs#genUncommonTrapStub() uncommon trap}.
+     * Deoptimizes at an {@link Stubs#genUncommonTrapStub() uncommon trap}. As the trap means that an assumption
+     * of the optimized code does not hold, the code is first invalidated so that it is not entered again and the
+     * method is recompiled with the trap recorded in its profile under
+     * {@link MethodProfile#UNCOMMON_TRAP_DEOPTIMIZATION_REASON_ID}.
      *
      * @param ip the address of the uncommon trap
      * @param sp the stack pointer of the frame executing the method
@@ -917,6 +1014,14 @@ public class Deoptimization extends VmOperation {
      */
     public static void uncommonTrap(Pointer csa, Pointer ip, Pointer sp, Pointer fp) {
         FatalError.check(!csa.isZero(), "callee save area expected for uncommon trap");
+        TargetMethod tm = Code.codePointerToTargetMethod(ip);
+        if (tm != null && !tm.isBaseline() && tm.invalidated() == null) {
+            // ensure there is a profile to record the trap in
+            vm().compilationBroker.compileForDeopt(tm.classMethodActor());
+            ArrayList<TargetMethod> methods = new ArrayList<TargetMethod>(1);
+            methods.add(tm);
+            new Deoptimization(methods, MethodProfile.UNCOMMON_TRAP_DEOPTIMIZATION_REASON_ID).go();
+        }
         deoptimize(CodePointer.from(ip), sp, fp, csa, vm().registerConfigs.uncommonTrapStub.getCalleeSaveLayout(), null);
     }
 
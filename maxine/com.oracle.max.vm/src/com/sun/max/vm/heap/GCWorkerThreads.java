@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.max.vm.heap;
+
+import static com.sun.max.vm.thread.VmThreadLocal.*;
+
+import java.util.concurrent.atomic.*;
+
+import com.sun.max.unsafe.*;
+import com.sun.max.vm.*;
+import com.sun.max.vm.runtime.*;
+import com.sun.max.vm.thread.*;
+
+/**
+ * Pool of threads helping the GC thread (i.e., the VM operation thread) to perform phases of a garbage collection in parallel.
+ *
+ * Worker threads are not frozen by {@linkplain GCOperation GC operations}. Between parallel phases they wait idle on the pool's
+ * lock, in native code, and their stack reference maps are prepared by the GC thread, so that their roots can be scanned
+ * like those of frozen mutator threads. Worker threads must not allocate while running a {@linkplain Task task}.
+ *
+ * The pool is started by heap schemes that support parallel phases once the VM is running. Until then, and when
+ * {@code -XX:ParallelGCThreads} is 1, the GC thread performs all the work itself.
+ */
+public final class GCWorkerThreads {
+
+    /**
+     * Work performed in parallel by all the threads of the pool and the GC thread.
+     */
+    public interface Task {
+        /**
+         * Performs the calling thread's share of the work.
+         *
+         * @param workerIndex index of the calling thread, 0 being the GC thread
+         */
+        void run(int workerIndex);
+    }
+
+    private static int ParallelGCThreads = 1;
+    static {
+        VMOptions.addFieldOption("-XX:", "ParallelGCThreads", GCWorkerThreads.class,
+            "Number of threads performing parallel GC phases, including the GC thread (default: 1).", MaxineVM.Phase.PRISTINE);
+    }
+
+    private static Worker[] workers = new Worker[0];
+
+    /**
+     * Lock on which idle workers wait.
+     */
+    private static final Object lock = new Object();
+
+    /**
+     * Generation of the task run by the pool. Guarded by the lock.
+     */
+    private static int generation;
+
+    /**
+     * Number of workers waiting for the next task. Guarded by the lock.
+     */
+    private static int idleWorkersNum;
+
+    /**
+     * Number of workers which have not finished the current task.
+     */
+    private static final AtomicInteger busyWorkersNum = new AtomicInteger();
+
+    private static Task task;
+
+    private GCWorkerThreads() {
+    }
+
+    /**
+     * Gets the number of threads running a task, including the GC thread.
+     */
+    public static int parallelism() {
+        return workers.length + 1;
+    }
+
+    /**
+     * Starts the worker threads. Must be called once the VM is running.
+     */
+    public static void start() {
+        if (workers.length != 0 || ParallelGCThreads <= 1) {
+            return;
+        }
+        final Worker[] newWorkers = new Worker[ParallelGCThreads - 1];
+        for (int i = 0; i < newWorkers.length; i++) {
+            newWorkers[i] = new Worker(i + 1);
+        }
+        for (Worker worker : newWorkers) {
+            worker.start();
+        }
+        // wait until all workers are idle before publishing them to GC operations
+        synchronized (lock) {
+            while (idleWorkersNum < newWorkers.length) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    // continue waiting
+                }
+            }
+            workers = newWorkers;
+        }
+    }
+
+    /**
+     * Checks whether a thread is a GC worker thread.
+     */
+    public static boolean isWorker(VmThread vmThread) {
+        if (vmThread != null) {
+            // workers which are not published yet are frozen like mutator threads
+            for (Worker worker : workers) {
+                if (vmThread.javaThread() == worker) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Runs a task on all worker threads and on the GC thread, and waits until the workers are idle again.
+     * Must be called by the GC thread.
+     */
+    public static void run(Task task) {
+        if (workers.length == 0) {
+            task.run(0);
+            return;
+        }
+        synchronized (lock) {
+            GCWorkerThreads.task = task;
+            busyWorkersNum.set(workers.length);
+            generation++;
+            lock.notifyAll();
+        }
+        task.run(0);
+        while (busyWorkersNum.get() != 0) {
+            Thread.yield();
+        }
+        GCWorkerThreads.task = null;
+        // stacks of the workers have changed, prepare their reference maps again for the remaining phases of the collection
+        clearStackReferenceMaps();
+        prepareStackReferenceMaps();
+    }
+
+    /**
+     * Prepares the stack reference maps of the idle worker threads, so that their roots can be scanned by the collector.
+     * Called by the GC thread at the beginning of a collection.
+     */
+    public static void prepareStackReferenceMaps() {
+        if (workers.length == 0) {
+            return;
+        }
+        while (true) {
+            synchronized (lock) {
+                // workers counted as idle are blocked in native code waiting on the lock
+                if (idleWorkersNum == workers.length) {
+                    for (Worker worker : workers) {
+                        VmThreadLocal.prepareStackReferenceMap(VmThread.fromJava(worker).tla());
+                    }
+                    return;
+                }
+            }
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Indicates that the stack reference maps of the worker threads are once-again unprepared.
+     * Called by the GC thread at the end of a collection.
+     */
+    public static void clearStackReferenceMaps() {
+        for (Worker worker : workers) {
+            LOWEST_ACTIVE_STACK_SLOT_ADDRESS.store3(VmThread.fromJava(worker).tla(), Address.zero());
+        }
+    }
+
+    /**
+     * GC worker thread.
+     */
+    private static final class Worker extends Thread {
+
+        private final int workerIndex;
+
+        Worker(int workerIndex) {
+            super("GCWorker-" + workerIndex);
+            this.workerIndex = workerIndex;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            int seenGeneration = 0;
+            while (true) {
+                synchronized (lock) {
+                    idleWorkersNum++;
+                    lock.notifyAll();
+                    while (generation == seenGeneration) {
+                        try {
+                            lock.wait();
+                        } catch (InterruptedException e) {
+                            // continue waiting
+                        }
+                    }
+                    idleWorkersNum--;
+                    seenGeneration = generation;
+                }
+                try {
+                    task.run(workerIndex);
+                } catch (Throwable t) {
+                    FatalError.unexpected("Exception in GC worker thread", t);
+                }
+                busyWorkersNum.decrementAndGet();
+            }
+        }
+    }
+}
@@ -323,6 +323,17 @@ public interface HeapScheme extends VMScheme {
 
     void postWriteBarrier(Reference ref,  int displacement, int index, Reference value);
 
+    /**
+     * Post-write barrier for a bulk update of a range of reference slots of an array, e.g., by {@link System#arraycopy}.
+     * Heap schemes recording updates at a coarser granularity than a slot can record the whole range at once.
+     *
+     * @param ref the array whose reference slots were updated
+     * @param displacement displacement from the origin of the array to its first element
+     * @param fromIndex index of the first updated slot
+     * @param length number of updated slots
+     */
+    void postWriteBarrierRange(Reference ref, int displacement, int fromIndex, int length);
+
     enum PIN_SUPPORT_FLAG {
         /**
          * Just to indicate that the pin support flag has been initialized (makes the pinningSupportFlags treated as constant when not zero).
@@ -486,6 +497,17 @@ public interface HeapScheme extends VMScheme {
      */
     void walkHeap(CallbackCellVisitor visitor);
 
+    /**
+     * Splits the cells visited by {@link #walkHeap(CallbackCellVisitor)} into disjoint ranges that can be walked
+     * independently of each other, e.g. by several threads. The ranges are found without walking the heap.
+     * Besides cells, a range may contain unused space made of zero words or of debug padding (see
+     * {@link com.sun.max.vm.heap.debug.DebugHeap#skipCellPadding(Pointer)}), which must be skipped.
+     * Must be called while mutator threads are stopped.
+     *
+     * @param visitor
+     */
+    void walkHeapRanges(CellRangeVisitor visitor);
+
     /*
      * Logging support.
      */
@@ -39,6 +39,7 @@ import com.sun.max.vm.layout.*;
 import com.sun.max.vm.log.VMLog.Record;
 import com.sun.max.vm.log.hosted.*;
 import com.sun.max.vm.maxsim.MaxSimInterfaceHelpers;
+import com.sun.max.vm.maxsim.MaxSimMediator;
 import com.sun.max.vm.maxsim.MaxSimTaggingScheme;
 import com.sun.max.vm.object.*;
 import com.sun.max.vm.reference.*;
@@ -147,6 +148,13 @@ public abstract class HeapSchemeWithTLAB extends HeapSchemeAdaptor {
     private static final VmThreadLocal ALLOCATION_DISABLED
         = new VmThreadLocal(TLAB_DISABLED_THREAD_LOCAL_NAME, false, "HeapSchemeWithTLAB: disables per thread allocation if non-zero");
 
+    /**
+     * Native buffer of the object allocation records of a thread, which are reported to MaxSim in batches. This will
+     * remain zero if MaxSim batched allocation profiling is not enabled.
+     */
+    public static final VmThreadLocal MAXSIM_ALLOCATION_PROFILE_BUFFER
+        = new VmThreadLocal("MAXSIM_ALLOCATION_PROFILE_BUFFER", false, "HeapSchemeWithTLAB: MaxSim allocation profile buffer, zero if not used", Nature.Single);
+
     /**
      * A procedure for resetting the TLAB of a thread.
      */
@@ -158,6 +166,7 @@ public abstract class HeapSchemeWithTLAB extends HeapSchemeAdaptor {
 
         public void run(Pointer tla) {
             final Pointer etla = VmThreadLocal.ETLA.load(tla);
+            MaxSimMediator.flushAllocationProfileBuffer(etla);
             final Pointer tlabMark = TLAB_MARK.load(etla);
             Pointer tlabTop = TLAB_TOP.load(etla);
             if (logTLAB()) {
@@ -374,6 +383,7 @@ public abstract class HeapSchemeWithTLAB extends HeapSchemeAdaptor {
      */
     @NO_SAFEPOINT_POLLS("heap up to allocation mark must be verifiable if debug tagging")
     public void refillTLAB(Pointer etla, Pointer tlab, Size size) {
+        MaxSimMediator.flushAllocationProfileBuffer(etla);
         final Pointer tlabTop = tlab.plus(size); // top of the new TLAB
         final Pointer allocationMark = TLAB_MARK.load(etla);
         if (!allocationMark.isZero()) {
@@ -396,6 +406,7 @@ public abstract class HeapSchemeWithTLAB extends HeapSchemeAdaptor {
 
     @INLINE
     protected final void fastRefillTLAB(Pointer etla, Pointer tlab, Size size) {
+        MaxSimMediator.flushAllocationProfileBuffer(etla);
         TLAB_TOP.store(etla, tlab.plus(size));
         TLAB_MARK.store(etla, tlab);
     }
@@ -613,6 +624,7 @@ public abstract class HeapSchemeWithTLAB extends HeapSchemeAdaptor {
     @Override
     public void notifyCurrentThreadDetach() {
         tlabReset(currentTLA());
+        MaxSimMediator.releaseAllocationProfileBuffer(ETLA.load(currentTLA()));
     }
 
     public static final TLABLogger logger = MaxineVM.isDebug() ? new TLABLogger(true) : new TLABLogger();
@@ -503,6 +503,20 @@ public class DebugHeap {
         }
     }
 
+    /**
+     * Skips the {@linkplain #padWord() padding} words starting at a given address, if any.
+     *
+     * @return the address of the first word that is not padding
+     */
+    public static Pointer skipCellPadding(Pointer cell) {
+        if (isPadding()) {
+            while (cell.getWord().equals(DebugHeap.padWord())) {
+                cell = cell.plusWords(1);
+            }
+        }
+        return cell;
+    }
+
     public static Pointer skipCellPadding(Pointer cell, DetailLogger detailLogger) {
         if (isPadding()) {
             Pointer cellStart = cell;
@@ -26,6 +26,8 @@ import static com.sun.max.vm.heap.gcx.HeapRegionConstants.*;
 import static com.sun.max.vm.heap.gcx.HeapRegionInfo.*;
 import static com.sun.max.vm.heap.gcx.HeapRegionState.*;
 
+import java.util.concurrent.atomic.*;
+
 import com.sun.max.memory.*;
 import com.sun.max.unsafe.*;
 import com.sun.max.vm.*;
@@ -51,6 +53,11 @@ public final class FirstFitMarkSweepSpace<T extends HeapAccountOwner> extends He
         VMOptions.addFieldOption("-XX:", "TraceLargeObjectAllocations", FirstFitMarkSweepSpace.class, "Trace allocation of large multi-regions objects", Phase.PRISTINE);
     }
 
+    static int SweepBatchSize = 32;
+    static {
+        VMOptions.addFieldOption("-XX:", "SweepBatchSize", FirstFitMarkSweepSpace.class, "Number of regions claimed at a time by parallel and lazy sweepers", Phase.PRISTINE);
+    }
+
     /**
      * Heap account regions from this space are allocated from.
      */
@@ -84,6 +91,54 @@ public final class FirstFitMarkSweepSpace<T extends HeapAccountOwner> extends He
      */
     private HeapRegionList sweepList;
 
+    /**
+     * Regions to sweep, in address order. Filled from the {@link #sweepList} before sweeping, so that region sweepers can
+     * read it concurrently while they re-thread the regions over their own lists.
+     */
+    private int[] sweepOrder;
+
+    private int sweepOrderLength;
+
+    /**
+     * Index in {@link #sweepOrder} of the first region of each batch of regions, followed by {@link #sweepOrderLength}.
+     */
+    private int[] batchStarts;
+
+    private int batchesNum;
+
+    /**
+     * Index of the next batch of regions to be claimed by a region sweeper.
+     */
+    private final AtomicInteger nextBatch = new AtomicInteger();
+
+    /**
+     * Region sweepers, one per thread sweeping in parallel. The first one is used by the GC thread, and for lazy sweeping.
+     */
+    private RegionSweeper[] regionSweepers;
+
+    private TricolorHeapMarker sweepMarker;
+    private boolean sweepImprecise;
+
+    private final GCWorkerThreads.Task sweepTask = new GCWorkerThreads.Task() {
+        public void run(int workerIndex) {
+            if (workerIndex < regionSweepers.length) {
+                regionSweepers[workerIndex].sweepBatches(sweepMarker, sweepImprecise);
+            }
+        }
+    };
+
+    /**
+     * Heap marker whose color map drives the sweeping of the regions left unswept by a lazy sweep.
+     */
+    private TricolorHeapMarker lazySweepMarker;
+    private boolean lazySweepImprecise;
+
+    /**
+     * Free space and number of regions swept since the last collection, used to estimate the free space of unswept regions.
+     */
+    private Size sweptFreeSpace = Size.zero();
+    private int sweptRegionsNum;
+
     /**
      * Total number of regions currently allocated to this heap space.
      */
@@ -291,10 +346,10 @@ public final class FirstFitMarkSweepSpace<T extends HeapAccountOwner> extends He
                         }
                     }
                 }
-                if (MaxineVM.isDebug()) {
+                if (MaxineVM.isDebug() && !hasNextSweepingRegion()) {
                     checkForSuspisciousGC(gcCount++);
                 }
-            } while(Heap.collectGarbage()); // Always collect for at least one region.
+            } while(sweepNextBatch() || Heap.collectGarbage()); // Always collect for at least one region.
             // Not enough freed memory.
             throw outOfMemoryError;
         }
@@ -400,6 +455,9 @@ public final class FirstFitMarkSweepSpace<T extends HeapAccountOwner> extends He
         regionsRangeIterable.initialize(heapAccount.committedRegions());
         regionsRangeIterable.reset();
         allocationRegionsFreeSpace = regionSize.times(allocationRegions.size());
+        sweepOrder = new int[maxRegionsInSpace];
+        batchStarts = new int[maxRegionsInSpace / Math.max(SweepBatchSize, 1) + 2];
+        regionSweepers = new RegionSweeper[] {new RegionSweeper(this)};
 
         // The following two are connected: if you deny refill after overflow, the only solution left is allocating large.
         minLargeObjectSize = regionSize;
@@ -465,6 +523,8 @@ public final class FirstFitMarkSweepSpace<T extends HeapAccountOwner> extends He
     }
 
     public void doBeforeGC() {
+        // Regions left unswept by the previous collection must be swept with the color map of that collection.
+        finishSweep();
         overflowAllocator.doBeforeGC();
         tlabAllocator.doBeforeGC();
         FatalError.check(tlabAllocator.refillManager.allocatingRegion() == INVALID_REGION_ID, "TLAB allocating region must have been retired");
@@ -484,176 +544,406 @@ public final class FirstFitMarkSweepSpace<T extends HeapAccountOwner> extends He
         heapMarker.markAll(regionsRangeIterable);
     }
 
+    /**
+     * Enables parallel sweeping of the space if {@linkplain GCWorkerThreads GC worker threads} are available.
+     * Must be called once the VM is running, after the GC worker threads are started.
+     */
+    public void enableParallelSweeping() {
+        final int parallelism = GCWorkerThreads.parallelism();
+        if (regionSweepers.length < parallelism) {
+            final RegionSweeper[] sweepers = new RegionSweeper[parallelism];
+            sweepers[0] = regionSweepers[0];
+            for (int i = 1; i < parallelism; i++) {
+                sweepers[i] = new RegionSweeper(this);
+            }
+            regionSweepers = sweepers;
+        }
+    }
 
+    /**
+     * Sweep all the regions of the space. The regions are split in batches that the region sweepers of the GC thread and of the
+     * GC worker threads claim in turn. Each region sweeper builds the free chunk lists of the regions it sweeps and distributes them
+     * over its own region lists, which are merged into those of the space once all the batches are swept.
+     */
     public void sweep(TricolorHeapMarker heapMarker, boolean doImprecise) {
+        prepareSweep();
+        sweepMarker = heapMarker;
+        sweepImprecise = doImprecise;
+        GCWorkerThreads.run(sweepTask);
+        sweepMarker = null;
+        for (RegionSweeper sweeper : regionSweepers) {
+            mergeSweptRegions(sweeper);
+        }
+        if (regionSweepers.length > 1) {
+            // Each sweeper's lists are address-ordered, but the sweepers claimed batches in any order.
+            allocationRegions.sort();
+            tlabAllocationRegions.sort();
+            unavailableRegions.sort();
+        }
+        FatalError.check(!hasNextSweepingRegion(), "All regions must be swept");
+    }
+
+    /**
+     * Sweep the regions of the space lazily. Only the first batches needed to recover the specified amount of free space are
+     * swept during the collection. The remaining batches are swept on demand, when allocation runs out of regions, and at the
+     * latest before the next collection.
+     *
+     * @param minFreeSpace amount of free space to recover before returning
+     */
+    public void sweepLazily(TricolorHeapMarker heapMarker, boolean doImprecise, Size minFreeSpace) {
+        prepareSweep();
+        lazySweepMarker = heapMarker;
+        lazySweepImprecise = doImprecise;
+        while (sweepNextBatch() && allocationRegionsFreeSpace.lessThan(minFreeSpace)) {
+            // keep sweeping
+        }
+    }
+
+    /**
+     * Sweep all the regions left unswept by a lazy sweep.
+     */
+    public void finishSweep() {
+        while (sweepNextBatch()) {
+            // keep sweeping
+        }
+    }
+
+    /**
+     * Sweep the next batch of regions left unswept by a lazy sweep and make the swept regions available to allocators.
+     * Must be called with the refill lock held, or by the GC thread. Safepoints are disabled while the batch is swept, so that
+     * a collection never observes the region sweeper in the middle of a batch.
+     *
+     * @return false if there was no region left to sweep
+     */
+    private boolean sweepNextBatch() {
+        if (!hasNextSweepingRegion()) {
+            return false;
+        }
+        final boolean wasDisabled = SafepointPoll.disable();
+        final RegionSweeper sweeper = regionSweepers[0];
+        sweeper.sweepBatch(lazySweepMarker, lazySweepImprecise, nextBatch.getAndIncrement());
+        mergeSweptRegions(sweeper);
+        if (!hasNextSweepingRegion()) {
+            lazySweepMarker = null;
+        }
+        if (!wasDisabled) {
+            SafepointPoll.enable();
+        }
+        return true;
+    }
+
+    /**
+     * Lay out the regions of the sweep list in address order in the sweep order array, and split them in batches of at least
+     * {@link #SweepBatchSize} regions. A batch never starts with the body or the tail of a large object, so that
+     * the regions of a large object are always swept by the same region sweeper.
+     */
+    private void prepareSweep() {
         if (MaxineVM.isDebug()) {
             sweepList.checkIsAddressOrdered();
         }
+        sweepOrderLength = 0;
+        int regionID = sweepList.head();
+        while (regionID != INVALID_REGION_ID) {
+            sweepOrder[sweepOrderLength++] = regionID;
+            regionID = sweepList.next(regionID);
+        }
+        sweepList.clear();
+
+        final int batchSize = Math.max(SweepBatchSize, 1);
+        batchesNum = 0;
+        int i = 0;
+        while (i < sweepOrderLength) {
+            batchStarts[batchesNum++] = i;
+            i += batchSize;
+            while (i < sweepOrderLength && isLargeObjectContinuation(fromRegionID(sweepOrder[i]))) {
+                i++;
+            }
+        }
+        batchStarts[batchesNum] = sweepOrderLength;
+        nextBatch.set(0);
         allocationRegionsFreeSpace = Size.zero();
-        csrIsLiveMultiRegionObjectTail = false;
-        heapMarker.sweep(this, doImprecise);
-        FatalError.check(sweepList.isEmpty(), "Sweeping list must be empty");
+        sweptFreeSpace = Size.zero();
+        sweptRegionsNum = 0;
     }
 
-    private HeapRegionInfo nextRegionToSweep() {
-        return RegionTable.theRegionTable().regionInfo(sweepList.removeHead());
+    private static boolean isLargeObjectContinuation(HeapRegionInfo rinfo) {
+        return LARGE_BODY.isInState(rinfo) || rinfo.isTailOfLargeObject();
     }
 
+    /**
+     * Move the regions swept by a region sweeper to the region lists of the space.
+     */
+    private void mergeSweptRegions(RegionSweeper sweeper) {
+        allocationRegions.appendAndClear(sweeper.allocationRegions);
+        tlabAllocationRegions.appendAndClear(sweeper.tlabAllocationRegions);
+        unavailableRegions.appendAndClear(sweeper.unavailableRegions);
+        allocationRegionsFreeSpace = allocationRegionsFreeSpace.plus(sweeper.freeSpace);
+        sweptFreeSpace = sweptFreeSpace.plus(sweeper.freeSpace);
+        sweptRegionsNum += sweeper.sweptRegionsNum;
+        sweeper.freeSpace = Size.zero();
+        sweeper.sweptRegionsNum = 0;
+    }
+
+    /**
+     * Indicates whether some regions are left unswept by a lazy sweep.
+     */
     @Override
     public boolean hasNextSweepingRegion() {
-        return !sweepList.isEmpty();
+        return nextBatch.get() < batchesNum;
+    }
+
+    private int unsweptRegionsNum() {
+        return hasNextSweepingRegion() ? sweepOrderLength - batchStarts[nextBatch.get()] : 0;
     }
 
+    // The space is swept by its region sweepers, never directly by a heap marker.
+
     @Override
     public void beginSweep() {
-        resetSweepingRegion(nextRegionToSweep());
-    }
-
-    private void traceSweptRegion() {
-        Log.print("#");
-        Log.print(csrInfo.toRegionID());
-        if (csrInfo.hasFreeChunks()) {
-            Log.print(csrInfo.isTailOfLargeObject() ? " T" : " ");
-            if (csrFreeChunks > 1 || minOverflowRefillSize.greaterThan(csrFreeBytes)) {
-                Log.print("A,  nc: ");
-                Log.print(csrFreeChunks);
-                Log.print(", nb: ");
-            } else {
-                Log.print("A,  nc: 1, nb: ");
-            }
-            Log.println(csrFreeBytes);
-        } else if (csrInfo.isEmpty()) {
-            Log.println("  E");
-        } else if (csrInfo.isLarge()) {
-            if (LARGE_HEAD.isInState(csrInfo)) {
-                Log.println(" H");
-            } else if (LARGE_BODY.isInState(csrInfo)) {
-                Log.println(" B");
-            } else if (LARGE_FULL_TAIL.isInState(csrInfo)) {
-                Log.println(" T");
-            } else {
-                FatalError.unexpected("Unexpected large region state after sweep");
-            }
-        } else if (csrInfo.isFull()) {
-            Log.println("  F");
-        } else {
-            FatalError.unexpected("Unexpected region state after sweep");
-        }
+        FatalError.unexpected("space must be swept by its region sweepers");
     }
 
     @Override
     public void endSweep() {
-        if (csrIsMultiRegionObjectHead) {
-            // Large object regions are at least 2 regions long.
-            if (csrFreeBytes == 0) {
-                // Large object is live.
-                Size largeObjectSize = Layout.size(Layout.cellToOrigin(csrLastLiveAddress.asPointer()));
-                csrLastLiveAddress =  csrLastLiveAddress.plus(largeObjectSize);
-                csrIsLiveMultiRegionObjectTail = true;
-                // Reset the flag
-                LARGE_HEAD.setState(csrInfo);
-                unavailableRegions.append(csrInfo.toRegionID());
-                // Skip all intermediate regions. They are full.
-                if (TraceSweep) {
-                    traceSweptRegion();
+        FatalError.unexpected("space must be swept by its region sweepers");
+    }
+
+    @Override
+    public void reachedRightmostLiveRegion() {
+        FatalError.unexpected("space must be swept by its region sweepers");
+    }
+
+    /**
+     * Free space of the space once all its regions are swept. The free space of regions left unswept by a lazy sweep
+     * is extrapolated from that of the regions swept so far.
+     */
+    @Override
+    public Size freeSpaceAfterSweep() {
+        final Size freeSpace = freeSpace();
+        final int unsweptRegionsNum = unsweptRegionsNum();
+        if (unsweptRegionsNum == 0 || sweptRegionsNum == 0) {
+            return freeSpace;
+        }
+        return freeSpace.plus(sweptFreeSpace.dividedBy(sweptRegionsNum).times(unsweptRegionsNum));
+    }
+
+    /**
+     * Sweeper of batches of regions of the space.
+     * The regions of a batch are distributed over the region sweeper's own lists, which don't require any synchronization
+     * as a region belongs to a single batch. The lists are then merged into those of the space.
+     */
+    private static final class RegionSweeper extends HeapRegionSweeper {
+        /**
+         * The space whose regions are swept.
+         */
+        final FirstFitMarkSweepSpace<?> space;
+
+        final HeapRegionList allocationRegions = HeapRegionList.RegionListUse.OWNERSHIP.createList();
+        final HeapRegionList tlabAllocationRegions = HeapRegionList.RegionListUse.OWNERSHIP.createList();
+        final HeapRegionList unavailableRegions = HeapRegionList.RegionListUse.OWNERSHIP.createList();
+
+        /**
+         * Free space of the regions in the allocation lists of the sweeper.
+         */
+        Size freeSpace = Size.zero();
+
+        /**
+         * Number of regions swept since the lists were last merged.
+         */
+        int sweptRegionsNum;
+
+        /**
+         * Index in the sweep order of the next region to sweep.
+         */
+        private int cursor;
+
+        /**
+         * Index in the sweep order of the end of the batch being swept.
+         */
+        private int batchEnd;
+
+        RegionSweeper(FirstFitMarkSweepSpace<?> space) {
+            super(space.zapDeadReferences, space.deadSpaceListener);
+            this.space = space;
+            minReclaimableSpace = space.minReclaimableSpace;
+        }
+
+        /**
+         * Sweep batches claimed from the space until there are none left.
+         */
+        void sweepBatches(TricolorHeapMarker heapMarker, boolean doImprecise) {
+            int batch = space.nextBatch.getAndIncrement();
+            while (batch < space.batchesNum) {
+                sweepBatch(heapMarker, doImprecise, batch);
+                batch = space.nextBatch.getAndIncrement();
+            }
+        }
+
+        void sweepBatch(TricolorHeapMarker heapMarker, boolean doImprecise, int batch) {
+            cursor = space.batchStarts[batch];
+            batchEnd = space.batchStarts[batch + 1];
+            csrIsLiveMultiRegionObjectTail = false;
+            heapMarker.sweepRegions(this, doImprecise);
+            sweptRegionsNum += batchEnd - space.batchStarts[batch];
+            // Done with the batch. Clean the state of the sweeper holding addresses of free heap chunks, as they may be taken
+            // for valid live objects by the next GC.
+            csrHead = null;
+            csrTail = null;
+        }
+
+        private HeapRegionInfo nextRegionToSweep() {
+            return RegionTable.theRegionTable().regionInfo(space.sweepOrder[cursor++]);
+        }
+
+        @Override
+        public boolean hasNextSweepingRegion() {
+            return cursor < batchEnd;
+        }
+
+        @Override
+        public void beginSweep() {
+            resetSweepingRegion(nextRegionToSweep());
+        }
+
+        private void traceSweptRegion() {
+            Log.print("#");
+            Log.print(csrInfo.toRegionID());
+            if (csrInfo.hasFreeChunks()) {
+                Log.print(csrInfo.isTailOfLargeObject() ? " T" : " ");
+                if (csrFreeChunks > 1 || space.minOverflowRefillSize.greaterThan(csrFreeBytes)) {
+                    Log.print("A,  nc: ");
+                    Log.print(csrFreeChunks);
+                    Log.print(", nb: ");
+                } else {
+                    Log.print("A,  nc: 1, nb: ");
                 }
-                while (!csrInfo.next().isTailOfLargeObject()) {
-                    csrInfo =  nextRegionToSweep();
-                    unavailableRegions.append(csrInfo.toRegionID());
-                    if (TraceSweep) {
-                        traceSweptRegion();
-                    }
+                Log.println(csrFreeBytes);
+            } else if (csrInfo.isEmpty()) {
+                Log.println("  E");
+            } else if (csrInfo.isLarge()) {
+                if (LARGE_HEAD.isInState(csrInfo)) {
+                    Log.println(" H");
+                } else if (LARGE_BODY.isInState(csrInfo)) {
+                    Log.println(" B");
+                } else if (LARGE_FULL_TAIL.isInState(csrInfo)) {
+                    Log.println(" T");
+                } else {
+                    FatalError.unexpected("Unexpected large region state after sweep");
                 }
+            } else if (csrInfo.isFull()) {
+                Log.println("  F");
             } else {
-                Size largeObjectSize = Layout.size(Layout.cellToOrigin(csrInfo.regionStart().asPointer()));
-                // Free all intermediate regions. The tail needs to be swept
-                // in case it was used for allocating small objects, so we
-                // don't free it. It'll be set as the next sweeping region by the next call to beginSweep, so
-                // be careful not to consume it from the iterable.
-                do {
-                    EMPTY_REGION.setState(csrInfo);
-                    HeapFreeChunk.format(csrInfo.regionStart(), regionSizeInBytes);
-                    allocationRegions.append(csrInfo.toRegionID());
-                    allocationRegionsFreeSpace =  allocationRegionsFreeSpace.plus(regionSizeInBytes);
+                FatalError.unexpected("Unexpected region state after sweep");
+            }
+        }
+
+        @Override
+        public void endSweep() {
+            if (csrIsMultiRegionObjectHead) {
+                // Large object regions are at least 2 regions long.
+                if (csrFreeBytes == 0) {
+                    // Large object is live.
+                    Size largeObjectSize = Layout.size(Layout.cellToOrigin(csrLastLiveAddress.asPointer()));
+                    csrLastLiveAddress =  csrLastLiveAddress.plus(largeObjectSize);
+                    csrIsLiveMultiRegionObjectTail = true;
+                    // Reset the flag
+                    LARGE_HEAD.setState(csrInfo);
+                    unavailableRegions.append(csrInfo.toRegionID());
+                    // Skip all intermediate regions. They are full.
                     if (TraceSweep) {
                         traceSweptRegion();
                     }
-                    if (csrInfo.next().isTailOfLargeObject()) {
-                        break;
+                    while (!csrInfo.next().isTailOfLargeObject()) {
+                        csrInfo =  nextRegionToSweep();
+                        unavailableRegions.append(csrInfo.toRegionID());
+                        if (TraceSweep) {
+                            traceSweptRegion();
+                        }
                     }
-                    csrInfo = nextRegionToSweep();
-                } while (true);
-                csrLastLiveAddress = csrInfo.regionStart().plus(regionSizeInBytes);
-                // If the large object is dead and its tail isn't large enough to be reclaimable, we must fill it with a dead object to maintain heap parsability.
-                Size tailSize = largeObjectSize.and(regionAlignmentMask);
-                if (tailSize.lessThan(minReclaimableSpace)) {
-                    if (!tailSize.isZero()) {
-                        final Pointer tailStart = csrLastLiveAddress.asPointer();
-                        DarkMatter.format(tailStart, tailSize);
+                } else {
+                    Size largeObjectSize = Layout.size(Layout.cellToOrigin(csrInfo.regionStart().asPointer()));
+                    // Free all intermediate regions. The tail needs to be swept
+                    // in case it was used for allocating small objects, so we
+                    // don't free it. It'll be set as the next sweeping region by the next call to beginSweep, so
+                    // be careful not to consume it from the iterable.
+                    do {
+                        EMPTY_REGION.setState(csrInfo);
+                        HeapFreeChunk.format(csrInfo.regionStart(), regionSizeInBytes);
+                        allocationRegions.append(csrInfo.toRegionID());
+                        freeSpace =  freeSpace.plus(regionSizeInBytes);
+                        if (TraceSweep) {
+                            traceSweptRegion();
+                        }
+                        if (csrInfo.next().isTailOfLargeObject()) {
+                            break;
+                        }
+                        csrInfo = nextRegionToSweep();
+                    } while (true);
+                    csrLastLiveAddress = csrInfo.regionStart().plus(regionSizeInBytes);
+                    // If the large object is dead and its tail isn't large enough to be reclaimable, we must fill it with a dead object to maintain heap parsability.
+                    Size tailSize = largeObjectSize.and(regionAlignmentMask);
+                    if (tailSize.lessThan(minReclaimableSpace)) {
+                        if (!tailSize.isZero()) {
+                            final Pointer tailStart = csrLastLiveAddress.asPointer();
+                            DarkMatter.format(tailStart, tailSize);
+                        }
                     }
                 }
-            }
-            csrIsMultiRegionObjectHead = false;
-        } else {
-            if (csrFreeBytes == 0) {
-                if (csrIsLiveMultiRegionObjectTail) {
-                    // FIXME: is this true if the large object was already dead ?
-                    LARGE_FULL_TAIL.setState(csrInfo);
-                    csrIsLiveMultiRegionObjectTail = false;
-                }  else {
-                    FULL_REGION.setState(csrInfo);
-                }
-                unavailableRegions.append(csrInfo.toRegionID());
+                csrIsMultiRegionObjectHead = false;
             } else {
-                if (csrFreeBytes == regionSizeInBytes) {
-                    EMPTY_REGION.setState(csrInfo);
-                    HeapFreeChunk.format(csrInfo.regionStart(), regionSizeInBytes);
-                    allocationRegions.append(csrInfo.toRegionID());
-                    allocationRegionsFreeSpace =  allocationRegionsFreeSpace.plus(regionSizeInBytes);
-                } else {
+                if (csrFreeBytes == 0) {
                     if (csrIsLiveMultiRegionObjectTail) {
-                        LARGE_TAIL.setState(csrInfo);
+                        // FIXME: is this true if the large object was already dead ?
+                        LARGE_FULL_TAIL.setState(csrInfo);
                         csrIsLiveMultiRegionObjectTail = false;
-                    } else {
-                        FREE_CHUNKS_REGION.setState(csrInfo);
+                    }  else {
+                        FULL_REGION.setState(csrInfo);
                     }
-                    allocationRegionsFreeSpace =  allocationRegionsFreeSpace.plus(csrFreeBytes);
-                    if (csrFreeChunks == 1 && minOverflowRefillSize.lessEqual(csrFreeBytes)) {
-                        csrInfo.setFreeChunks(HeapFreeChunk.fromHeapFreeChunk(csrHead), csrFreeBytes,  csrFreeChunks);
+                    unavailableRegions.append(csrInfo.toRegionID());
+                } else {
+                    if (csrFreeBytes == regionSizeInBytes) {
+                        EMPTY_REGION.setState(csrInfo);
+                        HeapFreeChunk.format(csrInfo.regionStart(), regionSizeInBytes);
                         allocationRegions.append(csrInfo.toRegionID());
+                        freeSpace =  freeSpace.plus(regionSizeInBytes);
                     } else {
-                        FatalError.check(csrFreeBytes > 0 && (csrFreeChunks > 1 || minOverflowRefillSize.greaterThan(csrFreeBytes)) && csrHead != null, "unknown state for a swept region");
-                        csrInfo.setFreeChunks(HeapFreeChunk.fromHeapFreeChunk(csrHead),  csrFreeBytes, csrFreeChunks);
-                        tlabAllocationRegions.append(csrInfo.toRegionID());
+                        if (csrIsLiveMultiRegionObjectTail) {
+                            LARGE_TAIL.setState(csrInfo);
+                            csrIsLiveMultiRegionObjectTail = false;
+                        } else {
+                            FREE_CHUNKS_REGION.setState(csrInfo);
+                        }
+                        freeSpace =  freeSpace.plus(csrFreeBytes);
+                        if (csrFreeChunks == 1 && space.minOverflowRefillSize.lessEqual(csrFreeBytes)) {
+                            csrInfo.setFreeChunks(HeapFreeChunk.fromHeapFreeChunk(csrHead), csrFreeBytes,  csrFreeChunks);
+                            allocationRegions.append(csrInfo.toRegionID());
+                        } else {
+                            FatalError.check(csrFreeBytes > 0 && (csrFreeChunks > 1 || space.minOverflowRefillSize.greaterThan(csrFreeBytes)) && csrHead != null, "unknown state for a swept region");
+                            csrInfo.setFreeChunks(HeapFreeChunk.fromHeapFreeChunk(csrHead),  csrFreeBytes, csrFreeChunks);
+                            tlabAllocationRegions.append(csrInfo.toRegionID());
+                        }
                     }
                 }
-            }
-            if (TraceSweep) {
-                traceSweptRegion();
+                if (TraceSweep) {
+                    traceSweptRegion();
+                }
             }
         }
-    }
 
-    @Override
-    public void reachedRightmostLiveRegion() {
-        while (hasNextSweepingRegion()) {
-            final HeapRegionInfo rinfo = nextRegionToSweep();
-            EMPTY_REGION.setState(rinfo);
-            HeapFreeChunk.format(rinfo.regionStart(), regionSizeInBytes);
-            rinfo.resetOccupancy();
-            allocationRegionsFreeSpace =  allocationRegionsFreeSpace.plus(regionSizeInBytes);
-            allocationRegions.append(rinfo.toRegionID());
+        @Override
+        public void reachedRightmostLiveRegion() {
+            // Regions beyond the rightmost live object are swept as dead regions.
         }
-        // Done with sweeping now. Clean state of the sweeper, especially those holding address of free
-        // heap chunks (as they may be taken for valid live objects by the next GC!
-        // FIXME(ld) should we have some system wide GC epilogue for these type of cleanup ?
-        csrHead = null;
-        csrTail = null;
-    }
 
-    @Override
-    public Size freeSpaceAfterSweep() {
-        return freeSpace();
+        @Override
+        public Size freeSpaceAfterSweep() {
+            return freeSpace;
+        }
+
+        @Override
+        public void verify(AfterMarkSweepVerifier verifier) {
+            space.verify(verifier);
+        }
     }
 
 
@@ -734,7 +1024,10 @@ public final class FirstFitMarkSweepSpace<T extends HeapAccountOwner> extends He
     }
 
     public int getAllocatingRegion() {
-        final int regionID = tlabAllocationRegionList().removeHead();
+        int regionID = tlabAllocationRegionList().removeHead();
+        while (regionID == INVALID_REGION_ID && sweepNextBatch()) {
+            regionID = tlabAllocationRegionList().removeHead();
+        }
         if (regionID != INVALID_REGION_ID) {
             final HeapRegionInfo regionInfo = fromRegionID(regionID);
             final int numFreeBytes = regionInfo.isEmpty() ?  regionSizeInBytes : regionInfo.freeBytesInChunks();
@@ -744,6 +1037,14 @@ public final class FirstFitMarkSweepSpace<T extends HeapAccountOwner> extends He
     }
 
     public int getAllocatingRegion(Size minFreeBytes, int maxFreeChunks) {
+        int regionID = findAllocatingRegion(minFreeBytes, maxFreeChunks);
+        while (regionID == INVALID_REGION_ID && sweepNextBatch()) {
+            regionID = findAllocatingRegion(minFreeBytes, maxFreeChunks);
+        }
+        return regionID;
+    }
+
+    private int findAllocatingRegion(Size minFreeBytes, int maxFreeChunks) {
         final int minFreeSpace = minFreeBytes.toInt();
         regionInfoIterable.initialize(allocationRegions);
         regionInfoIterable.reset();
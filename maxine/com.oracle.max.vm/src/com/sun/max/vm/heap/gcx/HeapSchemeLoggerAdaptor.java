@@ -59,6 +59,13 @@ public class HeapSchemeLoggerAdaptor {
     private interface TimeLoggerInterface {
         void stackReferenceMapPreparationTime(
             @VMLogParam(name = "stackReferenceMapPreparationTime") long stackReferenceMapPreparationTime);
+
+        void cardScanTimes(
+            @VMLogParam(name = "invocationCount") int invocationCount,
+            @VMLogParam(name = "cardScanTime") long cardScanTime,
+            @VMLogParam(name = "refinementTime") long refinementTime,
+            @VMLogParam(name = "refinedCards") int refinedCards,
+            @VMLogParam(name = "retainedCards") int retainedCards);
     }
 
     public static final class TimeLogger extends TimeLoggerAuto {
@@ -75,6 +82,22 @@ public class HeapSchemeLoggerAdaptor {
             Log.print(stackReferenceMapPreparationTime);
             Log.println(HZ_SUFFIX);
         }
+
+        @Override
+        protected void traceCardScanTimes(int invocationCount, long cardScanTime, long refinementTime, int refinedCards, int retainedCards) {
+            Log.print(TIMINGS_LEAD);
+            Log.print("card scanning of GC ");
+            Log.print(invocationCount);
+            Log.print(": pause=");
+            Log.print(cardScanTime);
+            Log.print(", concurrent refinement=");
+            Log.print(refinementTime);
+            Log.print(" (");
+            Log.print(refinedCards);
+            Log.print(" cards cleaned, ");
+            Log.print(retainedCards);
+            Log.println(" retained)");
+        }
     }
 
 // START GENERATED CODE
@@ -117,7 +140,7 @@ public class HeapSchemeLoggerAdaptor {
 
     private static abstract class TimeLoggerAuto extends com.sun.max.vm.heap.HeapScheme.TimeLogger {
         public enum Operation {
-            StackReferenceMapPreparationTime;
+            CardScanTimes, StackReferenceMapPreparationTime;
 
             @SuppressWarnings("hiding")
             public static final Operation[] VALUES = values();
@@ -134,6 +157,12 @@ public class HeapSchemeLoggerAdaptor {
             return Operation.VALUES[opCode].name();
         }
 
+        @INLINE
+        public final void logCardScanTimes(int invocationCount, long cardScanTime, long refinementTime, int refinedCards, int retainedCards) {
+            log(Operation.CardScanTimes.ordinal(), intArg(invocationCount), longArg(cardScanTime), longArg(refinementTime), intArg(refinedCards), intArg(retainedCards));
+        }
+        protected abstract void traceCardScanTimes(int invocationCount, long cardScanTime, long refinementTime, int refinedCards, int retainedCards);
+
         @Override
         @INLINE
         public final void logStackReferenceMapPreparationTime(long stackReferenceMapPreparationTime) {
@@ -144,7 +173,11 @@ public class HeapSchemeLoggerAdaptor {
         @Override
         protected void trace(Record r) {
             switch (r.getOperation()) {
-                case 0: { //StackReferenceMapPreparationTime
+                case 0: { //CardScanTimes
+                    traceCardScanTimes(toInt(r, 1), toLong(r, 2), toLong(r, 3), toInt(r, 4), toInt(r, 5));
+                    break;
+                }
+                case 1: { //StackReferenceMapPreparationTime
                     traceStackReferenceMapPreparationTime(toLong(r, 1));
                     break;
                 }
@@ -47,6 +47,13 @@ public class MarkingStack {
         register(new  VMIntOption("-XX:MarkingStackSize=", 16 * 1024, "Size of the marking stack in number of references."),
                         MaxineVM.Phase.PRISTINE);
 
+    /**
+     * Gets the length of marking stacks, in number of references, as specified by the {@code -XX:MarkingStackSize} option.
+     */
+    static int markingStackLength() {
+        return markingStackSizeOption.getValue();
+    }
+
     abstract static class MarkingStackCellVisitor {
         abstract void visitPoppedCell(Pointer cell);
         abstract void visitFlushedCell(Pointer cell);
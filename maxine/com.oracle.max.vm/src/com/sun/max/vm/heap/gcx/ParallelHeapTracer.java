@@ -0,0 +1,438 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.max.vm.heap.gcx;
+
+import java.util.concurrent.atomic.*;
+
+import com.sun.max.lang.*;
+import com.sun.max.memory.*;
+import com.sun.max.unsafe.*;
+import com.sun.max.vm.*;
+import com.sun.max.vm.actor.holder.*;
+import com.sun.max.vm.heap.*;
+import com.sun.max.vm.layout.*;
+import com.sun.max.vm.reference.*;
+
+/**
+ * Parallel tracing of the objects marked grey by root marking, performed by the GC thread and the {@link GCWorkerThreads}.
+ *
+ * Each tracing thread owns a marking stack. Objects are painted grey and black with atomic updates of the color map:
+ * the thread that paints a white object grey pushes it on its own marking stack, and the thread that paints a grey object
+ * black visits its references. Threads whose marking stack is empty steal half of the content of another thread's stack.
+ *
+ * Grey objects left by root marking are found by scanning the color map. The scanned part of the color map is split in fixed-size chunks
+ * claimed by the tracing threads. The same mechanism recovers from marking stack overflows: an object that cannot be pushed on
+ * a full marking stack stays grey in the color map, and the range of the color map holding such objects is scanned in parallel
+ * again once the tracing threads run out of work, until no overflow occurs.
+ */
+final class ParallelHeapTracer implements GCWorkerThreads.Task {
+
+    /**
+     * Log2 of the number of color map words in a chunk.
+     */
+    private static final int LOG2_CHUNK_WORDS = 10;
+
+    final TricolorHeapMarker heapMarker;
+
+    private final Tracer[] tracers;
+
+    /**
+     * Native array of indexes of the chunks to scan, in increasing order.
+     */
+    private Pointer chunks = Pointer.zero();
+
+    private int chunksNum;
+
+    private int chunksCapacity;
+
+    /**
+     * Index of the next chunk to be claimed.
+     */
+    private final AtomicInteger nextChunk = new AtomicInteger();
+
+    /**
+     * Index of the last color map word to scan.
+     */
+    private int lastBitmapWordIndex;
+
+    /**
+     * Number of tracing threads which may still produce work.
+     */
+    private final AtomicInteger activeTracersNum = new AtomicInteger();
+
+    /**
+     * Leftmost and rightmost bit indexes of objects left grey in the color map because of marking stack overflows.
+     */
+    private final AtomicInteger leftmostOverflow = new AtomicInteger();
+    private final AtomicInteger rightmostOverflow = new AtomicInteger();
+
+    /**
+     * Lock serializing the discovery of special references.
+     */
+    private final AtomicInteger specialReferenceLock = new AtomicInteger();
+
+    /**
+     * Number of rescans of the color map to recover from marking stack overflows during the last trace.
+     */
+    int overflowRecoveryNum;
+
+    ParallelHeapTracer(TricolorHeapMarker heapMarker, int tracersNum) {
+        this.heapMarker = heapMarker;
+        tracers = new Tracer[tracersNum];
+        for (int i = 0; i < tracersNum; i++) {
+            tracers[i] = new Tracer(i);
+        }
+    }
+
+    /**
+     * Traces all the objects reachable from the objects marked grey in the specified ranges of the color map.
+     *
+     * @param regionsRanges ranges of heap regions to scan for grey objects, or {@code null} if the whole covered area is scanned
+     * @param leftmost leftmost grey object
+     * @param rightmost rightmost grey object
+     * @return the rightmost object marked
+     */
+    Address trace(HeapRegionRangeIterable regionsRanges, Address leftmost, Address rightmost) {
+        overflowRecoveryNum = 0;
+        if (leftmost.greaterThan(rightmost)) {
+            return rightmost;
+        }
+        for (Tracer tracer : tracers) {
+            tracer.rightmost = rightmost;
+        }
+        final int firstWordIndex = heapMarker.bitmapWordIndex(leftmost);
+        lastBitmapWordIndex = heapMarker.bitmapWordIndex(rightmost);
+        chunksNum = 0;
+        if (regionsRanges == null) {
+            addChunks(firstWordIndex, lastBitmapWordIndex);
+        } else {
+            final int log2RegionToBitmapWord = HeapRegionConstants.log2RegionSizeInBytes - heapMarker.log2BitmapWord;
+            regionsRanges.reset();
+            while (regionsRanges.hasNext()) {
+                final RegionRange regionsRange = regionsRanges.next();
+                final int first = regionsRange.firstRegion() << log2RegionToBitmapWord;
+                final int last = ((regionsRange.firstRegion() + regionsRange.numRegions()) << log2RegionToBitmapWord) - 1;
+                addChunks(Math.max(first, firstWordIndex), Math.min(last, lastBitmapWordIndex));
+            }
+        }
+        traceChunks();
+
+        // Rescan the parts of the color map where objects were left grey by marking stack overflows.
+        while (rightmostOverflow.get() >= 0) {
+            overflowRecoveryNum++;
+            final int first = heapMarker.bitmapWordIndex(leftmostOverflow.get());
+            lastBitmapWordIndex = heapMarker.bitmapWordIndex(rightmostOverflow.get());
+            chunksNum = 0;
+            addChunks(first, lastBitmapWordIndex);
+            traceChunks();
+        }
+
+        Address result = rightmost;
+        for (Tracer tracer : tracers) {
+            if (tracer.rightmost.greaterThan(result)) {
+                result = tracer.rightmost;
+            }
+        }
+        return result;
+    }
+
+    private void traceChunks() {
+        nextChunk.set(0);
+        leftmostOverflow.set(Integer.MAX_VALUE);
+        rightmostOverflow.set(-1);
+        activeTracersNum.set(tracers.length);
+        GCWorkerThreads.run(this);
+    }
+
+    /**
+     * Adds the chunks overlapping the specified range of color map words, skipping the last chunk added if it is overlapped too.
+     */
+    private void addChunks(int firstWordIndex, int lastWordIndex) {
+        if (firstWordIndex > lastWordIndex) {
+            return;
+        }
+        int chunk = firstWordIndex >> LOG2_CHUNK_WORDS;
+        if (chunksNum > 0 && chunks.getInt(chunksNum - 1) >= chunk) {
+            chunk = chunks.getInt(chunksNum - 1) + 1;
+        }
+        final int lastChunk = lastWordIndex >> LOG2_CHUNK_WORDS;
+        for (; chunk <= lastChunk; chunk++) {
+            if (chunksNum == chunksCapacity) {
+                chunksCapacity = Math.max(256, chunksCapacity * 2);
+                final Size size = Size.fromInt(chunksCapacity).times(Ints.SIZE);
+                chunks = chunks.isZero() ? Memory.mustAllocate(size) : Memory.reallocate(chunks, size);
+            }
+            chunks.setInt(chunksNum++, chunk);
+        }
+    }
+
+    public void run(int workerIndex) {
+        tracers[workerIndex].run();
+    }
+
+    private void recordOverflow(int bitIndex) {
+        int current;
+        do {
+            current = leftmostOverflow.get();
+        } while (bitIndex < current && !leftmostOverflow.compareAndSet(current, bitIndex));
+        do {
+            current = rightmostOverflow.get();
+        } while (bitIndex > current && !rightmostOverflow.compareAndSet(current, bitIndex));
+    }
+
+    private void discoverSpecialReference(Pointer cell) {
+        while (!specialReferenceLock.compareAndSet(0, 1)) {
+            Thread.yield();
+        }
+        SpecialReferenceManager.discoverSpecialReference(cell);
+        specialReferenceLock.set(0);
+    }
+
+    private boolean hasStealableWork() {
+        for (Tracer tracer : tracers) {
+            if (tracer.stack.size() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Marking stack of a tracing thread, from which other tracing threads can steal.
+     */
+    static final class StealableMarkingStack {
+        private final Pointer base;
+        private final int capacity;
+        private volatile int top;
+        private final AtomicInteger lock = new AtomicInteger();
+
+        StealableMarkingStack() {
+            capacity = MarkingStack.markingStackLength();
+            base = Memory.mustAllocate(Size.fromInt(capacity).times(Word.size()));
+        }
+
+        int size() {
+            return top;
+        }
+
+        private void lock() {
+            while (!lock.compareAndSet(0, 1)) {
+                Thread.yield();
+            }
+        }
+
+        private void unlock() {
+            lock.set(0);
+        }
+
+        boolean push(Pointer cell) {
+            lock();
+            final int t = top;
+            if (t == capacity) {
+                unlock();
+                return false;
+            }
+            base.setWord(t, cell);
+            top = t + 1;
+            unlock();
+            return true;
+        }
+
+        Pointer pop() {
+            if (top == 0) {
+                return Pointer.zero();
+            }
+            lock();
+            final int t = top;
+            Pointer cell = Pointer.zero();
+            if (t > 0) {
+                cell = base.getWord(t - 1).asPointer();
+                top = t - 1;
+            }
+            unlock();
+            return cell;
+        }
+    }
+
+    /**
+     * State of a tracing thread.
+     */
+    final class Tracer extends PointerIndexVisitor {
+        final int index;
+        final StealableMarkingStack stack = new StealableMarkingStack();
+
+        /**
+         * Rightmost object marked grey by this tracer.
+         */
+        Address rightmost;
+
+        Tracer(int index) {
+            this.index = index;
+        }
+
+        void run() {
+            scanChunks();
+            while (true) {
+                drain();
+                if (steal()) {
+                    continue;
+                }
+                // No work left, wait for termination unless some other tracer makes work available.
+                activeTracersNum.decrementAndGet();
+                while (true) {
+                    if (activeTracersNum.get() == 0) {
+                        return;
+                    }
+                    if (hasStealableWork()) {
+                        activeTracersNum.incrementAndGet();
+                        break;
+                    }
+                    Thread.yield();
+                }
+            }
+        }
+
+        private void scanChunks() {
+            int chunk = nextChunk.getAndIncrement();
+            while (chunk < chunksNum) {
+                final int firstWordIndex = chunks.getInt(chunk) << LOG2_CHUNK_WORDS;
+                final int lastWordIndex = Math.min(firstWordIndex + (1 << LOG2_CHUNK_WORDS) - 1, lastBitmapWordIndex);
+                for (int wordIndex = firstWordIndex; wordIndex <= lastWordIndex; wordIndex++) {
+                    scanBitmapWord(wordIndex);
+                }
+                chunk = nextChunk.getAndIncrement();
+            }
+        }
+
+        /**
+         * Visits the grey objects whose mark is in the specified color map word.
+         */
+        private void scanBitmapWord(int wordIndex) {
+            final Pointer colorMapBase = heapMarker.base.asPointer();
+            while (true) {
+                final long bitmapWord = colorMapBase.getLong(wordIndex);
+                if (bitmapWord == 0L) {
+                    return;
+                }
+                final long greyMarksInWord = bitmapWord & (bitmapWord >>> 1);
+                int bitIndex;
+                if (greyMarksInWord != 0L) {
+                    bitIndex = (wordIndex << Word.widthValue().log2numberOfBits) + Pointer.fromLong(greyMarksInWord).leastSignificantBitSet();
+                } else if ((bitmapWord >>> TricolorHeapMarker.LAST_BIT_INDEX_IN_WORD) == 1L && (colorMapBase.getLong(wordIndex + 1) & 1L) != 0L) {
+                    // Mark spans two words and is grey.
+                    bitIndex = (wordIndex << Word.widthValue().log2numberOfBits) + TricolorHeapMarker.LAST_BIT_INDEX_IN_WORD;
+                } else {
+                    return;
+                }
+                // Whether this tracer or another one wins, the mark is black once this returns.
+                if (heapMarker.markBlackFromGreyAtomic(bitIndex)) {
+                    visitGreyCell(heapMarker.addressOf(bitIndex).asPointer());
+                    drain();
+                }
+            }
+        }
+
+        private void drain() {
+            Pointer cell = stack.pop();
+            while (!cell.isZero()) {
+                if (heapMarker.markBlackFromGreyAtomic(heapMarker.bitIndexOf(cell))) {
+                    visitGreyCell(cell);
+                }
+                cell = stack.pop();
+            }
+        }
+
+        /**
+         * Steals half of the content of the marking stack of another tracer.
+         * @return true if something was stolen
+         */
+        private boolean steal() {
+            for (int i = 1; i < tracers.length; i++) {
+                final StealableMarkingStack victim = tracers[(index + i) % tracers.length].stack;
+                int n = (victim.size() + 1) >> 1;
+                boolean stolen = false;
+                while (n-- > 0) {
+                    final Pointer cell = victim.pop();
+                    if (cell.isZero()) {
+                        break;
+                    }
+                    // Cannot overflow: the stack of this tracer is empty and no other thread pushes on it.
+                    stack.push(cell);
+                    stolen = true;
+                }
+                if (stolen) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void markObjectGrey(Pointer cell) {
+            if (heapMarker.isCovered(cell)) {
+                final int bitIndex = heapMarker.bitIndexOf(cell);
+                if (heapMarker.markGreyIfWhiteAtomic(bitIndex)) {
+                    if (cell.greaterThan(rightmost)) {
+                        rightmost = cell;
+                    }
+                    if (!stack.push(cell)) {
+                        recordOverflow(bitIndex);
+                    }
+                }
+            }
+        }
+
+        private void markRefGrey(Reference ref) {
+            markObjectGrey(Layout.originToCell(ref.toOrigin()));
+        }
+
+        @Override
+        public void visit(Pointer pointer, int wordIndex) {
+            markRefGrey(pointer.getReference(wordIndex));
+        }
+
+        private void visitGreyCell(Pointer cell) {
+            final Pointer origin = Layout.cellToOrigin(cell);
+            final Reference hubRef = Layout.readHubReference(origin);
+            markRefGrey(hubRef);
+            final Hub hub = UnsafeCast.asHub(hubRef.toJava());
+            if (MaxineVM.isDebug()) {
+                heapMarker.checkGreyCellHub(origin, hub);
+            }
+            final SpecificLayout specificLayout = hub.specificLayout;
+            if (specificLayout.isTupleLayout()) {
+                TupleReferenceMap.visitReferences(hub, origin, this);
+                if (hub.isJLRReference) {
+                    // Only the tracer which painted the object black visits it, so the reference is discovered once.
+                    discoverSpecialReference(cell);
+                }
+            } else if (specificLayout.isReferenceArrayLayout()) {
+                final int length = Layout.readArrayLength(origin);
+                for (int index = 0; index < length; index++) {
+                    markRefGrey(Layout.getReference(origin, index));
+                }
+            } else if (specificLayout.isHybridLayout()) {
+                TupleReferenceMap.visitReferences(hub, origin, this);
+            }
+        }
+    }
+}
@@ -744,6 +744,60 @@ public class TricolorHeapMarker implements MarkingStack.OverflowHandler, HeapMan
         markBlackFromGrey(bitIndex);
     }
 
+    /**
+     * Atomically paint grey a white color location. Used when several threads mark concurrently.
+     * If the color spans words, the black bit is set first, so that the winning thread is decided by a single
+     * atomic update; the location may then appear black to other threads until the grey bit is set.
+     *
+     * @param bitIndex
+     * @return true if the location was white and has been painted grey by the calling thread
+     */
+    final boolean markGreyIfWhiteAtomic(int bitIndex) {
+        final Pointer basePointer = base.asPointer();
+        final int wordIndex = bitmapWordIndex(bitIndex);
+        final int offset = wordIndex << Word.widthValue().log2numberOfBytes;
+        final long blackBit = bitmaskFor(bitIndex);
+        final boolean spanWords = colorSpanWords(bitIndex);
+        final long mark = spanWords ? blackBit : GREY << bitIndexInWord(bitIndex);
+        long bitmapWord;
+        do {
+            bitmapWord = basePointer.getLong(wordIndex);
+            if ((bitmapWord & blackBit) != 0L) {
+                return false;
+            }
+        } while (basePointer.compareAndSwapLong(offset, bitmapWord, bitmapWord | mark) != bitmapWord);
+        if (spanWords) {
+            final int nextOffset = offset + Longs.SIZE;
+            do {
+                bitmapWord = basePointer.getLong(wordIndex + 1);
+            } while (basePointer.compareAndSwapLong(nextOffset, bitmapWord, bitmapWord | 1L) != bitmapWord);
+        }
+        return true;
+    }
+
+    /**
+     * Atomically paint black a grey color location. Used when several threads mark concurrently to decide which
+     * thread visits a grey object.
+     *
+     * @param bitIndex
+     * @return true if the location was grey and has been painted black by the calling thread
+     */
+    final boolean markBlackFromGreyAtomic(int bitIndex) {
+        final Pointer basePointer = base.asPointer();
+        final int greyBitIndex = bitIndex + 1;
+        final int wordIndex = bitmapWordIndex(greyBitIndex);
+        final int offset = wordIndex << Word.widthValue().log2numberOfBytes;
+        final long greyBit = bitmaskFor(greyBitIndex);
+        long bitmapWord;
+        do {
+            bitmapWord = basePointer.getLong(wordIndex);
+            if ((bitmapWord & greyBit) == 0L) {
+                return false;
+            }
+        } while (basePointer.compareAndSwapLong(offset, bitmapWord, bitmapWord & ~greyBit) != bitmapWord);
+        return true;
+    }
+
     final boolean isGrey(int bitIndex) {
         int bitIndexInWord = bitIndexInWord(bitIndex);
         if (bitIndexInWord == LAST_BIT_INDEX_IN_WORD) {
@@ -1264,6 +1318,21 @@ public class TricolorHeapMarker implements MarkingStack.OverflowHandler, HeapMan
      */
     private final SequentialHeapRootsScanner heapRootsScanner;
 
+    /**
+     * Parallel tracer used instead of the forward scan after root marking, or {@code null} if marking is sequential.
+     */
+    private ParallelHeapTracer parallelHeapTracer;
+
+    /**
+     * Enables parallel tracing of the heap if {@linkplain GCWorkerThreads GC worker threads} are available.
+     * Must be called once the VM is running, after the GC worker threads are started.
+     */
+    public void enableParallelMarking() {
+        if (parallelHeapTracer == null && GCWorkerThreads.parallelism() > 1) {
+            parallelHeapTracer = new ParallelHeapTracer(this, GCWorkerThreads.parallelism());
+        }
+    }
+
     void markBootHeap() {
         Heap.bootHeapRegion.visitReferences(rootCellVisitor);
     }
@@ -1510,6 +1579,23 @@ public class TricolorHeapMarker implements MarkingStack.OverflowHandler, HeapMan
         visitGreyObjects();
     }
 
+    /**
+     * Trace in parallel all objects reachable from the objects marked grey during root marking.
+     * The forward scan state is left on the rightmost marked object, so that the objects made reachable by
+     * special reference processing are traced by the forward scan.
+     *
+     * @param regionsRanges the heap region ranges holding objects to trace, or {@code null} if the whole covered area is traced
+     */
+    private void traceGreyObjectsAfterRootMarkingInParallel(HeapRegionRangeIterable regionsRanges) {
+        initAfterRootMarking();
+        final Address rightmost = parallelHeapTracer.trace(regionsRanges, rootCellVisitor.leftmost, rootCellVisitor.rightmost);
+        forwardScanState.finger = rightmost;
+        forwardScanState.rightmost = rightmost;
+        if (traceGCTimes) {
+            totalRecoveryScanCount += parallelHeapTracer.overflowRecoveryNum;
+        }
+    }
+
 
     /**
      * Find the first black mark in the specified range of the color map.
@@ -1651,6 +1737,23 @@ public class TricolorHeapMarker implements MarkingStack.OverflowHandler, HeapMan
         regionsSweeper.reachedRightmostLiveRegion();
     }
 
+    /**
+     * Sweep all the regions supplied by the heap region sweeper, including those beyond the rightmost live object, which are
+     * found without live marks and reported as dead regions.
+     * Sweeping only reads the color map, so that several sweepers can sweep disjoint sets of regions concurrently.
+     */
+    public void sweepRegions(HeapRegionSweeper regionsSweeper, boolean doImprecise) {
+        while (regionsSweeper.hasNextSweepingRegion()) {
+            regionsSweeper.beginSweep();
+            if (doImprecise) {
+                impreciseRegionSweep(regionsSweeper);
+            } else {
+                preciseRegionSweep(regionsSweeper);
+            }
+            regionsSweeper.endSweep();
+        }
+    }
+
     /**
      * Return the pointer immediately after the last word of the cell.
      *
@@ -1791,7 +1894,11 @@ public class TricolorHeapMarker implements MarkingStack.OverflowHandler, HeapMan
         markPhase = MARK_PHASE.VISIT_GREY_FORWARD;
         markPhase.traceBegin(traceGCPhases);
         startTimer(heapMarkingTimer);
-        visitGreyObjectsAfterRootMarking();
+        if (parallelHeapTracer != null) {
+            traceGreyObjectsAfterRootMarkingInParallel(null);
+        } else {
+            visitGreyObjectsAfterRootMarking();
+        }
         stopTimer(heapMarkingTimer);
         markPhase.traceEnd(traceGCPhases);
 
@@ -1837,7 +1944,11 @@ public class TricolorHeapMarker implements MarkingStack.OverflowHandler, HeapMan
         markPhase = MARK_PHASE.VISIT_GREY_FORWARD;
         markPhase.traceBegin(traceGCPhases);
         startTimer(heapMarkingTimer);
-        visitGreyObjectsAfterRootMarking(regionsRanges);
+        if (parallelHeapTracer != null) {
+            traceGreyObjectsAfterRootMarkingInParallel(regionsRanges);
+        } else {
+            visitGreyObjectsAfterRootMarking(regionsRanges);
+        }
         stopTimer(heapMarkingTimer);
         markPhase.traceEnd(traceGCPhases);
 
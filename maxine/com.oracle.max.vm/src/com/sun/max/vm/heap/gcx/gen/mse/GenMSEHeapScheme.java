@@ -22,6 +22,7 @@
  */
 package com.sun.max.vm.heap.gcx.gen.mse;
 import static com.sun.max.vm.VMConfiguration.*;
+import static com.sun.max.vm.heap.gcx.EvacuationTimers.TIMED_OPERATION.*;
 import static com.sun.max.vm.heap.gcx.HeapRegionConstants.*;
 import static com.sun.max.vm.heap.gcx.HeapRegionManager.*;
 import static com.sun.max.vm.heap.gcx.gen.mse.GenMSEHeapScheme.GenMSEHeapRegionTag.*;
@@ -62,6 +63,18 @@ final public class GenMSEHeapScheme extends HeapSchemeWithTLABAdaptor  implement
         VMOptions.addFieldOption("-XX:", "ELABSize", GenMSEHeapScheme.class, "Size of evacuation buffers for young gen evacuation to old gen", Phase.PRISTINE);
     }
 
+    /**
+     * Knobs for the concurrent refinement of the card table.
+     */
+    static boolean ConcurrentCardRefinement = false;
+    static int CardRefinementPeriod = 10;
+    static {
+        VMOptions.addFieldOption("-XX:", "ConcurrentCardRefinement", GenMSEHeapScheme.class,
+            "Clean the dirty cards that do not refer to the young gen in a background thread between young collections", Phase.PRISTINE);
+        VMOptions.addFieldOption("-XX:", "CardRefinementPeriod", GenMSEHeapScheme.class,
+            "Milliseconds between two passes of the card table refinement thread", Phase.PRISTINE);
+    }
+
     public enum GenMSEHeapRegionTag {
         UNTAGGED,
         YOUNG,
@@ -104,6 +117,13 @@ final public class GenMSEHeapScheme extends HeapSchemeWithTLABAdaptor  implement
      */
     private final NoAgingNurseryEvacuator youngSpaceEvacuator;
 
+    private final EvacuationTimers evacTimers = new EvacuationTimers();
+
+    /**
+     * Thread refining the card table between collections if {@link #ConcurrentCardRefinement} is set, {@code null} otherwise.
+     */
+    private CardTableRefiner cardTableRefiner;
+
     /**
      * Operation to submit to the {@link VmOperationThread} to perform a generational collection.
      */
@@ -134,6 +154,7 @@ final public class GenMSEHeapScheme extends HeapSchemeWithTLABAdaptor  implement
 
         oldSpace = new FirstFitMarkSweepSpace<GenMSEHeapScheme>(heapAccount, tlabAllocator, overflowAllocator, true, cardTableRSet, OLD.tag());
         youngSpaceEvacuator = new NoAgingNurseryEvacuator(youngSpace, oldSpace, this, cardTableRSet, "Young");
+        youngSpaceEvacuator.setTimers(evacTimers);
         noYoungReferencesVerifier = new NoEvacuatedSpaceReferenceVerifier(cardTableRSet, youngSpace);
         fotVerifier = new FOTVerifier(cardTableRSet);
         genCollection = new GenCollection();
@@ -143,6 +164,15 @@ final public class GenMSEHeapScheme extends HeapSchemeWithTLABAdaptor  implement
     public void initialize(MaxineVM.Phase phase) {
         super.initialize(phase);
         cardTableRSet.initialize(phase);
+        if (phase == MaxineVM.Phase.RUNNING) {
+            GCWorkerThreads.start();
+            heapMarker.enableParallelMarking();
+            oldSpace.enableParallelSweeping();
+            if (ConcurrentCardRefinement) {
+                cardTableRefiner = new CardTableRefiner(cardTableRSet, youngSpace, CardRefinementPeriod);
+                cardTableRefiner.start();
+            }
+        }
     }
 
     /**
@@ -331,7 +361,21 @@ final public class GenMSEHeapScheme extends HeapSchemeWithTLABAdaptor  implement
             }
             youngSpaceEvacuator.setGCOperation(this);
             HeapScheme.Inspect.notifyHeapPhaseChange(HeapPhase.ANALYZING);
+            evacTimers.resetTrackTime();
             youngSpaceEvacuator.evacuate(Heap.logGCPhases());
+            if (Heap.logGCTime()) {
+                // Dirty cards are visited when scanning the boot heap and the remembered set.
+                final long cardScanTime = evacTimers.get(BOOT_HEAP_SCAN).getLastElapsedTime() + evacTimers.get(RSET_SCAN).getLastElapsedTime();
+                if (cardTableRefiner != null) {
+                    HeapSchemeLoggerAdaptor.timeLogger.logCardScanTimes(invocationCount, cardScanTime, cardTableRefiner.refinementTime(),
+                                    cardTableRefiner.refinedCardsNum(), cardTableRefiner.retainedCardsNum());
+                } else {
+                    HeapSchemeLoggerAdaptor.timeLogger.logCardScanTimes(invocationCount, cardScanTime, 0L, 0, 0);
+                }
+            }
+            if (cardTableRefiner != null) {
+                cardTableRefiner.doAfterGC();
+            }
             HeapScheme.Inspect.notifyHeapPhaseChange(HeapPhase.RECLAIMING);
             youngSpaceEvacuator.setGCOperation(null);
             if (Heap.verbose()) {
@@ -415,6 +459,12 @@ final public class GenMSEHeapScheme extends HeapSchemeWithTLABAdaptor  implement
         cardTableRSet.record(ref, displacement, index);
     }
 
+    @INLINE
+    @Override
+    public void postWriteBarrierRange(Reference ref, int displacement, int fromIndex, int length) {
+        cardTableRSet.recordRange(ref, displacement, fromIndex, length);
+    }
+
     /**
      * Allocate a chunk of memory of the specified size and refill a thread's TLAB with it.
      * @param etla the thread whose TLAB will be refilled
@@ -79,6 +79,10 @@ public final class MSHeapScheme extends HeapSchemeWithTLABAdaptor {
     @Override
     public void initialize(MaxineVM.Phase phase) {
         super.initialize(phase);
+        if (phase == MaxineVM.Phase.RUNNING) {
+            GCWorkerThreads.start();
+            heapMarker.enableParallelMarking();
+        }
     }
 
     /**
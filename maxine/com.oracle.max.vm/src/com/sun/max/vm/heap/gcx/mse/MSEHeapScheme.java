@@ -52,10 +52,12 @@ public final class MSEHeapScheme extends HeapSchemeWithTLABAdaptor implements He
     static boolean DumpFragStatsAfterGC = false;
     static boolean DumpFragStatsAtGCFailure = false;
     static boolean DoImpreciseSweep = false;
+    static boolean LazySweep = false;
     static {
         VMOptions.addFieldOption("-XX:", "DumpFragStatsAfterGC", MSEHeapScheme.class, "Dump region fragmentation stats after GC", Phase.PRISTINE);
         VMOptions.addFieldOption("-XX:", "DumpFragStatsAtGCFailure", MSEHeapScheme.class, "Dump region fragmentation when GC failed to reclaim enough space", Phase.PRISTINE);
         VMOptions.addFieldOption("-XX:", "DoImpreciseSweep", MSEHeapScheme.class, "Control whether to do precise or imprecise sweep", Phase.PRISTINE);
+        VMOptions.addFieldOption("-XX:", "LazySweep", MSEHeapScheme.class, "Sweep most regions on demand at allocation time instead of during GC", Phase.PRISTINE);
     }
 
     /**
@@ -102,6 +104,11 @@ public final class MSEHeapScheme extends HeapSchemeWithTLABAdaptor implements He
     @Override
     public void initialize(MaxineVM.Phase phase) {
         super.initialize(phase);
+        if (phase == MaxineVM.Phase.RUNNING) {
+            GCWorkerThreads.start();
+            heapMarker.enableParallelMarking();
+            markSweepSpace.enableParallelSweeping();
+        }
     }
 
     /**
@@ -331,8 +338,13 @@ public final class MSEHeapScheme extends HeapSchemeWithTLABAdaptor implements He
                 Log.println("BEGIN: Sweeping");
             }
             startTimer(reclaimTimer);
-            markSweepSpace.sweep(heapMarker, DoImpreciseSweep);
-            Size freeSpaceAfterGC = markSweepSpace.freeSpace();
+            if (LazySweep && !VerifyAfterGC) {
+                // Only sweep what the allocation that triggered the GC needs, the rest is swept on demand.
+                markSweepSpace.sweepLazily(heapMarker, DoImpreciseSweep, callingThread().gcRequest.requestedBytes);
+            } else {
+                markSweepSpace.sweep(heapMarker, DoImpreciseSweep);
+            }
+            Size freeSpaceAfterGC = markSweepSpace.freeSpaceAfterSweep();
             stopTimer(reclaimTimer);
             if (traceGCPhases) {
                 Log.println("END: Sweeping");
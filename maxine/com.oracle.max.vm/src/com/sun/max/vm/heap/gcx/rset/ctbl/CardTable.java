@@ -96,6 +96,19 @@ public final class CardTable extends  Log2RegionToByteMapTable {
         unsafeSet(coveredAddress, DIRTY_CARD.value());
     }
 
+    /**
+     * Dirty the entries in the card table corresponding to the cards covering a range of heap addresses.
+     * The range extends from start, inclusive, to end, exclusive, and must be covered by the card table.
+     * @param start first address of the range
+     * @param end end of the range
+     */
+    void dirtyCovered(Address start, Address end) {
+        final int lastIndex = tableEntryIndex(end.minus(1));
+        for (int index = tableEntryIndex(start); index <= lastIndex; index++) {
+            unsafeSet(index, DIRTY_CARD.value());
+        }
+    }
+
     /**
      * Find the first card set to the specified card state in the specified range of entries in the table .
      * @param start index of the first card in the range (inclusive)
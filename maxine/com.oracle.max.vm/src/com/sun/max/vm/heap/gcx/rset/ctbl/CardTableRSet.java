@@ -291,6 +291,18 @@ public final class CardTableRSet extends DeadSpaceListener implements HeapManage
         cardTable.dirtyCovered(ref.toOrigin().plus(Address.fromInt(index).shiftedLeft(Word.widthValue().log2numberOfBytes).plus(displacement)));
     }
 
+    /**
+     * Record update to a range of reference slots of a cell. Each card covering the range is dirtied once.
+     * @param ref the cell whose references are updated
+     * @param displacement a displacement from the origin of the cell
+     * @param fromIndex a word index to the first updated reference
+     * @param length the number of updated references
+     */
+    public void recordRange(Reference ref, int displacement, int fromIndex, int length) {
+        final Pointer start = ref.toOrigin().plus(Address.fromInt(fromIndex).shiftedLeft(Word.widthValue().log2numberOfBytes).plus(displacement));
+        cardTable.dirtyCovered(start, start.plus(Address.fromInt(length).shiftedLeft(Word.widthValue().log2numberOfBytes)));
+    }
+
     /**
      * Visit the cells that overlap a card.
      *
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.max.vm.heap.gcx.rset.ctbl;
+
+import static com.oracle.max.cri.intrinsics.MemoryBarriers.*;
+
+import com.sun.max.annotate.*;
+import com.sun.max.memory.*;
+import com.sun.max.unsafe.*;
+import com.sun.max.util.timer.*;
+import com.sun.max.vm.heap.*;
+import com.sun.max.vm.heap.gcx.*;
+import com.sun.max.vm.maxsim.*;
+
+/**
+ * Background thread refining the dirty cards of a {@link CardTableRSet} between young collections, so that a young
+ * collection only visits the cards dirtied since the last refinement and the cards that actually refer to the young generation.
+ *
+ * Refining a card consists of cleaning it, then scanning all its words for a value pointing in the young generation,
+ * in which case the card is dirtied again and retained until the next collection. The scan is conservative: it doesn't parse
+ * the cells overlapping the card, which mutators may be allocating, initializing or updating concurrently, and a word
+ * mistaken for a reference only makes the next collection visit the card.
+ *
+ * The card is cleaned before it is scanned, with a store-load barrier in between, so that a reference stored by a mutator
+ * during the scan is either seen by the scan or dirties the card again. A card is refined without safepoint polls, so that
+ * a collection never observes a card cleaned but not yet scanned.
+ */
+public final class CardTableRefiner extends Thread {
+
+    private final CardTableRSet rset;
+
+    /**
+     * The space references to which must be recorded by the remembered set.
+     */
+    private final EvacuatingSpace youngSpace;
+
+    /**
+     * Milliseconds between two refinement passes.
+     */
+    private final int period;
+
+    /**
+     * One byte per card holding the epoch at which the card was last retained. Retained cards are not refined again
+     * during the same epoch. A stale entry matching the current epoch after the epoch counter wrapped around only causes
+     * a dirty card to be left for the next collection.
+     */
+    private Pointer retainedEpochs = Pointer.zero();
+
+    /**
+     * Epoch counter, incremented after each collection, in the range [1, 255].
+     */
+    private volatile int epoch = 1;
+
+    private final TimerMetric refinementTimer = new TimerMetric(new SingleUseTimer(HeapScheme.GC_TIMING_CLOCK));
+
+    private long reportedRefinementTime;
+    private int refinedCardsNum;
+    private int retainedCardsNum;
+
+    public CardTableRefiner(CardTableRSet rset, EvacuatingSpace youngSpace, int period) {
+        super("CardTableRefiner");
+        this.rset = rset;
+        this.youngSpace = youngSpace;
+        this.period = period;
+        setDaemon(true);
+    }
+
+    @Override
+    public synchronized void start() {
+        final CardTable cardTable = rset.cardTable;
+        final int cardsNum = cardTable.tableEntryIndex(cardTable.coveredAreaEnd());
+        retainedEpochs = Memory.mustAllocate(Size.fromInt(cardsNum));
+        Memory.clearBytes(retainedEpochs, cardsNum);
+        super.start();
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            try {
+                Thread.sleep(period);
+            } catch (InterruptedException e) {
+                // refine now
+            }
+            refinementTimer.start();
+            refine();
+            refinementTimer.stop();
+        }
+    }
+
+    private void refine() {
+        final CardTable cardTable = rset.cardTable;
+        final int endOfRange = cardTable.tableEntryIndex(cardTable.coveredAreaEnd());
+        int cardIndex = 0;
+        while (cardIndex < endOfRange) {
+            cardIndex = cardTable.first(cardIndex, endOfRange, CardState.DIRTY_CARD);
+            if (cardIndex >= endOfRange) {
+                return;
+            }
+            if (!youngSpace.contains(cardTable.rangeStart(cardIndex))) {
+                refineCard(cardTable, cardIndex);
+            }
+            cardIndex++;
+        }
+    }
+
+    @NO_SAFEPOINT_POLLS("a collection must not observe a card cleaned but not yet scanned")
+    private void refineCard(CardTable cardTable, int cardIndex) {
+        final byte currentEpoch = (byte) epoch;
+        if (retainedEpochs.getByte(cardIndex) == currentEpoch) {
+            return;
+        }
+        cardTable.unsafeSet(cardIndex, CardState.CLEAN_CARD.value());
+        barrier(STORE_LOAD);
+        final Pointer start = cardTable.rangeStart(cardIndex).asPointer();
+        for (int i = 0; i < CardTableRSet.NUM_WORDS_PER_CARD; i++) {
+            Address word = start.getWord(i).asAddress();
+            if (MaxSimInterfaceHelpers.isTaggingEnabled()) {
+                word = word.asPointer().tagClear();
+            }
+            if (youngSpace.contains(word)) {
+                cardTable.unsafeSet(cardIndex, CardState.DIRTY_CARD.value());
+                retainedEpochs.setByte(cardIndex, currentEpoch);
+                retainedCardsNum++;
+                return;
+            }
+        }
+        refinedCardsNum++;
+    }
+
+    /**
+     * Number of cards cleaned by refinement since the last collection.
+     */
+    public int refinedCardsNum() {
+        return refinedCardsNum;
+    }
+
+    /**
+     * Number of cards found to refer to the young generation by refinement since the last collection.
+     */
+    public int retainedCardsNum() {
+        return retainedCardsNum;
+    }
+
+    /**
+     * Time spent refining cards since the last collection, in {@link HeapScheme#GC_TIMING_CLOCK} ticks.
+     */
+    public long refinementTime() {
+        return refinementTimer.getElapsedTime() - reportedRefinementTime;
+    }
+
+    /**
+     * Starts a new refinement epoch. Must be called by the GC thread at the end of a collection, when the refiner is stopped.
+     */
+    public void doAfterGC() {
+        reportedRefinementTime = refinementTimer.getElapsedTime();
+        refinedCardsNum = 0;
+        retainedCardsNum = 0;
+        epoch = epoch == 255 ? 1 : epoch + 1;
+    }
+}
@@ -866,6 +866,15 @@ public final class GenSSHeapScheme extends HeapSchemeWithTLABAdaptor implements
         youngSpace.visitAllocatedCells(visitor);
     }
 
+    @Override
+    public void walkHeapRanges(CellRangeVisitor visitor) {
+        visitor.visitCells(ImmortalHeap.getImmortalHeap().start(), ImmortalHeap.getImmortalHeap().mark());
+        visitor.visitCells(Heap.bootHeapRegion.start(), Heap.bootHeapRegion.mark());
+        VmThreadMap.ACTIVE.forAllThreadLocals(null, tlabFiller);
+        oldSpace.visit(visitor);
+        youngSpace.visit(visitor);
+    }
+
     @Override
     public boolean pin(Object object) {
         return false;
@@ -894,6 +903,12 @@ public final class GenSSHeapScheme extends HeapSchemeWithTLABAdaptor implements
         cardTableRSet.record(ref, displacement, index);
     }
 
+    @INLINE
+    @Override
+    public void postWriteBarrierRange(Reference ref, int displacement, int fromIndex, int length) {
+        cardTableRSet.recordRange(ref, displacement, fromIndex, length);
+    }
+
     @Override
     public long maxObjectInspectionAge() {
         return System.currentTimeMillis() - lastFullGCTime;
@@ -0,0 +1,382 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.max.vm.heap.sequential.semiSpace;
+
+import java.util.concurrent.atomic.*;
+
+import com.sun.max.memory.*;
+import com.sun.max.unsafe.*;
+import com.sun.max.vm.actor.holder.*;
+import com.sun.max.vm.heap.*;
+import com.sun.max.vm.heap.debug.*;
+import com.sun.max.vm.layout.*;
+import com.sun.max.vm.maxsim.*;
+import com.sun.max.vm.reference.*;
+import com.sun.max.vm.runtime.*;
+
+/**
+ * Parallel evacuation of the objects reachable from the roots of a {@link SemiSpaceHeapScheme} collection,
+ * performed by the GC thread and the {@link GCWorkerThreads}.
+ *
+ * Each scavenging thread copies objects into its own promotion buffer (PLAB) carved out of to-space, and pushes the copies
+ * on its own scan stack instead of relying on the to-space allocation order as the sequential Cheney scan does.
+ * Objects are copied first and the forwarding reference is then installed with a compare-and-swap of the hub word of the
+ * original object: the thread that loses the race takes back its copy and uses the winner's. Threads whose scan stack
+ * is empty steal half of the content of another thread's stack.
+ *
+ * The roots are scanned by the GC thread using the scavenger of index 0 before the scan stacks are drained in parallel.
+ * When done, the unused parts of the PLABs are turned into {@linkplain #fill(Pointer, Address) filler}, so that to-space
+ * can be walked again.
+ */
+final class ParallelScavenger implements GCWorkerThreads.Task {
+
+    /**
+     * Size of a promotion buffer. Objects larger than a quarter of it are allocated directly in to-space.
+     */
+    private static final Size PLAB_SIZE = Size.K.times(32);
+
+    private static final Size LARGE_OBJECT_SIZE = PLAB_SIZE.dividedBy(4);
+
+    private final SemiSpaceHeapScheme heapScheme;
+
+    final Scavenger[] scavengers;
+
+    /**
+     * Number of scavenging threads which may still produce work.
+     */
+    private final AtomicInteger activeScavengersNum = new AtomicInteger();
+
+    /**
+     * Lock serializing the discovery of special references.
+     */
+    private final AtomicInteger specialReferenceLock = new AtomicInteger();
+
+    ParallelScavenger(SemiSpaceHeapScheme heapScheme, int scavengersNum) {
+        this.heapScheme = heapScheme;
+        scavengers = new Scavenger[scavengersNum];
+        for (int i = 0; i < scavengersNum; i++) {
+            scavengers[i] = new Scavenger(i);
+        }
+    }
+
+    /**
+     * Gets the scavenger used by the GC thread, e.g., when scanning roots.
+     */
+    Scavenger gcThreadScavenger() {
+        return scavengers[0];
+    }
+
+    /**
+     * Copies in parallel the objects reachable from the objects already copied, and retires the PLABs.
+     */
+    void scavenge() {
+        activeScavengersNum.set(scavengers.length);
+        GCWorkerThreads.run(this);
+        for (Scavenger scavenger : scavengers) {
+            scavenger.retirePLAB();
+        }
+    }
+
+    public void run(int workerIndex) {
+        scavengers[workerIndex].run();
+    }
+
+    private void discoverSpecialReference(Pointer origin) {
+        while (!specialReferenceLock.compareAndSet(0, 1)) {
+            Thread.yield();
+        }
+        SpecialReferenceManager.discoverSpecialReference(origin);
+        specialReferenceLock.set(0);
+    }
+
+    private boolean hasStealableWork() {
+        for (Scavenger scavenger : scavengers) {
+            if (scavenger.stack.size() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Turns an unused area of to-space into something that is skipped when walking to-space, as is done for the unused
+     * part of TLABs.
+     */
+    private static void fill(Pointer start, Address end) {
+        if (start.lessThan(end)) {
+            if (DebugHeap.isPadding()) {
+                DebugHeap.writeCellPadding(start, end);
+            } else {
+                Memory.clearWords(start, end.minus(start).dividedBy(Word.size()).toInt());
+            }
+        }
+    }
+
+    /**
+     * Growable stack of to-space cells whose references must be scanned, from which other scavengers can steal.
+     */
+    static final class ScanStack {
+        private Pointer base;
+        private int capacity;
+        private volatile int top;
+        private final AtomicInteger lock = new AtomicInteger();
+
+        ScanStack() {
+            capacity = 1024;
+            base = Memory.mustAllocate(Size.fromInt(capacity).times(Word.size()));
+        }
+
+        int size() {
+            return top;
+        }
+
+        private void lock() {
+            while (!lock.compareAndSet(0, 1)) {
+                Thread.yield();
+            }
+        }
+
+        private void unlock() {
+            lock.set(0);
+        }
+
+        void push(Pointer cell) {
+            lock();
+            final int t = top;
+            if (t == capacity) {
+                capacity *= 2;
+                base = Memory.reallocate(base, Size.fromInt(capacity).times(Word.size()));
+                FatalError.check(!base.isZero(), "Cannot grow scan stack of parallel scavenger");
+            }
+            base.setWord(t, cell);
+            top = t + 1;
+            unlock();
+        }
+
+        Pointer pop() {
+            if (top == 0) {
+                return Pointer.zero();
+            }
+            lock();
+            final int t = top;
+            Pointer cell = Pointer.zero();
+            if (t > 0) {
+                cell = base.getWord(t - 1).asPointer();
+                top = t - 1;
+            }
+            unlock();
+            return cell;
+        }
+    }
+
+    /**
+     * State of a scavenging thread.
+     */
+    final class Scavenger extends PointerIndexVisitor {
+        final int index;
+        final ScanStack stack = new ScanStack();
+
+        /**
+         * Allocation mark and end of the current promotion buffer.
+         */
+        private Pointer plabMark = Pointer.zero();
+        private Pointer plabEnd = Pointer.zero();
+
+        Scavenger(int index) {
+            this.index = index;
+        }
+
+        void run() {
+            while (true) {
+                drain();
+                if (steal()) {
+                    continue;
+                }
+                // No work left, wait for termination unless some other scavenger makes work available.
+                activeScavengersNum.decrementAndGet();
+                while (true) {
+                    if (activeScavengersNum.get() == 0) {
+                        return;
+                    }
+                    if (hasStealableWork()) {
+                        activeScavengersNum.incrementAndGet();
+                        break;
+                    }
+                    Thread.yield();
+                }
+            }
+        }
+
+        private void drain() {
+            Pointer cell = stack.pop();
+            while (!cell.isZero()) {
+                scanCell(cell);
+                cell = stack.pop();
+            }
+        }
+
+        /**
+         * Steals half of the content of the scan stack of another scavenger.
+         * @return true if something was stolen
+         */
+        private boolean steal() {
+            for (int i = 1; i < scavengers.length; i++) {
+                final ScanStack victim = scavengers[(index + i) % scavengers.length].stack;
+                int n = (victim.size() + 1) >> 1;
+                boolean stolen = false;
+                while (n-- > 0) {
+                    final Pointer cell = victim.pop();
+                    if (cell.isZero()) {
+                        break;
+                    }
+                    stack.push(cell);
+                    stolen = true;
+                }
+                if (stolen) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Allocates space for a copy in to-space.
+         */
+        private Pointer allocate(Size size) {
+            if (size.greaterThan(LARGE_OBJECT_SIZE)) {
+                return heapScheme.gcAllocateAtomic(size);
+            }
+            Pointer cell = DebugHeap.adjustForDebugTag(plabMark);
+            if (cell.plus(size).greaterThan(plabEnd)) {
+                retirePLAB();
+                final Pointer start = heapScheme.gcAllocateAtomic(PLAB_SIZE);
+                // the room reserved for a debug tag before the PLAB is used by its first cell
+                plabMark = DebugHeap.isTagging() ? start.minusWords(1) : start;
+                plabEnd = start.plus(PLAB_SIZE);
+                cell = DebugHeap.adjustForDebugTag(plabMark);
+            }
+            plabMark = cell.plus(size);
+            return cell;
+        }
+
+        /**
+         * Takes back the space of a copy that lost the forwarding race.
+         */
+        private void deallocate(Pointer cell, Size size) {
+            final Pointer start = DebugHeap.isTagging() ? cell.minusWords(1) : cell;
+            if (size.lessEqual(LARGE_OBJECT_SIZE)) {
+                // the copy is the last cell of the PLAB
+                plabMark = start;
+            } else {
+                // allocated directly in to-space
+                fill(start, cell.plus(size));
+            }
+        }
+
+        void retirePLAB() {
+            fill(plabMark, plabEnd);
+            plabMark = Pointer.zero();
+            plabEnd = Pointer.zero();
+        }
+
+        /**
+         * Maps a reference to the reference of the to-space copy of the object, copying the object if needed.
+         * @see SemiSpaceHeapScheme#mapRef(Reference)
+         */
+        Reference mapRef(Reference ref) {
+            final Pointer fromOrigin = ref.toOrigin();
+            if (!heapScheme.fromSpaceContains(fromOrigin)) {
+                return ref;
+            }
+            final Pointer fromOriginUntagged = MaxSimInterfaceHelpers.isTaggingEnabled() ? fromOrigin.tagClear() : fromOrigin;
+            Reference forwardRef = Layout.readForwardRef(fromOriginUntagged);
+            if (!forwardRef.isZero()) {
+                return forwardRef;
+            }
+            final Reference hubRef = Layout.readHubReference(fromOriginUntagged);
+            // The object may have been forwarded since the first check, in which case the hub word read is not a hub.
+            forwardRef = Layout.readForwardRef(fromOriginUntagged);
+            if (!forwardRef.isZero()) {
+                return forwardRef;
+            }
+            final Hub hub = UnsafeCast.asHub(hubRef.toJava());
+            // The size must not be obtained from the object, whose hub word may be replaced by a forwarding reference at any time.
+            final Size size = hub.specificLayout.isTupleLayout() ? hub.tupleSize : hub.specificLayout.specificSize(fromOrigin);
+            final Pointer fromCell = Layout.originToCell(fromOrigin);
+            final Pointer allocated = allocate(size);
+            final Pointer toCell = MaxSimTaggingScheme.setTagDuringCopyingGC(Layout.cellToOrigin(allocated), ref);
+            DebugHeap.writeCellTag(toCell);
+            Memory.copyBytes(fromCell, toCell, size);
+            final Reference toRef = Reference.fromOrigin(Layout.cellToOrigin(toCell));
+            final Reference witness = Layout.compareAndSwapForwardRef(fromOriginUntagged, hubRef, toRef);
+            if (witness != hubRef) {
+                deallocate(allocated, size);
+                return Layout.readForwardRef(fromOriginUntagged);
+            }
+            // The copy holds the hub of the original object, not the forwarding reference installed after copying it.
+            stack.push(toCell);
+            return toRef;
+        }
+
+        @Override
+        public void visit(Pointer pointer, int wordIndex) {
+            final Reference oldRef = pointer.getReference(wordIndex);
+            final Reference newRef = mapRef(oldRef);
+            if (newRef != oldRef) {
+                pointer.setReference(wordIndex, newRef);
+            }
+        }
+
+        /**
+         * Updates the references of an object copied to to-space.
+         * @see SemiSpaceHeapScheme#visitCell(Pointer)
+         */
+        private void scanCell(Pointer cell) {
+            final Pointer origin = MaxSimTaggingScheme.setTagUsingObjectHub(Layout.cellToOrigin(cell));
+            final Reference oldHubRef = Layout.readHubReference(origin);
+            final Reference newHubRef = mapRef(oldHubRef);
+            if (newHubRef != oldHubRef) {
+                Layout.writeHubReference(origin, newHubRef);
+            }
+            final Hub hub = UnsafeCast.asHub(newHubRef.toJava());
+            final SpecificLayout specificLayout = hub.specificLayout;
+            if (specificLayout == Layout.tupleLayout()) {
+                TupleReferenceMap.visitReferences(hub, origin, this);
+                if (hub.isJLRReference) {
+                    discoverSpecialReference(origin);
+                }
+            } else if (specificLayout == Layout.referenceArrayLayout()) {
+                final int length = Layout.readArrayLength(origin);
+                for (int index = 0; index < length; index++) {
+                    final Reference oldRef = Layout.getReference(origin, index);
+                    final Reference newRef = mapRef(oldRef);
+                    if (newRef != oldRef) {
+                        Layout.setReference(origin, index, newRef);
+                    }
+                }
+            } else if (specificLayout == Layout.hybridLayout()) {
+                TupleReferenceMap.visitReferences(hub, origin, this);
+            }
+        }
+    }
+}
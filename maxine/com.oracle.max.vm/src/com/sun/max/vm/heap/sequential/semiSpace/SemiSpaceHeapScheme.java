@@ -164,6 +164,35 @@ public class SemiSpaceHeapScheme extends HeapSchemeWithTLAB implements CellVisit
 
     private long lastGCTime;
 
+    /**
+     * Evacuates the objects reachable from the roots in parallel when more than one GC thread is available,
+     * {@code null} otherwise.
+     */
+    private ParallelScavenger parallelScavenger;
+
+    /**
+     * Set while the objects reachable from the roots are evacuated by the {@link #parallelScavenger}.
+     * {@link #mapRef(Reference)} then copies with the scavenger of the GC thread.
+     */
+    private boolean parallelScavenging;
+
+    /**
+     * Log2 of the size of the windows of 'to space' for which {@link #rangeStarts} records a cell boundary.
+     */
+    private static final int LOG2_RANGE_SIZE = 18;
+
+    /**
+     * Native table recording, for each window of 'to space', the first start of a chunk allocated in it, or zero.
+     * Chunks are allocated contiguously, so any recorded start is a cell boundary from which the heap can be walked.
+     * Used by {@link #walkHeapRanges(CellRangeVisitor)} to split 'to space' without walking it.
+     */
+    private Pointer rangeStarts;
+
+    /**
+     * Number of entries of {@link #rangeStarts}, enough for the largest 'to space'.
+     */
+    private int rangeStartsLength;
+
     /**
      * Procedure used to verify a reference.
      */
@@ -196,6 +225,10 @@ public class SemiSpaceHeapScheme extends HeapSchemeWithTLAB implements CellVisit
         if (phase == MaxineVM.Phase.PRISTINE) {
             allocateHeap();
 
+            rangeStartsLength = Heap.maxSize().unsignedShiftedRight(LOG2_RANGE_SIZE).toInt() + 1;
+            rangeStarts = Memory.mustAllocate(Size.fromInt(rangeStartsLength).times(Word.size()));
+            Memory.clearWords(rangeStarts, rangeStartsLength);
+
             safetyZoneSize = Math.max(safetyZoneSizeOption.getValue(), initialTlabSize().toInt());
 
             top = toSpace.end().minus(safetyZoneSize);
@@ -227,6 +260,11 @@ public class SemiSpaceHeapScheme extends HeapSchemeWithTLAB implements CellVisit
                 this.growPolicy = new DoubleGrowPolicy();
             }
             increaseGrowPolicy = new LinearGrowPolicy();
+        } else if (phase == MaxineVM.Phase.RUNNING) {
+            GCWorkerThreads.start();
+            if (GCWorkerThreads.parallelism() > 1) {
+                parallelScavenger = new ParallelScavenger(this, GCWorkerThreads.parallelism());
+            }
         } else if (phase == MaxineVM.Phase.TERMINATING) {
             if (Heap.logGCTime()) {
                 timeLogger.logPhaseTimes(-1,
@@ -356,6 +394,7 @@ public class SemiSpaceHeapScheme extends HeapSchemeWithTLAB implements CellVisit
                 if (Heap.logGCPhases()) {
                     phaseLogger.logScanningRoots(VMLogger.Interval.BEGIN);
                 }
+                parallelScavenging = parallelScavenger != null;
                 startTimer(rootScanTimer);
                 heapRootsScanner.run(); // Start scanning the reachable objects from my roots.
                 stopTimer(rootScanTimer);
@@ -397,7 +436,13 @@ public class SemiSpaceHeapScheme extends HeapSchemeWithTLAB implements CellVisit
                     phaseLogger.logMovingReachable(VMLogger.Interval.BEGIN);
                 }
                 startTimer(copyTimer);
-                moveReachableObjects(toSpace.start().asPointer());
+                if (parallelScavenging) {
+                    parallelScavenger.scavenge();
+                    // Special references are forwarded by the sequential Cheney scan from the end of the retired PLABs
+                    parallelScavenging = false;
+                } else {
+                    moveReachableObjects(toSpace.start().asPointer());
+                }
                 stopTimer(copyTimer);
                 if (Heap.logGCPhases()) {
                     phaseLogger.logMovingReachable(VMLogger.Interval.END);
@@ -509,6 +554,7 @@ public class SemiSpaceHeapScheme extends HeapSchemeWithTLAB implements CellVisit
         toSpace.setStart(oldFromSpaceStart);
         toSpace.setSize(oldFromSpaceSize);
         toSpace.mark.set(toSpace.start());
+        Memory.clearWords(rangeStarts, rangeStartsLength);
 
         // For the purposes of inspection, we declare this phase change immediately after the swap;
         // The Inspector gets confused it the VM stops after the swap, but when the phase
@@ -544,6 +590,9 @@ public class SemiSpaceHeapScheme extends HeapSchemeWithTLAB implements CellVisit
      * @return the reference to the object in 'toSpace' obtained by the algorithm described above
      */
     private Reference mapRef(Reference ref) {
+        if (parallelScavenging) {
+            return parallelScavenger.gcThreadScavenger().mapRef(ref);
+        }
         final Pointer fromOrigin = ref.toOrigin();
         if (fromSpace.contains(fromOrigin)) {
             final Pointer fromOriginUntagged = MaxSimInterfaceHelpers.isTaggingEnabled() ?
@@ -826,6 +875,7 @@ public class SemiSpaceHeapScheme extends HeapSchemeWithTLAB implements CellVisit
      */
     public Pointer gcAllocate(Size size) {
         Pointer cell = allocationMark().asPointer();
+        recordRangeStart(cell);
         if (DebugHeap.isTagging()) {
             cell = cell.plusWords(1);
         }
@@ -834,6 +884,39 @@ public class SemiSpaceHeapScheme extends HeapSchemeWithTLAB implements CellVisit
         return cell;
     }
 
+    /**
+     * Allocates space in 'to space' during a GC performed by several threads, e.g., for a
+     * {@linkplain ParallelScavenger PLAB}.
+     *
+     * @param size the size of the space to allocate, not including the space for a debug tag
+     * @return the start of the allocated space in 'to space', after the debug tag if any
+     */
+    Pointer gcAllocateAtomic(Size size) {
+        while (true) {
+            final Pointer mark = allocationMark().asPointer();
+            final Pointer cell = DebugHeap.adjustForDebugTag(mark);
+            final Pointer end = cell.plus(size);
+            FatalError.check(end.lessThan(top), "GC allocation overflow");
+            if (toSpace.mark.compareAndSet(mark, end)) {
+                recordRangeStart(mark);
+                return cell;
+            }
+        }
+    }
+
+    /**
+     * Records the start of a chunk just allocated in 'to space' if it is the first one of its window.
+     * Racing threads may overwrite each other's entries, which is harmless as every start is a cell boundary.
+     */
+    @INLINE
+    private void recordRangeStart(Pointer chunkStart) {
+        final Pointer start = MaxSimInterfaceHelpers.isTaggingEnabled() ? chunkStart.tagClear() : chunkStart;
+        final int index = start.minus(toSpace.start()).unsignedShiftedRight(LOG2_RANGE_SIZE).toInt();
+        if (rangeStarts.getWord(index).isZero()) {
+            rangeStarts.setWord(index, start);
+        }
+    }
+
     private boolean inSafetyZone; // set after we have thrown OutOfMemoryError and are using the safety zone
 
     @NO_SAFEPOINT_POLLS("heap up to allocation mark must be verifiable if debug tagging")
@@ -970,6 +1053,7 @@ public class SemiSpaceHeapScheme extends HeapSchemeWithTLAB implements CellVisit
                 end = cell.plus(size);
             }
         } while (!toSpace.mark.compareAndSwap(oldAllocationMark, end).equals(oldAllocationMark));
+        recordRangeStart(oldAllocationMark);
 
         if (MaxSimInterfaceHelpers.isTaggingEnabled()) {
             cell = cell.tagClear();
@@ -1181,6 +1265,25 @@ public class SemiSpaceHeapScheme extends HeapSchemeWithTLAB implements CellVisit
         visitCells(visitor);
     }
 
+    @Override
+    public void walkHeapRanges(CellRangeVisitor visitor) {
+        visitor.visitCells(ImmortalHeap.getImmortalHeap().start(), ImmortalHeap.getImmortalHeap().mark());
+        visitor.visitCells(Heap.bootHeapRegion.start(), Heap.bootHeapRegion.mark());
+        final Address end = allocationMark();
+        final int length = end.minus(toSpace.start()).unsignedShiftedRight(LOG2_RANGE_SIZE).toInt() + 1;
+        Address rangeStart = toSpace.start();
+        for (int i = 1; i < length; i++) {
+            final Address start = rangeStarts.getWord(i).asAddress();
+            if (start.greaterThan(rangeStart) && start.lessThan(end)) {
+                visitor.visitCells(rangeStart, start);
+                rangeStart = start;
+            }
+        }
+        if (rangeStart.lessThan(end)) {
+            visitor.visitCells(rangeStart, end);
+        }
+    }
+
     public boolean pin(Object object) {
         return false;
     }
@@ -85,6 +85,9 @@ public final class BootImageGenerator {
     private static final Option<String> compilationBrokerClassOption = options.newStringOption("compilationBrokerClass", null,
             "The CompilationBroker subclass to use.");
 
+    private static final Option<File> codeCacheOption = options.newFileOption("code-cache", (File) null,
+            "Directory of a cache of compiled methods, reused by subsequent image builds for the methods that did not change.");
+
     private static final Option<Boolean> debugClassIDOption = options.newBooleanOption("debug-classid", false,
             "Trace array class id creation and prints reserved class id without array class actors.");
 
@@ -225,6 +228,10 @@ public final class BootImageGenerator {
 
             ClassIDManager.traceArrayClassIDs = debugClassIDOption.getValue();
 
+            if (codeCacheOption.getValue() != null) {
+                CompiledMethodCache.open(codeCacheOption.getValue());
+            }
+
             String[] extraClassesAndPackages = options.getArguments();
             if (extraClassesAndPackages.length != 0) {
                 System.setProperty(JavaPrototype.EXTRA_CLASSES_AND_PACKAGES_PROPERTY_NAME, Utils.toString(extraClassesAndPackages, " "));
@@ -275,6 +282,9 @@ public final class BootImageGenerator {
             if (statsOption.getValue()) {
                 writeMiscStatistics(Trace.stream());
             }
+            if (CompiledMethodCache.isEnabled()) {
+                CompiledMethodCache.report(Trace.stream());
+            }
         } catch (IOException ioException) {
             throw ProgramError.unexpected("could not write file ", ioException);
         } finally {
@@ -0,0 +1,760 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.max.vm.hosted;
+
+import static com.sun.max.platform.Platform.*;
+
+import java.io.*;
+import java.security.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.zip.*;
+
+import com.sun.cri.bytecode.*;
+import com.sun.cri.ci.*;
+import com.sun.cri.ci.CiAssumptions.Assumption;
+import com.sun.cri.ci.CiAssumptions.InlinedMethod;
+import com.sun.cri.ci.CiTargetMethod.Safepoint;
+import com.sun.cri.ri.*;
+import com.sun.max.annotate.*;
+import com.sun.max.program.*;
+import com.sun.max.vm.actor.*;
+import com.sun.max.vm.actor.holder.*;
+import com.sun.max.vm.actor.member.*;
+import com.sun.max.vm.classfile.*;
+import com.sun.max.vm.classfile.constant.*;
+import com.sun.max.vm.code.*;
+import com.sun.max.vm.compiler.target.*;
+import com.sun.max.vm.type.*;
+
+/**
+ * On-disk cache of the {@link CiTargetMethod}s produced by the optimizing compiler while building the boot image, so
+ * that a rebuild only compiles the methods affected by a change. Enabled by the {@code -code-cache} option of the
+ * {@link BootImageGenerator}.
+ * <p>
+ * A method's entry is keyed by a digest of the compiler configuration and of the method itself. The method digest covers
+ * its bytecode, exception handlers and the constant pool entries its bytecode refers to, and the shape of each class
+ * these entries refer to: field offsets, vtable indexes, flags, and the code of the class initializer and of the
+ * methods that are always inlined or folded. The methods inlined in the compiled code are only known after the
+ * compilation; they are recorded in the entry along with their own digest, and the entry is ignored if any of them changed.
+ * <p>
+ * References from the compiled code to VM objects (actors, hubs, static tuples, stubs, strings) are written symbolically
+ * and resolved again when the entry is read. Methods whose code refers to any other object are not cached.
+ * Canonical compiler objects (registers, the illegal value) are also written symbolically so that they keep their identity.
+ */
+@HOSTED_ONLY
+public final class CompiledMethodCache {
+
+    /**
+     * Version of the format of the entries, to be incremented on incompatible changes.
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    private static final String ENTRY_SUFFIX = ".ctm";
+
+    private static File directory;
+
+    private static final AtomicInteger hits = new AtomicInteger();
+    private static final AtomicInteger misses = new AtomicInteger();
+    private static final AtomicInteger staleEntries = new AtomicInteger();
+    private static final AtomicInteger unreadableEntries = new AtomicInteger();
+    private static final AtomicInteger stores = new AtomicInteger();
+    private static final AtomicInteger uncacheableMethods = new AtomicInteger();
+
+    /**
+     * Digests of the shape of the classes referenced by the methods looked up so far.
+     */
+    private static final ConcurrentHashMap<ClassActor, byte[]> classDigests = new ConcurrentHashMap<ClassActor, byte[]>();
+
+    /**
+     * Stubs of the boot code region by name, and names shared by several stubs. Refreshed when a stub cannot be found.
+     */
+    private static final HashMap<String, Stub> stubs = new HashMap<String, Stub>();
+    private static final HashSet<String> ambiguousStubNames = new HashSet<String>();
+
+    private static final byte[] UNRESOLVED_CLASS = {0};
+
+    private CompiledMethodCache() {
+    }
+
+    /**
+     * Enables the cache, creating its directory if needed.
+     */
+    public static void open(File directory) {
+        directory.mkdirs();
+        if (!directory.isDirectory()) {
+            throw ProgramError.unexpected("could not create compiled method cache directory " + directory);
+        }
+        CompiledMethodCache.directory = directory;
+    }
+
+    public static boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * Computes the key of a method's entry. The classes referenced by the method's bytecode are loaded if needed.
+     *
+     * @param method the method to be compiled
+     * @param configuration a description of the configuration of the compiler that must change whenever the code
+     *            produced for an unchanged method may change
+     */
+    public static String key(ClassMethodActor method, String configuration) {
+        final MessageDigest md = newDigest();
+        update(md, FORMAT_VERSION);
+        update(md, configuration);
+        md.update(methodDigest(method));
+        final StringBuilder sb = new StringBuilder();
+        for (byte b : md.digest()) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Gets the code compiled for a method by a previous build.
+     *
+     * @param key the key of the method's entry, as computed by {@link #key(ClassMethodActor, String)}
+     * @return {@code null} if there is no up to date entry for the method
+     */
+    public static CiTargetMethod lookup(ClassMethodActor method, String key) {
+        final File file = entryFile(key);
+        if (!file.exists()) {
+            misses.incrementAndGet();
+            return null;
+        }
+        try {
+            final EntryInputStream in = new EntryInputStream(new BufferedInputStream(new FileInputStream(file)));
+            try {
+                if (in.readInt() != FORMAT_VERSION || !in.readUTF().equals(method.qualifiedName())) {
+                    unreadableEntries.incrementAndGet();
+                    return null;
+                }
+                final Object[] dependencies = (Object[]) in.readObject();
+                final byte[][] dependencyDigests = (byte[][]) in.readObject();
+                for (int i = 0; i < dependencies.length; i++) {
+                    if (!Arrays.equals(methodDigest((ClassMethodActor) dependencies[i]), dependencyDigests[i])) {
+                        staleEntries.incrementAndGet();
+                        return null;
+                    }
+                }
+                final CiTargetMethod targetMethod = (CiTargetMethod) in.readObject();
+                hits.incrementAndGet();
+                return targetMethod;
+            } finally {
+                in.close();
+            }
+        } catch (Exception | LinkageError e) {
+            // a symbol that no longer resolves, or a corrupted entry
+            unreadableEntries.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * Records the code compiled for a method. Methods whose code refers to objects that cannot be written symbolically are
+     * not recorded.
+     *
+     * @param key the key of the method's entry, as computed by {@link #key(ClassMethodActor, String)} before the compilation
+     */
+    public static void store(ClassMethodActor method, String key, CiTargetMethod targetMethod) {
+        final Object[] dependencies = inlinedMethods(method, targetMethod).toArray();
+        final byte[][] dependencyDigests = new byte[dependencies.length][];
+        for (int i = 0; i < dependencies.length; i++) {
+            dependencyDigests[i] = methodDigest((ClassMethodActor) dependencies[i]);
+        }
+        final File file = entryFile(key);
+        final File tmpFile = new File(file.getPath() + "." + Thread.currentThread().getId() + ".tmp");
+        try {
+            final EntryOutputStream out = new EntryOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+            try {
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(method.qualifiedName());
+                out.writeObject(dependencies);
+                out.writeObject(dependencyDigests);
+                out.writeObject(targetMethod);
+            } finally {
+                out.close();
+            }
+            if (tmpFile.renameTo(file)) {
+                stores.incrementAndGet();
+                return;
+            }
+        } catch (NotSerializableException e) {
+            uncacheableMethods.incrementAndGet();
+        } catch (IOException e) {
+            ProgramWarning.message("could not write compiled method cache entry for " + method + ": " + e);
+        }
+        tmpFile.delete();
+    }
+
+    /**
+     * Prints the statistics of the cache.
+     */
+    public static void report(PrintStream out) {
+        out.println("Compiled method cache " + directory + ":");
+        out.println("    hits:        " + hits.get());
+        out.println("    misses:      " + (misses.get() + staleEntries.get() + unreadableEntries.get()) + " (" + staleEntries.get() + " stale, " +
+            unreadableEntries.get() + " unreadable)");
+        out.println("    stored:      " + stores.get());
+        out.println("    uncacheable: " + uncacheableMethods.get());
+    }
+
+    /**
+     * Computes a digest of the class files found on the classpath of the host VM under some resource prefixes. Can be used
+     * by compilers to make their {@linkplain #key(ClassMethodActor, String) configuration} depend on their own code.
+     *
+     * @param resourcePrefixes prefixes of the resources to digest, using '/' as separator
+     */
+    public static String classpathDigest(String... resourcePrefixes) {
+        final TreeMap<String, byte[]> classfiles = new TreeMap<String, byte[]>();
+        final ClasspathTraversal traversal = new ClasspathTraversal() {
+            @Override
+            protected boolean visitFile(File parent, String resource) {
+                if (resource.endsWith(".class")) {
+                    try {
+                        classfiles.put(resource.replace(File.separatorChar, '/'), digest(new FileInputStream(new File(parent, resource))));
+                    } catch (IOException e) {
+                        throw ProgramError.unexpected(e);
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            protected boolean visitArchiveEntry(ZipFile archive, ZipEntry resource) {
+                if (resource.getName().endsWith(".class") && !classfiles.containsKey(resource.getName())) {
+                    try {
+                        classfiles.put(resource.getName(), digest(archive.getInputStream(resource)));
+                    } catch (IOException e) {
+                        throw ProgramError.unexpected(e);
+                    }
+                }
+                return true;
+            }
+        };
+        for (String prefix : resourcePrefixes) {
+            traversal.run(Classpath.fromSystem(), prefix);
+        }
+        final MessageDigest md = newDigest();
+        for (Map.Entry<String, byte[]> entry : classfiles.entrySet()) {
+            update(md, entry.getKey());
+            md.update(entry.getValue());
+        }
+        return new java.math.BigInteger(1, md.digest()).toString(16);
+    }
+
+    /**
+     * Computes a digest of the class file of a class of the host VM.
+     */
+    public static String classfileDigest(Class javaClass) {
+        final InputStream in = javaClass.getResourceAsStream("/" + javaClass.getName().replace('.', '/') + ".class");
+        if (in == null) {
+            return javaClass.getName();
+        }
+        try {
+            return new java.math.BigInteger(1, digest(in)).toString(16);
+        } catch (IOException e) {
+            throw ProgramError.unexpected(e);
+        }
+    }
+
+    private static File entryFile(String key) {
+        return new File(directory, key + ENTRY_SUFFIX);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw ProgramError.unexpected(e);
+        }
+    }
+
+    private static byte[] digest(InputStream in) throws IOException {
+        final MessageDigest md = newDigest();
+        final byte[] buffer = new byte[8192];
+        try {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                md.update(buffer, 0, n);
+            }
+        } finally {
+            in.close();
+        }
+        return md.digest();
+    }
+
+    private static void update(MessageDigest md, String s) {
+        try {
+            md.update(s.getBytes("UTF-8"));
+        } catch (UnsupportedEncodingException e) {
+            throw ProgramError.unexpected(e);
+        }
+        md.update((byte) 0);
+    }
+
+    private static void update(MessageDigest md, int i) {
+        md.update((byte) (i >> 24));
+        md.update((byte) (i >> 16));
+        md.update((byte) (i >> 8));
+        md.update((byte) i);
+    }
+
+    /**
+     * Gets the methods inlined in the code compiled for a method: those appearing in the frames of its debug info, those
+     * recorded by inlining assumptions, and, transitively, the always inlined methods its bytecode refers to.
+     */
+    private static Set<ClassMethodActor> inlinedMethods(ClassMethodActor method, CiTargetMethod targetMethod) {
+        final LinkedHashSet<ClassMethodActor> inlinedMethods = new LinkedHashSet<ClassMethodActor>();
+        for (Safepoint safepoint : targetMethod.safepoints) {
+            if (safepoint.debugInfo != null) {
+                for (CiCodePos pos = safepoint.debugInfo.codePos; pos != null; pos = pos.caller) {
+                    if (pos.method instanceof ClassMethodActor) {
+                        inlinedMethods.add((ClassMethodActor) pos.method);
+                    }
+                }
+            }
+        }
+        if (targetMethod.assumptions() != null) {
+            for (Assumption assumption : targetMethod.assumptions()) {
+                if (assumption instanceof InlinedMethod && ((InlinedMethod) assumption).dependee instanceof ClassMethodActor) {
+                    inlinedMethods.add((ClassMethodActor) ((InlinedMethod) assumption).dependee);
+                }
+            }
+        }
+        final LinkedList<ClassMethodActor> worklist = new LinkedList<ClassMethodActor>(inlinedMethods);
+        worklist.add(method);
+        while (!worklist.isEmpty()) {
+            final CodeAttribute codeAttribute = worklist.removeFirst().codeAttribute();
+            if (codeAttribute == null) {
+                continue;
+            }
+            final ConstantPool cp = codeAttribute.cp;
+            final BytecodeStream stream = new BytecodeStream(codeAttribute.code());
+            while (stream.currentBCI() < stream.endBCI()) {
+                switch (stream.currentBC()) {
+                    case Bytecodes.INVOKESTATIC:
+                    case Bytecodes.INVOKESPECIAL:
+                    case Bytecodes.INVOKEVIRTUAL:
+                    case Bytecodes.INVOKEINTERFACE:
+                        final int index = stream.readCPI();
+                        // only consider the references resolved by the compilation
+                        if (cp.resolvableAt(index).isResolved()) {
+                            final MethodActor callee = cp.methodAt(index).resolve(cp, index);
+                            if (callee instanceof ClassMethodActor && (callee.flags() & Actor.INLINE) != 0 && inlinedMethods.add((ClassMethodActor) callee)) {
+                                worklist.add((ClassMethodActor) callee);
+                            }
+                        }
+                        break;
+                }
+                stream.next();
+            }
+        }
+        inlinedMethods.remove(method);
+        return inlinedMethods;
+    }
+
+    private static byte[] methodDigest(ClassMethodActor method) {
+        final MessageDigest md = newDigest();
+        update(md, method.holder().typeDescriptor.toString());
+        update(md, method.name.toString());
+        update(md, method.descriptor().toString());
+        update(md, method.flags());
+        final CodeAttribute codeAttribute = method.codeAttribute();
+        if (codeAttribute != null) {
+            final ConstantPool cp = codeAttribute.cp;
+            md.update(codeAttribute.code());
+            for (ExceptionHandlerEntry entry : codeAttribute.exceptionHandlerTable()) {
+                update(md, entry.startBCI());
+                update(md, entry.endBCI());
+                update(md, entry.handlerBCI());
+                if (entry.catchTypeIndex() != 0) {
+                    updateConstant(md, cp, entry.catchTypeIndex());
+                }
+            }
+            final BytecodeStream stream = new BytecodeStream(codeAttribute.code());
+            while (stream.currentBCI() < stream.endBCI()) {
+                switch (stream.currentBC()) {
+                    case Bytecodes.LDC:
+                    case Bytecodes.LDC_W:
+                    case Bytecodes.LDC2_W:
+                    case Bytecodes.GETSTATIC:
+                    case Bytecodes.PUTSTATIC:
+                    case Bytecodes.GETFIELD:
+                    case Bytecodes.PUTFIELD:
+                    case Bytecodes.INVOKEVIRTUAL:
+                    case Bytecodes.INVOKESPECIAL:
+                    case Bytecodes.INVOKESTATIC:
+                    case Bytecodes.INVOKEINTERFACE:
+                    case Bytecodes.NEW:
+                    case Bytecodes.ANEWARRAY:
+                    case Bytecodes.CHECKCAST:
+                    case Bytecodes.INSTANCEOF:
+                    case Bytecodes.MULTIANEWARRAY:
+                        updateConstant(md, cp, stream.readCPI());
+                        break;
+                }
+                stream.next();
+            }
+        }
+        return md.digest();
+    }
+
+    private static void updateConstant(MessageDigest md, ConstantPool cp, int index) {
+        final PoolConstant constant = cp.at(index);
+        update(md, constant.valueString(cp));
+        TypeDescriptor holder = null;
+        if (constant instanceof ClassConstant) {
+            holder = ((ClassConstant) constant).typeDescriptor();
+        } else if (constant instanceof MemberRefConstant) {
+            holder = ((MemberRefConstant) constant).holder(cp);
+        }
+        if (holder != null) {
+            md.update(classDigest(holder));
+        }
+    }
+
+    private static byte[] classDigest(TypeDescriptor typeDescriptor) {
+        final ClassActor classActor;
+        try {
+            classActor = typeDescriptor.resolveHosted(null);
+        } catch (LinkageError | ProgramError e) {
+            return UNRESOLVED_CLASS;
+        }
+        return classDigest(classActor);
+    }
+
+    private static byte[] classDigest(ClassActor classActor) {
+        byte[] digest = classDigests.get(classActor);
+        if (digest != null) {
+            return digest;
+        }
+        final MessageDigest md = newDigest();
+        update(md, classActor.typeDescriptor.toString());
+        update(md, classActor.flags());
+        if (classActor.superClassActor != null) {
+            md.update(classDigest(classActor.superClassActor));
+        }
+        for (InterfaceActor interfaceActor : classActor.localInterfaceActors()) {
+            md.update(classDigest(interfaceActor));
+        }
+        if (classActor.isArrayClass()) {
+            md.update(classDigest(classActor.componentClassActor()));
+        }
+        for (FieldActor fieldActor : classActor.localInstanceFieldActors()) {
+            updateField(md, fieldActor);
+        }
+        for (FieldActor fieldActor : classActor.localStaticFieldActors()) {
+            updateField(md, fieldActor);
+        }
+        for (VirtualMethodActor methodActor : classActor.localVirtualMethodActors()) {
+            updateMethod(md, methodActor);
+            update(md, methodActor.vTableIndex());
+        }
+        for (StaticMethodActor methodActor : classActor.localStaticMethodActors()) {
+            updateMethod(md, methodActor);
+        }
+        for (InterfaceMethodActor methodActor : classActor.localInterfaceMethodActors()) {
+            updateMethod(md, methodActor);
+        }
+        digest = md.digest();
+        classDigests.put(classActor, digest);
+        return digest;
+    }
+
+    private static void updateField(MessageDigest md, FieldActor fieldActor) {
+        update(md, fieldActor.name.toString());
+        update(md, fieldActor.descriptor().toString());
+        update(md, fieldActor.flags());
+        update(md, fieldActor.offset());
+        if (fieldActor.constantValue() != null) {
+            update(md, fieldActor.constantValue().toString());
+        }
+    }
+
+    private static void updateMethod(MessageDigest md, MethodActor methodActor) {
+        update(md, methodActor.name.toString());
+        update(md, methodActor.descriptor().toString());
+        update(md, methodActor.flags());
+        // the code of these methods ends up in the code of the methods referring to them
+        if (methodActor instanceof ClassMethodActor && ((methodActor.flags() & (Actor.INLINE | Actor.FOLD)) != 0 || methodActor.isClassInitializer())) {
+            final byte[] code = ((ClassMethodActor) methodActor).code();
+            if (code != null) {
+                md.update(code);
+            }
+        }
+        // calls to these methods are replaced by the values they return when compiled
+        if (methodActor instanceof StaticMethodActor && ((StaticMethodActor) methodActor).isDeclaredFoldable() && methodActor.descriptor().numberOfParameters() == 0) {
+            update(md, foldedValue(methodActor));
+        }
+    }
+
+    /**
+     * Evaluates a {@linkplain FOLD foldable} method without parameters in the host VM. Values whose class does not
+     * override {@link Object#toString()} are only described by their class, as their identity varies between runs.
+     */
+    private static String foldedValue(MethodActor methodActor) {
+        try {
+            final java.lang.reflect.Method method = methodActor.toJava();
+            method.setAccessible(true);
+            final Object value = method.invoke(null);
+            if (value instanceof Object[]) {
+                return Arrays.deepToString((Object[]) value);
+            }
+            if (value != null && value.getClass().getMethod("toString").getDeclaringClass() == Object.class) {
+                return value.getClass().getName();
+            }
+            return String.valueOf(value);
+        } catch (Exception | LinkageError e) {
+            return e.getClass().getName();
+        }
+    }
+
+    private static synchronized Stub lookupStub(String name) throws InvalidObjectException {
+        Stub stub = stubs.get(name);
+        if (stub == null) {
+            refreshStubs();
+            stub = stubs.get(name);
+            if (stub == null) {
+                throw new InvalidObjectException("unknown stub " + name);
+            }
+        }
+        return stub;
+    }
+
+    private static synchronized boolean isUniqueStub(Stub stub) {
+        if (stubs.get(stub.regionName()) != stub) {
+            refreshStubs();
+        }
+        return stubs.get(stub.regionName()) == stub;
+    }
+
+    private static void refreshStubs() {
+        stubs.clear();
+        for (TargetMethod targetMethod : Code.bootCodeRegion().copyOfTargetMethods()) {
+            if (targetMethod instanceof Stub) {
+                final String name = targetMethod.regionName();
+                if (!ambiguousStubNames.contains(name) && stubs.put(name, (Stub) targetMethod) != null) {
+                    ambiguousStubNames.add(name);
+                }
+            }
+        }
+        for (String name : ambiguousStubNames) {
+            stubs.remove(name);
+        }
+    }
+
+    /**
+     * Symbolic representation of an object referenced from compiled code.
+     */
+    private static final class Symbol implements Serializable {
+        static final char CLASS_ACTOR = 'C';
+        static final char METHOD_ACTOR = 'M';
+        static final char FIELD_ACTOR = 'F';
+        static final char DYNAMIC_HUB = 'D';
+        static final char STATIC_HUB = 'S';
+        static final char STATIC_TUPLE = 'T';
+        static final char JAVA_CLASS = 'J';
+        static final char STRING = 's';
+        static final char STUB = 'b';
+        static final char TEMPLATE_CALL = 't';
+        static final char REGISTER = 'r';
+        static final char REGISTER_VALUE = 'v';
+        static final char ILLEGAL_VALUE = 'i';
+        static final char NULL = 'n';
+
+        final char kind;
+
+        /**
+         * Specifies if this symbol stands for an object {@link CiConstant} wrapping the object it denotes.
+         */
+        final boolean constant;
+
+        final String name;
+        final String memberName;
+        final String memberDescriptor;
+
+        Symbol(char kind, boolean constant, String name, String memberName, String memberDescriptor) {
+            this.kind = kind;
+            this.constant = constant;
+            this.name = name;
+            this.memberName = memberName;
+            this.memberDescriptor = memberDescriptor;
+        }
+
+        static Symbol of(Object object, boolean constant) throws NotSerializableException {
+            if (object == null) {
+                return new Symbol(NULL, constant, null, null, null);
+            }
+            if (object instanceof ClassActor) {
+                return new Symbol(CLASS_ACTOR, constant, ((ClassActor) object).typeDescriptor.toString(), null, null);
+            }
+            if (object instanceof MethodActor) {
+                final MethodActor methodActor = (MethodActor) object;
+                return new Symbol(METHOD_ACTOR, constant, methodActor.holder().typeDescriptor.toString(), methodActor.name.toString(), methodActor.descriptor().toString());
+            }
+            if (object instanceof FieldActor) {
+                final FieldActor fieldActor = (FieldActor) object;
+                return new Symbol(FIELD_ACTOR, constant, fieldActor.holder().typeDescriptor.toString(), fieldActor.name.toString(), fieldActor.descriptor().toString());
+            }
+            if (object instanceof DynamicHub) {
+                return new Symbol(DYNAMIC_HUB, constant, ((Hub) object).classActor.typeDescriptor.toString(), null, null);
+            }
+            if (object instanceof StaticHub) {
+                return new Symbol(STATIC_HUB, constant, ((Hub) object).classActor.typeDescriptor.toString(), null, null);
+            }
+            if (object instanceof StaticTuple) {
+                return new Symbol(STATIC_TUPLE, constant, ((StaticTuple) object).classActor().typeDescriptor.toString(), null, null);
+            }
+            if (object instanceof Class) {
+                return new Symbol(JAVA_CLASS, constant, JavaTypeDescriptor.forJavaClass((Class) object).toString(), null, null);
+            }
+            if (object instanceof String) {
+                return new Symbol(STRING, constant, (String) object, null, null);
+            }
+            if (object instanceof Stub && isUniqueStub((Stub) object)) {
+                return new Symbol(STUB, constant, ((Stub) object).regionName(), null, null);
+            }
+            if (object == CallTarget.TEMPLATE_CALL) {
+                return new Symbol(TEMPLATE_CALL, constant, null, null, null);
+            }
+            throw new NotSerializableException(object.getClass().getName());
+        }
+
+        Object resolve() throws IOException {
+            final Object object = resolveObject();
+            return constant ? CiConstant.forObject(object) : object;
+        }
+
+        private Object resolveObject() throws IOException {
+            switch (kind) {
+                case NULL:
+                    return null;
+                case CLASS_ACTOR:
+                    return classActor();
+                case METHOD_ACTOR: {
+                    final ClassActor holder = classActor();
+                    final MethodActor methodActor = holder.findLocalMethodActor(SymbolTable.makeSymbol(memberName), SignatureDescriptor.create(memberDescriptor));
+                    if (methodActor == null) {
+                        throw new InvalidObjectException("unknown method " + name + "." + memberName + memberDescriptor);
+                    }
+                    return methodActor;
+                }
+                case FIELD_ACTOR: {
+                    final FieldActor fieldActor = classActor().findLocalFieldActor(SymbolTable.makeSymbol(memberName), JavaTypeDescriptor.parseTypeDescriptor(memberDescriptor));
+                    if (fieldActor == null) {
+                        throw new InvalidObjectException("unknown field " + name + "." + memberName);
+                    }
+                    return fieldActor;
+                }
+                case DYNAMIC_HUB:
+                    return classActor().dynamicHub();
+                case STATIC_HUB:
+                    return classActor().staticHub();
+                case STATIC_TUPLE:
+                    return classActor().staticTuple();
+                case JAVA_CLASS:
+                    return classActor().toJava();
+                case STRING:
+                    return name.intern();
+                case STUB:
+                    return lookupStub(name);
+                case TEMPLATE_CALL:
+                    return CallTarget.TEMPLATE_CALL;
+                case ILLEGAL_VALUE:
+                    return CiValue.IllegalValue;
+                case REGISTER:
+                    return register(name);
+                case REGISTER_VALUE:
+                    return register(name).asValue(CiKind.valueOf(memberName));
+            }
+            throw new InvalidObjectException("unknown symbol kind " + kind);
+        }
+
+        private ClassActor classActor() {
+            return JavaTypeDescriptor.parseTypeDescriptor(name).resolveHosted(null);
+        }
+
+        private static CiRegister register(String name) throws InvalidObjectException {
+            for (CiRegister register : new CiRegister[] {CiRegister.None, CiRegister.Frame, CiRegister.CallerFrame}) {
+                if (register.name.equals(name)) {
+                    return register;
+                }
+            }
+            final CiRegister register = platform().target.arch.registersByName.get(name);
+            if (register == null) {
+                throw new InvalidObjectException("unknown register " + name);
+            }
+            return register;
+        }
+    }
+
+    private static final class EntryOutputStream extends ObjectOutputStream {
+        EntryOutputStream(OutputStream out) throws IOException {
+            super(out);
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object object) throws IOException {
+            if (object instanceof CiConstant && ((CiConstant) object).kind.isObject()) {
+                return Symbol.of(((CiConstant) object).asObject(), true);
+            }
+            if (object == CiValue.IllegalValue) {
+                return new Symbol(Symbol.ILLEGAL_VALUE, false, null, null, null);
+            }
+            if (object instanceof CiRegister) {
+                return new Symbol(Symbol.REGISTER, false, ((CiRegister) object).name, null, null);
+            }
+            if (object instanceof CiRegisterValue) {
+                final CiRegisterValue value = (CiRegisterValue) object;
+                return new Symbol(Symbol.REGISTER_VALUE, false, value.reg.name, value.kind.name(), null);
+            }
+            if (object instanceof Actor || object instanceof Hub || object instanceof StaticTuple || object instanceof TargetMethod || object == CallTarget.TEMPLATE_CALL) {
+                return Symbol.of(object, false);
+            }
+            if (object instanceof RiType || object instanceof RiMethod || object instanceof RiField) {
+                // unresolved types and members are only valid in the compilation that created them
+                throw new NotSerializableException(object.getClass().getName());
+            }
+            return object;
+        }
+    }
+
+    private static final class EntryInputStream extends ObjectInputStream {
+        EntryInputStream(InputStream in) throws IOException {
+            super(in);
+            enableResolveObject(true);
+        }
+
+        @Override
+        protected Object resolveObject(Object object) throws IOException {
+            if (object instanceof Symbol) {
+                return ((Symbol) object).resolve();
+            }
+            return object;
+        }
+    }
+}
@@ -42,6 +42,7 @@ import sun.reflect.*;
 
 import com.sun.max.annotate.*;
 import com.sun.max.lang.*;
+import com.sun.max.memory.*;
 import com.sun.max.platform.*;
 import com.sun.max.program.*;
 import com.sun.max.unsafe.*;
@@ -49,7 +50,9 @@ import com.sun.max.util.*;
 import com.sun.max.vm.*;
 import com.sun.max.vm.MaxineVM.NativeProperty;
 import com.sun.max.vm.actor.holder.*;
+import com.sun.max.vm.layout.*;
 import com.sun.max.vm.object.*;
+import com.sun.max.vm.reference.*;
 import com.sun.max.vm.runtime.*;
 import com.sun.max.vm.type.*;
 import sun.security.util.SecurityConstants;
@@ -129,6 +132,38 @@ public final class JDK_java_lang_System {
         return MaxineVM.native_nanoTime();
     }
 
+    /**
+     * Number of elements from which arrays are copied with word-wide memory moves instead of element by element.
+     */
+    private static final int BULK_COPY_THRESHOLD = 8;
+
+    /**
+     * Copies a range of elements between arrays of the same element kind with word-wide memory moves.
+     * The ranges may overlap. The caller must have checked the bounds and, for reference arrays, that the component
+     * type of the source array is assignable to the component type of the destination array. Updates of reference
+     * slots are reported to the heap scheme with a single barrier for the whole destination range.
+     *
+     * @param kind the element kind
+     * @param fromArray the source array
+     * @param fromIndex the start index in the source array
+     * @param toArray the destination array
+     * @param toIndex the start index in the destination array
+     * @param length the number of elements to copy
+     */
+    @NO_SAFEPOINT_POLLS("array elements are addressed by raw pointers")
+    private static void arrayCopyBulk(Kind kind, Object fromArray, int fromIndex, Object toArray, int toIndex, int length) {
+        final ArrayLayout arrayLayout = kind.arrayLayout(vmConfig().layoutScheme());
+        final Offset firstElementOffset = arrayLayout.getElementOffsetFromOrigin(0);
+        final Reference toRef = Reference.fromJava(toArray);
+        final Pointer fromPointer = Reference.fromJava(fromArray).toOrigin().plus(arrayLayout.getElementOffsetFromOrigin(fromIndex));
+        final Pointer toPointer = toRef.toOrigin().plus(arrayLayout.getElementOffsetFromOrigin(toIndex));
+        final Size size = arrayLayout.getElementOffsetFromOrigin(length).minus(firstElementOffset).asSize();
+        Memory.moveBytes(fromPointer, toPointer, size);
+        if (kind.isReference) {
+            vmConfig().heapScheme().postWriteBarrierRange(toRef, firstElementOffset.toInt(), toIndex, length);
+        }
+    }
+
     /**
      * Performs an array copy in the forward direction.
      *
@@ -316,12 +351,20 @@ public final class JDK_java_lang_System {
                 if (fromIndex < 0 || length < 0 || toIndex + length > ArrayAccess.readArrayLength(fromArray)) {
                     throw new IndexOutOfBoundsException();
                 }
-                arrayCopyBackward(kind, fromArray, fromIndex, fromArray, toIndex, length);
+                if (length >= BULK_COPY_THRESHOLD && !isHosted()) {
+                    arrayCopyBulk(kind, fromArray, fromIndex, fromArray, toIndex, length);
+                } else {
+                    arrayCopyBackward(kind, fromArray, fromIndex, fromArray, toIndex, length);
+                }
             } else if (fromIndex != toIndex) {
                 if (toIndex < 0 || length < 0 || fromIndex + length > ArrayAccess.readArrayLength(fromArray)) {
                     throw new IndexOutOfBoundsException();
                 }
-                arrayCopyForward(kind, fromArray, fromIndex, fromArray, toIndex, length, null);
+                if (length >= BULK_COPY_THRESHOLD && !isHosted()) {
+                    arrayCopyBulk(kind, fromArray, fromIndex, fromArray, toIndex, length);
+                } else {
+                    arrayCopyForward(kind, fromArray, fromIndex, fromArray, toIndex, length, null);
+                }
             }
             return;
         }
@@ -332,7 +375,11 @@ public final class JDK_java_lang_System {
                     toIndex + length > ArrayAccess.readArrayLength(toArray)) {
                 throw new IndexOutOfBoundsException();
             }
-            arrayCopyForward(kind, fromArray, fromIndex, toArray, toIndex, length, null);
+            if (length >= BULK_COPY_THRESHOLD && !isHosted()) {
+                arrayCopyBulk(kind, fromArray, fromIndex, toArray, toIndex, length);
+            } else {
+                arrayCopyForward(kind, fromArray, fromIndex, toArray, toIndex, length, null);
+            }
         } else {
             final ClassActor toArrayClassActor = toHub.classActor;
             if (!toArrayClassActor.isArrayClass()) {
@@ -347,7 +394,12 @@ public final class JDK_java_lang_System {
                     toIndex + length > ArrayAccess.readArrayLength(toArray)) {
                 throw new IndexOutOfBoundsException();
             }
-            arrayCopyForward(kind, fromArray, fromIndex, toArray, toIndex, length, toComponentClassActor);
+            if (length >= BULK_COPY_THRESHOLD && !isHosted() && toComponentClassActor.isAssignableFrom(fromArrayClassActor.componentClassActor())) {
+                // no element of the source array can fail the store check
+                arrayCopyBulk(kind, fromArray, fromIndex, toArray, toIndex, length);
+            } else {
+                arrayCopyForward(kind, fromArray, fromIndex, toArray, toIndex, length, toComponentClassActor);
+            }
         }
     }
 
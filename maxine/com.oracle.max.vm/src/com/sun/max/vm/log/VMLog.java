@@ -369,6 +369,9 @@ public abstract class VMLog implements Heap.GCCallback {
             }
         } else if (phase == MaxineVM.Phase.TERMINATING) {
             flush(FLUSHMODE_EXIT);
+            if (flusher != null) {
+                flusher.terminate();
+            }
         }
     }
 
@@ -415,10 +418,22 @@ public abstract class VMLog implements Heap.GCCallback {
         traceDumpFlusher = new TraceDumpFlusher();
     }
 
-    private VMLogger getLogger(int id) {
+    /**
+     * Gets the logger with a given {@link VMLogger#loggerId id}.
+     * @param id value in the range {@code 1 .. }{@link #loggerCount()}
+     * @return the logger or {@code null} if no logger is registered with that id
+     */
+    public VMLogger getLogger(int id) {
         return loggers[id - 1];
     }
 
+    /**
+     * Returns the number of logger ids in use by this log.
+     */
+    public int loggerCount() {
+        return loggers.length;
+    }
+
     /**
      * Called when a new thread is started so any thread-specific log state can be setup.
      */
@@ -459,6 +474,9 @@ public abstract class VMLog implements Heap.GCCallback {
                 vmLog.loggers[i].checkOptions();
             }
         }
+        if (vmLog.flusher != null) {
+            vmLog.flusher.initialize(vmLog);
+        }
     }
 
     /**
@@ -606,12 +624,15 @@ public abstract class VMLog implements Heap.GCCallback {
      * The default output is "raw", which means no interpretation of the bits, which is left to an offline tool. This is
      * the most robust approach. The alternative is "trace" which invokes the trace method on the logger, which
      * may crash, particularly if the log is being flushed on a VM crash.
+     *
+     * The "file=path" output drains the records to a binary file, see {@link VMLogFileFlusher}. As the purpose
+     * is to keep every record, it implies all the flush modes unless some are given explicitly.
      */
     private static class VMLogFlushOption extends VMStringOption {
 
         @HOSTED_ONLY
         public VMLogFlushOption() {
-            super("-XX:VMLogFlush=", false, null, "flush VMLog: mode,output. mode=crash|exit|full, output=raw|trace");
+            super("-XX:VMLogFlush=", false, null, "flush VMLog: mode,output. mode=crash|exit|full, output=raw|trace|file=path");
         }
 
         @Override
@@ -625,6 +646,9 @@ public abstract class VMLog implements Heap.GCCallback {
                         vmLog.flusher = rawDumpFlusher;
                     } else if (param.equals("trace")) {
                         vmLog.flusher = traceDumpFlusher;
+                    } else if (param.startsWith("file=") && param.length() > "file=".length()) {
+                        fileFlusher.setPath(param.substring("file=".length()));
+                        vmLog.flusher = fileFlusher;
                     } else if (param.equals("exit")) {
                         vmLog.flushMode |= FLUSHMODE_EXIT;
                     } else if (param.equals("crash")) {
@@ -637,6 +661,8 @@ public abstract class VMLog implements Heap.GCCallback {
                 }
                 if (vmLog.flushMode != 0 && vmLog.flusher == null) {
                     vmLog.flusher = rawDumpFlusher;
+                } else if (vmLog.flushMode == 0 && vmLog.flusher == fileFlusher) {
+                    vmLog.flushMode = FLUSHMODE_CRASH | FLUSHMODE_EXIT | FLUSHMODE_FULL;
                 }
             }
             return true; // not set, no flush
@@ -744,9 +770,23 @@ public abstract class VMLog implements Heap.GCCallback {
          */
         public void end(VmThread vmThread) {
         }
+
+        /**
+         * Called once the VM can open files and start threads, if this flusher was selected by the {@code -XX:VMLogFlush} option.
+         * @param vmLog the log being flushed
+         */
+        public void initialize(VMLog vmLog) {
+        }
+
+        /**
+         * Called when the VM terminates, after the final flush of the log.
+         */
+        public void terminate() {
+        }
     }
 
     public static final RawDumpFlusher rawDumpFlusher = new RawDumpFlusher();
+    public static final VMLogFileFlusher fileFlusher = new VMLogFileFlusher();
     private static TraceDumpFlusher traceDumpFlusher;
 
     /**
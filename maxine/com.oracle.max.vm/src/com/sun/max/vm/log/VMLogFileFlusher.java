@@ -0,0 +1,471 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.max.vm.log;
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.channels.FileChannel.MapMode;
+
+import com.oracle.max.cri.intrinsics.*;
+import com.sun.max.annotate.*;
+import com.sun.max.memory.*;
+import com.sun.max.unsafe.*;
+import com.sun.max.vm.*;
+import com.sun.max.vm.log.VMLog.Flusher;
+import com.sun.max.vm.log.VMLog.Record;
+import com.sun.max.vm.log.nat.*;
+import com.sun.max.vm.thread.*;
+import com.sun.max.vm.type.*;
+
+/**
+ * Flusher that drains log records to a binary file, selected with {@code -XX:VMLogFlush=file=path}.
+ * Records are stored as they are in a native log buffer: the {@link Record#getHeader() header}, the unique id
+ * and the arguments as words, so that nothing is formatted in the VM. The file is decoded offline by
+ * {@link com.sun.max.vm.log.hosted.VMLogFileDecoder}.
+ * <p>
+ * The file starts with a header describing the loggers and their operations, followed by fixed size windows
+ * that are filled with records by the threads flushing their logs. The windows are memory-mapped, so a record
+ * is copied once, straight from the log buffer into the file pages. A small ring of windows is kept mapped
+ * ahead of the writers by a background {@link Writer} thread, which also forces the completed windows to
+ * the file and unmaps them.
+ * <p>
+ * Flushing can occur while allocation is not possible, e.g. in the middle of a GC, and with safepoints
+ * disabled. Therefore the state shared by the flushing threads is kept off-heap in a native control block
+ * and is only updated with compare and swap. A flushing thread never waits for the writer: if the writer is
+ * so far behind that the next window is not mapped yet, the record is counted as lost and the total is
+ * reported at VM exit.
+ * <p>
+ * The control block holds the sequence number of the window being filled and one slot per mapped window.
+ * The state of a slot combines the sequence number of its window and the number of bytes reserved in the window
+ * in a single {@code long}, so that a thread that reserves space in a stale window fails its compare and swap.
+ * A window is sealed when a record does not fit in its remaining space, which is left zero and skipped by the decoder.
+ */
+public final class VMLogFileFlusher extends Flusher {
+
+    /**
+     * Size of a file window in bytes.
+     */
+    public static int VMLogFileWindowSize = 4 * 1024 * 1024;
+    static {
+        VMOptions.addFieldOption("-XX:", "VMLogFileWindowSize", VMLogFileFlusher.class,
+            "Size in bytes of the memory-mapped windows of the VMLog file (default: 4MB).", MaxineVM.Phase.STARTING);
+    }
+
+    public static final int MAGIC = 0x564d4c47; // "VMLG"
+    public static final int VERSION = 1;
+
+    /**
+     * Size of the fixed part of the file header, up to and including the header size.
+     */
+    public static final int HEADER_PREFIX_SIZE = 21;
+
+    /**
+     * Operation of the records with a zero logger id, which provide the name of a thread.
+     * The {@linkplain Record#getThreadId(int) thread} field holds the thread id, the unique id field holds the number of
+     * characters of the name and the arguments hold the characters, one byte each.
+     */
+    public static final int THREAD_NAME_OP = 1;
+
+    /**
+     * Offset of the record's unique id from the start of a record.
+     */
+    public static final int ID_OFFSET = 4;
+
+    /**
+     * Offset of the record's arguments from the start of a record.
+     */
+    public static final int ARGS_OFFSET = 8;
+
+    /**
+     * Number of windows that are mapped at any time. Must be a power of two.
+     */
+    private static final int WINDOWS = 4;
+
+    /**
+     * Interval in milliseconds at which the writer checks for completed windows.
+     */
+    private static final int WRITER_INTERVAL = 5;
+
+    // layout of the control block
+    private static final int CURRENT_OFFSET = 0;
+    private static final int LOST_OFFSET = 4;
+    private static final int SLOTS_OFFSET = 8;
+
+    // layout of a slot in the control block
+    private static final int STATE_OFFSET = 0;
+    private static final int BASE_OFFSET = 8;
+    private static final int COMMITTED_OFFSET = 16;
+    private static final int SLOT_SIZE = 24;
+
+    /**
+     * Bit set in the position of every slot's state once the file is closed, failing all further reservations.
+     */
+    private static final int CLOSED = 0x40000000;
+
+    private String path;
+    private RandomAccessFile file;
+    private FileChannel channel;
+    private Writer writer;
+
+    /**
+     * The windows currently mapped, indexed by slot. Only accessed by the writer thread and when opening and closing the file.
+     */
+    private final MappedByteBuffer[] windows = new MappedByteBuffer[WINDOWS];
+
+    private Pointer control = Pointer.zero();
+    private int windowSize;
+    private long headerSize;
+
+    VMLogFileFlusher() {
+    }
+
+    void setPath(String path) {
+        this.path = path;
+    }
+
+    @Override
+    public void initialize(VMLog vmLog) {
+        windowSize = Math.max(64 * 1024, Math.min(VMLogFileWindowSize, CLOSED >> 1)) & ~(Word.size() - 1);
+        try {
+            file = new RandomAccessFile(path, "rw");
+            file.setLength(0);
+            channel = file.getChannel();
+            final VMLogger[] loggers = new VMLogger[vmLog.loggerCount()];
+            for (int id = 1; id <= loggers.length; id++) {
+                loggers[id - 1] = vmLog.getLogger(id);
+            }
+            headerSize = writeHeader(file, vmLog.getClass().getSimpleName(), loggers, windowSize);
+            control = Memory.allocate(Size.fromInt(SLOTS_OFFSET + WINDOWS * SLOT_SIZE));
+            Memory.setBytes(control, SLOTS_OFFSET + WINDOWS * SLOT_SIZE, (byte) 0);
+            for (int i = 0; i < WINDOWS; i++) {
+                // no window yet
+                slot(i).writeLong(STATE_OFFSET, -1L << 32);
+            }
+            for (int i = 0; i < WINDOWS; i++) {
+                map(i, i);
+            }
+        } catch (IOException ex) {
+            Log.print("Error opening VMLog file ");
+            Log.print(path);
+            Log.print(": ");
+            Log.println(ex.getMessage());
+            MaxineVM.native_exit(1);
+        }
+        writer = new Writer();
+        writer.start();
+    }
+
+    /**
+     * Writes the file header: {@link #MAGIC}, {@link #VERSION}, a flag specifying if the records are little endian,
+     * the word size, the window size and the header size, then the log class name and the logger table, in which
+     * a logger is given by its name, its number of operations and the operation names.
+     * The header is padded to a word boundary, which is where the first window starts.
+     *
+     * @param loggers the loggers indexed by logger id minus one, which may be null
+     * @return the size of the header
+     */
+    public static long writeHeader(DataOutput file, String logClassName, VMLogger[] loggers, int windowSize) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(logClassName);
+        out.writeInt(loggers.length);
+        for (VMLogger logger : loggers) {
+            if (logger == null) {
+                out.writeUTF("");
+                out.writeInt(0);
+            } else {
+                out.writeUTF(logger.name);
+                out.writeInt(logger.numOps());
+                for (int op = 0; op < logger.numOps(); op++) {
+                    out.writeUTF(logger.operationName(op));
+                }
+            }
+        }
+        out.flush();
+        final long headerSize = (HEADER_PREFIX_SIZE + bytes.size() + 7) & ~7L;
+        file.writeInt(MAGIC);
+        file.writeInt(VERSION);
+        file.writeBoolean(ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN);
+        file.writeInt(Word.size());
+        file.writeInt(windowSize);
+        file.writeInt((int) headerSize);
+        file.write(bytes.toByteArray());
+        file.write(new byte[(int) (headerSize - HEADER_PREFIX_SIZE - bytes.size())]);
+        return headerSize;
+    }
+
+    private Pointer slot(int seq) {
+        return control.plus(SLOTS_OFFSET + (seq & (WINDOWS - 1)) * SLOT_SIZE);
+    }
+
+    private static int sequence(long state) {
+        return (int) (state >>> 32);
+    }
+
+    private static int position(long state) {
+        return (int) state;
+    }
+
+    /**
+     * Maps window {@code seq} into its slot and makes it available to the flushing threads.
+     */
+    private void map(int i, int seq) throws IOException {
+        final MappedByteBuffer buffer = channel.map(MapMode.READ_WRITE, headerSize + (long) seq * windowSize, windowSize);
+        windows[i] = buffer;
+        final Pointer slot = slot(i);
+        slot.writeWord(BASE_OFFSET, Address.fromLong(ClassRegistry.Buffer_address.getLong(buffer)));
+        slot.writeInt(COMMITTED_OFFSET, 0);
+        MemoryBarriers.barrier(MemoryBarriers.STORE_STORE);
+        slot.writeLong(STATE_OFFSET, (long) seq << 32);
+    }
+
+    private void unmap(int i) {
+        final MappedByteBuffer buffer = windows[i];
+        if (buffer != null) {
+            buffer.force();
+            windows[i] = null;
+            slot(i).writeWord(BASE_OFFSET, Address.zero());
+            release(buffer);
+        }
+    }
+
+    /**
+     * Releases the mapping of a window, through the cleaner of the buffer if the JDK gives access to it,
+     * and otherwise when the buffer is garbage collected.
+     */
+    private static void release(MappedByteBuffer buffer) {
+        try {
+            final Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            final Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner != null) {
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        } catch (Exception ex) {
+            // the mapping is released with the buffer
+        }
+    }
+
+    /**
+     * Reserves {@code size} bytes in the current window.
+     *
+     * @return the address of the reserved space or zero if the record is lost
+     */
+    @NO_SAFEPOINT_POLLS("called when flushing a log")
+    private Pointer reserve(int size) {
+        if (control.isZero()) {
+            return Pointer.zero();
+        }
+        while (true) {
+            final int seq = control.readInt(CURRENT_OFFSET);
+            final Pointer slot = slot(seq);
+            final long state = slot.readLong(STATE_OFFSET);
+            final int position = position(state);
+            if (sequence(state) != seq) {
+                if (control.readInt(CURRENT_OFFSET) == seq) {
+                    // the writer has not mapped the window yet
+                    break;
+                }
+            } else if ((position & CLOSED) != 0) {
+                break;
+            } else if (position + size <= windowSize) {
+                if (slot.compareAndSwapLong(STATE_OFFSET, state, state + size) == state) {
+                    return slot.readWord(BASE_OFFSET).asPointer().plus(position);
+                }
+            } else if (slot.compareAndSwapLong(STATE_OFFSET, state, ((long) seq << 32) | windowSize) == state) {
+                // sealed the window: move on to the next one before the writer can recycle this slot
+                control.compareAndSwapInt(CURRENT_OFFSET, seq, seq + 1);
+                addCommitted(slot, windowSize - position);
+            }
+        }
+        int lost = control.readInt(LOST_OFFSET);
+        while (control.compareAndSwapInt(LOST_OFFSET, lost, lost + 1) != lost) {
+            lost = control.readInt(LOST_OFFSET);
+        }
+        return Pointer.zero();
+    }
+
+    @NO_SAFEPOINT_POLLS("called when flushing a log")
+    private void addCommitted(Pointer slot, int size) {
+        int committed = slot.readInt(COMMITTED_OFFSET);
+        while (slot.compareAndSwapInt(COMMITTED_OFFSET, committed, committed + size) != committed) {
+            committed = slot.readInt(COMMITTED_OFFSET);
+        }
+    }
+
+    @Override
+    public void start(VmThread vmThread) {
+        if (vmThread == null) {
+            return;
+        }
+        final String name = vmThread.getName();
+        final int length = Math.min(name.length(), Record.ARGCOUNT_MASK * Word.size());
+        final int argCount = (length + Word.size() - 1) / Word.size();
+        final int size = ARGS_OFFSET + argCount * Word.size();
+        final Pointer p = reserve(size);
+        if (p.isNotZero()) {
+            p.writeInt(0, (vmThread.id() << Record.THREAD_SHIFT) | (THREAD_NAME_OP << Record.OPERATION_SHIFT) | argCount);
+            p.writeInt(ID_OFFSET, length);
+            for (int i = 0; i < length; i++) {
+                p.writeByte(ARGS_OFFSET + i, (byte) name.charAt(i));
+            }
+            commit(p, size);
+        }
+    }
+
+    @Override
+    public void flushRecord(VmThread vmThread, Record r, int uuid) {
+        final int header = r.getHeader();
+        final int argCount = Record.getArgCount(header);
+        final int size = ARGS_OFFSET + argCount * Word.size();
+        final Pointer p = reserve(size);
+        if (p.isNotZero()) {
+            p.writeInt(0, header);
+            p.writeInt(ID_OFFSET, uuid);
+            if (r instanceof VMLogNative.NativeRecord) {
+                final VMLogNative.NativeRecord nativeRecord = (VMLogNative.NativeRecord) r;
+                Memory.copyBytes(nativeRecord.address.plus(nativeRecord.argsOffset), p.plus(ARGS_OFFSET), Size.fromInt(argCount * Word.size()));
+            } else {
+                for (int i = 1; i <= argCount; i++) {
+                    p.writeWord(ARGS_OFFSET + (i - 1) * Word.size(), r.getArg(i));
+                }
+            }
+            commit(p, size);
+        }
+    }
+
+    /**
+     * Records that the {@code size} bytes reserved at {@code p} have been written.
+     * The window containing {@code p} cannot be recycled until then, so it is still mapped in one of the slots.
+     */
+    @NO_SAFEPOINT_POLLS("called when flushing a log")
+    private void commit(Pointer p, int size) {
+        for (int i = 0; i < WINDOWS; i++) {
+            final Pointer slot = slot(i);
+            final Pointer base = slot.readWord(BASE_OFFSET).asPointer();
+            if (p.greaterEqual(base) && p.lessThan(base.plus(windowSize))) {
+                addCommitted(slot, size);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Forces the sealed windows whose records have all been written to the file, and maps the following windows in their slots.
+     */
+    private void recycleWindows() throws IOException {
+        for (int i = 0; i < WINDOWS; i++) {
+            final Pointer slot = slot(i);
+            final long state = slot.readLong(STATE_OFFSET);
+            // a full window is only done with once the current window is past it
+            if (position(state) == windowSize && slot.readInt(COMMITTED_OFFSET) == windowSize && sequence(state) < control.readInt(CURRENT_OFFSET)) {
+                unmap(i);
+                map(i, sequence(state) + WINDOWS);
+            }
+        }
+    }
+
+    @Override
+    public void terminate() {
+        if (control.isZero()) {
+            return;
+        }
+        writer.shutdown();
+        long end = headerSize;
+        for (int i = 0; i < WINDOWS; i++) {
+            final Pointer slot = slot(i);
+            long state = slot.readLong(STATE_OFFSET);
+            while (slot.compareAndSwapLong(STATE_OFFSET, state, state | CLOSED) != state) {
+                state = slot.readLong(STATE_OFFSET);
+            }
+            final int position = position(state);
+            if (windows[i] != null && position > 0) {
+                // wait for the records being written by other threads
+                while (slot.readInt(COMMITTED_OFFSET) < position) {
+                    Thread.yield();
+                }
+                end = Math.max(end, headerSize + (long) sequence(state) * windowSize + position);
+            }
+            unmap(i);
+        }
+        try {
+            channel.truncate(end);
+            file.close();
+        } catch (IOException ex) {
+            Log.print("Error closing VMLog file ");
+            Log.print(path);
+            Log.print(": ");
+            Log.println(ex.getMessage());
+        }
+        final int lost = control.readInt(LOST_OFFSET);
+        if (lost != 0) {
+            Log.print("VMLog file ");
+            Log.print(path);
+            Log.print(": ");
+            Log.print(lost);
+            Log.println(" records lost, consider increasing -XX:VMLogFileWindowSize");
+        }
+    }
+
+    /**
+     * The background thread that keeps the windows mapped ahead of the flushing threads.
+     */
+    private final class Writer extends Thread {
+        private volatile boolean running = true;
+
+        Writer() {
+            super(VmThread.systemThreadGroup, "VMLogFileWriter");
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    recycleWindows();
+                } catch (IOException ex) {
+                    Log.print("Error writing VMLog file ");
+                    Log.print(path);
+                    Log.print(": ");
+                    Log.println(ex.getMessage());
+                    return;
+                }
+                try {
+                    Thread.sleep(WRITER_INTERVAL);
+                } catch (InterruptedException ex) {
+                }
+            }
+        }
+
+        void shutdown() {
+            running = false;
+            interrupt();
+            try {
+                join();
+            } catch (InterruptedException ex) {
+            }
+        }
+    }
+}
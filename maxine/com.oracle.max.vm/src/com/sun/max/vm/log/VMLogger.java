@@ -200,6 +200,13 @@ public class VMLogger {
         this.vmLog = vmLog;
     }
 
+    /**
+     * Returns the number of operations defined by this logger.
+     */
+    public int numOps() {
+        return numOps;
+    }
+
     /**
      * Provides a mnemonic name for the given operation.
      * Default is {@code OpN}.
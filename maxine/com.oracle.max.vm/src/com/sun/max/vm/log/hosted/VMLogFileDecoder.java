@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.max.vm.log.hosted;
+
+import static com.sun.max.vm.log.VMLogFileFlusher.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.*;
+
+import com.sun.max.annotate.*;
+import com.sun.max.program.option.*;
+import com.sun.max.unsafe.*;
+import com.sun.max.vm.log.*;
+import com.sun.max.vm.log.VMLog.Record;
+
+/**
+ * Decodes a file written by {@link VMLogFileFlusher} into text, one line per record, in the format of
+ * {@link VMLogger#trace}, prefixed by the record's unique id.
+ *
+ * Operations are named with the names the VM saved in the file header. When the {@link VMLogger} instances of the VM are
+ * available, e.g. in the Inspector, they can be {@linkplain #setLoggers set}, in which case their {@link VMLogger#operationName}
+ * and {@link VMLogger#inspectedArgValue} methods are used instead. Arguments are otherwise printed as hex.
+ */
+@HOSTED_ONLY
+public class VMLogFileDecoder {
+
+    private final RandomAccessFile file;
+    private final ByteOrder byteOrder;
+    private final int wordSize;
+    private final int windowSize;
+    private final long headerSize;
+    private final String logClassName;
+    private final String[] loggerNames;
+    private final String[][] operationNames;
+    private final Map<Integer, String> threadNames = new HashMap<Integer, String>();
+    private VMLogger[] loggers;
+
+    public VMLogFileDecoder(File logFile) throws IOException {
+        file = new RandomAccessFile(logFile, "r");
+        if (file.readInt() != MAGIC) {
+            throw new IOException(logFile + " is not a VMLog file");
+        }
+        final int version = file.readInt();
+        if (version != VERSION) {
+            throw new IOException("unsupported VMLog file version " + version);
+        }
+        byteOrder = file.readBoolean() ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+        wordSize = file.readInt();
+        windowSize = file.readInt();
+        headerSize = file.readInt();
+        logClassName = file.readUTF();
+        final int loggerCount = file.readInt();
+        loggerNames = new String[loggerCount];
+        operationNames = new String[loggerCount][];
+        for (int i = 0; i < loggerCount; i++) {
+            loggerNames[i] = file.readUTF();
+            operationNames[i] = new String[file.readInt()];
+            for (int op = 0; op < operationNames[i].length; op++) {
+                operationNames[i][op] = file.readUTF();
+            }
+        }
+    }
+
+    /**
+     * Sets the loggers used to decode operations and arguments.
+     * @param loggers the loggers of the VM that wrote the file, indexed by {@link VMLogger#loggerId} minus one
+     */
+    public void setLoggers(VMLogger[] loggers) {
+        this.loggers = loggers;
+    }
+
+    public String logClassName() {
+        return logClassName;
+    }
+
+    private VMLogger logger(int loggerId) {
+        if (loggers != null && loggerId <= loggers.length) {
+            return loggers[loggerId - 1];
+        }
+        return null;
+    }
+
+    public String operationName(int loggerId, int op) {
+        final VMLogger logger = logger(loggerId);
+        if (logger != null) {
+            return logger.operationName(op);
+        }
+        if (loggerId <= operationNames.length && op < operationNames[loggerId - 1].length) {
+            return operationNames[loggerId - 1][op];
+        }
+        return "Op " + op;
+    }
+
+    public String loggerName(int loggerId) {
+        if (loggerId <= loggerNames.length) {
+            return loggerNames[loggerId - 1];
+        }
+        return "Logger " + loggerId;
+    }
+
+    /**
+     * Decodes argument {@code argNum}, which is in the range {@code 1 .. argCount}, of a record.
+     */
+    public String argValue(int header, int argNum, long value) {
+        final VMLogger logger = logger(Record.getLoggerId(header));
+        if (logger != null) {
+            final String inspectedArg = logger.inspectedArgValue(Record.getOperation(header), argNum, Address.fromLong(value));
+            if (inspectedArg != null) {
+                return inspectedArg;
+            }
+        }
+        return "0x" + Long.toHexString(value);
+    }
+
+    /**
+     * Decodes all the records of the file.
+     *
+     * @param out where the records are printed
+     * @param sort specifies if the records are printed in the order of their unique ids rather than in the order
+     *            in which their per-thread logs were flushed
+     */
+    public void decode(PrintStream out, boolean sort) throws IOException {
+        final SortedMap<Integer, String> sorted = sort ? new TreeMap<Integer, String>() : null;
+        final long fileSize = file.length();
+        final StringBuilder sb = new StringBuilder();
+        for (long windowStart = headerSize; windowStart < fileSize; windowStart += windowSize) {
+            final int length = (int) Math.min(windowSize, fileSize - windowStart);
+            final ByteBuffer window = file.getChannel().map(MapMode.READ_ONLY, windowStart, length).order(byteOrder);
+            int position = 0;
+            while (position + ARGS_OFFSET <= length) {
+                final int header = window.getInt(position);
+                if (header == 0 || Record.isFree(header)) {
+                    // the remainder of the window is unused
+                    break;
+                }
+                final int uuid = window.getInt(position + ID_OFFSET);
+                final int argCount = Record.getArgCount(header);
+                final int argsPosition = position + ARGS_OFFSET;
+                position = argsPosition + argCount * wordSize;
+                if (Record.getLoggerId(header) == 0) {
+                    if (Record.getOperation(header) == THREAD_NAME_OP) {
+                        final char[] name = new char[uuid];
+                        for (int i = 0; i < name.length; i++) {
+                            name[i] = (char) (window.get(argsPosition + i) & 0xff);
+                        }
+                        threadNames.put(Record.getThreadId(header), new String(name));
+                    }
+                    continue;
+                }
+                sb.setLength(0);
+                sb.append(uuid).append(" Thread \"").append(threadName(Record.getThreadId(header))).append("\" ");
+                sb.append(loggerName(Record.getLoggerId(header))).append('.');
+                sb.append(operationName(Record.getLoggerId(header), Record.getOperation(header)));
+                for (int i = 1; i <= argCount; i++) {
+                    final int argPosition = argsPosition + (i - 1) * wordSize;
+                    final long value = wordSize == 8 ? window.getLong(argPosition) : window.getInt(argPosition) & 0xffffffffL;
+                    sb.append(' ').append(argValue(header, i, value));
+                }
+                if (sort) {
+                    sorted.put(uuid, sb.toString());
+                } else {
+                    out.println(sb);
+                }
+            }
+        }
+        if (sort) {
+            for (String line : sorted.values()) {
+                out.println(line);
+            }
+        }
+    }
+
+    private String threadName(int id) {
+        final String name = threadNames.get(id);
+        return name == null ? "Thread-" + id : name;
+    }
+
+    public void close() throws IOException {
+        file.close();
+    }
+
+    private static final OptionSet options = new OptionSet();
+
+    private static final Option<File> INPUT_FILE = options.newFileOption("in", (File) null,
+            "the VMLog file to decode");
+    private static final Option<File> OUTPUT_FILE = options.newFileOption("out", (File) null,
+            "the file to which the records are printed (default: standard output)");
+    private static final Option<Boolean> SORT = options.newBooleanOption("sort", false,
+            "print the records in the order of their unique ids");
+    private static final Option<Boolean> HELP = options.newBooleanOption("help", false,
+            "show help message and exits.");
+
+    public static void main(String[] args) throws IOException {
+        options.parseArguments(args);
+        if (HELP.getValue() || INPUT_FILE.getValue() == null) {
+            options.printHelp(System.out, 80);
+            return;
+        }
+        final VMLogFileDecoder decoder = new VMLogFileDecoder(INPUT_FILE.getValue());
+        final PrintStream out = OUTPUT_FILE.getValue() == null ? System.out :
+            new PrintStream(new BufferedOutputStream(new FileOutputStream(OUTPUT_FILE.getValue())));
+        try {
+            out.println(VMLog.RawDumpFlusher.LOGCLASS_MARKER + decoder.logClassName());
+            decoder.decode(out, SORT.getValue());
+        } finally {
+            out.flush();
+            if (out != System.out) {
+                out.close();
+            }
+            decoder.close();
+        }
+    }
+}
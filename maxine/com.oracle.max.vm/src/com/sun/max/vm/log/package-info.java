@@ -296,6 +296,7 @@
  * <li>full: flush the log whenever it becomes full (i.e., is about to overwrite old records)</li>
  * <li>raw: output the log records as uninterpreted, raw, bits.</li>
  * <li>trace: output the log records using the {@link com.oracle.max.vm.log.VMLogger#trace} method</li>
+ * <li>file=path: write the log records to a binary file, see below</li>
  * </ul>
  * The default output mode is raw, which is robust, but requires off-line interpretation. Trace mode
  * may be unstable after a VM crash as it may provoke a recursive crash.
@@ -308,6 +309,11 @@
  * The simplest way to create the file is to redirect the log output to a file by setting
  * {@code export MAXINE_LOG_FILE=maxine.log} before running the VM, and then copying the file.
  * The last step is important because the Inspector will overwrite the log file when it executes (meta-circularity!).
+ * <p>
+ * For long runs, e.g. to keep GC logging on during a simulation, {@code -XX:VMLogFlush=file=path} drains every record
+ * to a binary file through memory-mapped windows, with no formatting in the VM, see {@link com.sun.max.vm.log.VMLogFileFlusher}.
+ * The file implies all the flush modes unless some are specified, and is turned into text offline with
+ * {@code com.sun.max.vm.log.hosted.VMLogFileDecoder -in=path}.
  */
 package com.sun.max.vm.log;
 
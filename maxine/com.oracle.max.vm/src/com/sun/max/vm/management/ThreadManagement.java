@@ -139,21 +139,19 @@ public class ThreadManagement {
 
     public static Thread findThread(long id) {
         FindProcedure proc = new FindProcedure(id);
-        synchronized (VmThreadMap.THREAD_LOCK) {
-            VmThreadMap.ACTIVE.forAllThreadLocals(null, proc);
-        }
+        VmThreadMap.ACTIVE.forAllThreads(proc);
         return proc.result;
     }
 
-    static class FindProcedure implements Pointer.Procedure {
+    static class FindProcedure implements VmThreadMap.Procedure {
         Thread result = null;
         private long id;
         FindProcedure(long id) {
             this.id = id;
         }
-        public void run(Pointer tla) {
-            final Thread t = VmThread.fromTLA(tla).javaThread();
-            if (t.getId() == id) {
+        public void run(VmThread vmThread) {
+            final Thread t = vmThread.javaThread();
+            if (t != null && t.getId() == id) {
                 result = t;
             }
         }
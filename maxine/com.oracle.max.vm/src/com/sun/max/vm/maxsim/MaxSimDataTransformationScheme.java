@@ -48,29 +48,108 @@ public class MaxSimDataTransformationScheme {
 
             for (MaxSimInterface.DataTransInfo dataTrans : dataTransDB.getDataTransInfoList()) {
                 TypeDescriptor td = JavaTypeDescriptor.parseTypeDescriptor(dataTrans.getTypeDesc());
-                typeDescriptorToDataTransInfoMap.put(td, MaxSimInterface.DataTransInfo.newBuilder(dataTrans));
+                MaxSimInterface.DataTransInfo.Builder dataTransInfo = MaxSimInterface.DataTransInfo.newBuilder(dataTrans);
+                typeDescriptorToDataTransInfoMap.put(td, dataTransInfo);
+                unmatchedDataTransInfoIndex.put(td, dataTransInfo);
             }
         } catch (Exception e) {
             Log.println("WARNING: Could not parse file: " + dataTransDBFileName);
             Log.println(e);
         }
-        ClassActor.allClassesDo(maxsimDataTransInfoRegistrar);
+        if (unmatchedDataTransInfoIndex.isEmpty()) {
+            return;
+        }
+        dataTransBatch = MaxSimInterface.DataTransDB.newBuilder();
+        registrationBurstDepth = new ThreadLocal<int[]>() {
+            @Override
+            protected int[] initialValue() {
+                return new int[1];
+            }
+        };
+        isRegistrationActive = true;
+
+        // all the classes loaded so far are registered in a single batch
+        beginRegistrationBurst();
+        try {
+            ClassActor.allClassesDo(maxsimDataTransInfoRegistrar);
+        } finally {
+            endRegistrationBurst();
+        }
     }
 
     /**
      * Registers new dynamic hub.
+     *
+     * A matching data transformation is added to the pending batch, which is activated at the end of the outermost
+     * registration burst of the current thread or immediately if there is no such burst.
      */
     @INLINE
     public static void register(Hub hub) {
-        if (!MaxSimInterfaceHelpers.isClassIDTagging() || !MaxSimDataTransDB.isPresent()) {
+        if (!MaxSimInterfaceHelpers.isClassIDTagging() || !isRegistrationActive) {
             return;
         }
         MaxSimInterface.DataTransInfo.Builder dataTransInfo =
-            typeDescriptorToDataTransInfoMap.get(hub.classActor.typeDescriptor);
-        if (dataTransInfo != null && !dataTransInfo.hasTransTag()) {
-            dataTransInfo.setTransTag(hub.getMaxSimHubTag());
-            MaxSimMediator.activateDataTransViaAddrSpaceMorph(dataTransInfo.build().toByteArray());
+            unmatchedDataTransInfoIndex.remove(hub.classActor.typeDescriptor);
+        if (dataTransInfo == null) {
+            return;
+        }
+        if (unmatchedDataTransInfoIndex.isEmpty()) {
+            isRegistrationActive = false;
+        }
+        dataTransInfo.setTransTag(hub.getMaxSimHubTag());
+        addToDataTransBatch(dataTransInfo);
+        if (registrationBurstDepth.get()[0] == 0) {
+            flushDataTransBatch();
+        }
+    }
+
+    /**
+     * Begins a registration burst of the current thread (e.g. definition of a class together with the classes it
+     * depends on). Bursts can be nested.
+     */
+    @INLINE
+    public static void beginRegistrationBurst() {
+        if (!MaxSimInterfaceHelpers.isClassIDTagging() || !isRegistrationActive) {
+            return;
+        }
+        registrationBurstDepth.get()[0]++;
+    }
+
+    /**
+     * Ends a registration burst of the current thread. The pending batch of data transformations is activated when
+     * the outermost burst ends, so that the transformations are active before any object of the registered classes
+     * is allocated.
+     */
+    @INLINE
+    public static void endRegistrationBurst() {
+        if (!MaxSimInterfaceHelpers.isClassIDTagging() || registrationBurstDepth == null) {
+            return;
         }
+        final int [] depth = registrationBurstDepth.get();
+        if (depth[0] > 0) {
+            depth[0]--;
+        }
+        if (depth[0] == 0 && dataTransBatchSize != 0) {
+            flushDataTransBatch();
+        }
+    }
+
+    private static synchronized void addToDataTransBatch(MaxSimInterface.DataTransInfo.Builder dataTransInfo) {
+        dataTransBatch.addDataTransInfo(dataTransInfo);
+        dataTransBatchSize++;
+    }
+
+    /**
+     * Activates the pending batch of data transformations with a single simulator transition.
+     */
+    private static synchronized void flushDataTransBatch() {
+        if (dataTransBatchSize == 0) {
+            return;
+        }
+        byte [] dataTransDBMessage = dataTransBatch.build().toByteArray();
+        dataTransBatch.clear();
+        dataTransBatchSize = 0;
+        MaxSimMediator.activateDataTransBatchViaAddrSpaceMorph(dataTransDBMessage);
     }
 
     /**
@@ -102,6 +181,30 @@ public class MaxSimDataTransformationScheme {
     private static final ConcurrentHashMap<TypeDescriptor, MaxSimInterface.DataTransInfo.Builder> typeDescriptorToDataTransInfoMap =
         new ConcurrentHashMap<TypeDescriptor, MaxSimInterface.DataTransInfo.Builder>();
 
+    /**
+     * Index of data transformations which are not matched with a hub yet. A data transformation is removed from the
+     * index once it is matched, so each type is matched only once.
+     */
+    private static final ConcurrentHashMap<TypeDescriptor, MaxSimInterface.DataTransInfo.Builder> unmatchedDataTransInfoIndex =
+        new ConcurrentHashMap<TypeDescriptor, MaxSimInterface.DataTransInfo.Builder>();
+
+    /**
+     * Indicates whether there are unmatched data transformations.
+     */
+    private static volatile boolean isRegistrationActive;
+
+    /**
+     * Nesting depth of registration bursts per thread.
+     */
+    private static volatile ThreadLocal<int[]> registrationBurstDepth;
+
+    /**
+     * Batch of data transformations pending activation.
+     */
+    private static MaxSimInterface.DataTransDB.Builder dataTransBatch;
+
+    private static volatile int dataTransBatchSize;
+
     private static VMStringOption MaxSimDataTransDB = VMOptions.register(new VMStringOption("-XX:MaxSimDataTransDB=", false, null,
         "MaxSim data transformation database for address space morphing."), MaxineVM.Phase.PRISTINE);
 }
@@ -20,6 +20,8 @@
 package com.sun.max.vm.maxsim;
 
 import static com.sun.max.vm.intrinsics.MaxineIntrinsicIDs.*;
+import static com.sun.max.vm.thread.VmThread.currentTLA;
+import static com.sun.max.vm.thread.VmThreadLocal.ETLA;
 
 import com.sun.max.annotate.C_FUNCTION;
 import com.sun.max.annotate.INTRINSIC;
@@ -31,11 +33,15 @@ import com.sun.max.vm.MaxineVM;
 import com.sun.max.vm.actor.holder.Hub;
 import com.sun.max.vm.actor.member.ClassMethodActor;
 import com.sun.max.vm.compiler.target.TargetMethod;
+import com.sun.max.vm.heap.HeapSchemeWithTLAB;
 import com.sun.max.vm.intrinsics.MaxineIntrinsicIDs;
 import com.sun.max.vm.layout.Layout;
+import com.sun.max.vm.monitor.modal.sync.JavaMonitorManager;
 import com.sun.max.vm.object.Hybrid;
 import com.sun.max.vm.reference.Reference;
 import com.sun.max.vm.runtime.FatalError;
+import com.sun.max.vm.runtime.VmOperation;
+import com.sun.max.vm.thread.VmThread;
 
 import java.lang.reflect.Array;
 
@@ -61,6 +67,9 @@ public class MaxSimMediator {
     @C_FUNCTION
     private static native int maxsim_j_activate_data_trans_via_addr_space_morph(long begin, long end);
 
+    @C_FUNCTION
+    private static native int maxsim_j_activate_data_trans_batch_via_addr_space_morph(long begin, long end);
+
     @INLINE
     public static void exitZSimFastForwardingMode() {
         maxsimMagicOp(Address.fromLong(MaxSimInterface.ZSimMagicOpcodes.ZSIM_M_OPC_ROI_BEGIN_VALUE));
@@ -132,11 +141,100 @@ public class MaxSimMediator {
             (UnsafeCast.asLong(tag) << MaxSimInterface.MaxSimMagicOpPackedArgsOffsets.MAXSIM_M_OP_PROFILE_OBJECT_ALLOCATION_P_ARG_TAG_OFF_VALUE) |
             (UnsafeCast.asLong(tagType) << MaxSimInterface.MaxSimMagicOpPackedArgsOffsets.MAXSIM_M_OP_PROFILE_OBJECT_ALLOCATION_P_ARG_TAG_TYPE_OFF_VALUE) |
             (size << MaxSimInterface.MaxSimMagicOpPackedArgsOffsets.MAXSIM_M_OP_PROFILE_OBJECT_ALLOCATION_P_ARG_SIZE_OFF_VALUE);
+        if (MaxSimPlatform.isMaxSimBatchAllocationProfiling()) {
+            appendToAllocationProfileBuffer(ETLA.load(currentTLA()), profObjAllocArg);
+            return;
+        }
         maxsimMagicOp(
             Address.fromLong(MaxSimInterface.MaxSimMagicOpcodes.MAXSIM_M_OPC_PROFILE_OBJECT_ALLOCATION_VALUE),
             Address.fromLong(profObjAllocArg));
     }
 
+    /**
+     * Appends a packed object allocation record to the allocation profile buffer of a thread. The buffer is allocated
+     * lazily and is flushed when it is full. The first word of the buffer holds the number of records.
+     */
+    private static void appendToAllocationProfileBuffer(Pointer etla, long profObjAllocArg) {
+        Pointer buffer = HeapSchemeWithTLAB.MAXSIM_ALLOCATION_PROFILE_BUFFER.load(etla);
+        if (buffer.isZero()) {
+            buffer = Memory.allocate(Size.fromInt(MaxSimPlatform.MaxSimAllocationProfileBufferSize + 1).times(Word.size()));
+            buffer.setLong(0, 0L);
+            HeapSchemeWithTLAB.MAXSIM_ALLOCATION_PROFILE_BUFFER.store(etla, buffer);
+        }
+        final long recordsNum = buffer.getLong(0) + 1;
+        buffer.setLong((int) recordsNum, profObjAllocArg);
+        buffer.setLong(0, recordsNum);
+        if (recordsNum >= MaxSimPlatform.MaxSimAllocationProfileBufferSize) {
+            flushAllocationProfileBuffer(etla);
+        }
+    }
+
+    /**
+     * Reports the buffered object allocation records of a thread to ZSim with a single magic operation.
+     */
+    @INLINE
+    public static void flushAllocationProfileBuffer(Pointer etla) {
+        if (!MaxSimPlatform.isMaxSimBatchAllocationProfiling()) {
+            return;
+        }
+        final Pointer buffer = HeapSchemeWithTLAB.MAXSIM_ALLOCATION_PROFILE_BUFFER.load(etla);
+        if (buffer.isZero() || buffer.getLong(0) == 0L) {
+            return;
+        }
+        maxsimMagicOp(
+            Address.fromLong(MaxSimInterface.MaxSimMagicOpcodes.MAXSIM_M_OPC_PROFILE_OBJECT_ALLOCATION_BATCH_VALUE),
+            buffer.asAddress());
+        buffer.setLong(0, 0L);
+    }
+
+    /**
+     * Flushes and releases the allocation profile buffer of a thread.
+     */
+    public static void releaseAllocationProfileBuffer(Pointer etla) {
+        if (!MaxSimPlatform.isMaxSimBatchAllocationProfiling()) {
+            return;
+        }
+        final Pointer buffer = HeapSchemeWithTLAB.MAXSIM_ALLOCATION_PROFILE_BUFFER.load(etla);
+        if (buffer.isZero()) {
+            return;
+        }
+        flushAllocationProfileBuffer(etla);
+        HeapSchemeWithTLAB.MAXSIM_ALLOCATION_PROFILE_BUFFER.store(etla, Pointer.zero());
+        Memory.deallocate(buffer);
+    }
+
+    /**
+     * VM operation flushing allocation profile buffers of all threads.
+     */
+    private static final class FlushAllocationProfileBuffersOperation extends VmOperation {
+
+        FlushAllocationProfileBuffersOperation() {
+            super("MaxSimFlushAllocationProfileBuffers", null, Mode.Safepoint);
+        }
+
+        @Override
+        protected void doThread(VmThread vmThread, Pointer ip, Pointer sp, Pointer fp) {
+            flushAllocationProfileBuffer(ETLA.load(vmThread.tla()));
+        }
+
+        @Override
+        protected void doIt() {
+            super.doIt();
+            flushAllocationProfileBuffer(ETLA.load(currentTLA()));
+        }
+    }
+
+    /**
+     * Reports the buffered object allocation records of all threads to ZSim. Must be done before profile collection
+     * is disabled, reset or printed, so that no record is lost or attributed to the wrong profile.
+     */
+    public static void flushAllAllocationProfileBuffers() {
+        if (!MaxSimPlatform.isMaxSimBatchAllocationProfiling()) {
+            return;
+        }
+        new FlushAllocationProfileBuffersOperation().submit();
+    }
+
     @INLINE
     public static void enableProfileCollection(int maxineVMOperationMode) {
         if (!MaxSimInterfaceHelpers.isTaggingEnabled() || !MaxSimPlatform.isMaxSimProfiling()) {
@@ -152,6 +250,7 @@ public class MaxSimMediator {
         if (!MaxSimInterfaceHelpers.isTaggingEnabled() || !MaxSimPlatform.isMaxSimProfiling()) {
             return;
         }
+        flushAllAllocationProfileBuffers();
         maxsimMagicOp(Address.fromLong(MaxSimInterface.MaxSimMagicOpcodes.MAXSIM_M_OPC_DISABLE_PROFILE_COLLECTION_VALUE),
             Address.fromInt(maxineVMOperationMode));
     }
@@ -161,6 +260,7 @@ public class MaxSimMediator {
         if (!MaxSimInterfaceHelpers.isTaggingEnabled() || !MaxSimPlatform.isMaxSimProfiling()) {
             return;
         }
+        flushAllAllocationProfileBuffers();
         maxsimMagicOp(Address.fromLong(MaxSimInterface.MaxSimMagicOpcodes.MAXSIM_M_OPC_RESET_PROFILE_COLLECTION_VALUE));
     }
 
@@ -171,12 +271,16 @@ public class MaxSimMediator {
         if (fileName == null || fileName.trim().isEmpty()) {
             fileName = MaxSimPlatform.MaxSimZSimProfileFileName.getValue();
         }
+        flushAllAllocationProfileBuffers();
         MaxSimPlatform.getMaxSimMaxineInfoBuilder().printMaxineInfoToFile(null);
         Pointer cstring = CString.utf8FromJava(fileName.trim());
         maxsimMagicOp(
             Address.fromLong(MaxSimInterface.MaxSimMagicOpcodes.MAXSIM_M_OPC_PRINT_PROFILE_TO_FILE_VALUE),
             cstring.asAddress());
         Memory.deallocate(cstring);
+        if (MaxSimPlatform.MaxSimMonitorContentionProfiling) {
+            JavaMonitorManager.printContentionProfileToFile(fileName.trim() + ".monitors");
+        }
     }
 
     @INLINE
@@ -203,6 +307,13 @@ public class MaxSimMediator {
         maxsim_j_activate_data_trans_via_addr_space_morph(dataTransInfoMessageBegin.toLong(), dataTransInfoMessageEnd.toLong());
     }
 
+    public static void activateDataTransBatchViaAddrSpaceMorph(byte [] dataTransDBMessage) {
+        Pointer byteArrayPointer = Reference.fromJava(dataTransDBMessage).toOrigin().tagClear();
+        Pointer dataTransDBMessageBegin = byteArrayPointer.plus(Layout.byteArrayLayout().getElementOffsetFromOrigin(0).toInt());
+        Pointer dataTransDBMessageEnd = dataTransDBMessageBegin.plus(dataTransDBMessage.length);
+        maxsim_j_activate_data_trans_batch_via_addr_space_morph(dataTransDBMessageBegin.toLong(), dataTransDBMessageEnd.toLong());
+    }
+
     public static void reportAllocationFrontierAddressRanges() {
         for (TargetMethod tm : MaxineVM.vm().compilationBroker.optimizingCompiler.getAllocationFrontierMethods()) {
             maxsim_j_register_address_range(tm.start().toLong(), tm.end().toLong(),
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2017, Andrey Rodchenko, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package com.sun.max.vm.maxsim;
+
+import com.sun.max.memory.Memory;
+import com.sun.max.unsafe.*;
+import com.sun.max.vm.VMConfiguration;
+import com.sun.max.vm.heap.CellRangeVisitor;
+import com.sun.max.vm.heap.CellVisitor;
+import com.sun.max.vm.heap.GCWorkerThreads;
+import com.sun.max.vm.heap.HeapScheme;
+import com.sun.max.vm.heap.PointerIndexVisitor;
+import com.sun.max.vm.heap.debug.DebugHeap;
+import com.sun.max.vm.thread.VmThread;
+import com.sun.max.vm.thread.VmThreadLocal;
+import com.sun.max.vm.thread.VmThreadMap;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parallel MaxSim (un)tagger.
+ *
+ * The work of a pointer (un)tagging operation is split into the roots of individual threads and the disjoint chunks of
+ * the heap given by {@link HeapScheme#walkHeapRanges(CellRangeVisitor)}, so that the heap is not walked before the
+ * parallel phase. The work items are claimed by the {@linkplain GCWorkerThreads GC worker threads} and by the VM
+ * operation thread, which runs the tagger as a GC worker task.
+ *
+ * GC worker threads are not frozen by the (un)tagging operation. Their roots are (un)tagged at the end of the
+ * operation, when they are idle again and their stack reference maps have been prepared.
+ */
+final class MaxSimParallelTagger implements GCWorkerThreads.Task {
+
+    /**
+     * Index of the next work item to be claimed.
+     */
+    private final AtomicInteger nextWorkItem = new AtomicInteger();
+
+    /**
+     * Native array of thread locals areas of the threads which roots should be (un)tagged.
+     */
+    private Pointer roots = Pointer.zero();
+
+    private int rootsNum;
+
+    private int rootsCapacity;
+
+    /**
+     * Native array of [begin, end) pairs of heap chunks.
+     */
+    private Pointer chunks = Pointer.zero();
+
+    private int chunksNum;
+
+    private int chunksCapacity;
+
+    /**
+     * Cell visitor used to (un)tag heap chunks.
+     */
+    private CellVisitor cellVisitor;
+
+    /**
+     * Pointer index visitor used to (un)tag roots.
+     */
+    private PointerIndexVisitor pointerIndexVisitor;
+
+    /**
+     * Collects roots and heap chunks to be (un)tagged.
+     */
+    void prepare(CellVisitor cellVisitor, PointerIndexVisitor pointerIndexVisitor) {
+        this.cellVisitor = cellVisitor;
+        this.pointerIndexVisitor = pointerIndexVisitor;
+        rootsNum = 0;
+        chunksNum = 0;
+        VmThreadMap.ACTIVE.forAllThreadLocals(rootsPredicate, rootsCollector);
+        VMConfiguration.vmConfig().heapScheme().walkHeapRanges(chunksCollector);
+        nextWorkItem.set(0);
+    }
+
+    /**
+     * Claims and does work items until there are no more of them.
+     */
+    public void run(int workerIndex) {
+        final int workItemsNum = rootsNum + chunksNum;
+        int workItem = nextWorkItem.getAndIncrement();
+        while (workItem < workItemsNum) {
+            if (workItem < rootsNum) {
+                VmThreadLocal.scanReferences(roots.getWord(workItem).asPointer(), pointerIndexVisitor);
+            } else {
+                visitChunk(workItem - rootsNum);
+            }
+            workItem = nextWorkItem.getAndIncrement();
+        }
+    }
+
+    /**
+     * (Un)tags the roots of the GC worker threads. Must be called after the tagger has been run by the GC worker
+     * threads, which are then idle with prepared stack reference maps.
+     */
+    void finish() {
+        VmThreadMap.ACTIVE.forAllThreadLocals(workersPredicate, workerRootsTagger);
+        cellVisitor = null;
+        pointerIndexVisitor = null;
+    }
+
+    /**
+     * (Un)tags cells of a heap chunk. Unused space between cells is either zeroed or padded.
+     */
+    private void visitChunk(int chunk) {
+        final Pointer begin = chunks.getWord(2 * chunk).asPointer();
+        final Pointer end = chunks.getWord(2 * chunk + 1).asPointer();
+        Pointer cell = begin;
+        while (cell.lessThan(end)) {
+            if (cell.getWord().isZero()) {
+                cell = cell.plusWords(1);
+                continue;
+            }
+            cell = DebugHeap.skipCellPadding(cell);
+            if (cell.greaterEqual(end)) {
+                break;
+            }
+            cell = DebugHeap.checkDebugCellTag(begin, cell);
+            cell = cellVisitor.visitCell(cell);
+        }
+    }
+
+    /**
+     * Predicate selecting threads which roots are (un)tagged as work items. The roots of the VM operation thread are
+     * (un)tagged by the VM operation thread itself, since its stack is changing during the operation.
+     */
+    private final Pointer.Predicate rootsPredicate = new Pointer.Predicate() {
+        public boolean evaluate(Pointer tla) {
+            final VmThread vmThread = VmThread.fromTLA(tla);
+            return (vmThread == null || !vmThread.isVmOperationThread()) && !GCWorkerThreads.isWorker(vmThread);
+        }
+    };
+
+    /**
+     * Predicate selecting the GC worker threads.
+     */
+    private final Pointer.Predicate workersPredicate = new Pointer.Predicate() {
+        public boolean evaluate(Pointer tla) {
+            return GCWorkerThreads.isWorker(VmThread.fromTLA(tla));
+        }
+    };
+
+    /**
+     * Procedure (un)tagging the roots of a thread.
+     */
+    private final Pointer.Procedure workerRootsTagger = new Pointer.Procedure() {
+        public void run(Pointer tla) {
+            VmThreadLocal.scanReferences(tla, pointerIndexVisitor);
+        }
+    };
+
+    /**
+     * Procedure collecting thread locals areas of threads.
+     */
+    private final Pointer.Procedure rootsCollector = new Pointer.Procedure() {
+        public void run(Pointer tla) {
+            if (rootsNum == rootsCapacity) {
+                rootsCapacity = Math.max(16, rootsCapacity * 2);
+                roots = grow(roots, rootsCapacity);
+            }
+            roots.setWord(rootsNum, tla);
+            rootsNum++;
+        }
+    };
+
+    /**
+     * Procedure collecting non-empty heap chunks.
+     */
+    private final CellRangeVisitor chunksCollector = new CellRangeVisitor() {
+        public void visitCells(Address start, Address end) {
+            if (start.greaterEqual(end)) {
+                return;
+            }
+            if (chunksNum == chunksCapacity) {
+                chunksCapacity = Math.max(256, chunksCapacity * 2);
+                chunks = grow(chunks, 2 * chunksCapacity);
+            }
+            chunks.setWord(2 * chunksNum, start);
+            chunks.setWord(2 * chunksNum + 1, end);
+            chunksNum++;
+        }
+    };
+
+    /**
+     * Grows a native array of words.
+     */
+    private static Pointer grow(Pointer array, int capacity) {
+        final Size size = Size.fromInt(capacity).times(Word.size());
+        return array.isZero() ? Memory.mustAllocate(size) : Memory.reallocate(array, size);
+    }
+}
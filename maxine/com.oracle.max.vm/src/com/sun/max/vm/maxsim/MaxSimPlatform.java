@@ -26,6 +26,7 @@ package com.sun.max.vm.maxsim;
 
 import com.sun.max.annotate.INLINE;
 import com.sun.max.unsafe.Address;
+import com.sun.max.vm.Log;
 import com.sun.max.vm.MaxineVM;
 import com.sun.max.vm.VMOptions;
 import com.sun.max.vm.VMStringOption;
@@ -84,6 +85,7 @@ public class MaxSimPlatform {
             MaxSimMediator.reportHubTypeOffsetToZSim();
             MaxSimMediator.reportArrayFirstElemOffsetToZSim();
             MaxSimMediator.reportAllocationFrontierAddressRanges();
+            checkBatchAllocationProfilingConfiguration();
             isMaxineParamReported = true;
         }
 
@@ -113,6 +115,19 @@ public class MaxSimPlatform {
         }
     }
 
+    /**
+     * Checks the validity of batched allocation profiling options, which are known only at run time.
+     */
+    private static void checkBatchAllocationProfilingConfiguration() {
+        if (!MaxSimBatchAllocationProfiling) {
+            return;
+        }
+        FatalError.check(MaxSimAllocationProfileBufferSize > 0, "MaxSimAllocationProfileBufferSize must be positive.");
+        if (!MaxSimInterfaceHelpers.isAllocationSiteIDTagging()) {
+            Log.println("WARNING: MaxSimBatchAllocationProfiling requires allocation site ID tagging, allocations are reported individually.");
+        }
+    }
+
     /**
      * Instructs MaxSim to enter fast forwarding mode.
      */
@@ -181,6 +196,19 @@ public class MaxSimPlatform {
         return MaxSimInterfaceHelpers.isMaxSimEnabled() && MaxSimProfiling;
     }
 
+    /**
+     * Indicates whether object allocations are reported to ZSim in per-thread batches. Batching is supported only with
+     * allocation site ID tagging, since with class ID tagging ZSim estimates the allocation site from the stack of the
+     * thread at the moment the allocation is reported.
+     * <p>
+     * Only the allocation records are batched. The allocation site estimation that gives an allocated object its tag
+     * still takes one magic operation per allocation, so batching halves the number of magic operations per allocation.
+     */
+    @INLINE
+    public static boolean isMaxSimBatchAllocationProfiling() {
+        return MaxSimBatchAllocationProfiling && MaxSimInterfaceHelpers.isAllocationSiteIDTagging() && isMaxSimProfiling();
+    }
+
     /**
      * Get MaxSim Maxine information builder.
      */
@@ -211,6 +239,24 @@ public class MaxSimPlatform {
             "Enables MaxSim profiling (default: false).", MaxineVM.Phase.PRISTINE);
     }
 
+    public static boolean MaxSimBatchAllocationProfiling;
+    static {
+        VMOptions.addFieldOption("-XX:", "MaxSimBatchAllocationProfiling", MaxSimPlatform.class,
+            "Makes MaxSim report object allocations in per-thread batches (default: false).", MaxineVM.Phase.PRISTINE);
+    }
+
+    public static boolean MaxSimMonitorContentionProfiling;
+    static {
+        VMOptions.addFieldOption("-XX:", "MaxSimMonitorContentionProfiling", MaxSimPlatform.class,
+            "Makes MaxSim print the contention counters of inflated monitors along with the profile (default: false).", MaxineVM.Phase.PRISTINE);
+    }
+
+    public static int MaxSimAllocationProfileBufferSize = 1024;
+    static {
+        VMOptions.addFieldOption("-XX:", "MaxSimAllocationProfileBufferSize", MaxSimPlatform.class,
+            "Number of object allocation records buffered per thread in batched allocation profiling (default: 1024).", MaxineVM.Phase.PRISTINE);
+    }
+
     public static boolean MaxSimExitFFOnVMEnter;
     static {
         VMOptions.addFieldOption("-XX:", "MaxSimExitFFOnVMEnter", MaxSimPlatform.class,
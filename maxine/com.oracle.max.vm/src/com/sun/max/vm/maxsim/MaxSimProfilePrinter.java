@@ -23,11 +23,16 @@ import com.sun.max.program.option.Option;
 import com.sun.max.program.option.OptionSet;
 
 import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
 
 public class MaxSimProfilePrinter {
 
@@ -41,6 +46,14 @@ public class MaxSimProfilePrinter {
         MaxSimProfileRepresentation.getMaxineInfoDBOptionName(), null,
         MaxSimProfileRepresentation.getMaxineInfoDBOptionHelp());
 
+    private static final Option<Boolean> StreamingLoadOption = options.newBooleanOption(
+        MaxSimProfileRepresentation.getStreamingLoadOptionName(), false,
+        MaxSimProfileRepresentation.getStreamingLoadOptionHelp());
+
+    private static final Option<Integer> ParallelismOption = options.newIntegerOption(
+        "Parallelism", 1, "Number of fork/join worker threads used to sort and aggregate profiling information " +
+        "(1 means sequential printing).");
+
     private static final Option<String> OutputFileNameOption = options.newStringOption(
         "o", "maxsim-prof.txt", "Output file name.");
 
@@ -114,7 +127,22 @@ public class MaxSimProfilePrinter {
 
     private final static String nullCheckFieldName = new String("<nc>");
 
-    private static final DecimalFormat decimalFormat = new DecimalFormat("#.00");
+    private static final ThreadLocal<DecimalFormat> decimalFormat = new ThreadLocal<DecimalFormat>() {
+        @Override
+        protected DecimalFormat initialValue() {
+            return new DecimalFormat("#.00");
+        }
+    };
+
+    /**
+     * Number of shards per fork/join worker thread.
+     */
+    private static final int SHARDS_PER_WORKER = 4;
+
+    /**
+     * Number of elements below which parallel sorting falls back to the sequential one.
+     */
+    private static final int PARALLEL_SORT_THRESHOLD = 1 << 13;
 
     private final MaxSimInterfaceComparators.ClassProfSortingType classProfSortingType =
             MaxSimInterfaceComparators.ClassProfSortingType.MemFootprintDescendingOrder;
@@ -133,12 +161,23 @@ public class MaxSimProfilePrinter {
 
     private final MaxSimProfileRepresentation MaxSimProfRep = new MaxSimProfileRepresentation();
 
-    private long taggedGPObjMemFootprint = 0;
-    private long taggedGPObjMemAllCount = 0;
-    private long taggedGPObjMemAccCount = 0;
-    private long taggedGPObjReadCount = 0;
-    private long taggedGPObjWriteCount = 0;
-    private long [] taggedGPObjCacheRWGroupMissCount;
+    private final int parallelism;
+
+    private ForkJoinPool forkJoinPool;
+
+    private TaggedGPObjStats taggedGPObjStats;
+
+    public MaxSimProfilePrinter() {
+        this(1);
+    }
+
+    /**
+     * Creates the printer, which sorts and aggregates profiling information on the specified number of fork/join
+     * worker threads.
+     */
+    public MaxSimProfilePrinter(int parallelism) {
+        this.parallelism = Math.max(parallelism, 1);
+    }
 
     public static void main(String[] programArguments) {
         options.parseArguments(programArguments);
@@ -147,8 +186,9 @@ public class MaxSimProfilePrinter {
             return;
         }
 
-        MaxSimProfilePrinter maxsimProfilePrinter = new MaxSimProfilePrinter();
-        maxsimProfilePrinter.loadAndPrint(ZSimProfileDBOption.getValue(), MaxineInfoDBOption.getValue());
+        MaxSimProfilePrinter maxsimProfilePrinter = new MaxSimProfilePrinter(ParallelismOption.getValue());
+        maxsimProfilePrinter.loadAndPrint(ZSimProfileDBOption.getValue(), MaxineInfoDBOption.getValue(),
+            StreamingLoadOption.getValue());
 
         return;
     }
@@ -157,7 +197,14 @@ public class MaxSimProfilePrinter {
      * Loads and prints profiling information.
      */
     public void loadAndPrint(String zsimProfileDBFileName, String maxineInfoDBFileName) {
-        MaxSimProfRep.loadZSimProfileAndMaxineInfoDBs(zsimProfileDBFileName, maxineInfoDBFileName);
+        loadAndPrint(zsimProfileDBFileName, maxineInfoDBFileName, false);
+    }
+
+    /**
+     * Loads (optionally in streaming mode) and prints profiling information.
+     */
+    public void loadAndPrint(String zsimProfileDBFileName, String maxineInfoDBFileName, boolean streaming) {
+        MaxSimProfRep.loadZSimProfileAndMaxineInfoDBs(zsimProfileDBFileName, maxineInfoDBFileName, streaming);
         if (MaxSimProfRep.isProfileLoaded()) {
             try {
                 PrintWriter maxsimProfOut = new PrintWriter(OutputFileNameOption.getValue());
@@ -178,14 +225,36 @@ public class MaxSimProfilePrinter {
      */
     private void printAllocSiteProfs(PrintWriter maxsimProfOut) {
         ArrayList<MaxSimInterface.AllocSiteProf> allocSiteProfs =
-            new ArrayList<MaxSimInterface.AllocSiteProf>(MaxSimProfRep.getZSimProfileDB().getAllocSiteProfList());
+            new ArrayList<MaxSimInterface.AllocSiteProf>(MaxSimProfRep.getAllocSiteProfList());
 
         Comparator<MaxSimInterface.AllocSiteProf> allocationSiteProfComparator =
              MaxSimInterfaceComparators.getAllocSiteProfComparatorBySortingType(allocSiteProfSortingType);
 
-        Collections.sort(allocSiteProfs, allocationSiteProfComparator);
+        sort(allocSiteProfs, allocationSiteProfComparator);
 
         maxsimProfOut.println("=== Allocation Sites ===");
+        if (forkJoinPool != null) {
+            ArrayList<PrintShardTask> shards = new ArrayList<PrintShardTask>();
+            for (final List<MaxSimInterface.AllocSiteProf> shard : split(allocSiteProfs)) {
+                shards.add(new PrintShardTask() {
+                    @Override
+                    void printShard(PrintWriter shardOut) {
+                        printAllocSiteProfsFromList(shardOut, shard);
+                    }
+                });
+            }
+            printShards(maxsimProfOut, shards);
+        } else {
+            printAllocSiteProfsFromList(maxsimProfOut, allocSiteProfs);
+        }
+        maxsimProfOut.println("");
+    }
+
+    /**
+     * Prints allocation site profiling information from a list.
+     */
+    private void printAllocSiteProfsFromList(PrintWriter maxsimProfOut,
+                                             List<MaxSimInterface.AllocSiteProf> allocSiteProfs) {
         for (MaxSimInterface.AllocSiteProf allocationSiteEntry : allocSiteProfs) {
             int id = allocationSiteEntry.getId();
             long ip = allocationSiteEntry.getIP();
@@ -203,7 +272,6 @@ public class MaxSimProfilePrinter {
             maxsimProfOut.print(countShortName + ":" + allocationSiteEntry.getCount());
             maxsimProfOut.println(")");
         }
-        maxsimProfOut.println("");
     }
 
     /**
@@ -290,32 +358,54 @@ public class MaxSimProfilePrinter {
      * Prints cache misses information.
      */
     private void printCacheMisses(PrintWriter maxsimProfOut) {
-        for (int i = 0; i < MaxSimProfRep.getZSimProfileDB().getCacheRWGroupMissProfCount(); i++) {
-            MaxSimInterface.CacheRWGroupInfo cacheRWGroupInfo = MaxSimProfRep.getCacheRWGroupInfoById(i);
+        if (forkJoinPool != null) {
+            // cache read/write groups are sharded, so that each of them is parsed, sorted and printed by a worker
+            ArrayList<PrintShardTask> shards = new ArrayList<PrintShardTask>();
+            for (int i = 0; i < MaxSimProfRep.getCacheRWGroupMissProfCount(); i++) {
+                final int cacheRWGroupId = i;
+                shards.add(new PrintShardTask() {
+                    @Override
+                    void printShard(PrintWriter shardOut) {
+                        printCacheRWGroupMisses(shardOut, cacheRWGroupId);
+                    }
+                });
+            }
+            printShards(maxsimProfOut, shards);
+        } else {
+            for (int i = 0; i < MaxSimProfRep.getCacheRWGroupMissProfCount(); i++) {
+                printCacheRWGroupMisses(maxsimProfOut, i);
+            }
+        }
+    }
+
+    /**
+     * Prints cache misses information of a cache read/write group.
+     */
+    private void printCacheRWGroupMisses(PrintWriter maxsimProfOut, int cacheRWGroupId) {
+        MaxSimInterface.CacheRWGroupInfo cacheRWGroupInfo = MaxSimProfRep.getCacheRWGroupInfoById(cacheRWGroupId);
 
-            MaxSimInterface.CacheRWGroupMissProf cacheRWGroupMissProfEntry =
-                MaxSimProfRep.getZSimProfileDB().getCacheRWGroupMissProf(i);
+        MaxSimInterface.CacheRWGroupMissProf cacheRWGroupMissProfEntry =
+            MaxSimProfRep.getCacheRWGroupMissProf(cacheRWGroupId);
 
-            ArrayList<MaxSimInterface.CacheMissProf> cacheMissProfList =
-                new ArrayList<MaxSimInterface.CacheMissProf>(cacheRWGroupMissProfEntry.getCacheMissProfList());
+        ArrayList<MaxSimInterface.CacheMissProf> cacheMissProfList =
+            new ArrayList<MaxSimInterface.CacheMissProf>(cacheRWGroupMissProfEntry.getCacheMissProfList());
 
-            Comparator<MaxSimInterface.CacheMissProf> cacheMissEntryComparator =
-                MaxSimInterfaceComparators.getCacheMissProfComparatorBySortingType(cacheMissProfSortingType);
+        Comparator<MaxSimInterface.CacheMissProf> cacheMissEntryComparator =
+            MaxSimInterfaceComparators.getCacheMissProfComparatorBySortingType(cacheMissProfSortingType);
 
-            Collections.sort(cacheMissProfList, cacheMissEntryComparator);
+        Collections.sort(cacheMissProfList, cacheMissEntryComparator);
 
-            maxsimProfOut.println("=== " + cacheRWGroupInfo.getCacheGroupName() +
-                (cacheRWGroupInfo.getIsWrite() ? writeShortName : readShortName) + " Cache Misses ===");
-            printCacheMissInfoFromList(maxsimProfOut, cacheMissProfList);
-            maxsimProfOut.println("");
-        }
+        maxsimProfOut.println("=== " + cacheRWGroupInfo.getCacheGroupName() +
+            (cacheRWGroupInfo.getIsWrite() ? writeShortName : readShortName) + " Cache Misses ===");
+        printCacheMissInfoFromList(maxsimProfOut, cacheMissProfList);
+        maxsimProfOut.println("");
     }
 
     /**
      * Prints boot code region information.
      */
     private void printBootCodeRegInfo(PrintWriter maxsimProfOut) {
-        MaxSimInterface.MethodInfo bootCodeRegion = MaxSimProfRep.getMaxineInfoDB().getBootCodeRegInfo();
+        MaxSimInterface.MethodInfo bootCodeRegion = MaxSimProfRep.getBootCodeRegInfo();
         long begIP = bootCodeRegion.getBeginIP();
         long endIP = bootCodeRegion.getBeginIP() + bootCodeRegion.getSize();
         maxsimProfOut.println(bootCodeRegion.getName() + "(" +
@@ -327,17 +417,16 @@ public class MaxSimProfilePrinter {
      * Prints dump eventual statistics information.
      */
     private void printDumpEventStatInfo(PrintWriter maxsimProfOut) {
-        MaxSimInterface.ZSimProfDB zsimProfDB = MaxSimProfRep.getZSimProfileDB();
         maxsimProfOut.println("DumpEventualStats" + "(" +
-            begShortName + ":" + zsimProfDB.getDumpEventualStatsBeg() + " " +
-            endShortName + ":" + zsimProfDB.getDumpEventualStatsEnd() + ")");
+            begShortName + ":" + MaxSimProfRep.getDumpEventualStatsBeg() + " " +
+            endShortName + ":" + MaxSimProfRep.getDumpEventualStatsEnd() + ")");
     }
 
     /**
      * Prints data transformation information.
      */
     private void printMaxSimDataTransInfo(PrintWriter maxsimProfOut) {
-        for (MaxSimInterface.DataTransInfo dataTransInfo : MaxSimProfRep.getMaxineInfoDB().getDataTransInfoList()) {
+        for (MaxSimInterface.DataTransInfo dataTransInfo : MaxSimProfRep.getDataTransInfoList()) {
             maxsimProfOut.print("DataTansInfo(" + classIdShortName + ":" + dataTransInfo.getTransTag());
             for (MaxSimInterface.FieldOffsetRemapPair fieldOffRemPair : dataTransInfo.getFieldOffsetRemapPairsList()) {
                 maxsimProfOut.print(" " + offsetShortName + ":" + fieldOffRemPair.getFromOffset() + "->" +
@@ -351,14 +440,21 @@ public class MaxSimProfilePrinter {
      * Initializes printing.
      */
     private void printInit() {
-        taggedGPObjCacheRWGroupMissCount = new long [MaxSimProfRep.getCacheRWGroupsNum()];
+        taggedGPObjStats = new TaggedGPObjStats(MaxSimProfRep.getCacheRWGroupsNum());
+        if (parallelism > 1) {
+            forkJoinPool = new ForkJoinPool(parallelism);
+        }
     }
 
     /**
      * Finalizes printing.
      */
     private void printFini() {
-        taggedGPObjCacheRWGroupMissCount = null;
+        taggedGPObjStats = null;
+        if (forkJoinPool != null) {
+            forkJoinPool.shutdown();
+            forkJoinPool = null;
+        }
     }
 
     /**
@@ -366,29 +462,32 @@ public class MaxSimProfilePrinter {
      */
     private void print(PrintWriter maxsimProfOut) {
         printInit();
-        printClassProfInfo(maxsimProfOut);
-        printAllocSiteProfs(maxsimProfOut);
-        printCacheMisses(maxsimProfOut);
-        printFini();
+        try {
+            printClassProfInfo(maxsimProfOut);
+            printAllocSiteProfs(maxsimProfOut);
+            printCacheMisses(maxsimProfOut);
+        } finally {
+            printFini();
+        }
     }
 
     /**
      * Prints tagged GP object summary information.
      */
-    private void printTaggedGPObjSummaryInfo(PrintWriter maxsimProfOut) {
+    private void printTaggedGPObjSummaryInfo(PrintWriter maxsimProfOut, TaggedGPObjStats stats) {
         maxsimProfOut.print("TaggedGPMemoryAccesses.Overall" + "(" +
-            memFootprintShortName + ":" + taggedGPObjMemFootprint + " " +
-            memAllCountShortName + ":" + taggedGPObjMemAllCount + " " +
-            memAccCountShortName + ":" + taggedGPObjMemAccCount + " " +
+            memFootprintShortName + ":" + stats.memFootprint + " " +
+            memAllCountShortName + ":" + stats.memAllCount + " " +
+            memAccCountShortName + ":" + stats.memAccCount + " " +
             memAccCountShortName + "/" + memFootprintShortName + ":" +
-            decimalFormat.format((double) taggedGPObjMemAccCount / (double) taggedGPObjMemFootprint) + " " +
-            readShortName + ":" + taggedGPObjReadCount + " " +
-            writeShortName + ":" + taggedGPObjWriteCount);
+            decimalFormat.get().format((double) stats.memAccCount / (double) stats.memFootprint) + " " +
+            readShortName + ":" + stats.readCount + " " +
+            writeShortName + ":" + stats.writeCount);
 
         for (int i = 0; i < MaxSimProfRep.getCacheRWGroupsNum(); i++) {
             MaxSimInterface.CacheRWGroupInfo info = MaxSimProfRep.getCacheRWGroupInfoById(i);
             maxsimProfOut.print(" " + info.getCacheGroupName() + (info.getIsWrite() ? writeShortName : readShortName) +
-                missCountShortName + ":" + taggedGPObjCacheRWGroupMissCount[i]);
+                missCountShortName + ":" + stats.cacheRWGroupMissCount[i]);
         }
         maxsimProfOut.println(")");
     }
@@ -418,12 +517,12 @@ public class MaxSimProfilePrinter {
      */
     private void printFieldProfName(PrintWriter maxsimProfOut,
                                     MaxSimInterface.FieldProf fieldProf,
-                                    MaxSimInterface.ClassInfo classInfo) {
+                                    MaxSimInterface.ClassInfo classInfo,
+                                    MaxSimInterface.FieldInfo fieldInfo) {
         if (classInfo != null) {
-            MaxSimInterface.FieldInfo fieldInfo = MaxSimProfRep.getFieldInfoByOffset(classInfo, fieldProf.getOffset());
             if (fieldInfo != null) {
                 maxsimProfOut.print(fieldInfo.getName());
-            } else if (fieldProf.getOffset() == MaxSimProfRep.getMaxineInfoDB().getNullCheckOffset()) {
+            } else if (fieldProf.getOffset() == MaxSimProfRep.getNullCheckOffset()) {
                 maxsimProfOut.print(nullCheckFieldName);
             }
         }
@@ -462,7 +561,8 @@ public class MaxSimProfilePrinter {
      */
     private void printFieldProfList(PrintWriter maxsimProfOut,
                                     MaxSimInterface.ClassProf classProf,
-                                    ArrayList<MaxSimInterface.FieldProf> fieldProfArrayList) {
+                                    ArrayList<MaxSimInterface.FieldProf> fieldProfArrayList,
+                                    TaggedGPObjStats stats) {
         int classEntryId = classProf.getId();
         long memAccCount = classProf.getMemAccCount();
         boolean isTaggedGPClass = !MaxSimInterfaceHelpers.isAggregateTag((short) classEntryId);
@@ -480,16 +580,16 @@ public class MaxSimProfilePrinter {
             }
 
             if (isTaggedGPClass || (MaxSimInterface.PointerTag.TAG_UNDEFINED_GP_VALUE == classEntryId)) {
-                taggedGPObjReadCount += readCount;
-                taggedGPObjWriteCount += writeCount;
+                stats.readCount += readCount;
+                stats.writeCount += writeCount;
 
                 for (int i = 0; i < MaxSimProfRep.getCacheRWGroupsNum(); i++) {
-                    taggedGPObjCacheRWGroupMissCount[i] += fieldCacheRWGroupMissCount[i];
+                    stats.cacheRWGroupMissCount[i] += fieldCacheRWGroupMissCount[i];
                 }
             }
 
             maxsimProfOut.print(" ");
-            printFieldProfName(maxsimProfOut, fieldEntry, classInfo);
+            printFieldProfName(maxsimProfOut, fieldEntry, classInfo, fieldInfo);
 
             maxsimProfOut.print("(" +
                 offsetShortName + ":" + fieldEntry.getOffset());
@@ -504,7 +604,7 @@ public class MaxSimProfilePrinter {
                     fieldCacheRWGroupMissCount[i]);
             }
             maxsimProfOut.print(" " + frequencyShortName + ":" +
-                decimalFormat.format((double) readAndWriteCount / (double) memAccCount));
+                decimalFormat.get().format((double) readAndWriteCount / (double) memAccCount));
             maxsimProfOut.print(")");
         }
     }
@@ -512,7 +612,8 @@ public class MaxSimProfilePrinter {
     /**
      * Prints tagged aggregate class profiling information.
      */
-    private void printTaggedAggregateClassProf(PrintWriter maxsimProfOut, MaxSimInterface.ClassProf classProf) {
+    private void printTaggedAggregateClassProf(PrintWriter maxsimProfOut, MaxSimInterface.ClassProf classProf,
+                                               TaggedGPObjStats stats) {
         int classEntryId = classProf.getId();
         short tag = (short) classEntryId;
         long memoryFootprint = classProf.getMemAllSize();
@@ -520,9 +621,9 @@ public class MaxSimProfilePrinter {
         long memAllCount = classProf.getMemAllCount();
 
         if (MaxSimInterface.PointerTag.TAG_UNDEFINED_GP_VALUE == tag) {
-            taggedGPObjMemFootprint += memoryFootprint;
-            taggedGPObjMemAccCount += memAccCount;
-            taggedGPObjMemAllCount += memAllCount;
+            stats.memFootprint += memoryFootprint;
+            stats.memAccCount += memAccCount;
+            stats.memAllCount += memAllCount;
         }
 
         ArrayList<MaxSimInterface.AllocProf> memAllocProfArrayList =
@@ -551,13 +652,13 @@ public class MaxSimProfilePrinter {
             printAllocProfList(maxsimProfOut, memAllocProfArrayList);
             maxsimProfOut.print(" " + memAccCountShortName + ":" + memAccCount);
             maxsimProfOut.print(" " + memAccCountShortName + "/" + memFootprintShortName + ":" +
-                decimalFormat.format((double) memAccCount / (double) memoryFootprint) + " ");
+                decimalFormat.get().format((double) memAccCount / (double) memoryFootprint) + " ");
         } else {
             maxsimProfOut.print(memAccCountShortName + ":" + memAccCount + " ");
         }
         printCacheMissSummaryForFieldProfList(maxsimProfOut, fieldProfArrayList);
         maxsimProfOut.print(")" + ":");
-        printFieldProfList(maxsimProfOut, classProf, fieldProfArrayList);
+        printFieldProfList(maxsimProfOut, classProf, fieldProfArrayList, stats);
     }
 
     /**
@@ -641,14 +742,15 @@ public class MaxSimProfilePrinter {
     /**
      * Prints tagged GP class profiling information.
      */
-    private void printTaggedGPClassProf(PrintWriter maxsimProfOut, MaxSimInterface.ClassProf classProf) {
+    private void printTaggedGPClassProf(PrintWriter maxsimProfOut, MaxSimInterface.ClassProf classProf,
+                                        TaggedGPObjStats stats) {
         long memoryFootprint = classProf.getMemAllSize();
         long memAccCount = classProf.getMemAccCount();
         long memAllCount = classProf.getMemAllCount();
 
-        taggedGPObjMemFootprint += memoryFootprint;
-        taggedGPObjMemAccCount += memAccCount;
-        taggedGPObjMemAllCount += memAllCount;
+        stats.memFootprint += memoryFootprint;
+        stats.memAccCount += memAccCount;
+        stats.memAllCount += memAllCount;
 
         ArrayList<MaxSimInterface.AllocProf> memAllocProfArrayList =
             new ArrayList<MaxSimInterface.AllocProf>(classProf.getAllocProfList());
@@ -673,31 +775,33 @@ public class MaxSimProfilePrinter {
         printAllocProfList(maxsimProfOut, memAllocProfArrayList);
         maxsimProfOut.print(" " + memAccCountShortName + ":" + memAccCount);
         maxsimProfOut.print(" " + memAccCountShortName + "/" + memFootprintShortName + ":" +
-            decimalFormat.format((double) memAccCount / (double) memoryFootprint) + " ");
+            decimalFormat.get().format((double) memAccCount / (double) memoryFootprint) + " ");
         printCacheMissSummaryForFieldProfList(maxsimProfOut, fieldProfArrayList);
         maxsimProfOut.print("):");
-        printFieldProfList(maxsimProfOut, classProf, fieldProfArrayList);
+        printFieldProfList(maxsimProfOut, classProf, fieldProfArrayList, stats);
     }
 
     /**
      * Prints class profiling information from a list.
      */
     private void printClassProfInfoFromList(PrintWriter maxsimProfOut,
-                                            ArrayList<MaxSimInterface.ClassProf> classProfArrayList) {
-        for (MaxSimInterface.ClassProf classProf : classProfArrayList) {
-            MaxSimInterface.ClassInfo classInfo = null;
-            int classEntryId = classProf.getId();
-            long memAccCount = classProf.getMemAccCount();
-            long memAllCount = classProf.getMemAllCount();
+                                            List<Integer> classProfIndexArrayList,
+                                            TaggedGPObjStats stats) {
+        for (int classProfIndex : classProfIndexArrayList) {
+            MaxSimInterface.ClassProf classProfSummary = MaxSimProfRep.getClassProfSummary(classProfIndex);
+            int classEntryId = classProfSummary.getId();
+            long memAccCount = classProfSummary.getMemAccCount();
+            long memAllCount = classProfSummary.getMemAllCount();
             short tag = (short) classEntryId;
 
             if (memAccCount == 0 && memAllCount == 0) {
                 continue;
             }
+            MaxSimInterface.ClassProf classProf = MaxSimProfRep.getClassProf(classProfIndex);
             if (MaxSimInterfaceHelpers.isAggregateTag(tag)) {
-                printTaggedAggregateClassProf(maxsimProfOut, classProf);
+                printTaggedAggregateClassProf(maxsimProfOut, classProf, stats);
             } else {
-                printTaggedGPClassProf(maxsimProfOut, classProf);
+                printTaggedGPClassProf(maxsimProfOut, classProf, stats);
             }
             maxsimProfOut.println();
         }
@@ -707,26 +811,187 @@ public class MaxSimProfilePrinter {
      * Prints class profiling information.
      */
     private void printClassProfInfo(PrintWriter maxsimProfOut) {
-        List<MaxSimInterface.ClassProf> classProfList = MaxSimProfRep.getZSimProfileDB().getClassProfList();
+        ArrayList<Integer> classProfIndexArrayList = new ArrayList<Integer>(MaxSimProfRep.getClassProfCount());
 
-        ArrayList<MaxSimInterface.ClassProf> classProfArrayList =
-            new ArrayList<MaxSimInterface.ClassProf>(classProfList);
+        for (int i = 0; i < MaxSimProfRep.getClassProfCount(); i++) {
+            classProfIndexArrayList.add(i);
+        }
 
-        Comparator<MaxSimInterface.ClassProf> classEntryComparator =
+        final Comparator<MaxSimInterface.ClassProf> classEntryComparator =
             MaxSimInterfaceComparators.getClassProfComparatorBySortingType(classProfSortingType);
 
-        Collections.sort(classProfArrayList, classEntryComparator);
+        // class profiling information is sorted by its summaries, as the full one may be parsed lazily
+        sort(classProfIndexArrayList, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer i1, Integer i2) {
+                return classEntryComparator.compare(
+                    MaxSimProfRep.getClassProfSummary(i1), MaxSimProfRep.getClassProfSummary(i2));
+            }
+        });
         maxsimProfOut.println("=== MaxSim Info ===");
         printBootCodeRegInfo(maxsimProfOut);
         printDumpEventStatInfo(maxsimProfOut);
         printMaxSimDataTransInfo(maxsimProfOut);
         maxsimProfOut.println("");
         maxsimProfOut.println("=== Memory Accesses ===");
-        printClassProfInfoFromList(maxsimProfOut, classProfArrayList);
-        printTaggedGPObjSummaryInfo(maxsimProfOut);
+        if (forkJoinPool != null) {
+            // class profiling information is sharded by class (or allocation site) id order, each shard aggregates
+            // tagged GP object statistics separately, and then the statistics are merged
+            ArrayList<PrintShardTask> shards = new ArrayList<PrintShardTask>();
+            final ArrayList<TaggedGPObjStats> shardsStats = new ArrayList<TaggedGPObjStats>();
+            for (final List<Integer> shard : split(classProfIndexArrayList)) {
+                final TaggedGPObjStats shardStats = new TaggedGPObjStats(MaxSimProfRep.getCacheRWGroupsNum());
+                shardsStats.add(shardStats);
+                shards.add(new PrintShardTask() {
+                    @Override
+                    void printShard(PrintWriter shardOut) {
+                        printClassProfInfoFromList(shardOut, shard, shardStats);
+                    }
+                });
+            }
+            printShards(maxsimProfOut, shards);
+            for (TaggedGPObjStats shardStats : shardsStats) {
+                taggedGPObjStats.add(shardStats);
+            }
+        } else {
+            printClassProfInfoFromList(maxsimProfOut, classProfIndexArrayList, taggedGPObjStats);
+        }
+        printTaggedGPObjSummaryInfo(maxsimProfOut, taggedGPObjStats);
         maxsimProfOut.println();
     }
 
+    /**
+     * Sorts the list, in parallel if fork/join pool is available. The sorting is stable in both cases.
+     */
+    private <T> void sort(List<T> list, Comparator<? super T> comparator) {
+        if (forkJoinPool == null || list.size() < PARALLEL_SORT_THRESHOLD) {
+            Collections.sort(list, comparator);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        T [] array = (T []) list.toArray();
+        @SuppressWarnings("unchecked")
+        T [] buffer = (T []) new Object[array.length];
+        forkJoinPool.invoke(new MergeSortTask<T>(array, buffer, 0, array.length, comparator));
+        for (int i = 0; i < array.length; i++) {
+            list.set(i, array[i]);
+        }
+    }
+
+    /**
+     * Splits the list into contiguous shards, which are processed by fork/join worker threads.
+     */
+    private <T> List<List<T>> split(List<T> list) {
+        int shardsNum = parallelism * SHARDS_PER_WORKER;
+        int shardSize = Math.max((list.size() + shardsNum - 1) / shardsNum, 1);
+        ArrayList<List<T>> shards = new ArrayList<List<T>>(shardsNum);
+        for (int begin = 0; begin < list.size(); begin += shardSize) {
+            shards.add(list.subList(begin, Math.min(begin + shardSize, list.size())));
+        }
+        return shards;
+    }
+
+    /**
+     * Forks shard printing tasks and prints their output in the shards order.
+     */
+    private void printShards(PrintWriter maxsimProfOut, List<PrintShardTask> shards) {
+        for (PrintShardTask shard : shards) {
+            forkJoinPool.execute(shard);
+        }
+        for (PrintShardTask shard : shards) {
+            maxsimProfOut.print(shard.join());
+        }
+    }
+
+    /**
+     * Tagged GP object statistics aggregated while printing class profiling information.
+     */
+    private static class TaggedGPObjStats {
+        long memFootprint;
+        long memAllCount;
+        long memAccCount;
+        long readCount;
+        long writeCount;
+        final long [] cacheRWGroupMissCount;
+
+        TaggedGPObjStats(int cacheRWGroupsNum) {
+            cacheRWGroupMissCount = new long [cacheRWGroupsNum];
+        }
+
+        void add(TaggedGPObjStats stats) {
+            memFootprint += stats.memFootprint;
+            memAllCount += stats.memAllCount;
+            memAccCount += stats.memAccCount;
+            readCount += stats.readCount;
+            writeCount += stats.writeCount;
+            for (int i = 0; i < cacheRWGroupMissCount.length; i++) {
+                cacheRWGroupMissCount[i] += stats.cacheRWGroupMissCount[i];
+            }
+        }
+    }
+
+    /**
+     * Task printing a shard of profiling information into a string.
+     */
+    private abstract static class PrintShardTask extends RecursiveTask<String> {
+
+        abstract void printShard(PrintWriter shardOut);
+
+        @Override
+        protected String compute() {
+            StringWriter shardString = new StringWriter();
+            PrintWriter shardOut = new PrintWriter(shardString);
+            printShard(shardOut);
+            shardOut.flush();
+            return shardString.toString();
+        }
+    }
+
+    /**
+     * Stable fork/join merge sort of an array range.
+     */
+    private static class MergeSortTask<T> extends RecursiveAction {
+
+        private final T [] array;
+        private final T [] buffer;
+        private final int begin;
+        private final int end;
+        private final Comparator<? super T> comparator;
+
+        MergeSortTask(T [] array, T [] buffer, int begin, int end, Comparator<? super T> comparator) {
+            this.array = array;
+            this.buffer = buffer;
+            this.begin = begin;
+            this.end = end;
+            this.comparator = comparator;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - begin < PARALLEL_SORT_THRESHOLD) {
+                Arrays.sort(array, begin, end, comparator);
+                return;
+            }
+            int middle = (begin + end) >>> 1;
+            invokeAll(new MergeSortTask<T>(array, buffer, begin, middle, comparator),
+                      new MergeSortTask<T>(array, buffer, middle, end, comparator));
+
+            int i = begin;
+            int j = middle;
+            int k = begin;
+            while (i < middle && j < end) {
+                buffer[k++] = (comparator.compare(array[j], array[i]) < 0) ? array[j++] : array[i++];
+            }
+            while (i < middle) {
+                buffer[k++] = array[i++];
+            }
+            while (j < end) {
+                buffer[k++] = array[j++];
+            }
+            System.arraycopy(buffer, begin, array, begin, end - begin);
+        }
+    }
+
     /**
      * Type and method descriptors printer.
      */
@@ -22,14 +22,32 @@ package com.sun.max.vm.maxsim;
 import com.google.protobuf.CodedInputStream;
 
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 public class MaxSimProfileRepresentation {
 
     private static final int MAX_PROF_DB_SIZE = 1 << 28;
 
+    private static final int ZSIM_PROF_DB_MAX_ALLOC_SITE_PROF_ID_FIELD = 1;
+    private static final int ZSIM_PROF_DB_DUMP_EVENTUAL_STATS_BEG_FIELD = 2;
+    private static final int ZSIM_PROF_DB_DUMP_EVENTUAL_STATS_END_FIELD = 3;
+    private static final int ZSIM_PROF_DB_CACHE_RW_GROUP_INFO_FIELD = 4;
+    private static final int ZSIM_PROF_DB_CLASS_PROF_FIELD = 5;
+    private static final int ZSIM_PROF_DB_CACHE_RW_GROUP_MISS_PROF_FIELD = 6;
+    private static final int ZSIM_PROF_DB_ALLOC_SITE_PROF_FIELD = 7;
+
+    private static final int MAXINE_INFO_DB_MAX_CLASS_INFO_ID_FIELD = 2;
+    private static final int MAXINE_INFO_DB_CLASS_INFO_FIELD = 3;
+    private static final int MAXINE_INFO_DB_METHOD_INFO_FIELD = 4;
+    private static final int MAXINE_INFO_DB_BOOT_CODE_REG_INFO_FIELD = 5;
+    private static final int MAXINE_INFO_DB_MAXSIM_CONFIG_FIELD = 6;
+    private static final int MAXINE_INFO_DB_NULL_CHECK_OFFSET_FIELD = 7;
+    private static final int MAXINE_INFO_DB_DATA_TRANS_INFO_FIELD = 8;
+
     private static String ZSimProfileDBOptionName =
         new String("ZSimProfileDB");
 
@@ -42,15 +60,57 @@ public class MaxSimProfileRepresentation {
     private static String MaxineInfoDBOptionHelp =
         new String("Location of the file containing Maxine information database.");
 
+    private static String StreamingLoadOptionName =
+        new String("StreamingLoad");
+
+    private static String StreamingLoadOptionHelp =
+        new String("Load ZSim profile and Maxine information databases through memory-mapped files one message " +
+            "at a time without size limit.");
+
     private boolean profileLoaded;
 
     private MaxSimInterface.ZSimProfDB ZSimProfileDB;
 
     private MaxSimInterface.MaxineInfoDB MaxineInfoDB;
 
+    /**
+     * Reader of ZSim profile database, which is used to parse nested messages lazily in streaming mode.
+     */
+    private MaxSimProfileStreamReader ZSimProfileDBReader;
+
+    private MaxSimProfileStreamReader.MessageIndex classProfIndex;
+
+    private MaxSimProfileStreamReader.MessageIndex cacheRWGroupMissProfIndex;
+
+    private MaxSimProfileStreamReader.MessageIndex allocSiteProfIndex;
+
+    /**
+     * Class profiling information summaries (without allocation and field profiling information lists).
+     */
+    private MaxSimInterface.ClassProf [] classProfSummaries;
+
+    private List<MaxSimInterface.AllocSiteProf> allocSiteProfList;
+
+    private int maxAllocSiteProfId;
+
+    private int dumpEventualStatsBeg;
+
+    private int dumpEventualStatsEnd;
+
+    private MaxSimInterface.MethodInfo bootCodeRegInfo;
+
+    private int nullCheckOffset;
+
+    private List<MaxSimInterface.DataTransInfo> dataTransInfoList;
+
     private MaxSimInterface.ClassInfo [] IdToClassInfoMap;
 
-    private MaxSimInterface.AllocSiteProf [] IdToAllocationSiteEntryMap;
+    /**
+     * Dense per-class tables mapping field offsets to field information, indexed by class id.
+     */
+    private MaxSimInterface.FieldInfo [][] IdToFieldInfoByOffsetMap;
+
+    private volatile MaxSimInterface.AllocSiteProf [] IdToAllocationSiteEntryMap;
 
     private MaxSimInterface.CacheRWGroupInfo [] IdToCacheRWGroupInfoMap;
 
@@ -90,14 +150,99 @@ public class MaxSimProfileRepresentation {
         return MaxineInfoDBOptionHelp;
     }
 
+    public static String getStreamingLoadOptionName() {
+        return StreamingLoadOptionName;
+    }
+
+    public static String getStreamingLoadOptionHelp() {
+        return StreamingLoadOptionHelp;
+    }
+
+    /**
+     * Returns ZSim profile database, which is available only if it was not loaded in streaming mode.
+     */
     public MaxSimInterface.ZSimProfDB getZSimProfileDB() {
         return ZSimProfileDB;
     }
 
+    /**
+     * Returns Maxine information database, which is available only if it was not loaded in streaming mode.
+     */
     public MaxSimInterface.MaxineInfoDB getMaxineInfoDB() {
         return MaxineInfoDB;
     }
 
+    public int getDumpEventualStatsBeg() {
+        return dumpEventualStatsBeg;
+    }
+
+    public int getDumpEventualStatsEnd() {
+        return dumpEventualStatsEnd;
+    }
+
+    public MaxSimInterface.MethodInfo getBootCodeRegInfo() {
+        return bootCodeRegInfo;
+    }
+
+    public int getNullCheckOffset() {
+        return nullCheckOffset;
+    }
+
+    public List<MaxSimInterface.DataTransInfo> getDataTransInfoList() {
+        return dataTransInfoList;
+    }
+
+    public int getClassProfCount() {
+        return classProfSummaries.length;
+    }
+
+    /**
+     * Returns class profiling information summary, which contains all the fields of the class profiling information
+     * except allocation and field profiling information lists.
+     */
+    public MaxSimInterface.ClassProf getClassProfSummary(int index) {
+        return classProfSummaries[index];
+    }
+
+    /**
+     * Returns class profiling information. In streaming mode it is parsed on each request.
+     */
+    public MaxSimInterface.ClassProf getClassProf(int index) {
+        if (ZSimProfileDB != null) {
+            return ZSimProfileDB.getClassProf(index);
+        }
+        return parseClassProf(index);
+    }
+
+    public int getCacheRWGroupMissProfCount() {
+        if (ZSimProfileDB != null) {
+            return ZSimProfileDB.getCacheRWGroupMissProfCount();
+        }
+        return cacheRWGroupMissProfIndex.size();
+    }
+
+    /**
+     * Returns cache read/write group miss profiling information. In streaming mode it is parsed on each request.
+     */
+    public MaxSimInterface.CacheRWGroupMissProf getCacheRWGroupMissProf(int index) {
+        if (ZSimProfileDB != null) {
+            return ZSimProfileDB.getCacheRWGroupMissProf(index);
+        }
+        try {
+            return MaxSimInterface.CacheRWGroupMissProf.parseFrom(ZSimProfileDBReader.newMessageInputStream(
+                cacheRWGroupMissProfIndex.getOffset(index), cacheRWGroupMissProfIndex.getLength(index)));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public List<MaxSimInterface.AllocSiteProf> getAllocSiteProfList() {
+        if (allocSiteProfList == null) {
+            buildAllocSiteProfTables();
+        }
+        return allocSiteProfList;
+    }
+
     public MaxSimInterface.ClassInfo getClassInfoByProfId(int profId) {
         if (MaxSimInterfaceHelpers.isClassIDTagging(pointerTaggingType)) {
             return getClassInfoByClassId(profId);
@@ -113,6 +258,9 @@ public class MaxSimProfileRepresentation {
     }
 
     public MaxSimInterface.AllocSiteProf getAllocationSiteEntryById(int id) {
+        if (IdToAllocationSiteEntryMap == null) {
+            buildAllocSiteProfTables();
+        }
         return IdToAllocationSiteEntryMap[id];
     }
 
@@ -172,12 +320,11 @@ public class MaxSimProfileRepresentation {
         if (classInfo == null) {
             return null;
         }
-        for (MaxSimInterface.FieldInfo fieldInfo : classInfo.getFieldInfoList()) {
-            if (fieldInfo.getOffset() == offset) {
-                return fieldInfo;
-            }
+        MaxSimInterface.FieldInfo [] fieldInfoByOffset = IdToFieldInfoByOffsetMap[classInfo.getId()];
+        if (fieldInfoByOffset == null || offset < 0 || offset >= fieldInfoByOffset.length) {
+            return null;
         }
-        return null;
+        return fieldInfoByOffset[offset];
     }
 
     public boolean isProfileLoaded() {
@@ -185,73 +332,293 @@ public class MaxSimProfileRepresentation {
     }
 
     public void loadZSimProfileAndMaxineInfoDBs(String zsimProfileDBFileName, String zsimMaxineInfoDBFileName) {
+        loadZSimProfileAndMaxineInfoDBs(zsimProfileDBFileName, zsimMaxineInfoDBFileName, false);
+    }
+
+    /**
+     * Loads ZSim profile and Maxine information databases. In streaming mode the databases are read through
+     * memory-mapped files one message at a time, so there is no limit on their size. Only id-indexed tables and
+     * summaries are kept in memory then, while allocation site, class and cache miss profiling information are parsed
+     * lazily, when they are requested.
+     */
+    public void loadZSimProfileAndMaxineInfoDBs(String zsimProfileDBFileName, String zsimMaxineInfoDBFileName,
+                                                boolean streaming) {
         if (zsimProfileDBFileName == null || zsimMaxineInfoDBFileName == null || profileLoaded) {
             return;
         }
         try {
-            CodedInputStream zsimProfileDBInputStream = CodedInputStream.newInstance(
-                new FileInputStream(zsimProfileDBFileName));
+            if (streaming) {
+                streamZSimProfileDB(zsimProfileDBFileName);
+                streamMaxineInfoDB(zsimMaxineInfoDBFileName);
+            } else {
+                CodedInputStream zsimProfileDBInputStream = CodedInputStream.newInstance(
+                    new FileInputStream(zsimProfileDBFileName));
+
+                zsimProfileDBInputStream.setSizeLimit(MAX_PROF_DB_SIZE);
+                ZSimProfileDB = MaxSimInterface.ZSimProfDB.parseFrom(zsimProfileDBInputStream);
+                MaxineInfoDB = MaxSimInterface.MaxineInfoDB.parseFrom(new FileInputStream(zsimMaxineInfoDBFileName));
+
+                maxAllocSiteProfId = ZSimProfileDB.getMaxAllocSiteProfId();
+                dumpEventualStatsBeg = ZSimProfileDB.getDumpEventualStatsBeg();
+                dumpEventualStatsEnd = ZSimProfileDB.getDumpEventualStatsEnd();
+                allocSiteProfList = ZSimProfileDB.getAllocSiteProfList();
+                buildCacheRWGroupInfoTable(ZSimProfileDB.getCacheRWGroupInfoList());
+                classProfSummaries =
+                    ZSimProfileDB.getClassProfList().toArray(new MaxSimInterface.ClassProf[ZSimProfileDB.getClassProfCount()]);
+
+                bootCodeRegInfo = MaxineInfoDB.getBootCodeRegInfo();
+                nullCheckOffset = MaxineInfoDB.getNullCheckOffset();
+                dataTransInfoList = MaxineInfoDB.getDataTransInfoList();
+                MaxSimConfig = MaxineInfoDB.getMaxSimConfig();
+                buildClassInfoTable(MaxineInfoDB.getClassInfoList(), MaxineInfoDB.getMaxClassInfoId());
+                buildMethodInfoTables(MaxineInfoDB.getMethodInfoList(), false);
+            }
 
-            zsimProfileDBInputStream.setSizeLimit(MAX_PROF_DB_SIZE);
-            ZSimProfileDB = MaxSimInterface.ZSimProfDB.parseFrom(zsimProfileDBInputStream);
-            MaxineInfoDB = MaxSimInterface.MaxineInfoDB.parseFrom(new FileInputStream(zsimMaxineInfoDBFileName));
+            pointerTaggingType = MaxSimConfig.getPointerTaggingType();
 
-            IdToClassInfoMap = new MaxSimInterface.ClassInfo [MaxineInfoDB.getMaxClassInfoId() + 1];
-            for (MaxSimInterface.ClassInfo ci : MaxineInfoDB.getClassInfoList()) {
-                IdToClassInfoMap[ci.getId()] = ci;
-            }
+            profileLoaded = true;
+        } catch (Exception e) {
+            unloadZSimProfileAndMaxineInfoDBs();
+            System.out.println("WARNING: Could not parse files: " + zsimProfileDBFileName + ", " + zsimMaxineInfoDBFileName);
+            System.out.println(e);
+        }
+    }
 
-            IdToAllocationSiteEntryMap = new MaxSimInterface.AllocSiteProf [ZSimProfileDB.getMaxAllocSiteProfId() + 1];
-            for (MaxSimInterface.AllocSiteProf entry : ZSimProfileDB.getAllocSiteProfList()) {
-                IdToAllocationSiteEntryMap[entry.getId()] = entry;
+    /**
+     * Reads ZSim profile database one top-level field at a time, recording locations of nested profiling messages.
+     */
+    private void streamZSimProfileDB(String zsimProfileDBFileName) throws IOException {
+        ArrayList<MaxSimInterface.CacheRWGroupInfo> cacheRWGroupInfoList = new ArrayList<MaxSimInterface.CacheRWGroupInfo>();
+
+        ZSimProfileDBReader = new MaxSimProfileStreamReader(zsimProfileDBFileName);
+        classProfIndex = new MaxSimProfileStreamReader.MessageIndex();
+        cacheRWGroupMissProfIndex = new MaxSimProfileStreamReader.MessageIndex();
+        allocSiteProfIndex = new MaxSimProfileStreamReader.MessageIndex();
+
+        while (ZSimProfileDBReader.hasNextField()) {
+            int tag = ZSimProfileDBReader.readTag();
+            switch (MaxSimProfileStreamReader.getTagFieldNumber(tag)) {
+                case ZSIM_PROF_DB_MAX_ALLOC_SITE_PROF_ID_FIELD:
+                    maxAllocSiteProfId = (int) ZSimProfileDBReader.readRawVarint();
+                    break;
+                case ZSIM_PROF_DB_DUMP_EVENTUAL_STATS_BEG_FIELD:
+                    dumpEventualStatsBeg = (int) ZSimProfileDBReader.readRawVarint();
+                    break;
+                case ZSIM_PROF_DB_DUMP_EVENTUAL_STATS_END_FIELD:
+                    dumpEventualStatsEnd = (int) ZSimProfileDBReader.readRawVarint();
+                    break;
+                case ZSIM_PROF_DB_CACHE_RW_GROUP_INFO_FIELD:
+                    cacheRWGroupInfoList.add(MaxSimInterface.CacheRWGroupInfo.parseFrom(nextMessage(ZSimProfileDBReader)));
+                    break;
+                case ZSIM_PROF_DB_CLASS_PROF_FIELD:
+                    classProfIndex.addAndSkip(ZSimProfileDBReader);
+                    break;
+                case ZSIM_PROF_DB_CACHE_RW_GROUP_MISS_PROF_FIELD:
+                    cacheRWGroupMissProfIndex.addAndSkip(ZSimProfileDBReader);
+                    break;
+                case ZSIM_PROF_DB_ALLOC_SITE_PROF_FIELD:
+                    allocSiteProfIndex.addAndSkip(ZSimProfileDBReader);
+                    break;
+                default:
+                    ZSimProfileDBReader.skipField(tag);
+                    break;
             }
+        }
+        buildCacheRWGroupInfoTable(cacheRWGroupInfoList);
+
+        classProfSummaries = new MaxSimInterface.ClassProf[classProfIndex.size()];
+        for (int i = 0; i < classProfIndex.size(); i++) {
+            classProfSummaries[i] = parseClassProf(i).toBuilder().clearAllocProf().clearFieldProf().build();
+        }
+    }
 
-            IdToCacheRWGroupInfoMap =
-                new MaxSimInterface.CacheRWGroupInfo [ZSimProfileDB.getCacheRWGroupInfoCount()];
-            for (MaxSimInterface.CacheRWGroupInfo entry : ZSimProfileDB.getCacheRWGroupInfoList()) {
-                IdToCacheRWGroupInfoMap[entry.getCacheRWGroupId()] = entry;
+    /**
+     * Reads Maxine information database one top-level field at a time, building id-indexed tables. Offset to BCI pairs
+     * of method information are kept only in the tables.
+     */
+    private void streamMaxineInfoDB(String zsimMaxineInfoDBFileName) throws IOException {
+        MaxSimProfileStreamReader reader = new MaxSimProfileStreamReader(zsimMaxineInfoDBFileName);
+        ArrayList<MaxSimInterface.ClassInfo> classInfoList = new ArrayList<MaxSimInterface.ClassInfo>();
+        ArrayList<MaxSimInterface.MethodInfo> methodInfoList = new ArrayList<MaxSimInterface.MethodInfo>();
+        ArrayList<MaxSimInterface.DataTransInfo> dataTransInfos = new ArrayList<MaxSimInterface.DataTransInfo>();
+        int maxClassInfoId = 0;
+
+        try {
+            while (reader.hasNextField()) {
+                int tag = reader.readTag();
+                switch (MaxSimProfileStreamReader.getTagFieldNumber(tag)) {
+                    case MAXINE_INFO_DB_MAX_CLASS_INFO_ID_FIELD:
+                        maxClassInfoId = (int) reader.readRawVarint();
+                        break;
+                    case MAXINE_INFO_DB_CLASS_INFO_FIELD:
+                        classInfoList.add(MaxSimInterface.ClassInfo.parseFrom(nextMessage(reader)));
+                        break;
+                    case MAXINE_INFO_DB_METHOD_INFO_FIELD:
+                        methodInfoList.add(MaxSimInterface.MethodInfo.parseFrom(nextMessage(reader)));
+                        break;
+                    case MAXINE_INFO_DB_BOOT_CODE_REG_INFO_FIELD:
+                        bootCodeRegInfo = MaxSimInterface.MethodInfo.parseFrom(nextMessage(reader));
+                        break;
+                    case MAXINE_INFO_DB_MAXSIM_CONFIG_FIELD:
+                        MaxSimConfig = MaxSimInterface.MaxSimConfig.parseFrom(nextMessage(reader));
+                        break;
+                    case MAXINE_INFO_DB_NULL_CHECK_OFFSET_FIELD:
+                        nullCheckOffset = (int) reader.readRawVarint();
+                        break;
+                    case MAXINE_INFO_DB_DATA_TRANS_INFO_FIELD:
+                        dataTransInfos.add(MaxSimInterface.DataTransInfo.parseFrom(nextMessage(reader)));
+                        break;
+                    default:
+                        reader.skipField(tag);
+                        break;
+                }
             }
+        } finally {
+            reader.close();
+        }
+        if (bootCodeRegInfo == null || MaxSimConfig == null) {
+            throw new IOException("Maxine information database misses required fields.");
+        }
+        dataTransInfoList = dataTransInfos;
+        buildClassInfoTable(classInfoList, maxClassInfoId);
+        buildMethodInfoTables(methodInfoList, true);
+    }
 
-            methodInfoArraySortedByAccendingIP =
-                new ArrayList<MaxSimInterface.MethodInfo>(MaxineInfoDB.getMethodInfoList());
-            Collections.sort(methodInfoArraySortedByAccendingIP, MaxSimInterfaceComparators.MethodInfoBeginIPAscendingCmp);
-
-            methodInfoIPArraySortedByAccendingIP = new long[methodInfoArraySortedByAccendingIP.size()];
-            methodBCIArraySortedByAccendingIP = new int[methodInfoArraySortedByAccendingIP.size()][];
-            methodOffsetArraySortedByAccendingIP = new int[methodInfoArraySortedByAccendingIP.size()][];
-            for (int i = 0; i < methodInfoArraySortedByAccendingIP.size(); i++) {
-                MaxSimInterface.MethodInfo methodInfo = methodInfoArraySortedByAccendingIP.get(i);
-                methodInfoIPArraySortedByAccendingIP[i] = methodInfo.getBeginIP();
-                assert i == 0 ||
-                    methodInfoIPArraySortedByAccendingIP[i] > methodInfoIPArraySortedByAccendingIP[i - 1];
-
-                ArrayList<MaxSimInterface.OffsetBCIPair> offsetBCIPairArraySortedByOffset =
-                    new ArrayList<MaxSimInterface.OffsetBCIPair>(methodInfo.getOffsetBCIPairList());
-                Collections.sort(offsetBCIPairArraySortedByOffset, MaxSimInterfaceComparators.OffsetBCIPairOffsetAscendingCmp);
-
-                methodBCIArraySortedByAccendingIP[i] = new int[methodInfo.getOffsetBCIPairCount()];
-                methodOffsetArraySortedByAccendingIP[i] = new int[methodInfo.getOffsetBCIPairCount()];
-
-                for (int j = 0; j < methodInfo.getOffsetBCIPairCount(); j++) {
-                    methodBCIArraySortedByAccendingIP[i][j] = offsetBCIPairArraySortedByOffset.get(j).getBCI();
-                    methodOffsetArraySortedByAccendingIP[i][j] = offsetBCIPairArraySortedByOffset.get(j).getOffset();
+    /**
+     * Returns input stream over the nested message at the current reader position and skips it.
+     */
+    private static CodedInputStream nextMessage(MaxSimProfileStreamReader reader) throws IOException {
+        int length = reader.readLength();
+        long offset = reader.getPosition();
+        reader.skipRawBytes(length);
+        return reader.newMessageInputStream(offset, length);
+    }
+
+    private MaxSimInterface.ClassProf parseClassProf(int index) {
+        try {
+            return MaxSimInterface.ClassProf.parseFrom(ZSimProfileDBReader.newMessageInputStream(
+                classProfIndex.getOffset(index), classProfIndex.getLength(index)));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Builds allocation site profiling information list and id-indexed table.
+     */
+    private synchronized void buildAllocSiteProfTables() {
+        if (IdToAllocationSiteEntryMap != null) {
+            return;
+        }
+        if (allocSiteProfList == null) {
+            ArrayList<MaxSimInterface.AllocSiteProf> list =
+                new ArrayList<MaxSimInterface.AllocSiteProf>(allocSiteProfIndex.size());
+            try {
+                for (int i = 0; i < allocSiteProfIndex.size(); i++) {
+                    list.add(MaxSimInterface.AllocSiteProf.parseFrom(ZSimProfileDBReader.newMessageInputStream(
+                        allocSiteProfIndex.getOffset(i), allocSiteProfIndex.getLength(i))));
                 }
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
             }
+            allocSiteProfList = Collections.unmodifiableList(list);
+        }
+        MaxSimInterface.AllocSiteProf [] idToAllocationSiteEntryMap = new MaxSimInterface.AllocSiteProf [maxAllocSiteProfId + 1];
+        for (MaxSimInterface.AllocSiteProf entry : allocSiteProfList) {
+            idToAllocationSiteEntryMap[entry.getId()] = entry;
+        }
+        IdToAllocationSiteEntryMap = idToAllocationSiteEntryMap;
+    }
 
-            MaxSimConfig = MaxineInfoDB.getMaxSimConfig();
-            pointerTaggingType = MaxSimConfig.getPointerTaggingType();
+    private void buildCacheRWGroupInfoTable(List<MaxSimInterface.CacheRWGroupInfo> cacheRWGroupInfoList) {
+        IdToCacheRWGroupInfoMap =
+            new MaxSimInterface.CacheRWGroupInfo [cacheRWGroupInfoList.size()];
+        for (MaxSimInterface.CacheRWGroupInfo entry : cacheRWGroupInfoList) {
+            IdToCacheRWGroupInfoMap[entry.getCacheRWGroupId()] = entry;
+        }
+    }
 
-            profileLoaded = true;
-        } catch (Exception e) {
-            unloadZSimProfileAndMaxineInfoDBs();
-            System.out.println("WARNING: Could not parse files: " + zsimProfileDBFileName + ", " + zsimMaxineInfoDBFileName);
-            System.out.println(e);
+    private void buildClassInfoTable(List<MaxSimInterface.ClassInfo> classInfoList, int maxClassInfoId) {
+        IdToClassInfoMap = new MaxSimInterface.ClassInfo [maxClassInfoId + 1];
+        IdToFieldInfoByOffsetMap = new MaxSimInterface.FieldInfo [maxClassInfoId + 1][];
+        for (MaxSimInterface.ClassInfo ci : classInfoList) {
+            IdToClassInfoMap[ci.getId()] = ci;
+            IdToFieldInfoByOffsetMap[ci.getId()] = buildFieldInfoByOffsetTable(ci);
+        }
+    }
+
+    /**
+     * Builds dense table mapping field offsets of the class to field information. If several fields share an offset,
+     * the first one in the field information list is taken.
+     */
+    private static MaxSimInterface.FieldInfo [] buildFieldInfoByOffsetTable(MaxSimInterface.ClassInfo classInfo) {
+        int maxOffset = -1;
+        for (MaxSimInterface.FieldInfo fieldInfo : classInfo.getFieldInfoList()) {
+            maxOffset = Math.max(maxOffset, fieldInfo.getOffset());
+        }
+        if (maxOffset < 0) {
+            return null;
+        }
+        MaxSimInterface.FieldInfo [] fieldInfoByOffset = new MaxSimInterface.FieldInfo [maxOffset + 1];
+        for (MaxSimInterface.FieldInfo fieldInfo : classInfo.getFieldInfoList()) {
+            int offset = fieldInfo.getOffset();
+            if (offset >= 0 && fieldInfoByOffset[offset] == null) {
+                fieldInfoByOffset[offset] = fieldInfo;
+            }
+        }
+        return fieldInfoByOffset;
+    }
+
+    /**
+     * Builds method information tables sorted by ascending IP. If requested, offset to BCI pairs are dropped from
+     * method information after they are copied to the tables.
+     */
+    private void buildMethodInfoTables(List<MaxSimInterface.MethodInfo> methodInfoList, boolean dropOffsetBCIPairs) {
+        methodInfoArraySortedByAccendingIP =
+            new ArrayList<MaxSimInterface.MethodInfo>(methodInfoList);
+        Collections.sort(methodInfoArraySortedByAccendingIP, MaxSimInterfaceComparators.MethodInfoBeginIPAscendingCmp);
+
+        methodInfoIPArraySortedByAccendingIP = new long[methodInfoArraySortedByAccendingIP.size()];
+        methodBCIArraySortedByAccendingIP = new int[methodInfoArraySortedByAccendingIP.size()][];
+        methodOffsetArraySortedByAccendingIP = new int[methodInfoArraySortedByAccendingIP.size()][];
+        for (int i = 0; i < methodInfoArraySortedByAccendingIP.size(); i++) {
+            MaxSimInterface.MethodInfo methodInfo = methodInfoArraySortedByAccendingIP.get(i);
+            methodInfoIPArraySortedByAccendingIP[i] = methodInfo.getBeginIP();
+            assert i == 0 ||
+                methodInfoIPArraySortedByAccendingIP[i] > methodInfoIPArraySortedByAccendingIP[i - 1];
+
+            ArrayList<MaxSimInterface.OffsetBCIPair> offsetBCIPairArraySortedByOffset =
+                new ArrayList<MaxSimInterface.OffsetBCIPair>(methodInfo.getOffsetBCIPairList());
+            Collections.sort(offsetBCIPairArraySortedByOffset, MaxSimInterfaceComparators.OffsetBCIPairOffsetAscendingCmp);
+
+            methodBCIArraySortedByAccendingIP[i] = new int[methodInfo.getOffsetBCIPairCount()];
+            methodOffsetArraySortedByAccendingIP[i] = new int[methodInfo.getOffsetBCIPairCount()];
+
+            for (int j = 0; j < methodInfo.getOffsetBCIPairCount(); j++) {
+                methodBCIArraySortedByAccendingIP[i][j] = offsetBCIPairArraySortedByOffset.get(j).getBCI();
+                methodOffsetArraySortedByAccendingIP[i][j] = offsetBCIPairArraySortedByOffset.get(j).getOffset();
+            }
+            if (dropOffsetBCIPairs) {
+                methodInfoArraySortedByAccendingIP.set(i, methodInfo.toBuilder().clearOffsetBCIPair().build());
+            }
         }
     }
 
     public void unloadZSimProfileAndMaxineInfoDBs() {
         profileLoaded = false;
+        if (ZSimProfileDBReader != null) {
+            ZSimProfileDBReader.close();
+            ZSimProfileDBReader = null;
+        }
+        classProfIndex = null;
+        cacheRWGroupMissProfIndex = null;
+        allocSiteProfIndex = null;
+        classProfSummaries = null;
+        allocSiteProfList = null;
+        bootCodeRegInfo = null;
+        dataTransInfoList = null;
         IdToClassInfoMap = null;
+        IdToFieldInfoByOffsetMap = null;
         MaxineInfoDB = null;
         ZSimProfileDB = null;
         pointerTaggingType = null;
@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) 2017, Andrey Rodchenko, School of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package com.sun.max.vm.maxsim;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Reader of a top-level protobuf message stored in a file, which is accessed through a sliding memory-mapped window.
+ * The fields of the top-level message are read one at a time. Length-delimited fields (nested messages) are not
+ * parsed by the reader itself, instead their file offsets and lengths are recorded, so that they can be parsed
+ * individually and on demand. The reader must only be used by one thread, except for
+ * {@link #newMessageInputStream(long, int)}.
+ */
+public class MaxSimProfileStreamReader {
+
+    /**
+     * Maximum size of the memory-mapped window.
+     */
+    private static final long MAX_MAPPED_WINDOW_SIZE = 1L << 30;
+
+    public static final int WIRETYPE_VARINT = 0;
+
+    public static final int WIRETYPE_FIXED64 = 1;
+
+    public static final int WIRETYPE_LENGTH_DELIMITED = 2;
+
+    public static final int WIRETYPE_FIXED32 = 5;
+
+    private static final int TAG_TYPE_BITS = 3;
+
+    private static final int TAG_TYPE_MASK = (1 << TAG_TYPE_BITS) - 1;
+
+    private final RandomAccessFile file;
+
+    private final FileChannel channel;
+
+    private final long size;
+
+    private MappedByteBuffer window;
+
+    private long windowBegin;
+
+    private long windowEnd;
+
+    private long position;
+
+    public MaxSimProfileStreamReader(String fileName) throws IOException {
+        file = new RandomAccessFile(fileName, "r");
+        channel = file.getChannel();
+        size = channel.size();
+        position = 0;
+    }
+
+    public static int getTagFieldNumber(int tag) {
+        return tag >>> TAG_TYPE_BITS;
+    }
+
+    public static int getTagWireType(int tag) {
+        return tag & TAG_TYPE_MASK;
+    }
+
+    /**
+     * Checks whether there are unread fields of the top-level message.
+     */
+    public boolean hasNextField() {
+        return position < size;
+    }
+
+    /**
+     * Returns current position in the file.
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Reads a field tag.
+     */
+    public int readTag() throws IOException {
+        int tag = (int) readRawVarint();
+        if (getTagFieldNumber(tag) == 0) {
+            throw new InvalidProtocolBufferException("Invalid tag at position " + (position - 1) + ".");
+        }
+        return tag;
+    }
+
+    /**
+     * Reads a varint encoded value.
+     */
+    public long readRawVarint() throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = readRawByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new InvalidProtocolBufferException("Malformed varint at position " + position + ".");
+    }
+
+    /**
+     * Reads the length of a length-delimited field.
+     */
+    public int readLength() throws IOException {
+        int length = (int) readRawVarint();
+        if (length < 0 || position + length > size) {
+            throw new InvalidProtocolBufferException("Invalid length " + length + " at position " + position + ".");
+        }
+        return length;
+    }
+
+    /**
+     * Skips the specified number of bytes.
+     */
+    public void skipRawBytes(long length) {
+        position += length;
+    }
+
+    /**
+     * Skips the value of a field with the specified tag.
+     */
+    public void skipField(int tag) throws IOException {
+        switch (getTagWireType(tag)) {
+            case WIRETYPE_VARINT:
+                readRawVarint();
+                break;
+            case WIRETYPE_FIXED64:
+                skipRawBytes(8);
+                break;
+            case WIRETYPE_LENGTH_DELIMITED:
+                skipRawBytes(readLength());
+                break;
+            case WIRETYPE_FIXED32:
+                skipRawBytes(4);
+                break;
+            default:
+                throw new InvalidProtocolBufferException("Unsupported wire type of tag " + tag + ".");
+        }
+    }
+
+    /**
+     * Creates a coded input stream over the nested message located at the specified offset. The bytes of the message
+     * are read from the file at their offset without using the mapped window, so this method can be called from
+     * other threads concurrently with the reader.
+     */
+    public CodedInputStream newMessageInputStream(long offset, int length) throws IOException {
+        byte [] bytes = new byte[length];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new InvalidProtocolBufferException("Truncated message at position " + (offset + buffer.position()) + ".");
+            }
+        }
+        CodedInputStream inputStream = CodedInputStream.newInstance(bytes);
+        inputStream.setSizeLimit(length);
+        return inputStream;
+    }
+
+    /**
+     * Releases the file.
+     */
+    public void close() {
+        window = null;
+        try {
+            channel.close();
+            file.close();
+        } catch (IOException e) {
+            // nothing to do
+        }
+    }
+
+    private byte readRawByte() throws IOException {
+        if (position >= size) {
+            throw new InvalidProtocolBufferException("Truncated message at position " + position + ".");
+        }
+        ensureMapped(position, 1);
+        byte b = window.get((int) (position - windowBegin));
+        position++;
+        return b;
+    }
+
+    /**
+     * Maps the window which contains [offset, offset + length) range of the file, if it is not mapped yet.
+     */
+    private void ensureMapped(long offset, long length) throws IOException {
+        if (window != null && offset >= windowBegin && (offset + length) <= windowEnd) {
+            return;
+        }
+        long windowSize = Math.max(Math.min(MAX_MAPPED_WINDOW_SIZE, size - offset), length);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, offset, windowSize);
+        windowBegin = offset;
+        windowEnd = offset + windowSize;
+    }
+
+    /**
+     * Growable index of nested messages locations in the file.
+     */
+    public static class MessageIndex {
+
+        private long [] offsets = new long[16];
+
+        private int [] lengths = new int[16];
+
+        private int count;
+
+        public void add(long offset, int length) {
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+                lengths = Arrays.copyOf(lengths, count * 2);
+            }
+            offsets[count] = offset;
+            lengths[count] = length;
+            count++;
+        }
+
+        public int size() {
+            return count;
+        }
+
+        public long getOffset(int i) {
+            return offsets[i];
+        }
+
+        public int getLength(int i) {
+            return lengths[i];
+        }
+
+        /**
+         * Records location of the length-delimited field at the current reader position and skips it.
+         */
+        public void addAndSkip(MaxSimProfileStreamReader reader) throws IOException {
+            int length = reader.readLength();
+            add(reader.getPosition(), length);
+            reader.skipRawBytes(length);
+        }
+    }
+}
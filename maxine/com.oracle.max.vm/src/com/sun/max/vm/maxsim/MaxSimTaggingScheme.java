@@ -182,6 +182,29 @@ public class MaxSimTaggingScheme {
         private static final SequentialHeapRootsScanner heapRootsTagger =
             new SequentialHeapRootsScanner(CellPointerTagger.pointerIndexTagger);
 
+        /**
+         * Parallel (un)tagger, used when the heap scheme has started {@linkplain GCWorkerThreads GC worker threads}.
+         */
+        private static final MaxSimParallelTagger parallelTagger = new MaxSimParallelTagger();
+
+        /**
+         * GC worker task (un)tagging in parallel. The VM operation thread first (un)tags its own roots, monitor
+         * references and code, and then joins the workers.
+         */
+        private static final GCWorkerThreads.Task parallelTaggingTask = new GCWorkerThreads.Task() {
+            public void run(int workerIndex) {
+                if (workerIndex == 0) {
+                    VmThreadLocal.scanReferences(VmThread.currentTLA(), CellPointerTagger.pointerIndexTagger);
+                    VMConfiguration.vmConfig().monitorScheme().scanReferences(CellPointerTagger.pointerIndexTagger);
+                    if (TraceMaxSimTagging) {
+                        Log.println(cellPointerTagger.pointerIndexTagger.actionMode + " of code.");
+                    }
+                    Code.visitCells(cellPointerTagger, true);
+                }
+                parallelTagger.run(workerIndex);
+            }
+        };
+
         /**
          * Pointer (un)tagging operation constructor.
          */
@@ -202,6 +225,11 @@ public class MaxSimTaggingScheme {
             }
         }
 
+        @Override
+        protected boolean operateOnThread(VmThread thread) {
+            return !GCWorkerThreads.isWorker(thread);
+        }
+
         @Override
         protected void doBeforeThawingThread(VmThread thread) {
             LOWEST_ACTIVE_STACK_SLOT_ADDRESS.store3(thread.tla(), Address.zero());
@@ -211,7 +239,14 @@ public class MaxSimTaggingScheme {
         protected void doIt() {
             cellPointerTagger.setOperationMode(cellPointerTagger.pointerIndexTagger.actionMode);
             VmThreadLocal.prepareCurrentStackReferenceMap();
+            GCWorkerThreads.prepareStackReferenceMaps();
             Heap.invokeGCCallbacks(Heap.GCCallbackPhase.BEFORE);
+            if (GCWorkerThreads.parallelism() > 1) {
+                doItInParallel();
+                GCWorkerThreads.clearStackReferenceMaps();
+                Heap.invokeGCCallbacks(Heap.GCCallbackPhase.AFTER);
+                return;
+            }
             if (TraceMaxSimTagging) {
                 Log.println(cellPointerTagger.pointerIndexTagger.actionMode + " of heap roots.");
             }
@@ -224,9 +259,23 @@ public class MaxSimTaggingScheme {
                 Log.println(cellPointerTagger.pointerIndexTagger.actionMode + " of heap.");
             }
             VMConfiguration.vmConfig().heapScheme().walkHeap(cellPointerTagger);
+            GCWorkerThreads.clearStackReferenceMaps();
             Heap.invokeGCCallbacks(Heap.GCCallbackPhase.AFTER);
         }
 
+        /**
+         * Do pointer (un)tagging using the parallel (un)tagger. Roots of the threads and heap chunks are (un)tagged by
+         * the GC worker threads and the VM operation thread, see {@link #parallelTaggingTask}.
+         */
+        private void doItInParallel() {
+            if (TraceMaxSimTagging) {
+                Log.println(cellPointerTagger.pointerIndexTagger.actionMode + " of heap roots and heap in parallel.");
+            }
+            parallelTagger.prepare(cellPointerTagger, CellPointerTagger.pointerIndexTagger);
+            GCWorkerThreads.run(parallelTaggingTask);
+            parallelTagger.finish();
+        }
+
         /**
          * Do pointer (un)tagging.
          */
@@ -414,6 +463,12 @@ public class MaxSimTaggingScheme {
 
     /**
      * Sets tag during allocation and profile it.
+     *
+     * With allocation site ID tagging, the tag of the new object is obtained from ZSim by a
+     * {@link MaxSimMediator#getAllocationSiteEstimationId(short) magic operation} issued for every allocation, even
+     * with {@linkplain MaxSimPlatform#isMaxSimBatchAllocationProfiling() batched allocation profiling}. It cannot be
+     * deferred: the tag must be in the pointer returned by the allocation, and ZSim estimates the allocation site from
+     * the stack of the thread at the moment of the operation.
      */
     @INLINE
     static public Pointer setTagDuringAllocationAndProfile(Pointer p, short tag, Size size) {
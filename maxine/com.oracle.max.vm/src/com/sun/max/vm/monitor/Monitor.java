@@ -46,8 +46,14 @@ public final class Monitor {
      */
     public static boolean TraceMonitors;
 
+    /**
+     * Determines if optimized code uses the inline monitor fast paths of a {@link XirMonitorSpecification} monitor scheme.
+     */
+    public static boolean InlineMonitorFastPath = true;
+
     static {
         VMOptions.addFieldOption("-XX:", "TraceMonitors", Monitor.class, "Trace (slow-path) monitor operations.");
+        VMOptions.addFieldOption("-XX:", "InlineMonitorFastPath", Monitor.class, "XIR generate inlined monitorenter and monitorexit fast paths.");
     }
 
     @FOLD
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.max.vm.monitor;
+
+import com.sun.cri.xir.*;
+import com.sun.cri.xir.CiXirAssembler.XirLabel;
+import com.sun.cri.xir.CiXirAssembler.XirOperand;
+
+/**
+ * Inline monitor fast path specification. Interface between MonitorScheme and Xir.
+ *
+ * A monitor scheme implementing this interface generates the uncontended case of {@code monitorenter} and
+ * {@code monitorexit} inline in optimized code. The generated code jumps to a slow path calling
+ * {@link MonitorScheme#monitorEnter} or {@link MonitorScheme#monitorExit} for any case it does not handle,
+ * e.g. an inflated or contended lock. It must not contain safepoints.
+ */
+public interface XirMonitorSpecification {
+
+    /**
+     * Generates XIR for the fast path of monitor entry.
+     *
+     * @param asm the assembler
+     * @param object the object being locked. The first access to it must be a trapping load, as it is the null check.
+     * @param lockwordThreadID the thread ID of the current thread, as encoded in lock words
+     * @param slowPath the label of the slow path
+     */
+    void genMonitorEnterFastPath(CiXirAssembler asm, XirOperand object, XirOperand lockwordThreadID, XirLabel slowPath);
+
+    /**
+     * Generates XIR for the fast path of monitor exit.
+     *
+     * @param asm the assembler
+     * @param object the object being unlocked. The first access to it must be a trapping load, as it is the null check.
+     * @param lockwordThreadID the thread ID of the current thread, as encoded in lock words
+     * @param slowPath the label of the slow path
+     */
+    void genMonitorExitFastPath(CiXirAssembler asm, XirOperand object, XirOperand lockwordThreadID, XirLabel slowPath);
+}
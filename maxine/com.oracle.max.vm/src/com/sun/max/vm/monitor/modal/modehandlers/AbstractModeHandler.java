@@ -24,9 +24,14 @@ package com.sun.max.vm.monitor.modal.modehandlers;
 
 import static com.sun.max.vm.thread.VmThread.*;
 
+import com.sun.cri.ci.*;
+import com.sun.cri.xir.*;
+import com.sun.cri.xir.CiXirAssembler.XirConstant;
+import com.sun.cri.xir.CiXirAssembler.XirOperand;
 import com.sun.max.annotate.*;
 import com.sun.max.unsafe.*;
 import com.sun.max.vm.*;
+import com.sun.max.vm.layout.*;
 import com.sun.max.vm.monitor.modal.schemes.*;
 import com.sun.max.vm.runtime.*;
 import com.sun.max.vm.thread.*;
@@ -98,6 +103,39 @@ public abstract class AbstractModeHandler implements ModeHandler {
     public void initialize(MaxineVM.Phase phase) {
     }
 
+    @HOSTED_ONLY
+    private static XirConstant miscOffset(CiXirAssembler asm) {
+        return asm.i(Layout.generalLayout().getOffsetFromOrigin(Layout.HeaderField.MISC).toInt());
+    }
+
+    /**
+     * (XIR support) Generates XIR reading the lock word of {@code object}. The read is a trapping load that null checks {@code object}.
+     */
+    @HOSTED_ONLY
+    protected static void genReadMisc(CiXirAssembler asm, XirOperand result, XirOperand object) {
+        asm.pload(CiKind.Long, result, object, miscOffset(asm), true);
+    }
+
+    /**
+     * (XIR support) Generates XIR writing the lock word of {@code object}.
+     */
+    @HOSTED_ONLY
+    protected static void genWriteMisc(CiXirAssembler asm, XirOperand object, XirOperand lockword) {
+        asm.pstore(CiKind.Long, object, miscOffset(asm), lockword, false);
+    }
+
+    /**
+     * (XIR support) Generates XIR performing {@link com.sun.max.vm.object.ObjectAccess#compareAndSwapMisc}.
+     *
+     * @param result the lock word found in {@code object}, which equals {@code expectedLockword} if the swap succeeded
+     */
+    @HOSTED_ONLY
+    protected static void genCompareAndSwapMisc(CiXirAssembler asm, XirOperand result, XirOperand object, XirOperand expectedLockword, XirOperand newLockword) {
+        final XirOperand miscAddress = asm.createTemp("miscAddress", CiKind.Long);
+        asm.add(miscAddress, object, miscOffset(asm));
+        asm.pcas(CiKind.Long, result, miscAddress, newLockword, expectedLockword);
+    }
+
     /**
      * Runtime entry points into the fastest path of the locking-mode hierarchy.
      */
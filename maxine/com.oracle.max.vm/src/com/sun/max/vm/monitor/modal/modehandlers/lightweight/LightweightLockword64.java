@@ -24,6 +24,11 @@ package com.sun.max.vm.monitor.modal.modehandlers.lightweight;
 
 import static com.sun.max.vm.intrinsics.MaxineIntrinsicIDs.*;
 
+import com.sun.cri.ci.*;
+import com.sun.cri.xir.*;
+import com.sun.cri.xir.CiXirAssembler.XirConstant;
+import com.sun.cri.xir.CiXirAssembler.XirLabel;
+import com.sun.cri.xir.CiXirAssembler.XirOperand;
 import com.sun.max.annotate.*;
 import com.sun.max.unsafe.*;
 import com.sun.max.vm.*;
@@ -166,4 +171,55 @@ public class LightweightLockword64 extends HashableLockword64 {
     public final int getRecursionCount() {
         return asAddress().unsignedShiftedRight(RCOUNT_SHIFT).toInt();
     }
+
+    /**
+     * (XIR support) Creates an XIR constant for a lock word value.
+     */
+    @HOSTED_ONLY
+    protected static XirConstant genConstant(CiXirAssembler asm, Address value) {
+        return asm.createConstant(CiConstant.forLong(value.toLong()));
+    }
+
+    /**
+     * (XIR support) Generates XIR computing a lock word whose only non-zero field is the thread ID field, set to
+     * {@code lockwordThreadID}.
+     */
+    @HOSTED_ONLY
+    public static void genThreadIDField(CiXirAssembler asm, XirOperand result, XirOperand lockwordThreadID) {
+        asm.shl(result, lockwordThreadID, asm.i(THREADID_SHIFT));
+    }
+
+    /**
+     * (XIR support) Generates XIR jumping to {@code label} if {@link #countOverflow()} holds for {@code lockword}.
+     */
+    @HOSTED_ONLY
+    public static void genJumpIfCountOverflow(CiXirAssembler asm, XirLabel label, XirOperand lockword) {
+        // The recursion count is the most significant field
+        asm.jugteq(label, lockword, genConstant(asm, RCOUNT_SHIFTED_MASK.shiftedLeft(RCOUNT_SHIFT)));
+    }
+
+    /**
+     * (XIR support) Generates XIR jumping to {@code label} if {@link #countUnderflow()} holds for {@code lockword}.
+     */
+    @HOSTED_ONLY
+    public static void genJumpIfCountUnderflow(CiXirAssembler asm, XirLabel label, XirOperand lockword, XirOperand temp) {
+        asm.shr(temp, lockword, asm.i(RCOUNT_SHIFT));
+        asm.jeq(label, temp, genConstant(asm, Address.zero()));
+    }
+
+    /**
+     * (XIR support) Generates XIR computing {@link #incrementCount()}.
+     */
+    @HOSTED_ONLY
+    public static void genIncrementCount(CiXirAssembler asm, XirOperand result, XirOperand lockword) {
+        asm.add(result, lockword, genConstant(asm, RCOUNT_INC_WORD));
+    }
+
+    /**
+     * (XIR support) Generates XIR computing {@link #decrementCount()}.
+     */
+    @HOSTED_ONLY
+    public static void genDecrementCount(CiXirAssembler asm, XirOperand result, XirOperand lockword) {
+        asm.sub(result, lockword, genConstant(asm, RCOUNT_INC_WORD));
+    }
 }
@@ -22,9 +22,16 @@
  */
 package com.sun.max.vm.monitor.modal.modehandlers.lightweight.biased;
 
+import com.sun.cri.ci.*;
+import com.sun.cri.xir.*;
+import com.sun.cri.xir.CiXirAssembler.XirLabel;
+import com.sun.cri.xir.CiXirAssembler.XirOperand;
+import com.sun.max.annotate.*;
 import com.sun.max.unsafe.*;
 import com.sun.max.vm.*;
 import com.sun.max.vm.actor.holder.*;
+import com.sun.max.vm.actor.member.*;
+import com.sun.max.vm.layout.*;
 import com.sun.max.vm.monitor.*;
 import com.sun.max.vm.monitor.modal.modehandlers.*;
 import com.sun.max.vm.monitor.modal.modehandlers.AbstractModeHandler.ModeDelegate.DelegatedThreadHoldsMonitorResult;
@@ -74,6 +81,52 @@ public abstract class BiasedLockModeHandler extends AbstractModeHandler implemen
     public void initialize(MaxineVM.Phase phase) {
     }
 
+    /**
+     * (XIR support) Generates the XIR equivalent of the fast path monitor enter, which jumps to {@code slowPath}
+     * unless the lock is biased to the current thread.
+     *
+     * @param useBulkRevocation specifies if the bias epoch of the lock must match the one of the object's class
+     */
+    @HOSTED_ONLY
+    public static void genMonitorEnterFastPath(CiXirAssembler asm, XirOperand object, XirOperand lockwordThreadID, XirLabel slowPath, boolean useBulkRevocation) {
+        final XirOperand lockword = asm.createTemp("lockword", CiKind.Long);
+        final XirOperand threadIDField = asm.createTemp("threadIDField", CiKind.Long);
+        final XirOperand temp1 = asm.createTemp("temp1", CiKind.Long);
+        final XirOperand temp2 = asm.createTemp("temp2", CiKind.Long);
+        XirOperand classEpoch = null;
+        if (useBulkRevocation) {
+            final XirOperand hub = asm.createTemp("hub", CiKind.Object);
+            classEpoch = asm.createTemp("classEpoch", CiKind.Long);
+            asm.pload(CiKind.Object, hub, object, asm.i(Layout.generalLayout().getOffsetFromOrigin(Layout.HeaderField.HUB).toInt()), true);
+            asm.pload(CiKind.Long, classEpoch, hub, asm.i(FieldActor.findInstance(ClassActor.fromJava(Hub.class), "biasedLockEpoch").offset()), false);
+        }
+        // There are no safepoints between the read and the write of the lock word
+        genReadMisc(asm, lockword, object);
+        BiasedLockword64.genThreadIDField(asm, threadIDField, lockwordThreadID);
+        BiasedLockword64.genJumpIfNotBiasedTo(asm, slowPath, lockword, threadIDField, classEpoch, temp1, temp2);
+        BiasedLockword64.genJumpIfCountOverflow(asm, slowPath, lockword);
+        BiasedLockword64.genIncrementCount(asm, lockword, lockword);
+        genWriteMisc(asm, object, lockword);
+    }
+
+    /**
+     * (XIR support) Generates the XIR equivalent of {@link #monitorExit}, which jumps to {@code slowPath}
+     * unless the lock is biased to and locked by the current thread.
+     */
+    @HOSTED_ONLY
+    public static void genMonitorExitFastPath(CiXirAssembler asm, XirOperand object, XirOperand lockwordThreadID, XirLabel slowPath) {
+        final XirOperand lockword = asm.createTemp("lockword", CiKind.Long);
+        final XirOperand threadIDField = asm.createTemp("threadIDField", CiKind.Long);
+        final XirOperand temp = asm.createTemp("temp", CiKind.Long);
+        // There are no safepoints between the read and the write of the lock word
+        genReadMisc(asm, lockword, object);
+        BiasedLockword64.genThreadIDField(asm, threadIDField, lockwordThreadID);
+        BiasedLockword64.genJumpIfNotBiasOwnedBy(asm, slowPath, lockword, threadIDField, temp);
+        BiasedLockword64.genJumpIfCountUnderflow(asm, slowPath, lockword, temp);
+        BiasedLockword64.genDecrementCount(asm, lockword, lockword);
+        genWriteMisc(asm, object, lockword);
+    }
+
     // Inspector support
     public static int decodeBiasOwnerThreadID(BiasedLockword64 biasedLockword) {
         if (biasedLockword.equals(biasedLockword.asAnonBiased())) {
@@ -24,6 +24,9 @@ package com.sun.max.vm.monitor.modal.modehandlers.lightweight.biased;
 
 import static com.sun.max.vm.intrinsics.MaxineIntrinsicIDs.*;
 
+import com.sun.cri.xir.*;
+import com.sun.cri.xir.CiXirAssembler.XirLabel;
+import com.sun.cri.xir.CiXirAssembler.XirOperand;
 import com.sun.max.annotate.*;
 import com.sun.max.unsafe.*;
 import com.sun.max.vm.monitor.modal.modehandlers.*;
@@ -227,4 +230,36 @@ public class BiasedLockword64 extends LightweightLockword64 {
     public static final BiasedLockword64 anonBiasedFromHashcode(int hashcode) {
         return BiasedLockword64.from(HashableLockword64.from(Address.zero()).setHashcode(hashcode));
     }
+
+    /**
+     * (XIR support) Generates XIR jumping to {@code label} unless {@link #isBiasedLockAndBiasedTo} holds for {@code lockword}.
+     *
+     * @param threadIDField the bias owner, as computed by {@link #genThreadIDField}
+     * @param epoch the bias epoch, or {@code null} if bias epochs are not used
+     */
+    @HOSTED_ONLY
+    public static void genJumpIfNotBiasedTo(CiXirAssembler asm, XirLabel label, XirOperand lockword, XirOperand threadIDField, XirOperand epoch,
+                    XirOperand temp1, XirOperand temp2) {
+        asm.and(temp1, lockword, genConstant(asm, HASHCODE_MASK));
+        asm.or(temp1, temp1, threadIDField);
+        if (epoch != null) {
+            asm.or(temp1, temp1, epoch);
+        }
+        asm.and(temp2, lockword, genConstant(asm, BIASED_OWNED_MASK));
+        asm.jneq(label, temp2, temp1);
+    }
+
+    /**
+     * (XIR support) Generates XIR jumping to {@code label} unless {@code lockword} is a {@code BiasedLockword64} whose bias
+     * owner is {@code threadIDField}, irrespective of its bias epoch.
+     *
+     * @param threadIDField the bias owner, as computed by {@link #genThreadIDField}
+     */
+    @HOSTED_ONLY
+    public static void genJumpIfNotBiasOwnedBy(CiXirAssembler asm, XirLabel label, XirOperand lockword, XirOperand threadIDField, XirOperand temp) {
+        asm.and(temp, lockword, genConstant(asm, EPOCH_MASK));
+        asm.jeq(label, temp, genConstant(asm, BiasedLockEpoch64.REVOKED.asAddress()));
+        asm.and(temp, lockword, genConstant(asm, THREADID_SHIFTED_MASK.shiftedLeft(THREADID_SHIFT).bitSet(SHAPE_BIT_INDEX)));
+        asm.jneq(label, temp, threadIDField);
+    }
 }
@@ -22,6 +22,10 @@
  */
 package com.sun.max.vm.monitor.modal.modehandlers.lightweight.thin;
 
+import com.sun.cri.ci.*;
+import com.sun.cri.xir.*;
+import com.sun.cri.xir.CiXirAssembler.XirLabel;
+import com.sun.cri.xir.CiXirAssembler.XirOperand;
 import com.sun.max.annotate.*;
 import com.sun.max.unsafe.*;
 import com.sun.max.vm.*;
@@ -251,6 +255,44 @@ public abstract class ThinLockModeHandler extends AbstractModeHandler {
         delegate().delegateBeforeGarbageCollection();
     }
 
+    /**
+     * (XIR support) Generates the XIR equivalent of the fast path monitor enter, which jumps to {@code slowPath}
+     * if the lock is not thin and unlocked.
+     */
+    @HOSTED_ONLY
+    public static void genMonitorEnterFastPath(CiXirAssembler asm, XirOperand object, XirOperand lockwordThreadID, XirLabel slowPath) {
+        final XirOperand lockword = asm.createTemp("lockword", CiKind.Long);
+        final XirOperand threadIDField = asm.createTemp("threadIDField", CiKind.Long);
+        final XirOperand asUnlocked = asm.createTemp("asUnlocked", CiKind.Long);
+        final XirOperand asLocked = asm.createTemp("asLocked", CiKind.Long);
+        final XirOperand answer = asm.createTemp("answer", CiKind.Long);
+        genReadMisc(asm, lockword, object);
+        ThinLockword64.genThreadIDField(asm, threadIDField, lockwordThreadID);
+        ThinLockword64.genAsUnlocked(asm, asUnlocked, lockword);
+        ThinLockword64.genAsLockedOnceBy(asm, asLocked, asUnlocked, threadIDField);
+        genCompareAndSwapMisc(asm, answer, object, asUnlocked, asLocked);
+        asm.jneq(slowPath, answer, asUnlocked);
+    }
+
+    /**
+     * (XIR support) Generates the XIR equivalent of the fast path monitor exit, which jumps to {@code slowPath}
+     * if the lock is not thin and locked once by the current thread.
+     */
+    @HOSTED_ONLY
+    public static void genMonitorExitFastPath(CiXirAssembler asm, XirOperand object, XirOperand lockwordThreadID, XirLabel slowPath) {
+        final XirOperand lockword = asm.createTemp("lockword", CiKind.Long);
+        final XirOperand threadIDField = asm.createTemp("threadIDField", CiKind.Long);
+        final XirOperand asUnlocked = asm.createTemp("asUnlocked", CiKind.Long);
+        final XirOperand asLocked = asm.createTemp("asLocked", CiKind.Long);
+        final XirOperand answer = asm.createTemp("answer", CiKind.Long);
+        genReadMisc(asm, lockword, object);
+        ThinLockword64.genThreadIDField(asm, threadIDField, lockwordThreadID);
+        ThinLockword64.genAsUnlocked(asm, asUnlocked, lockword);
+        ThinLockword64.genAsLockedOnceBy(asm, asLocked, asUnlocked, threadIDField);
+        genCompareAndSwapMisc(asm, answer, object, asLocked, asUnlocked);
+        asm.jneq(slowPath, answer, asLocked);
+    }
+
     // Inspector support
     public static int decodeLockOwnerThreadID(ThinLockword64 thinLockword) {
         if (thinLockword.equals(thinLockword.asUnlocked())) {
@@ -24,6 +24,8 @@ package com.sun.max.vm.monitor.modal.modehandlers.lightweight.thin;
 
 import static com.sun.max.vm.intrinsics.MaxineIntrinsicIDs.*;
 
+import com.sun.cri.xir.*;
+import com.sun.cri.xir.CiXirAssembler.XirOperand;
 import com.sun.max.annotate.*;
 import com.sun.max.unsafe.*;
 import com.sun.max.vm.*;
@@ -142,4 +144,23 @@ public class ThinLockword64 extends LightweightLockword64 {
     public static final ThinLockword64 unlockedFromHashcode(int hashcode) {
         return ThinLockword64.from(HashableLockword64.from(Address.zero()).setHashcode(hashcode));
     }
+
+    /**
+     * (XIR support) Generates XIR computing {@link #asUnlocked()}.
+     */
+    @HOSTED_ONLY
+    public static void genAsUnlocked(CiXirAssembler asm, XirOperand result, XirOperand lockword) {
+        asm.and(result, lockword, genConstant(asm, UNLOCKED_MASK));
+    }
+
+    /**
+     * (XIR support) Generates XIR computing {@link #asLockedOnceBy(int)} of an unlocked lock word.
+     *
+     * @param threadIDField the lock owner, as computed by {@link #genThreadIDField}
+     */
+    @HOSTED_ONLY
+    public static void genAsLockedOnceBy(CiXirAssembler asm, XirOperand result, XirOperand unlockedLockword, XirOperand threadIDField) {
+        asm.or(result, unlockedLockword, threadIDField);
+        asm.or(result, result, genConstant(asm, RCOUNT_INC_WORD));
+    }
 }
@@ -22,7 +22,11 @@
  */
 package com.sun.max.vm.monitor.modal.schemes.biased_inflated;
 
+import com.sun.cri.xir.*;
+import com.sun.cri.xir.CiXirAssembler.XirLabel;
+import com.sun.cri.xir.CiXirAssembler.XirOperand;
 import com.sun.max.annotate.*;
+import com.sun.max.vm.monitor.*;
 import com.sun.max.vm.monitor.modal.modehandlers.*;
 import com.sun.max.vm.monitor.modal.modehandlers.inflated.*;
 import com.sun.max.vm.monitor.modal.modehandlers.lightweight.biased.*;
@@ -31,7 +35,7 @@ import com.sun.max.vm.monitor.modal.schemes.*;
 /**
  * A modal monitor scheme that transitions between biased locks and inflated monitors.
  */
-public class BiasedInflatedMonitorScheme extends ModalMonitorScheme {
+public class BiasedInflatedMonitorScheme extends ModalMonitorScheme implements XirMonitorSpecification {
     @HOSTED_ONLY
     public BiasedInflatedMonitorScheme() {
         super(BiasedLockModeHandler.asFastPath(false,
@@ -52,4 +56,14 @@ public class BiasedInflatedMonitorScheme extends ModalMonitorScheme {
 
         };
     }
+
+    @HOSTED_ONLY
+    public void genMonitorEnterFastPath(CiXirAssembler asm, XirOperand object, XirOperand lockwordThreadID, XirLabel slowPath) {
+        BiasedLockModeHandler.genMonitorEnterFastPath(asm, object, lockwordThreadID, slowPath, false);
+    }
+
+    @HOSTED_ONLY
+    public void genMonitorExitFastPath(CiXirAssembler asm, XirOperand object, XirOperand lockwordThreadID, XirLabel slowPath) {
+        BiasedLockModeHandler.genMonitorExitFastPath(asm, object, lockwordThreadID, slowPath);
+    }
 }
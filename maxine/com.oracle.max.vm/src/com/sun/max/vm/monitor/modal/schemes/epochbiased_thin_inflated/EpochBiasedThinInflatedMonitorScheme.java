@@ -22,7 +22,11 @@
  */
 package com.sun.max.vm.monitor.modal.schemes.epochbiased_thin_inflated;
 
+import com.sun.cri.xir.*;
+import com.sun.cri.xir.CiXirAssembler.XirLabel;
+import com.sun.cri.xir.CiXirAssembler.XirOperand;
 import com.sun.max.annotate.*;
+import com.sun.max.vm.monitor.*;
 import com.sun.max.vm.monitor.modal.modehandlers.*;
 import com.sun.max.vm.monitor.modal.modehandlers.inflated.*;
 import com.sun.max.vm.monitor.modal.modehandlers.lightweight.biased.*;
@@ -32,7 +36,7 @@ import com.sun.max.vm.monitor.modal.schemes.*;
 /**
  * A modal monitor scheme that transitions between epoch-based bulk-rebiasable locks, thin locks and inflated monitors.
  */
-public class EpochBiasedThinInflatedMonitorScheme extends ModalMonitorScheme {
+public class EpochBiasedThinInflatedMonitorScheme extends ModalMonitorScheme implements XirMonitorSpecification {
     @HOSTED_ONLY
     public EpochBiasedThinInflatedMonitorScheme() {
          super(BiasedLockModeHandler.asFastPath(true,
@@ -55,4 +59,14 @@ public class EpochBiasedThinInflatedMonitorScheme extends ModalMonitorScheme {
             }
         };
     }
+
+    @HOSTED_ONLY
+    public void genMonitorEnterFastPath(CiXirAssembler asm, XirOperand object, XirOperand lockwordThreadID, XirLabel slowPath) {
+        BiasedLockModeHandler.genMonitorEnterFastPath(asm, object, lockwordThreadID, slowPath, true);
+    }
+
+    @HOSTED_ONLY
+    public void genMonitorExitFastPath(CiXirAssembler asm, XirOperand object, XirOperand lockwordThreadID, XirLabel slowPath) {
+        BiasedLockModeHandler.genMonitorExitFastPath(asm, object, lockwordThreadID, slowPath);
+    }
 }
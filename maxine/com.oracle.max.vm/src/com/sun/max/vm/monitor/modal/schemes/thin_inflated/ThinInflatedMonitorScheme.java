@@ -22,7 +22,11 @@
  */
 package com.sun.max.vm.monitor.modal.schemes.thin_inflated;
 
+import com.sun.cri.xir.*;
+import com.sun.cri.xir.CiXirAssembler.XirLabel;
+import com.sun.cri.xir.CiXirAssembler.XirOperand;
 import com.sun.max.annotate.*;
+import com.sun.max.vm.monitor.*;
 import com.sun.max.vm.monitor.modal.modehandlers.*;
 import com.sun.max.vm.monitor.modal.modehandlers.inflated.*;
 import com.sun.max.vm.monitor.modal.modehandlers.lightweight.thin.*;
@@ -31,7 +35,7 @@ import com.sun.max.vm.monitor.modal.schemes.*;
 /**
  * A modal monitor scheme that transitions between thin locks and inflated native monitors.
  */
-public class ThinInflatedMonitorScheme extends ModalMonitorScheme {
+public class ThinInflatedMonitorScheme extends ModalMonitorScheme implements XirMonitorSpecification {
     @HOSTED_ONLY
     public ThinInflatedMonitorScheme() {
         super(ThinLockModeHandler.asFastPath(InflatedMonitorModeHandler.asThinLockDelegate()));
@@ -50,4 +54,14 @@ public class ThinInflatedMonitorScheme extends ModalMonitorScheme {
             }
         };
     }
+
+    @HOSTED_ONLY
+    public void genMonitorEnterFastPath(CiXirAssembler asm, XirOperand object, XirOperand lockwordThreadID, XirLabel slowPath) {
+        ThinLockModeHandler.genMonitorEnterFastPath(asm, object, lockwordThreadID, slowPath);
+    }
+
+    @HOSTED_ONLY
+    public void genMonitorExitFastPath(CiXirAssembler asm, XirOperand object, XirOperand lockwordThreadID, XirLabel slowPath) {
+        ThinLockModeHandler.genMonitorExitFastPath(asm, object, lockwordThreadID, slowPath);
+    }
 }
@@ -51,6 +51,8 @@ abstract class AbstractJavaMonitor implements ManagedMonitor {
     // Support for direct linked lists of JavaMonitors.
     private ManagedMonitor next;
 
+    private VmThread binder;
+
     protected AbstractJavaMonitor() {
         bindingProtection = BindingProtection.PRE_ACQUIRE;
     }
@@ -92,6 +94,7 @@ abstract class AbstractJavaMonitor implements ManagedMonitor {
         displacedMiscWord.set(Word.zero());
         preGCLockword = Word.zero();
         bindingProtection = BindingProtection.PRE_ACQUIRE;
+        binder = null;
     }
 
     public final void setBoundObject(Object object) {
@@ -102,6 +105,14 @@ abstract class AbstractJavaMonitor implements ManagedMonitor {
         return boundObject;
     }
 
+    public final VmThread binder() {
+        return binder;
+    }
+
+    public final void setBinder(VmThread thread) {
+        binder = thread;
+    }
+
     public final boolean isBound() {
         return boundObject != null;
     }
@@ -24,9 +24,11 @@ package com.sun.max.vm.monitor.modal.sync;
 
 import static com.sun.max.vm.intrinsics.MaxineIntrinsicIDs.*;
 
+import java.io.*;
 import java.util.*;
 
 import com.sun.max.annotate.*;
+import com.sun.max.atomic.*;
 import com.sun.max.unsafe.*;
 import com.sun.max.vm.*;
 import com.sun.max.vm.actor.holder.*;
@@ -42,9 +44,11 @@ import com.sun.max.vm.thread.*;
  * <p>
  * Binding can be performed at bootstrapping or runtime. If binding is performed while bootstrapping then either a default
  * or specialized monitor can be used. If binding is performed at runtime then an unbound monitor is taken from
- * a free list.
+ * the binding thread's cache of unbound monitors. The cache is refilled in batches from a global, lock-free stack of
+ * unbound monitors, which is only expanded under a lock.
  * <p>
- * Unbinding is performed at global safepoints. All unowned, unbindable, bound monitors are unbound. Writing of unbound
+ * Unbinding is performed at global safepoints. All unowned, unbindable, bound monitors are unbound and returned to the cache
+ * of the thread that bound them, or to the global stack if that cache is full. Writing of unbound
  * lockwords is delegated to an {@link UnboundMiscWordWriter} object (most likely the inflated mode handler of the ModalMonitorScheme).
  * This allows unbinding to be a transition to any other locking mode.
  * <p>
@@ -83,9 +87,26 @@ public class JavaMonitorManager {
     private static int unboundListGrowQty = 50;
 
     /**
-     * The current number of unbound monitors available.
+     * Maximum number of unbound monitors kept in the cache of a thread.
      */
-    private static int numberOfUnboundMonitors = 0;
+    private static final int THREAD_CACHE_MAX_QTY = 16;
+
+    /**
+     * Number of unbound monitors moved at once from the global stack to the cache of a thread.
+     */
+    private static final int THREAD_CACHE_REFILL_QTY = 8;
+
+    private static boolean PrintMonitorMetrics;
+    static {
+        VMOptions.addFieldOption("-XX:", "PrintMonitorMetrics", JavaMonitorManager.class, "Print monitor inflation and deflation metrics on VM exit.");
+    }
+
+    /**
+     * The current number of unbound monitors available on the global stack, not counting those cached by threads.
+     * Only used as a heuristic to decide when to collect garbage or expand the pool: it is adjusted after the stack is
+     * taken, so a thread may find the stack empty even though this number is not low.
+     */
+    private static final AtomicInteger numberOfUnboundMonitors = new AtomicInteger();
 
     /**
      * The unbound monitors high water mark.
@@ -95,9 +116,10 @@ public class JavaMonitorManager {
     private static int unboundMonitorsHwm;
 
     /**
-     * The head of the list of unbound monitors.
+     * The head of the global stack of unbound monitors. Monitors are pushed with a compare-and-swap of the head, and
+     * are only ever popped by taking the whole stack, which makes the stack immune to the ABA problem.
      */
-    private static ManagedMonitor unboundList;
+    private static final AtomicReference unboundStack = new AtomicReference();
 
     /**
      * The pool of monitors that can be bound to objects.
@@ -114,6 +136,13 @@ public class JavaMonitorManager {
 
     private static boolean inGlobalSafepoint = false;
 
+    // Metrics, only maintained if PrintMonitorMetrics is enabled.
+    private static final AtomicInteger inflations = new AtomicInteger();
+    private static final AtomicInteger threadCacheRefills = new AtomicInteger();
+    private static int expansions;
+    private static long deflations;
+    private static long metricsStartTime;
+
     /**
      * Lockword rewriting for objects in the process of being unbound is delegated to an UnboundMiscWordWriter.
      * This allows unbinding to transition a lock from 'inflated' to any other mode.
@@ -148,7 +177,7 @@ public class JavaMonitorManager {
             }
             for (int i = 0; i < unboundListImageQty; i++) {
                 final ManagedMonitor monitor = newManagedMonitor();
-                addToUnboundList(monitor);
+                pushOnUnboundStack(monitor, monitor, 1);
                 addToBindableMonitors(monitor);
             }
             unboundMonitorsHwm = unboundListImageQty;
@@ -179,6 +208,16 @@ public class JavaMonitorManager {
                 }
                 Log.unlock(lockDisabledSafepoints);
             }
+        } else if (phase == MaxineVM.Phase.RUNNING) {
+            if (PrintMonitorMetrics) {
+                metricsStartTime = System.nanoTime();
+                Runtime.getRuntime().addShutdownHook(new Thread("MonitorMetricsPrinter") {
+                    @Override
+                    public void run() {
+                        printMetrics();
+                    }
+                });
+            }
         }
     }
 
@@ -287,24 +326,139 @@ public class JavaMonitorManager {
         bindableMonitors[numberOfBindableMonitors++] = monitor;
     }
 
-    private static ManagedMonitor takeFromUnboundList() {
-        // No safe points in here, so safe to touch the free list.
-        final ManagedMonitor monitor = unboundList;
-        unboundList = unboundList.next();
-        monitor.setNext(null);
-        numberOfUnboundMonitors--;
+    /**
+     * Pushes a chain of unbound monitors on the global stack.
+     *
+     * @param head the first monitor of the chain
+     * @param tail the last monitor of the chain
+     * @param qty the number of monitors in the chain
+     */
+    @NO_SAFEPOINT_POLLS("a thread must not be frozen with part of the global stack")
+    private static void pushOnUnboundStack(ManagedMonitor head, ManagedMonitor tail, int qty) {
+        numberOfUnboundMonitors.getAndAdd(qty);
+        while (true) {
+            final Object top = unboundStack.get();
+            tail.setNext((ManagedMonitor) top);
+            if (unboundStack.compareAndSwap(top, head) == top) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Takes a chain of at most {@code qty} monitors from the global stack. The whole stack is taken, and the monitors
+     * in excess are pushed back.
+     *
+     * @return the first monitor of the chain, or null if the stack is empty
+     */
+    @NO_SAFEPOINT_POLLS("a thread must not be frozen with part of the global stack")
+    private static ManagedMonitor takeFromUnboundStack(int qty) {
+        ManagedMonitor head;
+        do {
+            head = (ManagedMonitor) unboundStack.get();
+            if (head == null) {
+                return null;
+            }
+        } while (unboundStack.compareAndSwap(head, null) != head);
+        ManagedMonitor tail = head;
+        int n = 1;
+        while (n < qty && tail.next() != null) {
+            tail = tail.next();
+            n++;
+        }
+        final ManagedMonitor excess = tail.next();
+        tail.setNext(null);
+        if (excess != null && unboundStack.compareAndSwap(null, excess) != null) {
+            // Monitors were pushed in the meantime, push the excess monitors on top of them.
+            ManagedMonitor excessTail = excess;
+            while (excessTail.next() != null) {
+                excessTail = excessTail.next();
+            }
+            while (true) {
+                final Object top = unboundStack.get();
+                excessTail.setNext((ManagedMonitor) top);
+                if (unboundStack.compareAndSwap(top, excess) == top) {
+                    break;
+                }
+            }
+        }
+        numberOfUnboundMonitors.getAndAdd(-n);
+        return head;
+    }
+
+    @NO_SAFEPOINT_POLLS("the cache of a thread is refilled by unbinding at global safepoints")
+    private static ManagedMonitor takeFromThreadCache(VmThread thread) {
+        final ManagedMonitor monitor = (ManagedMonitor) thread.unboundMonitorCache;
+        if (monitor != null) {
+            thread.unboundMonitorCache = monitor.next();
+            thread.unboundMonitorCacheSize--;
+            monitor.setNext(null);
+        }
         return monitor;
     }
 
-    private static void addToUnboundList(ManagedMonitor monitor) {
-        // No safe points in here, so safe to touch the free list.
-        monitor.setNext(unboundList);
-        unboundList = monitor;
-        numberOfUnboundMonitors++;
+    @NO_SAFEPOINT_POLLS("the cache of a thread is refilled by unbinding at global safepoints")
+    private static boolean addToThreadCache(VmThread thread, ManagedMonitor monitor) {
+        if (thread.unboundMonitorCacheSize >= THREAD_CACHE_MAX_QTY) {
+            return false;
+        }
+        monitor.setNext((ManagedMonitor) thread.unboundMonitorCache);
+        thread.unboundMonitorCache = monitor;
+        thread.unboundMonitorCacheSize++;
+        return true;
+    }
+
+    /**
+     * Refills the cache of the current thread with a batch of monitors from the global stack, expanding the pool of monitors
+     * if needed, and takes a monitor from it.
+     */
+    private static ManagedMonitor refillThreadCache(VmThread thread) {
+        if (PrintMonitorMetrics) {
+            threadCacheRefills.getAndAdd(1);
+        }
+        // Leave the reserve of monitors needed at global safepoints on the global stack.
+        if (numberOfUnboundMonitors.get() >= UNBOUNDLIST_MIN_QTY + THREAD_CACHE_REFILL_QTY) {
+            final ManagedMonitor batch = takeFromUnboundStack(THREAD_CACHE_REFILL_QTY);
+            if (batch != null) {
+                ManagedMonitor monitor = batch.next();
+                while (monitor != null) {
+                    final ManagedMonitor next = monitor.next();
+                    if (!addToThreadCache(thread, monitor)) {
+                        // the cache was refilled by unbinding in the meantime
+                        pushOnUnboundStack(monitor, monitor, 1);
+                    }
+                    monitor = next;
+                }
+                batch.setNext(null);
+                return batch;
+            }
+        }
+        synchronized (LOCK) {
+            if (numberOfUnboundMonitors.get() < UNBOUNDLIST_MIN_QTY) {
+                System.gc();
+                // Unbinding may have returned monitors to the cache of this thread.
+                final ManagedMonitor monitor = takeFromThreadCache(thread);
+                if (monitor != null) {
+                    return monitor;
+                }
+            }
+            // If we didn't free up enough such that we are at least midway between min and hwm, expand
+            if (numberOfUnboundMonitors.get() < (unboundMonitorsHwm + UNBOUNDLIST_MIN_QTY) >> 1) {
+                expandUnboundList();
+            }
+            ManagedMonitor monitor = takeFromUnboundStack(1);
+            while (monitor == null) {
+                // The stack was empty, or detached by threads taking monitors from it while the number of unbound
+                // monitors was not yet adjusted. Expand rather than wait for them to push their excess back.
+                expandUnboundList();
+                monitor = takeFromUnboundStack(1);
+            }
+            return monitor;
+        }
     }
 
     /**
-     * Lock used to synchronize access to the unbound monitor list.
+     * Lock used to synchronize the expansion of the pool of monitors.
      */
     @CONSTANT_WHEN_NOT_ZERO
     private static Object LOCK;
@@ -322,21 +476,20 @@ public class JavaMonitorManager {
      */
     public static ManagedMonitor bindMonitor(Object object) {
         ManagedMonitor monitor;
+        final VmThread current = VmThread.current();
         if (inGlobalSafepoint) {
-            monitor = takeFromUnboundList();
+            monitor = takeFromUnboundStack(1);
         } else {
-            synchronized (LOCK) {
-                if (numberOfUnboundMonitors < UNBOUNDLIST_MIN_QTY) {
-                    System.gc();
-                }
-                // If we didn't free up enough such that we are at least midway between min and hwm, expand
-                if (numberOfUnboundMonitors < (unboundMonitorsHwm + UNBOUNDLIST_MIN_QTY) >> 1) {
-                    expandUnboundList();
-                }
-                monitor = takeFromUnboundList();
+            monitor = takeFromThreadCache(current);
+            if (monitor == null) {
+                monitor = refillThreadCache(current);
             }
         }
         monitor.setBoundObject(object);
+        monitor.setBinder(current);
+        if (PrintMonitorMetrics) {
+            inflations.getAndAdd(1);
+        }
         if (Monitor.TraceMonitors) {
             final boolean lockDisabledSafepoints = Log.lock();
             Log.print("Bound monitor: ");
@@ -348,7 +501,7 @@ public class JavaMonitorManager {
     }
 
     /**
-     * Places the given monitor back into the free list.
+     * Places the given monitor back into the cache of the current thread, or on the global stack if the cache is full.
      * <p>
      * Important: This should only be called for monitors that have
      * failed to be two-way bound to an object.
@@ -359,13 +512,29 @@ public class JavaMonitorManager {
     public static void unbindMonitor(JavaMonitor monitor) {
         final ManagedMonitor bindableMonitor = (ManagedMonitor) monitor;
         bindableMonitor.reset();
-        if (inGlobalSafepoint) {
-            addToUnboundList(bindableMonitor);
-        } else {
-            synchronized (LOCK) {
-                addToUnboundList(bindableMonitor);
+        if (inGlobalSafepoint || !addToThreadCache(VmThread.current(), bindableMonitor)) {
+            pushOnUnboundStack(bindableMonitor, bindableMonitor, 1);
+        }
+    }
+
+    /**
+     * Returns the monitors cached by a terminating thread to the global stack. Must be called with the
+     * {@link VmThreadMap#THREAD_LOCK} held, so that it is atomic with respect to unbinding.
+     *
+     * @param thread the terminating thread
+     */
+    public static void releaseThreadCache(VmThread thread) {
+        final ManagedMonitor head = (ManagedMonitor) thread.unboundMonitorCache;
+        if (head != null) {
+            ManagedMonitor tail = head;
+            while (tail.next() != null) {
+                tail = tail.next();
             }
+            pushOnUnboundStack(head, tail, thread.unboundMonitorCacheSize);
         }
+        thread.unboundMonitorCache = null;
+        // Make the cache look full, so that unbinding never returns monitors to it afterwards.
+        thread.unboundMonitorCacheSize = THREAD_CACHE_MAX_QTY;
     }
 
     @NO_SAFEPOINT_POLLS("verification requires mutual exclusion with GC")
@@ -391,6 +560,7 @@ public class JavaMonitorManager {
      */
     private static void expandUnboundList() {
         ManagedMonitor newUnboundList = null;
+        ManagedMonitor newUnboundListTail = null;
         final ManagedMonitor[] newAllBindable = new ManagedMonitor[bindableMonitors.length + unboundListGrowQty];
 
         // Create the new monitors
@@ -398,6 +568,9 @@ public class JavaMonitorManager {
             final ManagedMonitor monitor = newManagedMonitor();
             monitor.setNext(newUnboundList);
             newUnboundList = monitor;
+            if (newUnboundListTail == null) {
+                newUnboundListTail = monitor;
+            }
         }
 
         // This is the only place where we need to synchronize monitor list access
@@ -410,13 +583,13 @@ public class JavaMonitorManager {
         unboundMonitorsHwm = newAllBindable.length;
         ManagedMonitor monitor = newUnboundList;
         while (monitor != null) {
-            newUnboundList = monitor.next();
-            addToUnboundList(monitor);
             addToAllBindable(monitor);
-            monitor = newUnboundList;
+            monitor = monitor.next();
         }
         FatalError.check(bindableMonitors.length >= numberOfBindableMonitors, "corrupted bindableMonitors array");
         SafepointPoll.enable();
+        pushOnUnboundStack(newUnboundList, newUnboundListTail, unboundListGrowQty);
+        expansions++;
         FatalError.check(verifyBindableMonitors() == 0, "corrupted bindableMonitors array");
     }
 
@@ -482,6 +655,11 @@ public class JavaMonitorManager {
     private static void unbindUnownedMonitors() {
         // Mark all protected monitors
         VmThreadMap.ACTIVE.forAllThreadLocals(null, protectedMonitorGatherer);
+        // Monitors that don't fit in the cache of their binder are pushed on the global stack in a single batch.
+        ManagedMonitor batchHead = null;
+        ManagedMonitor batchTail = null;
+        int batchQty = 0;
+        int unboundQty = 0;
         // Deflate all non-protected and non-sticky monitors with no owner
         for (int i = 0; i < numberOfBindableMonitors; i++) {
             final ManagedMonitor monitor = bindableMonitors[i];
@@ -498,15 +676,115 @@ public class JavaMonitorManager {
                 }
                 // Write the object's new misc word
                 unboundMiscWordWriter.writeUnboundMiscWord(monitor.boundObject(), monitor.displacedMisc());
+                final VmThread binder = monitor.binder();
                 monitor.reset();
-                // Put the monitor back on the unbound list.
-                // This is thread-safe as mutator thread access to the free-list is
+                unboundQty++;
+                // Put the monitor back in the cache of the thread that bound it.
+                // This is thread-safe as mutator thread access to its cache is
                 // atomic with respect to safepointing.
-                addToUnboundList(monitor);
+                if (binder == null || !addToThreadCache(binder, monitor)) {
+                    monitor.setNext(batchHead);
+                    batchHead = monitor;
+                    if (batchTail == null) {
+                        batchTail = monitor;
+                    }
+                    batchQty++;
+                }
             } else if (monitor.isBound()) {
                 monitor.preGCPrepare();
             }
         }
+        if (batchHead != null) {
+            pushOnUnboundStack(batchHead, batchTail, batchQty);
+        }
+        deflations += unboundQty;
+    }
+
+    private static void printMetrics() {
+        final long elapsed = Math.max(System.nanoTime() - metricsStartTime, 1L);
+        final long inflated = inflations.get();
+        Log.println("Monitor metrics:");
+        Log.print("  inflations:   ");
+        Log.print(inflated);
+        Log.print(" (");
+        Log.print(inflated * 1000000000L / elapsed);
+        Log.println(" per second)");
+        Log.print("  deflations:   ");
+        Log.print(deflations);
+        Log.print(" (");
+        Log.print(deflations * 1000000000L / elapsed);
+        Log.println(" per second)");
+        Log.print("  cache refills: ");
+        Log.print(threadCacheRefills.get());
+        Log.print(", pool expansions: ");
+        Log.print(expansions);
+        Log.print(", pool size: ");
+        Log.println(numberOfBindableMonitors);
+        long contended = StandardJavaMonitor.unboundContendedEnters();
+        long spinAcquired = StandardJavaMonitor.unboundSpinAcquires();
+        for (int i = 0; i < numberOfBindableMonitors; i++) {
+            if (bindableMonitors[i] instanceof StandardJavaMonitor) {
+                final StandardJavaMonitor monitor = (StandardJavaMonitor) bindableMonitors[i];
+                contended += monitor.contendedEnters();
+                spinAcquired += monitor.spinAcquires();
+            }
+        }
+        for (ManagedMonitor managedMonitor : stickyMonitors) {
+            if (managedMonitor instanceof StandardJavaMonitor) {
+                final StandardJavaMonitor monitor = (StandardJavaMonitor) managedMonitor;
+                contended += monitor.contendedEnters();
+                spinAcquired += monitor.spinAcquires();
+            }
+        }
+        Log.print("  contended enters: ");
+        Log.print(contended);
+        Log.print(", acquired by spinning: ");
+        Log.println(spinAcquired);
+    }
+
+    /**
+     * Writes the contention counters of the inflated monitors to a file, one line per contended monitor giving the
+     * class of its bound object, its contended, spinning and blocking acquisitions and its current spin budget,
+     * followed by the counters summed over the monitors that have since been unbound. The counters are read
+     * without synchronization and are thus only approximate while other threads are running.
+     *
+     * @param fileName the name of the file to write
+     */
+    public static void printContentionProfileToFile(String fileName) {
+        try {
+            final PrintStream out = new PrintStream(new FileOutputStream(fileName));
+            out.println("# bound-class contended-enters spin-acquires blocking-acquires spin-budget");
+            final ManagedMonitor[] monitors = bindableMonitors;
+            final int monitorsNum = Math.min(numberOfBindableMonitors, monitors.length);
+            for (int i = 0; i < monitorsNum; i++) {
+                printContentionProfile(out, monitors[i]);
+            }
+            for (ManagedMonitor monitor : stickyMonitors) {
+                printContentionProfile(out, monitor);
+            }
+            out.println("<unbound> " + StandardJavaMonitor.unboundContendedEnters() + " " + StandardJavaMonitor.unboundSpinAcquires() + " " +
+                StandardJavaMonitor.unboundBlockingAcquires() + " -");
+            out.close();
+        } catch (Exception e) {
+            Log.println("Could not write monitor contention profile. Exception thrown:" + e.toString());
+        }
+    }
+
+    private static void printContentionProfile(PrintStream out, ManagedMonitor managedMonitor) {
+        if (!(managedMonitor instanceof StandardJavaMonitor)) {
+            return;
+        }
+        final StandardJavaMonitor monitor = (StandardJavaMonitor) managedMonitor;
+        final Object boundObject = monitor.boundObject();
+        if (monitor.contendedEnters() == 0 || boundObject == null) {
+            return;
+        }
+        final ClassActor classActor = ObjectAccess.readClassActor(boundObject);
+        String name = classActor.name.string;
+        if (classActor == VmLock.ACTOR) {
+            name = name + ":" + VmLock.asVmLock(boundObject).name;
+        }
+        out.println(name + " " + monitor.contendedEnters() + " " + monitor.spinAcquires() + " " + monitor.blockingAcquires() + " " + monitor.spinBudget());
     }
 
     /**
@@ -582,6 +860,20 @@ public class JavaMonitorManager {
          */
         void setBoundObject(Object object);
 
+        /**
+         * Returns the thread that bound this monitor, to whose cache the monitor is returned when unbound.
+         *
+         * @return the binding thread, or null if this monitor is not bound
+         */
+        VmThread binder();
+
+        /**
+         * Sets the thread that bound this monitor.
+         *
+         * @param thread the binding thread
+         */
+        void setBinder(VmThread thread);
+
         /**
          * Tests if this monitor is one-way bound, i.e. the monitor points to the object.
          *
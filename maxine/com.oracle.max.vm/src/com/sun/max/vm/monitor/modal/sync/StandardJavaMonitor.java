@@ -57,11 +57,49 @@ import com.sun.max.vm.thread.*;
  * all threads can continue. With this implementation, the notify can hit thread A since it could not re-acquire the
  * lock between the timeout and the notify (remember that thread C holds the lock). So the notify does not wake up
  * thread B, and it sleeps forever - thread B remains blocked forever.
+ * <br>
+ * <br>
+ * If {@code -XX:+AdaptiveMonitorSpinning} is specified, a thread finding the monitor owned spins for a while, waiting for
+ * the owner to release it, before blocking on the mutex. The number of spins is learnt per monitor from the outcome of
+ * the previous contended acquisitions: the budget doubles each time the owner released the monitor within the budget,
+ * and halves each time it didn't, so that spinning is only attempted on monitors held for short periods.
+ * Per-monitor contention counters are maintained in all modes, and are dumped along with the MaxSim profile.
  */
 public class StandardJavaMonitor extends AbstractJavaMonitor {
 
+    private static boolean AdaptiveMonitorSpinning;
+    private static int MaxMonitorSpins = 4096;
+    private static int MinMonitorSpins = 16;
+    static {
+        VMOptions.addFieldOption("-XX:", "AdaptiveMonitorSpinning", StandardJavaMonitor.class,
+            "Spin for an adaptive number of iterations before blocking on a contended inflated monitor (default: false).");
+        VMOptions.addFieldOption("-XX:", "MaxMonitorSpins", StandardJavaMonitor.class,
+            "Maximum number of iterations spun on a contended inflated monitor (default: 4096).");
+        VMOptions.addFieldOption("-XX:", "MinMonitorSpins", StandardJavaMonitor.class,
+            "Minimum number of iterations spun on a contended inflated monitor (default: 16).");
+    }
+
+    /**
+     * Contention counters summed over the bindings that have been reset, i.e., over the objects monitors are no longer bound to.
+     * Only updated by the GC thread when unbinding monitors, as monitors unbound by mutators were never contended.
+     */
+    private static long unboundContendedEnters;
+    private static long unboundSpinAcquires;
+    private static long unboundBlockingAcquires;
+
     protected final Mutex mutex;
 
+    /**
+     * Number of iterations spun before blocking on the next contended acquisition of this monitor.
+     * Only updated by the owner of the monitor.
+     */
+    private int spinBudget = MinMonitorSpins;
+
+    // Contention counters of the current binding, only updated by the owner of the monitor.
+    private int contendedEnters;
+    private int spinAcquires;
+    private int blockingAcquires;
+
     /**
      * The list of threads waiting on this monitor as a result of a call to {@link #monitorWait(long)}. A thread is
      * responsible for adding/removing itself to/from this list on either side of the call to
@@ -94,15 +132,121 @@ public class StandardJavaMonitor extends AbstractJavaMonitor {
             traceEndMonitorEnter(currentThread);
             return;
         }
+        final boolean contended = ownerThread != null;
+        final boolean released = contended && AdaptiveMonitorSpinning && spin();
         currentThread.setState(Thread.State.BLOCKED);
         mutex.lock();
         currentThread.setState(Thread.State.RUNNABLE);
         ownerThread = currentThread;
         setBindingProtection(BindingProtection.PROTECTED);
         recursionCount = 1;
+        if (contended) {
+            recordContendedEnter(released);
+        }
         traceEndMonitorEnter(currentThread);
     }
 
+    /**
+     * Spins until the monitor is released or the spin budget is exhausted.
+     *
+     * @return true if the monitor was released while spinning
+     */
+    private boolean spin() {
+        final int budget = spinBudget;
+        for (int i = 0; i < budget; i++) {
+            Intrinsics.pause();
+            if (ownerThread == null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Updates the contention counters and the spin budget after a contended acquisition. Must be called by the owner of the monitor.
+     *
+     * @param released specifies if the monitor was released while the acquiring thread was spinning
+     */
+    private void recordContendedEnter(boolean released) {
+        contendedEnters++;
+        if (released) {
+            spinAcquires++;
+            if (spinBudget < MaxMonitorSpins) {
+                spinBudget = Math.min(spinBudget << 1, MaxMonitorSpins);
+            }
+        } else {
+            blockingAcquires++;
+            if (AdaptiveMonitorSpinning && spinBudget > MinMonitorSpins) {
+                spinBudget = Math.max(spinBudget >> 1, MinMonitorSpins);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of acquisitions of this monitor that found it owned by another thread since it was bound.
+     */
+    public final int contendedEnters() {
+        return contendedEnters;
+    }
+
+    /**
+     * Gets the number of contended acquisitions of this monitor that saw it released while spinning since it was bound.
+     */
+    public final int spinAcquires() {
+        return spinAcquires;
+    }
+
+    /**
+     * Gets the number of contended acquisitions of this monitor that blocked without spinning, or after exhausting
+     * the spin budget, since it was bound.
+     */
+    public final int blockingAcquires() {
+        return blockingAcquires;
+    }
+
+    /**
+     * Gets the current spin budget of this monitor.
+     */
+    public final int spinBudget() {
+        return spinBudget;
+    }
+
+    /**
+     * Gets the number of contended acquisitions of monitors that are no longer bound to the object they were contended on.
+     */
+    public static long unboundContendedEnters() {
+        return unboundContendedEnters;
+    }
+
+    /**
+     * Gets the number of spinning acquisitions of monitors that are no longer bound to the object they were contended on.
+     */
+    public static long unboundSpinAcquires() {
+        return unboundSpinAcquires;
+    }
+
+    /**
+     * Gets the number of blocking acquisitions of monitors that are no longer bound to the object they were contended on.
+     */
+    public static long unboundBlockingAcquires() {
+        return unboundBlockingAcquires;
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        if (contendedEnters != 0) {
+            unboundContendedEnters += contendedEnters;
+            unboundSpinAcquires += spinAcquires;
+            unboundBlockingAcquires += blockingAcquires;
+            contendedEnters = 0;
+            spinAcquires = 0;
+            blockingAcquires = 0;
+        }
+        // The history of the previous binding says nothing about the contention on the next bound object
+        spinBudget = MinMonitorSpins;
+    }
+
     @Override
     public void monitorExit() {
         final VmThread currentThread = VmThread.current();
@@ -268,5 +412,11 @@ public class StandardJavaMonitor extends AbstractJavaMonitor {
             waiter = waiter.nextWaitingThread;
         }
         Log.print("}");
+        Log.print(" contended=");
+        Log.print(contendedEnters);
+        Log.print(" spinAcquires=");
+        Log.print(spinAcquires);
+        Log.print(" spinBudget=");
+        Log.print(spinBudget);
     }
 }
@@ -68,9 +68,15 @@ public class MethodProfile {
     private static final byte BR_TAKEN_INDEX                     = 0;
     private static final byte BR_NOT_TAKEN_INDEX                 = 1;
 
-    public static final int DEOPTIMIZATION_REASONS_NUM           = 14;
+    public static final int DEOPTIMIZATION_REASONS_NUM           = 15;
     public static final int UNDEFINED_DEOPTIMIZATION_REASON_ID   = -1;
 
+    /**
+     * The deoptimization reason recorded when optimized code takes an {@linkplain com.sun.max.vm.compiler.deopt.Deoptimization#uncommonTrap uncommon trap}.
+     * It follows the reasons of the Graal compiler, which are identified by their ordinal.
+     */
+    public static final int UNCOMMON_TRAP_DEOPTIMIZATION_REASON_ID = DEOPTIMIZATION_REASONS_NUM - 1;
+
     public static final int UNDEFINED_TYPE_ID                    = ClassIDManager.NULL_CLASS_ID;
     public static final int UNDEFINED_METHOD_ID                  = -1;
 
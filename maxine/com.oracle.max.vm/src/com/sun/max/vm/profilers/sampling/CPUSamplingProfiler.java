@@ -38,6 +38,8 @@ import com.sun.max.unsafe.*;
  * CPU sampling profiler. Runs a thread that periodically wakes up, stops all the threads, and records their stack.
  * Note that the stack is gathered regardless of the state of the thread, e.g., it may be blocked.
  * Period of sampling is measured in milliseconds.
+ * With the {@code safepoint} option, threads record their own stack at their next safepoint poll instead,
+ * so a thread blocked in native code is only sampled when it returns to Java.
  */
 public final class CPUSamplingProfiler extends SamplingProfiler {
 
@@ -76,6 +78,7 @@ public final class CPUSamplingProfiler extends SamplingProfiler {
         this.minimumDepth = MINIMUM_DEPTH;
         this.sampleCountIncrement = 1;
         this.stackTraceGatherer = new StackTraceGatherer(CPU_SAMPLING_PROFILER_NAME);
+        this.canSampleAtSafepoints = true;
         this.optionPrefix = optionPrefix;
         create(optionValue);
     }
@@ -97,10 +100,19 @@ public final class CPUSamplingProfiler extends SamplingProfiler {
                         Log.println(now);
                         Log.unlock(state);
                     }
-                    // section should be synchronized with sorting and dumping
-                    synchronized (this) {
-                        stackTraceGatherer.submit();
-                        sampleCount++;
+                    if (sampleAtSafepoints) {
+                        requestSamples();
+                        // section should be synchronized with dumping
+                        synchronized (this) {
+                            drainSamples();
+                            sampleCount++;
+                        }
+                    } else {
+                        // section should be synchronized with sorting and dumping
+                        synchronized (this) {
+                            stackTraceGatherer.submit();
+                            sampleCount++;
+                        }
                     }
                     if (dumpInterval > 0 && now > lastDump + dumpInterval * 1000000L) {
                         dumpTraces();
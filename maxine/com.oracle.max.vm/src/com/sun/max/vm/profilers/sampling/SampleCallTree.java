@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.max.vm.profilers.sampling;
+
+import java.io.*;
+import java.util.*;
+
+import com.sun.max.vm.actor.holder.*;
+import com.sun.max.vm.actor.member.*;
+
+/**
+ * Call tree merging the samples drained from {@link ThreadSampleBuffer}s, with one root per thread.
+ *
+ * A node denotes a unique stack prefix and is interned in a hash table keyed by its parent node and its frame,
+ * so adding a sample costs one table probe per frame and no allocation once the stack has been seen.
+ * Nodes are stored in parallel arrays. Only the profiler thread accesses the tree.
+ */
+public final class SampleCallTree {
+
+    /**
+     * Specifies if frames in the same method at different source lines are distinct nodes.
+     */
+    private final boolean lines;
+
+    private int nodeCount;
+    private int[] parents = new int[1024];
+    private long[] frames = new long[1024];
+    private long[] counts = new long[1024];
+
+    /**
+     * Open addressing hash table of node indexes plus one, zero denoting an empty slot.
+     */
+    private int[] table = new int[2048];
+
+    private final ArrayList<String> threadNames = new ArrayList<String>();
+
+    public SampleCallTree(boolean lines) {
+        this.lines = lines;
+    }
+
+    /**
+     * Adds a sample read from a {@link ThreadSampleBuffer}.
+     *
+     * @param buffer the buffer of the sampled thread
+     * @param data the buffer's data
+     * @param mask the mask to apply to positions in {@code data}
+     * @param start the position of the innermost frame of the sample
+     * @param depth the number of frames in the sample
+     */
+    void add(ThreadSampleBuffer buffer, int[] data, int mask, long start, int depth) {
+        if (buffer.rootNode < 0) {
+            threadNames.add(buffer.vmThread.getName().replace(';', '_'));
+            buffer.rootNode = node(-1, -threadNames.size());
+        }
+        int node = buffer.rootNode;
+        for (int i = depth - 1; i >= 0; i--) {
+            final int position = (int) (start + 2 * i);
+            final int holderID = data[position & mask];
+            final int methodAndBCI = data[(position + 1) & mask];
+            node = node(node, frameKey(holderID, methodAndBCI));
+        }
+        counts[node]++;
+    }
+
+    private long frameKey(int holderID, int methodAndBCI) {
+        final int memberIndex = methodAndBCI >>> 16;
+        int lineNumber = 0;
+        if (lines) {
+            final int bci = methodAndBCI & ThreadSampleBuffer.UNKNOWN_BCI;
+            final MethodActor methodActor = ClassIDManager.toClassActor(holderID).getLocalMethodActor(memberIndex);
+            if (bci != ThreadSampleBuffer.UNKNOWN_BCI && methodActor instanceof ClassMethodActor && !methodActor.isNative()) {
+                lineNumber = ((ClassMethodActor) methodActor).sourceLineNumber(bci) & 0xffff;
+            }
+        }
+        return ((long) holderID << 32) | ((long) memberIndex << 16) | lineNumber;
+    }
+
+    /**
+     * Gets the node for {@code frame} called from {@code parent}, creating it if necessary.
+     */
+    private int node(int parent, long frame) {
+        int slot = hash(parent, frame) & (table.length - 1);
+        while (true) {
+            final int entry = table[slot];
+            if (entry == 0) {
+                break;
+            }
+            if (parents[entry - 1] == parent && frames[entry - 1] == frame) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & (table.length - 1);
+        }
+        if (nodeCount == parents.length) {
+            parents = Arrays.copyOf(parents, nodeCount * 2);
+            frames = Arrays.copyOf(frames, nodeCount * 2);
+            counts = Arrays.copyOf(counts, nodeCount * 2);
+        }
+        final int node = nodeCount++;
+        parents[node] = parent;
+        frames[node] = frame;
+        counts[node] = 0;
+        table[slot] = node + 1;
+        if (nodeCount * 2 > table.length) {
+            rehash();
+        }
+        return node;
+    }
+
+    private static int hash(int parent, long frame) {
+        final long h = (frame ^ (frame >>> 29)) * 0x9E3779B97F4A7C15L + parent;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void rehash() {
+        table = new int[table.length * 2];
+        for (int node = 0; node < nodeCount; node++) {
+            int slot = hash(parents[node], frames[node]) & (table.length - 1);
+            while (table[slot] != 0) {
+                slot = (slot + 1) & (table.length - 1);
+            }
+            table[slot] = node + 1;
+        }
+    }
+
+    void clear() {
+        nodeCount = 0;
+        Arrays.fill(table, 0);
+        threadNames.clear();
+    }
+
+    /**
+     * Prints the tree in the collapsed stack format read by flame graph tools: one line per sampled stack,
+     * made of the thread name and the frames from the outermost one separated by {@code ';'}, followed by
+     * a space and the number of samples.
+     */
+    public void printCollapsed(PrintStream out) {
+        final StringBuilder sb = new StringBuilder();
+        int[] stack = new int[64];
+        for (int node = 0; node < nodeCount; node++) {
+            if (counts[node] == 0) {
+                continue;
+            }
+            int depth = 0;
+            for (int n = node; n >= 0; n = parents[n]) {
+                if (depth == stack.length) {
+                    stack = Arrays.copyOf(stack, depth * 2);
+                }
+                stack[depth++] = n;
+            }
+            sb.setLength(0);
+            for (int i = depth - 1; i >= 0; i--) {
+                appendFrame(sb, frames[stack[i]]);
+                sb.append(i == 0 ? ' ' : ';');
+            }
+            sb.append(counts[node]);
+            out.println(sb);
+        }
+    }
+
+    private void appendFrame(StringBuilder sb, long frame) {
+        if (frame < 0) {
+            sb.append(threadNames.get((int) -frame - 1));
+            return;
+        }
+        final int memberIndex = (int) (frame >>> 16) & 0xffff;
+        final int lineNumber = (int) frame & 0xffff;
+        final ClassActor holder = ClassIDManager.toClassActor((int) (frame >>> 32));
+        sb.append(holder.name.toString()).append('.').append(holder.getLocalMethodActor(memberIndex).name.toString());
+        if (lineNumber != 0) {
+            sb.append(':').append(lineNumber);
+        }
+    }
+}
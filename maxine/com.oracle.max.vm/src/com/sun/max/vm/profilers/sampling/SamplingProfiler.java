@@ -22,6 +22,9 @@
  */
 package com.sun.max.vm.profilers.sampling;
 
+import static com.sun.max.vm.thread.VmThreadLocal.*;
+
+import java.io.*;
 import java.util.*;
 
 import com.sun.max.annotate.*;
@@ -30,6 +33,7 @@ import com.sun.max.vm.actor.member.*;
 import com.sun.max.vm.runtime.*;
 import com.sun.max.vm.stack.*;
 import com.sun.max.vm.thread.VmThread;
+import com.sun.max.vm.thread.VmThreadMap;
 import com.sun.max.unsafe.*;
 
 /**
@@ -59,6 +63,11 @@ import com.sun.max.unsafe.*;
  * periodically. Data is output using the {@link Log} class. By default output is sorted by thread and by sample count
  * This has more allocation overhead at the time of output and so is the default only if data is output at
  * VM termination. In unsorted mode the stack traces and samples counts are output in an arbitrary order.
+ *
+ * Profilers that {@linkplain #canSampleAtSafepoints can} may instead {@linkplain #sampleAtSafepoints sample threads individually}:
+ * each activation requests every thread to record its own stack in its {@link ThreadSampleBuffer} at its next safepoint poll,
+ * without stopping the other threads, and the profiler thread merges the recorded samples into a {@link SampleCallTree}.
+ * This mode outputs the samples in the collapsed stack format read by flame graph tools, either to the log or to a file.
  */
 public abstract class SamplingProfiler extends Thread {
 
@@ -219,6 +228,48 @@ public abstract class SamplingProfiler extends Thread {
      */
     private Map<StackInfo, List<ThreadSample>> stackInfoMap = new HashMap<StackInfo, List<ThreadSample>>();
 
+    /**
+     * Number of samples a {@link ThreadSampleBuffer} can hold between two activations of the profiler.
+     */
+    private static final int SAMPLE_BUFFER_CAPACITY = 64;
+
+    /**
+     * Specifies if the profiler supports {@link #sampleAtSafepoints}.
+     */
+    @CONSTANT_WHEN_NOT_ZERO
+    protected boolean canSampleAtSafepoints;
+
+    /**
+     * {@code true} if threads are sampled individually at their next safepoint poll, instead of being stopped
+     * together by a {@link StackTraceGatherer}.
+     */
+    protected boolean sampleAtSafepoints;
+
+    /**
+     * {@code true} if samples taken at safepoints distinguish the source lines of a method.
+     */
+    private boolean lineNumbers;
+
+    /**
+     * The file to which the collapsed stacks of samples taken at safepoints are written, or {@code null} to use the log.
+     */
+    private String collapsedOutputFile;
+
+    /**
+     * The buffers of the threads sampled at safepoints, only accessed with this profiler locked.
+     */
+    private final ArrayList<ThreadSampleBuffer> sampleBuffers = new ArrayList<ThreadSampleBuffer>();
+
+    /**
+     * The samples taken at safepoints drained so far.
+     */
+    private SampleCallTree sampleCallTree;
+
+    /**
+     * Number of samples dropped by terminated threads because their buffer was full.
+     */
+    private int droppedSamples;
+
     /**
      * Constructor.
      *
@@ -240,6 +291,7 @@ public abstract class SamplingProfiler extends Thread {
         int stackDepth = 0;
         int dumpPeriod = 0;
         boolean sortedOutputOptionSet = false;
+        boolean flatOptionSet = false;
 
         flat = defaultFlat;
         sortedOutput = DEFAULT_SORT;
@@ -265,7 +317,15 @@ public abstract class SamplingProfiler extends Thread {
                         sortedOutputOptionSet = true;
                         sortedOutput = getBoolOption(option);
                     } else if (option.startsWith("flat")) {
+                        flatOptionSet = true;
                         flat = getBoolOption(option);
+                    } else if (option.startsWith("safepoint") && canSampleAtSafepoints) {
+                        sampleAtSafepoints = getBoolOption(option);
+                    } else if (option.startsWith("lines") && canSampleAtSafepoints) {
+                        lineNumbers = getBoolOption(option);
+                    } else if (option.startsWith("collapsed") && canSampleAtSafepoints) {
+                        sampleAtSafepoints = true;
+                        collapsedOutputFile = getStringOption(option);
                     } else {
                         usage();
                     }
@@ -278,6 +338,10 @@ public abstract class SamplingProfiler extends Thread {
         if (sortedOutputOptionSet == false && dumpPeriod != 0) {
             sortedOutput = false;
         }
+        // flame graphs need whole stacks
+        if (sampleAtSafepoints && !flatOptionSet) {
+            flat = false;
+        }
         if (flat) {
             stackDepth = 1;
         }
@@ -285,7 +349,8 @@ public abstract class SamplingProfiler extends Thread {
     }
 
     private void usage() {
-        System.err.println("usage: " + optionPrefix + ":frequency=f,depth=d,systhreads,dump=t,sort[=t],flat[=t]");
+        System.err.println("usage: " + optionPrefix + ":frequency=f,depth=d,systhreads,dump=t,sort[=t],flat[=t]" +
+                        (canSampleAtSafepoints ? ",safepoint[=t],lines[=t],collapsed=file" : ""));
         MaxineVM.native_exit(1);
     }
 
@@ -297,6 +362,14 @@ public abstract class SamplingProfiler extends Thread {
         return Boolean.parseBoolean(s.substring(index + 1));
     }
 
+    private String getStringOption(String s) {
+        final int index = s.indexOf('=');
+        if (index < 0) {
+            usage();
+        }
+        return s.substring(index + 1);
+    }
+
     private int getOption(String s) {
         final int index = s.indexOf('=');
         if (index < 0) {
@@ -320,6 +393,9 @@ public abstract class SamplingProfiler extends Thread {
         maxStackDepth = Math.max(minimumDepth, depth == 0 ? defaultDepth : depth);
         dumpInterval = dumpPeriod * 1000L;
         workingStackInfo = new StackInfo(maxStackDepth);
+        if (sampleAtSafepoints) {
+            sampleCallTree = new SampleCallTree(lineNumbers);
+        }
         isProfiling = true;
         if (useDedicatedThread || dumpInterval != 0) {
             final Thread profileThread = (Thread) this;
@@ -411,6 +487,65 @@ public abstract class SamplingProfiler extends Thread {
         return vmThread.javaThread().getThreadGroup() == VmThread.systemThreadGroup;
     }
 
+    private boolean isSampledAtSafepoints(VmThread vmThread) {
+        return vmThread != theProfiler && !vmThread.isVmOperationThread() && vmThread.javaThread() != null &&
+                        (trackSystemThreads || !isSystemThread(vmThread));
+    }
+
+    private final VmThreadMap.Procedure sampleBufferAllocator = new VmThreadMap.Procedure() {
+        public void run(VmThread vmThread) {
+            if (vmThread.sampleBuffer() == null && isSampledAtSafepoints(vmThread)) {
+                final ThreadSampleBuffer buffer = new ThreadSampleBuffer(vmThread, maxStackDepth, SAMPLE_BUFFER_CAPACITY);
+                sampleBuffers.add(buffer);
+                vmThread.setSampleBuffer(buffer);
+            }
+        }
+    };
+
+    private final Pointer.Procedure sampleRequester = new Pointer.Procedure() {
+        public void run(Pointer tla) {
+            final ThreadSampleBuffer buffer = VmThread.fromTLA(tla).sampleBuffer();
+            if (buffer != null) {
+                buffer.request();
+                // Trigger safepoints without a VM operation: the thread records the sample and resets them when it traps
+                SAFEPOINT_LATCH.store(ETLA.load(tla), TTLA.load(tla));
+            }
+        }
+    };
+
+    /**
+     * Requests all the sampled threads to record a sample at their next safepoint poll.
+     * Threads are not waited for; the samples they take are collected by {@link #drainSamples()}.
+     */
+    protected void requestSamples() {
+        synchronized (this) {
+            // Buffers are allocated without holding THREAD_LOCK, which a GC needs
+            VmThreadMap.ACTIVE.forAllThreads(sampleBufferAllocator);
+        }
+        synchronized (VmThreadMap.THREAD_LOCK) {
+            // No VM operation can be freezing or thawing the threads while their safepoints are triggered
+            VmThreadMap.ACTIVE.forAllThreadLocals(null, sampleRequester);
+        }
+    }
+
+    /**
+     * Merges the samples recorded by the sampled threads into {@link #sampleCallTree}, and discards
+     * the buffers of the threads that terminated.
+     * It should be synchronized with sampling profiling.
+     */
+    protected void drainSamples() {
+        for (Iterator<ThreadSampleBuffer> iterator = sampleBuffers.iterator(); iterator.hasNext();) {
+            final ThreadSampleBuffer buffer = iterator.next();
+            final boolean terminated = buffer.vmThread.tla().isZero();
+            buffer.drain(sampleCallTree);
+            if (terminated) {
+                droppedSamples += buffer.droppedSamples();
+                buffer.vmThread.setSampleBuffer(null);
+                iterator.remove();
+            }
+        }
+    }
+
     @CONSTANT_WHEN_NOT_ZERO
     protected StackTraceGatherer stackTraceGatherer;
 
@@ -625,6 +760,14 @@ public abstract class SamplingProfiler extends Thread {
     public void restart() {
         isProfiling = false;
         stackInfoMap.clear();
+        if (sampleAtSafepoints) {
+            synchronized (this) {
+                sampleCallTree.clear();
+                for (ThreadSampleBuffer buffer : sampleBuffers) {
+                    buffer.rootNode = -1;
+                }
+            }
+        }
         isProfiling = true;
     }
 
@@ -637,6 +780,11 @@ public abstract class SamplingProfiler extends Thread {
      * Dumps traces. It should be synchronized with sampling profiling..
      */
     protected synchronized void dumpTraces() {
+        if (sampleAtSafepoints) {
+            drainSamples();
+            dumpCollapsedStacks();
+            return;
+        }
         Map<VmThread, CountedStackInfo[]> sortedInfo = null;
         if (sortedOutput) {
             sortedInfo = sortByThread();
@@ -672,6 +820,28 @@ public abstract class SamplingProfiler extends Thread {
     }
 
 
+    private void dumpCollapsedStacks() {
+        if (collapsedOutputFile != null) {
+            try {
+                final PrintStream out = new PrintStream(new FileOutputStream(collapsedOutputFile));
+                sampleCallTree.printCollapsed(out);
+                out.close();
+                return;
+            } catch (IOException e) {
+                Log.println(samplingProfilerName + ": could not write " + collapsedOutputFile + ", dumping to the log instead");
+            }
+        }
+        boolean state = Log.lock();
+        Log.print(samplingProfilerName + ", #samples: ");
+        Log.print(sampleCount);
+        Log.print(" (");
+        printSamplesInPeriodUnits(sampleCount);
+        Log.print("), dropped samples of terminated threads: ");
+        Log.println(droppedSamples);
+        sampleCallTree.printCollapsed(Log.out);
+        Log.unlock(state);
+    }
+
     /**
      * Prints samples in period units.
      */
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2012, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.max.vm.profilers.sampling;
+
+import static com.sun.max.vm.thread.VmThreadLocal.*;
+
+import com.sun.max.unsafe.*;
+import com.sun.max.vm.actor.member.*;
+import com.sun.max.vm.stack.*;
+import com.sun.max.vm.thread.*;
+
+/**
+ * A ring buffer of stack samples taken by a thread on itself, at the first safepoint poll following a
+ * {@linkplain #request() request} from the {@link SamplingProfiler}.
+ *
+ * A sample is recorded as a frame count followed by two {@code int}s per frame, innermost frame first:
+ * the class id of the method's holder, and the method's {@linkplain MemberActor#memberIndex() member index}
+ * in the upper 16 bits combined with the bytecode index in the lower 16 bits.
+ *
+ * The buffer has a single writer, the sampled thread, and a single reader, the profiler thread. Neither blocks:
+ * the writer publishes a sample by advancing {@link #head} and drops the sample if there is not enough free space,
+ * the reader releases space by advancing {@link #tail}.
+ * A sample is recorded with safepoints disabled and without allocating, which is why this object is also
+ * the visitor for the stack walk.
+ */
+public final class ThreadSampleBuffer extends SourceFrameVisitor {
+
+    /**
+     * Value of the bytecode index field for frames without a known bytecode index.
+     */
+    static final int UNKNOWN_BCI = 0xffff;
+
+    final VmThread vmThread;
+
+    private final int[] data;
+    private final int mask;
+    private final int maxDepth;
+    private final VmStackFrameWalker walker = new VmStackFrameWalker(Pointer.zero());
+
+    /**
+     * Position of the next sample to be written, only advanced by the sampled thread.
+     */
+    private volatile long head;
+
+    /**
+     * Position of the next sample to be read, only advanced by the profiler thread.
+     */
+    private volatile long tail;
+
+    private volatile boolean requested;
+
+    /**
+     * Number of samples dropped because the buffer was full.
+     */
+    private int droppedSamples;
+
+    /**
+     * Position and frame count of the sample being recorded.
+     */
+    private long recordStart;
+    private int recordDepth;
+
+    /**
+     * The root node of this buffer's thread in the {@link SampleCallTree}, assigned by the profiler thread.
+     */
+    int rootNode = -1;
+
+    /**
+     * Creates a buffer large enough to hold {@code capacity} samples of {@code maxDepth} frames.
+     */
+    public ThreadSampleBuffer(VmThread vmThread, int maxDepth, int capacity) {
+        this.vmThread = vmThread;
+        this.maxDepth = maxDepth;
+        final int sampleSize = 1 + 2 * maxDepth;
+        this.data = new int[Integer.highestOneBit(sampleSize * capacity - 1) << 1];
+        this.mask = data.length - 1;
+    }
+
+    /**
+     * Requests a sample to be taken by the thread at its next safepoint poll.
+     */
+    void request() {
+        requested = true;
+    }
+
+    public boolean isRequested() {
+        return requested;
+    }
+
+    /**
+     * Records the stack of the current thread, which must be the thread this buffer belongs to, stopped at a safepoint trap.
+     *
+     * @param ip the instruction pointer of the safepoint poll
+     * @param sp the stack pointer at the safepoint poll
+     * @param fp the frame pointer at the safepoint poll
+     */
+    public void record(Pointer ip, Pointer sp, Pointer fp) {
+        requested = false;
+        if (!beginSample()) {
+            return;
+        }
+        walker.setTLA(ETLA.load(VmThread.currentTLA()));
+        walk(walker, ip, sp, fp);
+        endSample();
+    }
+
+    @Override
+    public boolean visitSourceFrame(ClassMethodActor method, int bci, boolean trapped, long frameId) {
+        if (trapped) {
+            // the frames recorded so far handle the trap
+            recordDepth = 0;
+        }
+        final ClassMethodActor original = method.original();
+        return addFrame(original.holder().id, original.memberIndex(), bci);
+    }
+
+    /**
+     * Starts recording a sample, which is dropped if there is not enough free space for the deepest sample.
+     * The frames of the sample are then {@linkplain #addFrame(int, int, int) added}, and the sample is
+     * {@linkplain #endSample() published}. Must only be called by the thread this buffer belongs to.
+     *
+     * @return false if the sample is dropped
+     */
+    public boolean beginSample() {
+        final long start = head;
+        if (start + 1 + 2 * maxDepth - tail > data.length) {
+            droppedSamples++;
+            return false;
+        }
+        recordStart = start;
+        recordDepth = 0;
+        return true;
+    }
+
+    /**
+     * Adds a frame to the sample being recorded, innermost frame first.
+     *
+     * @param holderID the class id of the method's holder
+     * @param memberIndex the method's member index
+     * @param bci the bytecode index in the method, or a negative value if it is not known
+     * @return false if the sample has reached its maximum depth
+     */
+    public boolean addFrame(int holderID, int memberIndex, int bci) {
+        final int position = (int) (recordStart + 1 + 2 * recordDepth);
+        data[position & mask] = holderID;
+        data[(position + 1) & mask] = (memberIndex << 16) | (bci < 0 ? UNKNOWN_BCI : bci & UNKNOWN_BCI);
+        recordDepth++;
+        return recordDepth < maxDepth;
+    }
+
+    /**
+     * Publishes the sample being recorded, unless it has no frame.
+     */
+    public void endSample() {
+        if (recordDepth > 0) {
+            data[(int) recordStart & mask] = recordDepth;
+            head = recordStart + 1 + 2 * recordDepth;
+        }
+    }
+
+    /**
+     * Adds the samples recorded since the last call to {@code tree} and releases their space.
+     *
+     * @return the number of samples added
+     */
+    public int drain(SampleCallTree tree) {
+        final long end = head;
+        long position = tail;
+        int samples = 0;
+        while (position < end) {
+            final int depth = data[(int) position & mask];
+            tree.add(this, data, mask, position + 1, depth);
+            position += 1 + 2 * depth;
+            samples++;
+        }
+        tail = position;
+        return samples;
+    }
+
+    public int droppedSamples() {
+        return droppedSamples;
+    }
+}
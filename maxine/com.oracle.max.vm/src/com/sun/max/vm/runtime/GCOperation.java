@@ -28,6 +28,7 @@ import static com.sun.max.vm.thread.VmThreadLocal.*;
 import com.sun.max.annotate.*;
 import com.sun.max.unsafe.*;
 import com.sun.max.vm.*;
+import com.sun.max.vm.code.*;
 import com.sun.max.vm.heap.*;
 import com.sun.max.vm.maxsim.MaxSimInterface;
 import com.sun.max.vm.maxsim.MaxSimInterfaceHelpers;
@@ -158,12 +159,24 @@ public abstract class GCOperation extends VmOperation {
         }
     }
 
+    /**
+     * GC worker threads are not frozen, their stack reference maps are prepared by {@link #doIt()} instead.
+     */
+    @Override
+    protected boolean operateOnThread(VmThread thread) {
+        return !GCWorkerThreads.isWorker(thread);
+    }
+
     @Override
     public void doIt() {
+        GCWorkerThreads.prepareStackReferenceMaps();
         // The next 2 statements *must* be adjacent as the reference map for this frame must
         // be the same at both calls.
         stackReferenceMapPreparationTime = VmThreadLocal.prepareCurrentStackReferenceMap();
         collect();
+        GCWorkerThreads.clearStackReferenceMaps();
+        // Piggyback the marking of live methods of a pending incremental code eviction on this safepoint.
+        CodeEviction.doAtGCSafepoint();
     }
 
     private int invocationCount;
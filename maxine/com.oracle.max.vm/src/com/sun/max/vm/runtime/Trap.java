@@ -36,6 +36,7 @@ import com.sun.max.vm.*;
 import com.sun.max.vm.code.*;
 import com.sun.max.vm.compiler.*;
 import com.sun.max.vm.compiler.target.*;
+import com.sun.max.vm.profilers.sampling.*;
 import com.sun.max.vm.reference.*;
 import com.sun.max.vm.thread.*;
 
@@ -332,6 +333,11 @@ public abstract class Trap {
             final Reference reference = VM_OPERATION.loadRef(etla);
             final VmOperation vmOperation = (VmOperation) reference.toJava();
             tfa.setTrapNumber(trapFrame, Number.SAFEPOINT);
+            // Record a pending profiler sample before a VM operation can patch the trap frame
+            final ThreadSampleBuffer sampleBuffer = VmThread.current().sampleBuffer();
+            if (sampleBuffer != null && sampleBuffer.isRequested()) {
+                sampleBuffer.record(instructionPointer.toPointer(), stackPointer, framePointer);
+            }
             if (vmOperation != null) {
                 TRAP_INSTRUCTION_POINTER.store3(instructionPointer.toAddress());
                 vmOperation.doAtSafepoint(trapFrame);
@@ -367,6 +373,15 @@ public abstract class Trap {
                  * The second safepoint instruction on the mutator thread will cause a trap when
                  * VM_OPERATION for the mutator is null.
                  */
+                if (sampleBuffer != null) {
+                    // The sampling profiler triggered safepoints without a VM operation, which would thaw
+                    // them again, so reset them here. A VM operation triggered in the meantime is preserved
+                    // by the CAS, or by triggering the safepoints again if it raced with the CAS.
+                    etla.compareAndSwapWord(SAFEPOINT_LATCH.offset, ttla, etla);
+                    if (!VM_OPERATION.loadRef(etla).isZero()) {
+                        SAFEPOINT_LATCH.store(etla, ttla);
+                    }
+                }
             }
             // The state of the safepoint latch was TRIGGERED when the trap happened. It must be reset back to ENABLED
             // here otherwise another trap will occur as soon as the trap stub returns and re-executes the
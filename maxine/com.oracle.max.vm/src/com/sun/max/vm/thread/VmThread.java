@@ -54,6 +54,7 @@ import com.sun.max.vm.jni.*;
 import com.sun.max.vm.log.*;
 import com.sun.max.vm.monitor.modal.sync.*;
 import com.sun.max.vm.object.*;
+import com.sun.max.vm.profilers.sampling.*;
 import com.sun.max.vm.reference.*;
 import com.sun.max.vm.runtime.*;
 import com.sun.max.vm.stack.*;
@@ -276,6 +277,11 @@ public class VmThread {
     @CONSTANT_WHEN_NOT_ZERO
     private VmStackFrameWalker samplingProfilerStackFrameWalker;
 
+    /**
+     * The buffer into which this thread records the stack samples requested by the sampling profiler, if any.
+     */
+    private ThreadSampleBuffer sampleBuffer;
+
     private final StackReferenceMapPreparer stackReferenceMapPreparer = new StackReferenceMapPreparer(true, true);
 
     private final StackReferenceMapPreparer stackReferenceMapVerifier = new StackReferenceMapPreparer(true, false);
@@ -284,6 +290,18 @@ public class VmThread {
 
     public JavaMonitor protectedMonitor;
 
+    /**
+     * Unbound monitors cached by this thread for inflation, linked through their next field.
+     *
+     * @see JavaMonitorManager
+     */
+    public JavaMonitor unboundMonitorCache;
+
+    /**
+     * Number of monitors in {@link #unboundMonitorCache}.
+     */
+    public int unboundMonitorCacheSize;
+
     private ConditionVariable waitingCondition = ConditionVariableFactory.create();
 
     public final HeapScheme.GCRequest gcRequest = VMConfiguration.vmConfig().heapScheme().createThreadLocalGCRequest(this);
@@ -819,6 +837,7 @@ public class VmThread {
             // It is the monitor scheme's responsibility to ensure that this thread isn't
             // reset to RUNNABLE if it blocks here.
             VmThreadMap.ACTIVE.removeThreadLocals(thread);
+            JavaMonitorManager.releaseThreadCache(thread);
         }
         if (MaxineVM.isDebug()) {
             detached();
@@ -1044,6 +1063,19 @@ public class VmThread {
         return samplingProfilerStackFrameWalker;
     }
 
+    /**
+     * Gets the buffer into which this thread records the stack samples requested at safepoints by the sampling profiler.
+     *
+     * @return {@code null} if this thread is not sampled at safepoints
+     */
+    public final ThreadSampleBuffer sampleBuffer() {
+        return sampleBuffer;
+    }
+
+    public final void setSampleBuffer(ThreadSampleBuffer sampleBuffer) {
+        this.sampleBuffer = sampleBuffer;
+    }
+
     /**
      * Gets the thread-local object used to prepare the reference map for this stack's thread during garbage collection.
      */
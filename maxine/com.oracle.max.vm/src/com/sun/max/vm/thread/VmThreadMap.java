@@ -25,6 +25,7 @@ package com.sun.max.vm.thread;
 import java.util.*;
 
 import com.sun.max.annotate.*;
+import com.sun.max.atomic.*;
 import com.sun.max.unsafe.*;
 import com.sun.max.vm.*;
 import com.sun.max.vm.hosted.BootImage.Header;
@@ -37,6 +38,12 @@ import com.sun.max.vm.runtime.*;
 
 /**
  * The {@code VmThreadMap} class contains all the active threads in the VM.
+ *
+ * Starting, attaching and terminating a thread, as well as iterating over the
+ * {@linkplain #forAllThreadLocals(Pointer.Predicate, Pointer.Procedure) VM thread locals} of the running threads,
+ * synchronize on {@link #THREAD_LOCK}. Taking a {@linkplain #getThreads(boolean) snapshot} of the running threads,
+ * {@linkplain #forAllThreads(Procedure) iterating} over them and reading the thread counters do not:
+ * they read the {@link VmThread} registry and the atomic counters maintained by the former operations.
  */
 public final class VmThreadMap {
 
@@ -101,7 +108,13 @@ public final class VmThreadMap {
     private static final class IDMap {
         private int nextID = 1;
         private int[] freeList;
-        private VmThread[] threads;
+
+        /**
+         * The registry of threads, indexed by ID. The array is never updated in place when it grows, so that
+         * it can be read without synchronization: a reader holding a stale array only misses the threads
+         * that acquired an ID since.
+         */
+        private volatile VmThread[] threads;
 
         IDMap(int initialSize) {
             freeList = new int[initialSize];
@@ -182,23 +195,24 @@ public final class VmThreadMap {
     /**
      * The number of live daemon and non-daemon threads.
      */
-    private volatile int liveThreads = 1;
+    private final AtomicInteger liveThreads = new AtomicInteger(1);
 
     /**
      * Total number of threads started since VM began.
      */
-    private volatile int totalStarted = 1;
+    private final AtomicInteger totalStarted = new AtomicInteger(1);
 
     /**
      * Peak live thread count.
      */
-    private volatile int peakThreadCount = 1;
+    private final AtomicInteger peakThreadCount = new AtomicInteger(1);
 
     /**
      * The number of currently running non-daemon threads running, excluding
      * the {@linkplain VmThread#mainThread main} thread.
+     * Only updated with {@link #THREAD_LOCK} held, which {@link #joinAllNonDaemons()} waits on.
      */
-    private volatile int nonDaemonThreads;
+    private final AtomicInteger nonDaemonThreads = new AtomicInteger();
 
     /**
      * The head of the VM thread locals list.
@@ -283,11 +297,11 @@ public final class VmThreadMap {
         if (VmThread.TraceThreads) {
             boolean lockDisabledSafepoints = Log.lock();
             Log.print("Adding non-daemon thread - ");
-            Log.print(ACTIVE.nonDaemonThreads + 1);
+            Log.print(ACTIVE.nonDaemonThreads.get() + 1);
             Log.println(" non-daemon threads now running");
             Log.unlock(lockDisabledSafepoints);
         }
-        ACTIVE.nonDaemonThreads++;
+        ACTIVE.nonDaemonThreads.getAndAdd(1);
         return true;
     }
 
@@ -300,11 +314,11 @@ public final class VmThreadMap {
         if (VmThread.TraceThreads) {
             boolean lockDisabledSafepoints = Log.lock();
             Log.print("Removed non-daemon thread - ");
-            Log.print(ACTIVE.nonDaemonThreads - 1);
+            Log.print(ACTIVE.nonDaemonThreads.get() - 1);
             Log.println(" non-daemon threads remain");
             Log.unlock(lockDisabledSafepoints);
         }
-        ACTIVE.nonDaemonThreads--;
+        ACTIVE.nonDaemonThreads.getAndAdd(-1);
         THREAD_LOCK.notify();
     }
 
@@ -335,7 +349,7 @@ public final class VmThreadMap {
         if (!thread.daemon && thread != VmThread.mainThread) {
             decrementNonDaemonThreads();
         }
-        liveThreads--;
+        liveThreads.getAndAdd(-1);
     }
 
     private VmThreadMap() {
@@ -349,31 +363,46 @@ public final class VmThreadMap {
      * @param priority the initial priority of the thread
      */
     public void startThread(VmThread thread, Size stackSize, int priority) {
+        final int id;
         synchronized (THREAD_LOCK) {
-            final int id = idMap.acquire(thread);
+            id = idMap.acquire(thread);
             thread.daemon = thread.javaThread().isDaemon();
             if (!thread.daemon) {
                 if (!incrementNonDaemonThreads()) {
                     throw new IllegalStateException("Cannot start " + thread.javaThread() + " after the main thread has exited");
                 }
             }
+            // Account for the thread before it can run (and terminate).
+            liveThreads.getAndAdd(1);
+        }
 
-            final Word nativeThread = VmThread.nativeThreadCreate(id, stackSize, priority);
-            if (nativeThread.isZero()) {
-                /* This means that we did not create the native thread at all so there is nothing to
-                 * terminate. Most likely we ran out of memory allocating the stack, so we throw
-                 * an out of memory exception. There is a small possibility that the failure was in the
-                 * actual OS thread creation but that would require a way to disambiguate.
-                 */
-                decrementNonDaemonThreads();
-                throw new OutOfMemoryError("Unable to create new native thread");
-            }
-            totalStarted++;
-            liveThreads++;
-            if (liveThreads > peakThreadCount) {
-                peakThreadCount = liveThreads;
+        // The native thread blocks on THREAD_LOCK until it has been added to the map,
+        // so there is no need to hold the lock while creating it.
+        final Word nativeThread = VmThread.nativeThreadCreate(id, stackSize, priority);
+        if (nativeThread.isZero()) {
+            /* This means that we did not create the native thread at all so there is nothing to
+             * terminate. Most likely we ran out of memory allocating the stack, so we throw
+             * an out of memory exception. There is a small possibility that the failure was in the
+             * actual OS thread creation but that would require a way to disambiguate.
+             */
+            synchronized (THREAD_LOCK) {
+                liveThreads.getAndAdd(-1);
+                if (!thread.daemon) {
+                    decrementNonDaemonThreads();
+                }
             }
+            throw new OutOfMemoryError("Unable to create new native thread");
+        }
+        totalStarted.getAndAdd(1);
+        updatePeakThreadCount(liveThreads.get());
+    }
 
+    private void updatePeakThreadCount(int live) {
+        while (true) {
+            final int peak = peakThreadCount.get();
+            if (live <= peak || peakThreadCount.compareAndSet(peak, live)) {
+                return;
+            }
         }
     }
 
@@ -385,11 +414,11 @@ public final class VmThreadMap {
     public void joinAllNonDaemons() {
         FatalError.check(VmThread.current() == VmThread.mainThread, "Only the main thread should join non-daemon threads");
         synchronized (THREAD_LOCK) {
-            while (nonDaemonThreads > 0) {
+            while (nonDaemonThreads.get() > 0) {
                 if (VmThread.TraceThreads) {
                     boolean lockDisabledSafepoints = Log.lock();
                     Log.print("Main thread waiting for ");
-                    Log.print(nonDaemonThreads);
+                    Log.print(nonDaemonThreads.get());
                     Log.println(" non-daemon threads to terminate");
                     Log.unlock(lockDisabledSafepoints);
                 }
@@ -408,6 +437,7 @@ public final class VmThreadMap {
     /**
      * Iterates over all the VM thread locals in this thread map and run the specified procedure.
      * <b>NOTE: It is recommended that the caller synchronizes on {@link #THREAD_LOCK}.</b>
+     * Callers only interested in the {@link VmThread} objects should use {@link #forAllThreads(Procedure)} instead.
      *
      * @param predicate a predicate to check on the VM thread locals
      * @param procedure the procedure to apply to each VM thread locals
@@ -422,6 +452,32 @@ public final class VmThreadMap {
         }
     }
 
+    /**
+     * A procedure applied to the threads of a {@link VmThreadMap}.
+     */
+    public interface Procedure {
+        void run(VmThread vmThread);
+    }
+
+    /**
+     * Iterates over the threads that have been added to this map and not yet removed from it, and runs the specified procedure.
+     * This does not synchronize on {@link #THREAD_LOCK} and never blocks or retries: a thread being started or terminated
+     * concurrently may or may not be visited. The {@linkplain VmThread#tla() VM thread locals} of a visited thread
+     * must not be accessed, as they may be released at any time.
+     *
+     * @param procedure the procedure to apply to each thread
+     */
+    public void forAllThreads(Procedure procedure) {
+        final VmThread[] threads = idMap.threads;
+        for (int id = 1; id < threads.length; id++) {
+            final VmThread vmThread = threads[id];
+            // Pre-allocated threads and threads not yet added or already removed have no VM thread locals
+            if (vmThread != null && !vmThread.tla().isZero()) {
+                procedure.run(vmThread);
+            }
+        }
+    }
+
     /**
      * Gets the {@code VmThread} object associated with the specified thread id.
      *
@@ -445,49 +501,38 @@ public final class VmThreadMap {
      */
     public static Thread[] getThreads(final boolean includeJVMTIAgentThreads) {
         final ArrayList<Thread> threads = new ArrayList<Thread>();
-        Pointer.Procedure proc = new Pointer.Procedure() {
-            public void run(Pointer tla) {
-                VmThread vmThread = VmThread.fromTLA(tla);
-                if (vmThread.javaThread() != null && !vmThread.isVmOperationThread() && (includeJVMTIAgentThreads || !vmThread.isJVMTIAgentThread())) {
-                    threads.add(vmThread.javaThread());
+        Procedure proc = new Procedure() {
+            public void run(VmThread vmThread) {
+                final Thread javaThread = vmThread.javaThread();
+                if (javaThread != null && !vmThread.isVmOperationThread() && (includeJVMTIAgentThreads || !vmThread.isJVMTIAgentThread())) {
+                    threads.add(javaThread);
                 }
             }
         };
-        synchronized (THREAD_LOCK) {
-            VmThreadMap.ACTIVE.forAllThreadLocals(null, proc);
-        }
+        VmThreadMap.ACTIVE.forAllThreads(proc);
         return threads.toArray(new Thread[threads.size()]);
     }
 
     public static int getTotalStartedThreadCount() {
-        synchronized (THREAD_LOCK) {
-            return ACTIVE.totalStarted;
-        }
+        return ACTIVE.totalStarted.get();
     }
 
     public static int getPeakThreadCount() {
-        synchronized (THREAD_LOCK) {
-            return ACTIVE.peakThreadCount;
-        }
+        return ACTIVE.peakThreadCount.get();
     }
 
     public static void resetPeakThreadCount() {
-        synchronized (THREAD_LOCK) {
-            ACTIVE.peakThreadCount = ACTIVE.liveThreads;
-        }
+        ACTIVE.peakThreadCount.set(ACTIVE.liveThreads.get());
     }
 
     public static int getLiveTheadCount() {
-        synchronized (THREAD_LOCK) {
-            return ACTIVE.liveThreads;
-        }
+        return ACTIVE.liveThreads.get();
     }
 
     public static int getDaemonThreadCount() {
-        synchronized (THREAD_LOCK) {
-            // nonDaemonThreads does not include main but liveThreads does
-            return ACTIVE.liveThreads - (ACTIVE.nonDaemonThreads + 1);
-        }
+        // nonDaemonThreads does not include main but liveThreads does.
+        // The two counters are read separately, so the difference is clamped while a thread is starting.
+        return Math.max(0, ACTIVE.liveThreads.get() - (ACTIVE.nonDaemonThreads.get() + 1));
     }
 
 }
@@ -113,20 +113,36 @@ Address MaxSimAddressSpaceMorphing::processMAAddressAndRemap(Address addr, Addre
 void MaxSimAddressSpaceMorphing::activateDataTransformation(AddressRange_t * dataTransInfoMessage) {
     int dataTransInfoMessageSize = (int) ((Address) dataTransInfoMessage->hi - (Address) dataTransInfoMessage->lo);
     DataTransInfo dataTransInfo;
-    PointerTag_t transTag;
 
     dataTransInfo.ParseFromArray((const void *) dataTransInfoMessage->lo, dataTransInfoMessageSize);
-    transTag = (PointerTag_t) dataTransInfo.transtag();
 
     futex_lock(& classIdToFieldOffsetRemapMapLock);
+    addFieldOffsetRemap(dataTransInfo);
+    futex_unlock(& classIdToFieldOffsetRemapMapLock);
+}
+
+void MaxSimAddressSpaceMorphing::activateDataTransformationBatch(AddressRange_t * dataTransDBMessage) {
+    int dataTransDBMessageSize = (int) ((Address) dataTransDBMessage->hi - (Address) dataTransDBMessage->lo);
+    DataTransDB dataTransDB;
+
+    dataTransDB.ParseFromArray((const void *) dataTransDBMessage->lo, dataTransDBMessageSize);
+
+    futex_lock(& classIdToFieldOffsetRemapMapLock);
+    for (int i = 0; i < dataTransDB.datatransinfo_size(); i++) {
+        addFieldOffsetRemap(dataTransDB.datatransinfo(i));
+    }
+    futex_unlock(& classIdToFieldOffsetRemapMapLock);
+}
+
+void MaxSimAddressSpaceMorphing::addFieldOffsetRemap(const DataTransInfo & dataTransInfo) {
+    PointerTag_t transTag = (PointerTag_t) dataTransInfo.transtag();
     std::map<MAOffset_t, MAOffset_t> & tagOffsetRemap =
         (classIdToFieldOffsetRemapMap.emplace(transTag, std::map<MAOffset_t, MAOffset_t>()).first)->second;
 
     for (int i = 0; i < dataTransInfo.fieldoffsetremappairs_size(); i++) {
-        FieldOffsetRemapPair p = dataTransInfo.fieldoffsetremappairs(i);
+        const FieldOffsetRemapPair & p = dataTransInfo.fieldoffsetremappairs(i);
         tagOffsetRemap[p.fromoffset()] = p.tooffset();
     }
-    futex_unlock(& classIdToFieldOffsetRemapMapLock);
 }
 
 MaxSimAddressSpaceMorphing::MaxSimAddressSpaceMorphing() : classIdToFieldOffsetRemapMapLock(0) {
@@ -70,6 +70,10 @@ class MaxSimAddressSpaceMorphing {
     //
     void activateDataTransformation(AddressRange_t * dataTransInfoMessage);
 
+    // Activates a batch of data transformations via address space morhping.
+    //
+    void activateDataTransformationBatch(AddressRange_t * dataTransDBMessage);
+
   private:
     const int LAYOUT_SCALE_FACTOR = MaxSimConfig::default_instance().layoutscalefactor();
     const int LAYOUT_SCALE_REF_FACTOR = MaxSimConfig::default_instance().layoutscalereffactor();
@@ -98,6 +102,10 @@ class MaxSimAddressSpaceMorphing {
 
     std::map<PointerTag_t, std::map<MAOffset_t, MAOffset_t>> classIdToFieldOffsetRemapMap;
 
+    // Adds field offset remapping of a data transformation (classIdToFieldOffsetRemapMapLock should be held).
+    //
+    void addFieldOffsetRemap(const DataTransInfo & dataTransInfo);
+
   // Singleton part
   public:
     // Get instance
@@ -94,6 +94,20 @@ VOID MaxSimMediator::HandleMaxSimMagicOp(THREADID tid, ADDRINT * op, ADDRINT arg
             MaxSimProfiling::getInst().profileObjectAllocation(tag, tagType, size, tid);
             return;
         }
+        case MAXSIM_M_OPC_PROFILE_OBJECT_ALLOCATION_BATCH: {
+            Arg64_t * batch = (Arg64_t *) arg;
+            Arg64_t recordsNum = batch[0];
+
+            for (Arg64_t i = 1; i <= recordsNum; i++) {
+                Arg64_t record = batch[i];
+                short tag = record >> MAXSIM_M_OP_PROFILE_OBJECT_ALLOCATION_P_ARG_TAG_OFF;
+                short tagType = record >> MAXSIM_M_OP_PROFILE_OBJECT_ALLOCATION_P_ARG_TAG_TYPE_OFF;
+                int size = record >> MAXSIM_M_OP_PROFILE_OBJECT_ALLOCATION_P_ARG_SIZE_OFF;
+
+                MaxSimProfiling::getInst().profileObjectAllocation(tag, tagType, size, tid);
+            }
+            return;
+        }
         case MAXSIM_M_OPC_ENABLE_PROFILE_COLLECTION: {
             MaxineVMOperationMode maxineVMOperationMode = (MaxineVMOperationMode) arg;
 
@@ -142,6 +156,11 @@ VOID MaxSimMediator::HandleMaxSimMagicOp(THREADID tid, ADDRINT * op, ADDRINT arg
             MaxSimAddressSpaceMorphing::getInst().activateDataTransformation(dataTransInfoRange);
             return;
         }
+        case MAXSIM_M_OPC_ACTIVATE_DATA_TRANS_BATCH_VIA_ADDR_SPACE_MORPH: {
+            AddressRange_t * dataTransDBRange = (AddressRange_t *) arg;
+            MaxSimAddressSpaceMorphing::getInst().activateDataTransformationBatch(dataTransDBRange);
+            return;
+        }
         default:
             panic("Thread %d issued unknown MaxSim magic op %ld!", tid, *op);
     }